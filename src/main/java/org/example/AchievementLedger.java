@@ -0,0 +1,194 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One user's achievement state: the measures the rules depend on and the date each
+ * achievement was unlocked.
+ *
+ * Measures are updated incrementally from habit check, goal note, habit creation and XP
+ * events, and each event only evaluates the rules for the measures it changed. Unlocks are
+ * dated with the date of the event that crossed the threshold and never revert, so the
+ * achievement list is served from stored state.
+ *
+ * Thread-safe.
+ */
+public class AchievementLedger {
+    private static final Map<AchievementRule.Measure, List<AchievementRule>> RULES_BY_MEASURE =
+        new EnumMap<>(AchievementRule.Measure.class);
+
+    static {
+        for (AchievementRule.Measure measure : AchievementRule.Measure.values()) {
+            RULES_BY_MEASURE.put(measure, new ArrayList<>());
+        }
+        for (AchievementRule rule : AchievementRule.values()) {
+            RULES_BY_MEASURE.get(rule.getMeasure()).add(rule);
+        }
+        for (List<AchievementRule> rules : RULES_BY_MEASURE.values()) {
+            rules.sort(Comparator.comparingInt(AchievementRule::getThreshold));
+        }
+    }
+
+    private final Map<AchievementRule, LocalDate> unlocked = new EnumMap<>(AchievementRule.class);
+    private final HabitRunTracker habitRuns = new HabitRunTracker();
+    private LocalDate lastActiveDate;
+    private int activeDayRun;
+    private int activeDays;
+
+    /**
+     * Restores a previously recorded unlock. The earlier date wins if the rule is already unlocked.
+     *
+     * @param rule the achievement rule
+     * @param date the unlock date
+     */
+    public synchronized void restore(AchievementRule rule, LocalDate date) {
+        unlocked.merge(rule, date, (existing, restored) -> restored.isBefore(existing) ? restored : existing);
+    }
+
+    /**
+     * Records a habit check.
+     *
+     * @param check the habit check
+     * @param userStats the user's stats after the check, or null to leave XP and level rules untouched
+     * @return the achievements this check unlocked
+     */
+    public synchronized List<AchievementRule> recordHabitCheck(HabitCheck check, UserStats userStats) {
+        List<AchievementRule> newlyUnlocked = new ArrayList<>();
+        LocalDate date = check.date();
+        evaluate(AchievementRule.Measure.STREAK, habitRuns.record(check), date, newlyUnlocked);
+        recordActivity(date, newlyUnlocked);
+        recordStats(date, userStats, newlyUnlocked);
+        return newlyUnlocked;
+    }
+
+    /**
+     * Records a goal note. Notes that earned XP count as activity.
+     *
+     * @param note the goal note
+     * @param userStats the user's stats after the note, or null to leave XP and level rules untouched
+     * @return the achievements this note unlocked
+     */
+    public synchronized List<AchievementRule> recordGoalNote(GoalNote note, UserStats userStats) {
+        List<AchievementRule> newlyUnlocked = new ArrayList<>();
+        if (note.points() > 0) {
+            recordActivity(note.date(), newlyUnlocked);
+        }
+        recordStats(note.date(), userStats, newlyUnlocked);
+        return newlyUnlocked;
+    }
+
+    /**
+     * Records the number of habits a user has created.
+     *
+     * @param date the date the count was observed
+     * @param habitCount the number of habits
+     * @return the achievements this unlocked
+     */
+    public synchronized List<AchievementRule> recordHabitCount(LocalDate date, long habitCount) {
+        List<AchievementRule> newlyUnlocked = new ArrayList<>();
+        evaluate(AchievementRule.Measure.HABITS, (int) Math.min(habitCount, Integer.MAX_VALUE), date, newlyUnlocked);
+        return newlyUnlocked;
+    }
+
+    /**
+     * Records a user's XP and level.
+     *
+     * @param date the date of the change
+     * @param userStats the user's stats
+     * @return the achievements this change unlocked
+     */
+    public synchronized List<AchievementRule> recordStats(LocalDate date, UserStats userStats) {
+        List<AchievementRule> newlyUnlocked = new ArrayList<>();
+        recordStats(date, userStats, newlyUnlocked);
+        return newlyUnlocked;
+    }
+
+    /**
+     * Records the user's average goal consistency.
+     *
+     * @param date the date the consistency was measured
+     * @param averageConsistency the average consistency score, from 0.0 to 1.0
+     * @return the achievements this unlocked
+     */
+    public synchronized List<AchievementRule> recordConsistency(LocalDate date, double averageConsistency) {
+        List<AchievementRule> newlyUnlocked = new ArrayList<>();
+        evaluate(AchievementRule.Measure.CONSISTENCY_PERCENT, (int) Math.floor(averageConsistency * 100 + 1e-9),
+            date, newlyUnlocked);
+        return newlyUnlocked;
+    }
+
+    /**
+     * Returns true if some achievement depending on a measure is still locked,
+     * so callers can skip computing measures that cannot unlock anything.
+     *
+     * @param measure the measure
+     * @return true if an achievement for the measure is locked
+     */
+    public synchronized boolean isPending(AchievementRule.Measure measure) {
+        for (AchievementRule rule : RULES_BY_MEASURE.get(measure)) {
+            if (!unlocked.containsKey(rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the date an achievement was unlocked.
+     *
+     * @param rule the achievement rule
+     * @return the unlock date, or null if locked
+     */
+    public synchronized LocalDate getUnlockedDate(AchievementRule rule) {
+        return unlocked.get(rule);
+    }
+
+    /**
+     * Gets every achievement, locked or unlocked.
+     *
+     * @return the achievements in rule order
+     */
+    public synchronized List<Achievement> getAchievements() {
+        List<Achievement> achievements = new ArrayList<>(AchievementRule.values().length);
+        for (AchievementRule rule : AchievementRule.values()) {
+            achievements.add(rule.toAchievement(unlocked.get(rule)));
+        }
+        return achievements;
+    }
+
+    private void recordActivity(LocalDate date, List<AchievementRule> newlyUnlocked) {
+        if (lastActiveDate != null && !date.isAfter(lastActiveDate)) {
+            return; // Same day, or recorded out of order
+        }
+        activeDayRun = lastActiveDate != null && date.equals(lastActiveDate.plusDays(1)) ? activeDayRun + 1 : 1;
+        activeDays++;
+        lastActiveDate = date;
+        evaluate(AchievementRule.Measure.ACTIVE_DAY_RUN, activeDayRun, date, newlyUnlocked);
+        evaluate(AchievementRule.Measure.ACTIVE_DAYS, activeDays, date, newlyUnlocked);
+    }
+
+    private void recordStats(LocalDate date, UserStats userStats, List<AchievementRule> newlyUnlocked) {
+        if (userStats != null) {
+            evaluate(AchievementRule.Measure.LEVEL, userStats.getLevel(), date, newlyUnlocked);
+            evaluate(AchievementRule.Measure.TOTAL_XP, userStats.getTotalXp(), date, newlyUnlocked);
+        }
+    }
+
+    private void evaluate(AchievementRule.Measure measure, int value, LocalDate date,
+                          List<AchievementRule> newlyUnlocked) {
+        // Rules are sorted by threshold, so stop at the first one out of reach
+        for (AchievementRule rule : RULES_BY_MEASURE.get(measure)) {
+            if (rule.getThreshold() > value) {
+                return;
+            }
+            if (unlocked.putIfAbsent(rule, date) == null) {
+                newlyUnlocked.add(rule);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.time.LocalDate;
+
+/**
+ * The achievements a user can unlock and the condition for each.
+ * Every rule compares one tracked measure against a threshold, so an event only needs to
+ * check the rules for the measures it changes.
+ */
+public enum AchievementRule {
+    RISING_STAR(AchievementType.LEVEL_MILESTONE, Measure.LEVEL, 5,
+        "Rising Star", "Reached Level 5", "Reached Level 5"),
+    EXPERIENCED(AchievementType.LEVEL_MILESTONE, Measure.LEVEL, 10,
+        "Experienced", "Reached Level 10", "Reached Level 10"),
+    VETERAN(AchievementType.LEVEL_MILESTONE, Measure.LEVEL, 20,
+        "Veteran", "Reached Level 20", "Reached Level 20"),
+    MASTER(AchievementType.LEVEL_MILESTONE, Measure.LEVEL, 50,
+        "Master", "Reached Level 50", "Reached Level 50"),
+    WEEK_WARRIOR(AchievementType.STREAK_MASTER, Measure.STREAK, 7,
+        "Week Warrior", "Maintained a 7-day streak", "Maintained a 7-day streak"),
+    MONTH_MASTER(AchievementType.STREAK_MASTER, Measure.STREAK, 30,
+        "Month Master", "Maintained a 30-day streak", "Maintained a 30-day streak"),
+    CENTURY_CLUB(AchievementType.STREAK_MASTER, Measure.STREAK, 100,
+        "Century Club", "Maintained a 100-day streak", "Maintained a 100-day streak"),
+    CONSISTENCY_KING(AchievementType.CONSISTENCY_KING, Measure.CONSISTENCY_PERCENT, 80,
+        "Consistency King", "Achieved 80% consistency", "Achieved 80% consistency"),
+    CONSISTENCY_MASTER(AchievementType.CONSISTENCY_KING, Measure.CONSISTENCY_PERCENT, 90,
+        "Consistency Master", "Achieved 90% consistency", "Achieved 90% consistency"),
+    XP_NOVICE(AchievementType.XP_HARVESTER, Measure.TOTAL_XP, 1000,
+        "XP Novice", "Earned 1,000 XP", "Earned 1,000 XP"),
+    XP_COLLECTOR(AchievementType.XP_HARVESTER, Measure.TOTAL_XP, 5000,
+        "XP Collector", "Earned 5,000 XP", "Earned 5,000 XP"),
+    XP_MASTER(AchievementType.XP_HARVESTER, Measure.TOTAL_XP, 10000,
+        "XP Master", "Earned 10,000 XP", "Earned 10,000 XP"),
+    XP_LEGEND(AchievementType.XP_HARVESTER, Measure.TOTAL_XP, 50000,
+        "XP Legend", "Earned 50,000 XP", "Earned 50,000 XP"),
+    PERFECT_WEEK(AchievementType.WEEK_WARRIOR, Measure.ACTIVE_DAY_RUN, 7,
+        "Perfect Week", "Active every day for a week", "Be active every day for a week"),
+    PERFECT_MONTH(AchievementType.MONTH_CHAMPION, Measure.ACTIVE_DAY_RUN, 30,
+        "Perfect Month", "Active every day for a month", "Be active every day for a month"),
+    FIRST_STEPS(AchievementType.FIRST_STEPS, Measure.ACTIVE_DAYS, 1,
+        "First Steps", "Completed your first activity", "Complete your first activity"),
+    HABIT_MASTER(AchievementType.HABIT_MASTER, Measure.HABITS, 5,
+        "Habit Master", "Created 5 or more habits", "Create 5 or more habits");
+
+    private final AchievementType type;
+    private final Measure measure;
+    private final int threshold;
+    private final String title;
+    private final String unlockedDescription;
+    private final String lockedDescription;
+
+    AchievementRule(AchievementType type, Measure measure, int threshold, String title,
+                    String unlockedDescription, String lockedDescription) {
+        this.type = type;
+        this.measure = measure;
+        this.threshold = threshold;
+        this.title = title;
+        this.unlockedDescription = unlockedDescription;
+        this.lockedDescription = lockedDescription;
+    }
+
+    public AchievementType getType() {
+        return type;
+    }
+
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Builds the achievement for this rule.
+     *
+     * @param unlockedDate when the achievement was unlocked, or null if it is still locked
+     * @return the achievement
+     */
+    public Achievement toAchievement(LocalDate unlockedDate) {
+        if (unlockedDate == null) {
+            return Achievement.locked(type, title, lockedDescription);
+        }
+        return Achievement.unlocked(type, title, unlockedDescription, unlockedDate);
+    }
+
+    /**
+     * A tracked quantity that achievement thresholds are compared against.
+     */
+    public enum Measure {
+        LEVEL,                // Current level
+        TOTAL_XP,             // Current total XP
+        STREAK,               // Longest run of consecutive completions of one habit
+        CONSISTENCY_PERCENT,  // Average goal consistency, as a percentage
+        ACTIVE_DAY_RUN,       // Longest run of consecutive days with activity
+        ACTIVE_DAYS,          // Days with activity
+        HABITS                // Habits created
+    }
+}
@@ -1,173 +1,236 @@
 package org.example;
 
+import org.example.persistence.entity.AchievementUnlockEntity;
+import org.example.persistence.repository.AchievementUnlockRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service for calculating and managing user achievements.
+ * Service for unlocking and serving user achievements.
+ *
+ * Each user has an {@link AchievementLedger} that is updated from habit check, goal note,
+ * habit creation and XP events, so an achievement is unlocked on the date the event crossed
+ * its threshold and reads are served from stored state. Unlocks are persisted when a
+ * repository is available.
+ *
+ * A ledger is built the first time a user's achievements are read: stored unlocks are
+ * restored and the user's history is replayed in date order, which recovers the dates of
+ * streak and activity achievements. XP, level and habit count achievements not already
+ * stored are dated when first observed, since XP caps, decay and habit creation are not part
+ * of the replayed history. Habits are counted from the stored habit list; without a habit
+ * repository, the habits the user has checked are counted instead.
  */
 @Service
 public class AchievementService {
+    private final AchievementUnlockRepository unlockRepository;
+    private final HabitRepository habitRepository;
+    private final AnalyticsService analyticsService;
+    private final Clock clock;
+    private final Map<Long, AchievementLedger> ledgers = new ConcurrentHashMap<>();
 
     /**
-     * Calculates all achievements for a user based on their stats and activity.
+     * Creates an achievement service that keeps unlocks in memory only.
+     */
+    public AchievementService() {
+        this(null, null);
+    }
+
+    @Autowired
+    public AchievementService(AchievementUnlockRepository unlockRepository, HabitRepository habitRepository) {
+        this(unlockRepository, habitRepository, new AnalyticsService(), Clock.systemDefaultZone());
+    }
+
+    AchievementService(AchievementUnlockRepository unlockRepository, HabitRepository habitRepository,
+                       AnalyticsService analyticsService, Clock clock) {
+        this.unlockRepository = unlockRepository;
+        this.habitRepository = habitRepository;
+        this.analyticsService = analyticsService;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets all achievements for a user, locked and unlocked.
      *
+     * @param userId the user's id
      * @param userStats the user's current stats
-     * @param habits the user's habits
-     * @param goals the user's goals
-     * @param habitService the habit service
-     * @param goalService the goal service
-     * @param analyticsService the analytics service
-     * @param currentDate the current date
-     * @return a list of achievements (both locked and unlocked)
+     * @param habitService the user's habit service
+     * @param goalService the user's goal service
+     * @return the achievements
      */
-    public List<Achievement> calculateAchievements(UserStats userStats,
-                                                   List<Habit> habits,
-                                                   List<Goal> goals,
-                                                   HabitService habitService,
-                                                   GoalService goalService,
-                                                   AnalyticsService analyticsService,
-                                                   LocalDate currentDate) {
-        List<Achievement> achievements = new ArrayList<>();
-
-        // Level milestones
-        achievements.add(calculateLevelAchievement(userStats, 5, "Rising Star", "Reached Level 5"));
-        achievements.add(calculateLevelAchievement(userStats, 10, "Experienced", "Reached Level 10"));
-        achievements.add(calculateLevelAchievement(userStats, 20, "Veteran", "Reached Level 20"));
-        achievements.add(calculateLevelAchievement(userStats, 50, "Master", "Reached Level 50"));
-
-        // Streak achievements
-        Map<Habit, HabitStreak> streaks = analyticsService.calculateAllHabitStreaks(
-            habits, habitService, currentDate);
-        achievements.add(calculateStreakAchievement(streaks, 7, "Week Warrior", "Maintained a 7-day streak"));
-        achievements.add(calculateStreakAchievement(streaks, 30, "Month Master", "Maintained a 30-day streak"));
-        achievements.add(calculateStreakAchievement(streaks, 100, "Century Club", "Maintained a 100-day streak"));
-
-        // Consistency achievements
-        Map<Goal, GoalConsistency> consistency = analyticsService.calculateAllGoalConsistency(
-            goals, goalService, currentDate);
-        double avgConsistency = consistency.values().stream()
-            .mapToDouble(GoalConsistency::consistencyScore)
-            .average()
-            .orElse(0.0);
-        achievements.add(calculateConsistencyAchievement(avgConsistency, 0.8, 
-            "Consistency King", "Achieved 80% consistency"));
-        achievements.add(calculateConsistencyAchievement(avgConsistency, 0.9, 
-            "Consistency Master", "Achieved 90% consistency"));
-
-        // XP achievements
-        achievements.add(calculateXpAchievement(userStats, 1000, "XP Novice", "Earned 1,000 XP"));
-        achievements.add(calculateXpAchievement(userStats, 5000, "XP Collector", "Earned 5,000 XP"));
-        achievements.add(calculateXpAchievement(userStats, 10000, "XP Master", "Earned 10,000 XP"));
-        achievements.add(calculateXpAchievement(userStats, 50000, "XP Legend", "Earned 50,000 XP"));
-
-        // Activity achievements
-        List<XpHistoryEntry> history = analyticsService.buildXpHistory(habitService, goalService);
-        achievements.add(calculateWeeklyActivityAchievement(history, currentDate));
-        achievements.add(calculateMonthlyActivityAchievement(history, currentDate));
-
-        // First steps achievement
-        if (!history.isEmpty()) {
-            achievements.add(Achievement.unlocked(AchievementType.FIRST_STEPS, 
-                "First Steps", "Completed your first activity", history.get(0).date()));
-        } else {
-            achievements.add(Achievement.locked(AchievementType.FIRST_STEPS, 
-                "First Steps", "Complete your first activity"));
+    public List<Achievement> getAchievements(Long userId, UserStats userStats,
+                                             HabitService habitService, GoalService goalService) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id cannot be null");
         }
-
-        // Habit master achievement
-        if (habits.size() >= 5) {
-            achievements.add(Achievement.unlocked(AchievementType.HABIT_MASTER, 
-                "Habit Master", "Created 5 or more habits", currentDate));
-        } else {
-            achievements.add(Achievement.locked(AchievementType.HABIT_MASTER, 
-                "Habit Master", "Create 5 or more habits"));
+        if (userStats == null) {
+            throw new IllegalArgumentException("UserStats cannot be null");
+        }
+        AchievementLedger ledger = ledgers.get(userId);
+        if (ledger == null) {
+            // Loaded outside the map: a concurrent load may win, and only the kept ledger is saved
+            List<AchievementRule> unlocked = new ArrayList<>();
+            AchievementLedger loaded = load(userId, userStats, habitService, goalService, unlocked);
+            ledger = ledgers.putIfAbsent(userId, loaded);
+            if (ledger == null) {
+                persist(userId, loaded, unlocked);
+                ledger = loaded;
+            }
         }
+        return ledger.getAchievements();
+    }
 
-        return achievements;
+    /**
+     * Follows a habit check published after it was saved.
+     */
+    @EventListener
+    public void onHabitChecked(HabitChecked event) {
+        recordHabitCheck(event.userId(), event.check(), event.after());
+    }
+
+    /**
+     * Follows a goal note published after it was saved.
+     */
+    @EventListener
+    public void onGoalNoteAdded(GoalNoteAdded event) {
+        recordGoalNote(event.userId(), event.note(), event.after(), event.goalService());
     }
 
-    private Achievement calculateLevelAchievement(UserStats stats, int targetLevel, 
-                                                  String name, String description) {
-        if (stats.getLevel() >= targetLevel) {
-            return Achievement.unlocked(AchievementType.LEVEL_MILESTONE, name, description, 
-                LocalDate.now()); // Approximate - in production, track when level was reached
-        } else {
-            return Achievement.locked(AchievementType.LEVEL_MILESTONE, name, description);
+    /**
+     * Follows a habit creation published after it was saved.
+     */
+    @EventListener
+    public void onHabitCreated(HabitCreated event) {
+        recordHabitCount(event.userId(), LocalDate.now(clock), event.habitCount());
+    }
+
+    /**
+     * Records a habit check. Ignored until the user's achievements have been loaded,
+     * since loading replays the check from history.
+     *
+     * @param userId the user's id
+     * @param check the habit check
+     * @param userStats the user's stats after the check
+     */
+    public void recordHabitCheck(Long userId, HabitCheck check, UserStats userStats) {
+        AchievementLedger ledger = ledgers.get(userId);
+        if (ledger != null) {
+            persist(userId, ledger, ledger.recordHabitCheck(check, userStats));
         }
     }
 
-    private Achievement calculateStreakAchievement(Map<Habit, HabitStreak> streaks, 
-                                                  int targetStreak, String name, String description) {
-        boolean hasStreak = streaks.values().stream()
-            .anyMatch(s -> s.currentStreak() >= targetStreak || s.longestStreak() >= targetStreak);
-        
-        if (hasStreak) {
-            LocalDate unlockDate = streaks.values().stream()
-                .filter(s -> s.currentStreak() >= targetStreak || s.longestStreak() >= targetStreak)
-                .map(HabitStreak::streakStartDate)
-                .min(LocalDate::compareTo)
-                .orElse(LocalDate.now());
-            return Achievement.unlocked(AchievementType.STREAK_MASTER, name, description, unlockDate);
-        } else {
-            return Achievement.locked(AchievementType.STREAK_MASTER, name, description);
+    /**
+     * Records a goal note. Goal consistency is only recomputed while a consistency
+     * achievement is still locked.
+     *
+     * @param userId the user's id
+     * @param note the goal note
+     * @param userStats the user's stats after the note
+     * @param goalService the user's goal service
+     */
+    public void recordGoalNote(Long userId, GoalNote note, UserStats userStats, GoalService goalService) {
+        AchievementLedger ledger = ledgers.get(userId);
+        if (ledger == null) {
+            return;
         }
+        List<AchievementRule> unlocked = new ArrayList<>(ledger.recordGoalNote(note, userStats));
+        if (ledger.isPending(AchievementRule.Measure.CONSISTENCY_PERCENT)) {
+            unlocked.addAll(ledger.recordConsistency(note.date(), averageConsistency(goalService, note.date())));
+        }
+        persist(userId, ledger, unlocked);
     }
 
-    private Achievement calculateConsistencyAchievement(double consistency, double target, 
-                                                       String name, String description) {
-        if (consistency >= target) {
-            return Achievement.unlocked(AchievementType.CONSISTENCY_KING, name, description, LocalDate.now());
-        } else {
-            return Achievement.locked(AchievementType.CONSISTENCY_KING, name, description);
+    /**
+     * Records the number of habits a user has created. Ignored until the user's achievements
+     * have been loaded, since loading counts the stored habits.
+     *
+     * @param userId the user's id
+     * @param date the date of the change
+     * @param habitCount the number of habits the user has
+     */
+    public void recordHabitCount(Long userId, LocalDate date, long habitCount) {
+        AchievementLedger ledger = ledgers.get(userId);
+        if (ledger != null) {
+            persist(userId, ledger, ledger.recordHabitCount(date, habitCount));
         }
     }
 
-    private Achievement calculateXpAchievement(UserStats stats, int targetXp, 
-                                              String name, String description) {
-        if (stats.getTotalXp() >= targetXp) {
-            return Achievement.unlocked(AchievementType.XP_HARVESTER, name, description, LocalDate.now());
-        } else {
-            return Achievement.locked(AchievementType.XP_HARVESTER, name, description);
+    /**
+     * Records a change to a user's XP or level.
+     *
+     * @param userId the user's id
+     * @param date the date of the change
+     * @param userStats the user's new stats
+     */
+    public void recordXpUpdate(Long userId, LocalDate date, UserStats userStats) {
+        AchievementLedger ledger = ledgers.get(userId);
+        if (ledger != null) {
+            persist(userId, ledger, ledger.recordStats(date, userStats));
         }
     }
 
-    private Achievement calculateWeeklyActivityAchievement(List<XpHistoryEntry> history, LocalDate currentDate) {
-        LocalDate weekStart = currentDate.minusDays(6);
-        long activeDays = history.stream()
-            .filter(entry -> !entry.date().isBefore(weekStart) && !entry.date().isAfter(currentDate))
-            .map(XpHistoryEntry::date)
-            .distinct()
-            .count();
-        
-        if (activeDays >= 7) {
-            return Achievement.unlocked(AchievementType.WEEK_WARRIOR, 
-                "Perfect Week", "Active every day for a week", currentDate);
-        } else {
-            return Achievement.locked(AchievementType.WEEK_WARRIOR, 
-                "Perfect Week", "Be active every day for a week");
+    /**
+     * Gets the number of users whose achievement ledgers are held in memory.
+     *
+     * @return the cached user count
+     */
+    public int getCachedUserCount() {
+        return ledgers.size();
+    }
+
+    private AchievementLedger load(Long userId, UserStats userStats, HabitService habitService,
+                                   GoalService goalService, List<AchievementRule> unlocked) {
+        AchievementLedger ledger = new AchievementLedger();
+        if (unlockRepository != null) {
+            for (AchievementUnlockEntity entity : unlockRepository.findByUserId(userId)) {
+                try {
+                    ledger.restore(AchievementRule.valueOf(entity.getAchievement()), entity.getUnlockedDate());
+                } catch (IllegalArgumentException e) {
+                    // Achievement no longer exists
+                }
+            }
         }
+
+        HistoryReplay.replay(habitService, goalService,
+            check -> unlocked.addAll(ledger.recordHabitCheck(check, null)),
+            note -> unlocked.addAll(ledger.recordGoalNote(note, null)));
+
+        LocalDate today = LocalDate.now(clock);
+        unlocked.addAll(ledger.recordStats(today, userStats));
+        long habitCount = habitRepository != null
+            ? habitRepository.countByUserId(userId)
+            : habitService.getCheckedHabits().size();
+        unlocked.addAll(ledger.recordHabitCount(today, habitCount));
+        if (ledger.isPending(AchievementRule.Measure.CONSISTENCY_PERCENT)) {
+            unlocked.addAll(ledger.recordConsistency(today, averageConsistency(goalService, today)));
+        }
+        return ledger;
+    }
+
+    private double averageConsistency(GoalService goalService, LocalDate date) {
+        return analyticsService.calculateAllGoalConsistency(goalService.getAllGoals(), goalService, date)
+            .values().stream()
+            .mapToDouble(GoalConsistency::consistencyScore)
+            .average()
+            .orElse(0.0);
     }
 
-    private Achievement calculateMonthlyActivityAchievement(List<XpHistoryEntry> history, LocalDate currentDate) {
-        LocalDate monthStart = currentDate.minusDays(29);
-        long activeDays = history.stream()
-            .filter(entry -> !entry.date().isBefore(monthStart) && !entry.date().isAfter(currentDate))
-            .map(XpHistoryEntry::date)
-            .distinct()
-            .count();
-        
-        if (activeDays >= 30) {
-            return Achievement.unlocked(AchievementType.MONTH_CHAMPION, 
-                "Perfect Month", "Active every day for a month", currentDate);
-        } else {
-            return Achievement.locked(AchievementType.MONTH_CHAMPION, 
-                "Perfect Month", "Be active every day for a month");
+    private void persist(Long userId, AchievementLedger ledger, List<AchievementRule> unlocked) {
+        if (unlockRepository == null || unlocked.isEmpty()) {
+            return;
+        }
+        List<AchievementUnlockEntity> entities = new ArrayList<>(unlocked.size());
+        for (AchievementRule rule : unlocked) {
+            entities.add(new AchievementUnlockEntity(userId, rule.name(), ledger.getUnlockedDate(rule)));
         }
+        unlockRepository.saveAll(entities);
     }
 }
-
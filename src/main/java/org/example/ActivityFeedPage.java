@@ -0,0 +1,30 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * One page of the activity feed.
+ *
+ * @param entries the entries on this page, newest first
+ * @param nextCursor the opaque cursor for the following (older) page, or null if this is the last page
+ */
+public record ActivityFeedPage(List<ActivityFeedEntry> entries, String nextCursor) {
+    /**
+     * Creates an activity feed page.
+     */
+    public ActivityFeedPage {
+        if (entries == null) {
+            throw new IllegalArgumentException("Entries cannot be null");
+        }
+        entries = List.copyOf(entries);
+    }
+
+    /**
+     * Returns true if older entries remain after this page.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -2,109 +2,251 @@ package org.example;
 
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Service for generating activity feed entries.
+ *
+ * The feed is a lazy k-way merge of per-source iterators that already run newest date
+ * first (habit checks, goal notes, and the XP gained from each), so a page decodes only
+ * the days it returns instead of the user's whole history.
+ * Paging uses an opaque cursor recording the last date returned and how many entries
+ * each source had produced for that date, so resuming is O(page size) as well.
  */
 @Service
 public class ActivityFeedService {
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 200;
+    private static final String CURSOR_VERSION = "1";
+
+    private static final int SOURCE_COUNT = 4;
+
+    private static final Comparator<SourceHead> NEWEST_FIRST =
+        Comparator.comparing((SourceHead head) -> head.entry.timestamp()).reversed()
+            .thenComparingInt(head -> head.source);
+
+    private final XpCalculator xpCalculator = new XpCalculator();
 
     /**
-     * Generates activity feed for a user.
+     * Generates the most recent page of the activity feed for a user.
      *
-     * @param userStats the user's current stats
-     * @param habits the user's habits
-     * @param goals the user's goals
      * @param habitService the habit service
      * @param goalService the goal service
-     * @param analyticsService the analytics service
-     * @param limit maximum number of entries to return (default 50)
+     * @param limit maximum number of entries to return (default 50, capped at 200)
      * @return a list of activity feed entries, sorted by timestamp (newest first)
      */
-    public List<ActivityFeedEntry> generateActivityFeed(UserStats userStats,
-                                                        List<Habit> habits,
-                                                        List<Goal> goals,
-                                                        HabitService habitService,
+    public List<ActivityFeedEntry> generateActivityFeed(HabitService habitService,
                                                         GoalService goalService,
-                                                        AnalyticsService analyticsService,
                                                         Integer limit) {
+        return getActivityFeedPage(habitService, goalService, limit, null).entries();
+    }
+
+    /**
+     * Gets a page of the activity feed for a user.
+     *
+     * @param habitService the habit service
+     * @param goalService the goal service
+     * @param limit maximum number of entries to return (default 50, capped at 200)
+     * @param cursor the cursor returned with the previous page, or null for the newest page
+     * @return the page, with a cursor for the next (older) page if more entries remain
+     * @throws IllegalArgumentException if a service is null or the cursor is malformed
+     */
+    public ActivityFeedPage getActivityFeedPage(HabitService habitService,
+                                                GoalService goalService,
+                                                Integer limit,
+                                                String cursor) {
+        if (habitService == null) {
+            throw new IllegalArgumentException("HabitService cannot be null");
+        }
+        if (goalService == null) {
+            throw new IllegalArgumentException("GoalService cannot be null");
+        }
         if (limit == null || limit <= 0) {
-            limit = 50;
+            limit = DEFAULT_LIMIT;
         }
-        if (limit > 200) {
-            limit = 200; // Cap at 200
+        if (limit > MAX_LIMIT) {
+            limit = MAX_LIMIT; // Cap at 200
         }
 
-        List<ActivityFeedEntry> feed = new ArrayList<>();
-        LocalDate currentDate = LocalDate.now();
-
-        // Add habit activities
-        List<HabitCheck> habitChecks = habitService.getAllHabitChecks();
-        for (HabitCheck check : habitChecks) {
-            LocalDateTime timestamp = check.date().atStartOfDay();
-            if (check.result() == HabitCheckResult.DONE) {
-                feed.add(new ActivityFeedEntry(
-                    timestamp,
-                    ActivityType.HABIT_COMPLETED,
-                    "Habit Completed",
-                    String.format("Completed '%s'", check.habit().getName()),
-                    check.habit().getDifficulty().getValue() * 10,
-                    "HABIT"
-                ));
-            } else {
-                feed.add(new ActivityFeedEntry(
-                    timestamp,
+        Cursor position = cursor != null ? Cursor.decode(cursor) : null;
+        LocalDate start = position != null ? position.date : LocalDate.MAX;
+
+        // Within a day, entries appear in source order
+        List<Iterator<ActivityFeedEntry>> sources = new ArrayList<>(SOURCE_COUNT);
+        sources.add(habitCheckEntries(habitService, start));
+        sources.add(goalNoteEntries(goalService, start));
+        sources.add(habitXpEntries(habitService, start));
+        sources.add(goalXpEntries(goalService, start));
+
+        // Consumed counts for the date of the last entry returned
+        LocalDate lastDate = start;
+        int[] consumed = position != null ? position.consumed.clone() : new int[SOURCE_COUNT];
+
+        PriorityQueue<SourceHead> heads = new PriorityQueue<>(SOURCE_COUNT, NEWEST_FIRST);
+        for (int source = 0; source < SOURCE_COUNT; source++) {
+            Iterator<ActivityFeedEntry> entries = sources.get(source);
+            skipConsumed(entries, start, consumed[source]);
+            advance(heads, source, entries);
+        }
+
+        List<ActivityFeedEntry> page = new ArrayList<>(limit);
+        while (page.size() < limit && !heads.isEmpty()) {
+            SourceHead head = heads.poll();
+            ActivityFeedEntry entry = head.entry;
+            LocalDate date = entry.timestamp().toLocalDate();
+            if (!date.equals(lastDate)) {
+                lastDate = date;
+                consumed = new int[SOURCE_COUNT];
+            }
+            consumed[head.source]++;
+            page.add(entry);
+            advance(heads, head.source, sources.get(head.source));
+        }
+
+        String nextCursor = heads.isEmpty() ? null : new Cursor(lastDate, consumed).encode();
+        return new ActivityFeedPage(page, nextCursor);
+    }
+
+    private Iterator<ActivityFeedEntry> habitCheckEntries(HabitService habitService, LocalDate start) {
+        return stream(habitService.descendingActivityLogs(start))
+            .flatMap(log -> log.getHabitChecks().stream())
+            .map(check -> {
+                String habitName = check.habit().getName();
+                if (check.result() == HabitCheckResult.DONE) {
+                    return new ActivityFeedEntry(
+                        check.date().atStartOfDay(),
+                        ActivityType.HABIT_COMPLETED,
+                        "Habit Completed",
+                        String.format("Completed '%s'", habitName),
+                        check.habit().getDifficulty().getValue() * 10,
+                        "HABIT"
+                    );
+                }
+                return new ActivityFeedEntry(
+                    check.date().atStartOfDay(),
                     ActivityType.HABIT_MISSED,
                     "Habit Missed",
-                    String.format("Missed '%s'", check.habit().getName()),
+                    String.format("Missed '%s'", habitName),
                     -15,
                     "HABIT"
-                ));
-            }
-        }
+                );
+            })
+            .iterator();
+    }
 
-        // Add goal activities
-        List<GoalNote> goalNotes = goalService.getAllGoalNotes();
-        for (GoalNote note : goalNotes) {
-            feed.add(new ActivityFeedEntry(
+    private Iterator<ActivityFeedEntry> goalNoteEntries(GoalService goalService, LocalDate start) {
+        return stream(goalService.descendingGoalNotes(start))
+            .map(note -> new ActivityFeedEntry(
                 note.date().atStartOfDay(),
                 ActivityType.GOAL_PROGRESS,
                 "Goal Progress",
                 String.format("Made progress on goal: %d XP", note.points()),
                 note.points(),
                 "GOAL"
-            ));
-        }
+            ))
+            .iterator();
+    }
+
+    private Iterator<ActivityFeedEntry> habitXpEntries(HabitService habitService, LocalDate start) {
+        return stream(habitService.descendingActivityLogs(start))
+            .map(log -> {
+                int xp = 0;
+                for (HabitCheck check : log.getHabitChecks()) {
+                    xp += xpCalculator.calculateTransaction(check.habit(), check.result()).amount();
+                }
+                return xp > 0 ? xpGainedEntry(log.getDate(), xp, XpSource.HABIT) : null;
+            })
+            .filter(Objects::nonNull)
+            .iterator();
+    }
+
+    private Iterator<ActivityFeedEntry> goalXpEntries(GoalService goalService, LocalDate start) {
+        return stream(goalService.descendingGoalNotes(start))
+            .filter(note -> note.points() > 0)
+            .map(note -> xpGainedEntry(note.date(), note.points(), XpSource.GOAL))
+            .iterator();
+    }
+
+    private static ActivityFeedEntry xpGainedEntry(LocalDate date, int xp, XpSource source) {
+        return new ActivityFeedEntry(
+            date.atStartOfDay(),
+            ActivityType.GOAL_PROGRESS,
+            "XP Gained",
+            String.format("Gained %d XP from %s", xp, source.name()),
+            xp,
+            source.name()
+        );
+    }
 
-        // Add XP history entries
-        List<XpHistoryEntry> xpHistory = analyticsService.buildXpHistory(habitService, goalService);
-        for (XpHistoryEntry entry : xpHistory) {
-            if (entry.xpChange() > 0) {
-                feed.add(new ActivityFeedEntry(
-                    entry.date().atStartOfDay(),
-                    ActivityType.GOAL_PROGRESS,
-                    "XP Gained",
-                    String.format("Gained %d XP from %s", entry.xpChange(), entry.source().name()),
-                    entry.xpChange(),
-                    entry.source().name()
-                ));
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    private static void skipConsumed(Iterator<ActivityFeedEntry> entries, LocalDate date, int count) {
+        // Only entries for the cursor date can have been returned already
+        for (int i = 0; i < count && entries.hasNext(); i++) {
+            if (!entries.next().timestamp().toLocalDate().equals(date)) {
+                throw new IllegalArgumentException("Invalid cursor");
             }
         }
+    }
+
+    private static void advance(PriorityQueue<SourceHead> heads, int source, Iterator<ActivityFeedEntry> entries) {
+        if (entries.hasNext()) {
+            heads.add(new SourceHead(source, entries.next()));
+        }
+    }
 
-        // Add achievements (if we had achievement unlock dates, we'd add them here)
-        // For now, we'll add a placeholder for recent achievements
+    private record SourceHead(int source, ActivityFeedEntry entry) {
+    }
+
+    /**
+     * Position after the last entry of a page: its date and, per source, how many entries
+     * dated that day have been returned so far.
+     */
+    private record Cursor(LocalDate date, int[] consumed) {
+        String encode() {
+            StringBuilder value = new StringBuilder(CURSOR_VERSION).append(':').append(date.toEpochDay());
+            for (int count : consumed) {
+                value.append(':').append(count);
+            }
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+        }
 
-        // Sort by timestamp (newest first) and limit
-        return feed.stream()
-            .sorted(Comparator.comparing(ActivityFeedEntry::timestamp).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        static Cursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = value.split(":");
+                if (parts.length != SOURCE_COUNT + 2 || !CURSOR_VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                LocalDate date = LocalDate.ofEpochDay(Long.parseLong(parts[1]));
+                int[] consumed = new int[SOURCE_COUNT];
+                for (int source = 0; source < SOURCE_COUNT; source++) {
+                    consumed[source] = Integer.parseInt(parts[source + 2]);
+                    if (consumed[source] < 0) {
+                        throw new IllegalArgumentException("Invalid cursor");
+                    }
+                }
+                return new Cursor(date, consumed);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                // Bad Base64, bad numbers or an out-of-range date
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
     }
 }
-
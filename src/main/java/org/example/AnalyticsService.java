@@ -1,5 +1,6 @@
 package org.example;
 
+import org.example.metrics.HotPathMetrics;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -16,6 +17,11 @@ import java.util.Map;
  */
 @Service
 public class AnalyticsService {
+    /**
+     * Number of days covered by the dashboard XP trend and recent XP history.
+     */
+    public static final int DASHBOARD_LOOKBACK_DAYS = 14;
+
     private final HabitStreakCalculator streakCalculator;
     private final GoalConsistencyCalculator consistencyCalculator;
     private final TrendAnalyzer trendAnalyzer;
@@ -76,7 +82,10 @@ public class AnalyticsService {
         if (goalService == null) {
             throw new IllegalArgumentException("GoalService cannot be null");
         }
+        return HotPathMetrics.time(HotPathMetrics.XP_HISTORY, () -> collectXpHistory(habitService, goalService));
+    }
 
+    private List<XpHistoryEntry> collectXpHistory(HabitService habitService, GoalService goalService) {
         List<XpHistoryEntry> history = new ArrayList<>();
         XpCalculator xpCalculator = new XpCalculator();
 
@@ -92,6 +101,12 @@ public class AnalyticsService {
             habitXpByDate.merge(date, transaction.amount(), Integer::sum);
         }
 
+        // Rolled-up days keep their totals after their checks and notes were dropped
+        List<RolledUpDay> rolledUpDays = habitService.getRolledUpDays();
+        for (RolledUpDay day : rolledUpDays) {
+            habitXpByDate.merge(day.date(), day.habitXp(), Integer::sum);
+        }
+
         // Add habit XP entries
         for (Map.Entry<LocalDate, Integer> entry : habitXpByDate.entrySet()) {
             if (entry.getValue() != 0) {
@@ -106,6 +121,11 @@ public class AnalyticsService {
                 history.add(new XpHistoryEntry(note.date(), note.points(), XpSource.GOAL));
             }
         }
+        for (RolledUpDay day : rolledUpDays) {
+            if (day.goalPoints() > 0) {
+                history.add(new XpHistoryEntry(day.date(), day.goalPoints(), XpSource.GOAL));
+            }
+        }
 
         // Note: Decay tracking would require storing decay transactions explicitly.
         // For now, decay is not included in history as it's calculated on-the-fly.
@@ -138,15 +158,17 @@ public class AnalyticsService {
             throw new IllegalArgumentException("Current date cannot be null");
         }
 
-        List<HabitCheck> allChecks = habitService.getAllHabitChecks();
-        Map<Habit, HabitStreak> streaks = new HashMap<>();
+        return HotPathMetrics.time(HotPathMetrics.STREAKS, () -> {
+            List<HabitCheck> allChecks = habitService.getAllHabitChecks();
+            Map<Habit, HabitStreak> streaks = new HashMap<>();
 
-        for (Habit habit : habits) {
-            HabitStreak streak = streakCalculator.calculateStreak(habit, allChecks, currentDate);
-            streaks.put(habit, streak);
-        }
+            for (Habit habit : habits) {
+                HabitStreak streak = streakCalculator.calculateStreak(habit, allChecks, currentDate);
+                streaks.put(habit, streak);
+            }
 
-        return streaks;
+            return streaks;
+        });
     }
 
     /**
@@ -234,6 +256,44 @@ public class AnalyticsService {
         return burnoutDetector.detectBurnout(trend, history, activityLogs, dailyXpLimit, currentDate);
     }
 
+    /**
+     * Computes the analytics shown on a user's dashboard: streaks of every checked habit,
+     * consistency of every goal, the XP trend, burnout warnings, and the XP history dated
+     * within the dashboard lookback or later.
+     *
+     * @param habitService the habit service
+     * @param goalService the goal service
+     * @param currentDate the current date
+     * @return the dashboard analytics
+     */
+    public DashboardAnalytics analyzeDashboard(HabitService habitService, GoalService goalService,
+                                               LocalDate currentDate) {
+        if (habitService == null || goalService == null) {
+            throw new IllegalArgumentException("Services cannot be null");
+        }
+        if (currentDate == null) {
+            throw new IllegalArgumentException("Current date cannot be null");
+        }
+
+        List<XpHistoryEntry> history = buildXpHistory(habitService, goalService);
+        List<Habit> habits = habitService.getAllHabitChecks().stream()
+                .map(HabitCheck::habit)
+                .distinct()
+                .toList();
+        Map<Habit, HabitStreak> streaks = calculateAllHabitStreaks(habits, habitService, currentDate);
+        Map<Goal, GoalConsistency> consistency = calculateAllGoalConsistency(
+                goalService.getAllGoals(), goalService, currentDate);
+        Trend trend = trendAnalyzer.analyzeTrend(history, DASHBOARD_LOOKBACK_DAYS, currentDate);
+        BurnoutWarning burnout = burnoutDetector.detectBurnout(trend, history, habitService.getAllActivityLogs(),
+                habitService.getDailyXpLimit(), currentDate);
+
+        LocalDate recentStart = currentDate.minusDays(DASHBOARD_LOOKBACK_DAYS);
+        List<XpHistoryEntry> recentHistory = history.stream()
+                .filter(entry -> !entry.date().isBefore(recentStart))
+                .toList();
+        return new DashboardAnalytics(streaks, consistency, trend, burnout, recentHistory);
+    }
+
     /**
      * Generates a comprehensive analytics summary.
      *
@@ -284,5 +344,45 @@ public class AnalyticsService {
             List<XpHistoryEntry> xpHistory
     ) {
     }
-}
 
+    /**
+     * Analytics shown on a user's dashboard.
+     *
+     * @param habitStreaks map of habit to streak information, for every habit with a check
+     * @param goalConsistency map of goal to consistency information
+     * @param xpTrend the XP trend over the dashboard lookback
+     * @param burnoutWarning the burnout warning
+     * @param recentXpHistory the XP history dated within the dashboard lookback or later, ordered by date
+     */
+    public record DashboardAnalytics(
+            Map<Habit, HabitStreak> habitStreaks,
+            Map<Goal, GoalConsistency> goalConsistency,
+            Trend xpTrend,
+            BurnoutWarning burnoutWarning,
+            List<XpHistoryEntry> recentXpHistory
+    ) {
+        /**
+         * Gets the average consistency score of all goals, or 0 without goals.
+         *
+         * @return the average consistency score
+         */
+        public double averageConsistencyScore() {
+            return goalConsistency.values().stream()
+                    .mapToDouble(GoalConsistency::consistencyScore)
+                    .average()
+                    .orElse(0.0);
+        }
+
+        /**
+         * Gets the XP history entries dated after a date.
+         *
+         * @param date the exclusive start date
+         * @return the entries, ordered by date
+         */
+        public List<XpHistoryEntry> xpHistoryAfter(LocalDate date) {
+            return recentXpHistory.stream()
+                    .filter(entry -> entry.date().isAfter(date))
+                    .toList();
+        }
+    }
+}
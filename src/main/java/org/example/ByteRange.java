@@ -0,0 +1,85 @@
+package org.example;
+
+/**
+ * A single HTTP byte range (RFC 9110) resolved against a known resource length.
+ *
+ * @param start the first byte position (inclusive)
+ * @param end the last byte position (inclusive)
+ * @param totalLength the full length of the resource
+ */
+public record ByteRange(long start, long end, long totalLength) {
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * Parses a Range header value.
+     * Only single ranges are supported; multi-range and malformed headers yield null so
+     * the caller can fall back to sending the whole resource, as the RFC allows.
+     *
+     * @param header the Range header value (may be null)
+     * @param totalLength the full length of the resource (must not be negative)
+     * @return the requested range, or null to send the whole resource
+     * @throws IllegalArgumentException if totalLength is negative
+     */
+    public static ByteRange parse(String header, long totalLength) {
+        if (totalLength < 0) {
+            throw new IllegalArgumentException("Total length cannot be negative");
+        }
+        if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0) {
+                    return new ByteRange(totalLength, totalLength - 1, totalLength);
+                }
+                return new ByteRange(Math.max(0, totalLength - suffixLength), totalLength - 1, totalLength);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? totalLength - 1 : Math.min(Long.parseLong(last), totalLength - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                return null;
+            }
+            return new ByteRange(start, end, totalLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the range overlaps the resource.
+     *
+     * @return true if at least one byte can be served
+     */
+    public boolean isSatisfiable() {
+        return start < totalLength && start <= end;
+    }
+
+    /**
+     * Gets the number of bytes in the range.
+     *
+     * @return the range length
+     */
+    public long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Formats the Content-Range header value for this range.
+     *
+     * @return e.g. "bytes 0-499/1234", or "bytes *&#47;1234" if unsatisfiable
+     */
+    public String toContentRange() {
+        return isSatisfiable()
+            ? "bytes " + start + "-" + end + "/" + totalLength
+            : "bytes */" + totalLength;
+    }
+}
@@ -0,0 +1,213 @@
+package org.example;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * One user's activity rolled up by day, ISO week and month.
+ *
+ * Habit check and goal note events update the day they fall on and apply the change in that
+ * day's contribution to its week and month, so a week or month summary is a single lookup.
+ * Each period also records the user's XP and level at its boundaries. Events recorded in date
+ * order take their boundaries from the stats around them; a backdated event only carries the
+ * user's current stats, so its XP change is inserted at its date and shifts the boundaries
+ * of everything after it.
+ *
+ * Thread-safe.
+ */
+public class CalendarRollup {
+    private final XpCalculator xpCalculator = new XpCalculator();
+    private final LevelCalculator levelCalculator = new LevelCalculator();
+    private final HabitRunTracker habitRuns = new HabitRunTracker();
+    private final Map<LocalDate, Day> days = new HashMap<>();
+    private final NavigableMap<LocalDate, Period> weeks = new TreeMap<>();
+    private final NavigableMap<LocalDate, Period> months = new TreeMap<>();
+    private LocalDate latestEventDate;
+
+    /**
+     * Records a habit check.
+     *
+     * @param check the habit check
+     * @param before the user's stats before the check
+     * @param after the user's stats after the check
+     */
+    public synchronized void recordHabitCheck(HabitCheck check, UserStats before, UserStats after) {
+        LocalDate date = check.date();
+        int amount = xpCalculator.calculateTransaction(check.habit(), check.result()).amount();
+        habitRuns.record(check);
+        int run = check.isDone() ? habitRuns.getLatestRun(check.habit()) : 0;
+        for (Period period : periods(date, before, after)) {
+            if (check.isDone()) {
+                period.habitsCompleted++;
+                period.habitCompletions.merge(check.habit().getName(), 1, Integer::sum);
+                period.longestStreak = Math.max(period.longestStreak, run);
+            }
+        }
+        updateDay(date, amount, 0);
+    }
+
+    /**
+     * Records a goal note.
+     *
+     * @param note the goal note
+     * @param before the user's stats before the note
+     * @param after the user's stats after the note
+     */
+    public synchronized void recordGoalNote(GoalNote note, UserStats before, UserStats after) {
+        for (Period period : periods(note.date(), before, after)) {
+            period.goalsProgressed++;
+        }
+        updateDay(note.date(), 0, Math.max(0, note.points()));
+    }
+
+    /**
+     * Gets the rollup of the ISO week (Monday to Sunday) containing a date.
+     *
+     * @param date any date in the week
+     * @param currentStats the user's stats, used for boundaries when no activity has been recorded
+     * @return the week's rollup
+     */
+    public synchronized PeriodRollup getWeek(LocalDate date, UserStats currentStats) {
+        LocalDate start = weekStart(date);
+        return rollup(weeks, start, start.plusDays(6), currentStats);
+    }
+
+    /**
+     * Gets the rollup of the month containing a date.
+     *
+     * @param date any date in the month
+     * @param currentStats the user's stats, used for boundaries when no activity has been recorded
+     * @return the month's rollup
+     */
+    public synchronized PeriodRollup getMonth(LocalDate date, UserStats currentStats) {
+        LocalDate start = date.withDayOfMonth(1);
+        return rollup(months, start, YearMonth.from(date).atEndOfMonth(), currentStats);
+    }
+
+    /**
+     * Gets the week and month of an event, creating them if needed, and moves their boundaries
+     * past the event.
+     */
+    private Period[] periods(LocalDate date, UserStats before, UserStats after) {
+        boolean backdated = latestEventDate != null && date.isBefore(latestEventDate);
+        Period[] periods = {
+            period(weeks, weekStart(date), before, backdated),
+            period(months, date.withDayOfMonth(1), before, backdated)
+        };
+        if (!backdated) {
+            latestEventDate = date;
+            for (Period period : periods) {
+                period.closing = after;
+            }
+        } else {
+            int xpChange = after.getTotalXp() - before.getTotalXp();
+            shift(weeks, weekStart(date), xpChange);
+            shift(months, date.withDayOfMonth(1), xpChange);
+        }
+        return periods;
+    }
+
+    private Period period(NavigableMap<LocalDate, Period> periods, LocalDate start, UserStats before,
+                          boolean backdated) {
+        Period period = periods.get(start);
+        if (period == null) {
+            UserStats opening = before;
+            if (backdated) {
+                // The stats before a backdated event are those the periods around it hand over
+                Map.Entry<LocalDate, Period> earlier = periods.lowerEntry(start);
+                Map.Entry<LocalDate, Period> later = periods.higherEntry(start);
+                opening = earlier != null ? earlier.getValue().closing
+                    : later != null ? later.getValue().opening : before;
+            }
+            period = new Period(opening);
+            periods.put(start, period);
+        }
+        return period;
+    }
+
+    /**
+     * Applies a backdated XP change to the closing of its period and to both boundaries of
+     * every later period.
+     */
+    private void shift(NavigableMap<LocalDate, Period> periods, LocalDate start, int xpChange) {
+        for (Map.Entry<LocalDate, Period> entry : periods.tailMap(start, true).entrySet()) {
+            Period period = entry.getValue();
+            if (entry.getKey().isAfter(start)) {
+                period.opening = plus(period.opening, xpChange);
+            }
+            period.closing = plus(period.closing, xpChange);
+        }
+    }
+
+    private UserStats plus(UserStats stats, int xpChange) {
+        int xp = Math.max(0, stats.getTotalXp() + xpChange);
+        return new UserStats(xp, levelCalculator.calculateLevel(xp));
+    }
+
+    private void updateDay(LocalDate date, int habitXp, int goalXp) {
+        Day before = days.getOrDefault(date, Day.NONE);
+        Day updated = new Day(before.habitXp() + habitXp, before.goalXp() + goalXp);
+        days.put(date, updated);
+        int xpDelta = updated.xpGained() - before.xpGained();
+        int activeDelta = (updated.isActive() ? 1 : 0) - (before.isActive() ? 1 : 0);
+        for (Period period : new Period[] {weeks.get(weekStart(date)), months.get(date.withDayOfMonth(1))}) {
+            period.xpGained += xpDelta;
+            period.activeDays += activeDelta;
+        }
+    }
+
+    private static PeriodRollup rollup(NavigableMap<LocalDate, Period> periods, LocalDate start, LocalDate end,
+                                       UserStats currentStats) {
+        Period period = periods.get(start);
+        if (period == null) {
+            // No activity: the stats carry over from the nearest period around it
+            Map.Entry<LocalDate, Period> earlier = periods.lowerEntry(start);
+            Map.Entry<LocalDate, Period> later = periods.higherEntry(start);
+            UserStats stats = earlier != null ? earlier.getValue().closing
+                : later != null ? later.getValue().opening : currentStats;
+            return PeriodRollup.empty(start, end, stats);
+        }
+        return new PeriodRollup(start, end, period.xpGained, period.habitsCompleted, period.goalsProgressed,
+            period.activeDays, period.longestStreak, period.habitCompletions,
+            period.opening.getTotalXp(), period.opening.getLevel(),
+            period.closing.getTotalXp(), period.closing.getLevel());
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private record Day(int habitXp, int goalXp) {
+        static final Day NONE = new Day(0, 0);
+
+        int xpGained() {
+            return Math.max(0, habitXp) + goalXp;
+        }
+
+        boolean isActive() {
+            return habitXp != 0 || goalXp > 0;
+        }
+    }
+
+    private static final class Period {
+        private final Map<String, Integer> habitCompletions = new HashMap<>();
+        private UserStats opening;
+        private UserStats closing;
+        private int xpGained;
+        private int habitsCompleted;
+        private int goalsProgressed;
+        private int activeDays;
+        private int longestStreak;
+
+        Period(UserStats opening) {
+            this.opening = opening;
+            this.closing = opening;
+        }
+    }
+}
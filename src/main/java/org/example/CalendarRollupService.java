@@ -0,0 +1,129 @@
+package org.example;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service holding each user's {@link CalendarRollup}.
+ *
+ * A rollup is built from the user's history the first time it is read and then kept up to
+ * date from habit check and goal note events. History does not record XP over time, so the
+ * replay works back from the user's current XP; period boundaries recorded from events
+ * afterwards are exact.
+ */
+@Service
+public class CalendarRollupService {
+    private final XpCalculator xpCalculator = new XpCalculator();
+    private final LevelCalculator levelCalculator = new LevelCalculator();
+    private final Map<Long, CalendarRollup> rollups = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a user's rollup, building it from history on first use.
+     *
+     * @param userId the user's id
+     * @param userStats the user's current stats
+     * @param habitService the user's habit service
+     * @param goalService the user's goal service
+     * @return the rollup
+     */
+    public CalendarRollup getRollup(Long userId, UserStats userStats,
+                                    HabitService habitService, GoalService goalService) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id cannot be null");
+        }
+        CalendarRollup rollup = rollups.get(userId);
+        if (rollup == null) {
+            CalendarRollup loaded = load(userStats, habitService, goalService);
+            rollup = rollups.putIfAbsent(userId, loaded);
+            if (rollup == null) {
+                rollup = loaded;
+            }
+        }
+        return rollup;
+    }
+
+    /**
+     * Follows a habit check published after it was saved.
+     */
+    @EventListener
+    public void onHabitChecked(HabitChecked event) {
+        recordHabitCheck(event.userId(), event.check(), event.before(), event.after());
+    }
+
+    /**
+     * Follows a goal note published after it was saved.
+     */
+    @EventListener
+    public void onGoalNoteAdded(GoalNoteAdded event) {
+        recordGoalNote(event.userId(), event.note(), event.before(), event.after());
+    }
+
+    /**
+     * Records a habit check. Ignored until the user's rollup has been loaded,
+     * since loading replays the check from history.
+     *
+     * @param userId the user's id
+     * @param check the habit check
+     * @param before the user's stats before the check
+     * @param after the user's stats after the check
+     */
+    public void recordHabitCheck(Long userId, HabitCheck check, UserStats before, UserStats after) {
+        CalendarRollup rollup = rollups.get(userId);
+        if (rollup != null) {
+            rollup.recordHabitCheck(check, before, after);
+        }
+    }
+
+    /**
+     * Records a goal note.
+     *
+     * @param userId the user's id
+     * @param note the goal note
+     * @param before the user's stats before the note
+     * @param after the user's stats after the note
+     */
+    public void recordGoalNote(Long userId, GoalNote note, UserStats before, UserStats after) {
+        CalendarRollup rollup = rollups.get(userId);
+        if (rollup != null) {
+            rollup.recordGoalNote(note, before, after);
+        }
+    }
+
+    /**
+     * Gets the number of users whose calendar rollups are held in memory.
+     *
+     * @return the cached user count
+     */
+    public int getCachedUserCount() {
+        return rollups.size();
+    }
+
+    private CalendarRollup load(UserStats userStats, HabitService habitService, GoalService goalService) {
+        int[] replayedXp = new int[1];
+        habitService.forEachHabitCheck(check ->
+            replayedXp[0] += xpCalculator.calculateTransaction(check.habit(), check.result()).amount());
+        goalService.forEachGoalNote(note -> replayedXp[0] += Math.max(0, note.points()));
+
+        CalendarRollup rollup = new CalendarRollup();
+        UserStats[] stats = {stats(userStats.getTotalXp() - replayedXp[0])};
+        HistoryReplay.replay(habitService, goalService, check -> {
+            UserStats after = stats(stats[0].getTotalXp()
+                + xpCalculator.calculateTransaction(check.habit(), check.result()).amount());
+            rollup.recordHabitCheck(check, stats[0], after);
+            stats[0] = after;
+        }, note -> {
+            UserStats after = stats(stats[0].getTotalXp() + Math.max(0, note.points()));
+            rollup.recordGoalNote(note, stats[0], after);
+            stats[0] = after;
+        });
+        return rollup;
+    }
+
+    private UserStats stats(int totalXp) {
+        int xp = Math.max(0, totalXp);
+        return new UserStats(xp, levelCalculator.calculateLevel(xp));
+    }
+}
@@ -0,0 +1,278 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe store of challenges and their participants.
+ *
+ * Challenges are indexed by id and by end date. Finding the challenges active on a date
+ * only visits those that have not yet ended, so past challenges cost nothing once they
+ * are over. Participants are kept in each challenge's {@link ChallengeStandings} rather
+ * than in the challenge record, so joining, leaving and membership checks are cheap
+ * regardless of how many members a challenge has. A reverse index from participant to
+ * challenges lets progress events reach only the challenges a user takes part in.
+ */
+public class ChallengeRegistry {
+    private static final String ID_PREFIX = "challenge-";
+
+    private final Map<String, Entry> challengesById = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Set<String>> idsByEndDate = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> idsByParticipant = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong registrations = new AtomicLong();
+
+    /**
+     * Allocates a new, unique challenge id.
+     *
+     * @return the id
+     */
+    public String nextId() {
+        return ID_PREFIX + nextId.getAndIncrement();
+    }
+
+    /**
+     * Adds a challenge. Participants listed on the challenge become its initial members.
+     *
+     * @param challenge the challenge (must not be null)
+     * @throws IllegalArgumentException if challenge is null
+     * @throws IllegalStateException if a challenge with the same id is already registered
+     */
+    public void register(Challenge challenge) {
+        if (challenge == null) {
+            throw new IllegalArgumentException("Challenge cannot be null");
+        }
+        Entry entry = new Entry(challenge, registrations.getAndIncrement());
+        if (challengesById.putIfAbsent(challenge.id(), entry) != null) {
+            throw new IllegalStateException("Challenge already exists: " + challenge.id());
+        }
+        idsByEndDate.computeIfAbsent(challenge.endDate(), date -> ConcurrentHashMap.newKeySet())
+            .add(challenge.id());
+        if (challenge.participants() != null) {
+            for (String participant : challenge.participants()) {
+                join(challenge.id(), participant);
+            }
+        }
+    }
+
+    /**
+     * Gets a challenge with its current participants.
+     *
+     * @param id the challenge id
+     * @return the challenge, or null if not found
+     */
+    public Challenge get(String id) {
+        Entry entry = id != null ? challengesById.get(id) : null;
+        return entry != null ? entry.snapshot() : null;
+    }
+
+    /**
+     * Returns true if a challenge exists.
+     *
+     * @param id the challenge id
+     * @return true if registered
+     */
+    public boolean contains(String id) {
+        return id != null && challengesById.containsKey(id);
+    }
+
+    /**
+     * Gets every challenge, in the order they were registered.
+     *
+     * @return the challenges
+     */
+    public List<Challenge> getAll() {
+        List<Entry> entries = new ArrayList<>(challengesById.values());
+        entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<Challenge> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the challenges active on a date, in the order they were registered.
+     *
+     * @param date the date (must not be null)
+     * @return the active challenges
+     * @throws IllegalArgumentException if date is null
+     */
+    public List<Challenge> getActive(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Set<String> ids : idsByEndDate.tailMap(date, true).values()) {
+            for (String id : ids) {
+                Entry entry = challengesById.get(id);
+                if (entry != null && entry.challenge.isCurrentlyActive(date)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<Challenge> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Adds a participant to a challenge.
+     *
+     * @param id the challenge id
+     * @param participant the participant's username (must not be blank)
+     * @return true if the participant joined; false if they were already a member
+     * @throws IllegalArgumentException if the challenge does not exist or the username is blank
+     */
+    public boolean join(String id, String participant) {
+        if (participant == null || participant.isBlank()) {
+            throw new IllegalArgumentException("Username cannot be null or blank");
+        }
+        Entry entry = entry(id);
+        boolean[] joined = new boolean[1];
+        // Updating the reverse index under its lock serializes joins and leaves of one participant
+        idsByParticipant.compute(participant, (key, ids) -> {
+            Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            if (entry.standings.enter(participant)) {
+                result.add(id);
+                joined[0] = true;
+            }
+            return result;
+        });
+        return joined[0];
+    }
+
+    /**
+     * Removes a participant from a challenge.
+     *
+     * @param id the challenge id
+     * @param participant the participant's username
+     * @return true if the participant left; false if they were not a member
+     * @throws IllegalArgumentException if the challenge does not exist
+     */
+    public boolean leave(String id, String participant) {
+        Entry entry = entry(id);
+        if (participant == null) {
+            return false;
+        }
+        boolean[] left = new boolean[1];
+        idsByParticipant.computeIfPresent(participant, (key, ids) -> {
+            if (entry.standings.remove(participant)) {
+                ids.remove(id);
+                left[0] = true;
+            }
+            return ids.isEmpty() ? null : ids;
+        });
+        return left[0];
+    }
+
+    /**
+     * Returns true if a user takes part in a challenge.
+     *
+     * @param id the challenge id
+     * @param participant the participant's username
+     * @return true if the user is a member
+     * @throws IllegalArgumentException if the challenge does not exist
+     */
+    public boolean isParticipant(String id, String participant) {
+        return participant != null && entry(id).standings.contains(participant);
+    }
+
+    /**
+     * Gets the number of participants in a challenge.
+     *
+     * @param id the challenge id
+     * @return the participant count
+     * @throws IllegalArgumentException if the challenge does not exist
+     */
+    public int getParticipantCount(String id) {
+        return entry(id).standings.size();
+    }
+
+    /**
+     * Gets the ids of the challenges a user takes part in.
+     *
+     * @param participant the participant's username
+     * @return the challenge ids (empty if none)
+     */
+    public Set<String> getChallengeIdsFor(String participant) {
+        Set<String> ids = participant != null ? idsByParticipant.get(participant) : null;
+        return ids != null ? Collections.unmodifiableSet(ids) : Set.of();
+    }
+
+    /**
+     * Gets the ranked progress of a challenge's participants.
+     *
+     * @param id the challenge id
+     * @return the live standings
+     * @throws IllegalArgumentException if the challenge does not exist
+     */
+    public ChallengeStandings getStandings(String id) {
+        return entry(id).standings;
+    }
+
+    /**
+     * Gets a challenge without its participants, avoiding the copy made by {@link #get(String)}
+     * on hot paths.
+     *
+     * @param id the challenge id
+     * @return the challenge with an empty participant list, or null if not found
+     */
+    Challenge getDefinition(String id) {
+        Entry entry = id != null ? challengesById.get(id) : null;
+        return entry != null ? entry.challenge : null;
+    }
+
+    /**
+     * Gets the number of registered challenges.
+     *
+     * @return the challenge count
+     */
+    public int size() {
+        return challengesById.size();
+    }
+
+    private Entry entry(String id) {
+        Entry entry = id != null ? challengesById.get(id) : null;
+        if (entry == null) {
+            throw new IllegalArgumentException("Challenge not found: " + id);
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private final Challenge challenge;
+        private final long sequence;
+        private final ChallengeStandings standings = new ChallengeStandings();
+
+        Entry(Challenge challenge, long sequence) {
+            // Participants are tracked by the standings
+            this.challenge = new Challenge(
+                challenge.id(), challenge.title(), challenge.description(), challenge.type(),
+                challenge.targetValue(), challenge.currentValue(), challenge.startDate(),
+                challenge.endDate(), challenge.active(), List.of(), challenge.reward()
+            );
+            this.sequence = sequence;
+        }
+
+        Challenge snapshot() {
+            return new Challenge(
+                challenge.id(), challenge.title(), challenge.description(), challenge.type(),
+                challenge.targetValue(), challenge.currentValue(), challenge.startDate(),
+                challenge.endDate(), challenge.active(), List.copyOf(standings.participants()), challenge.reward()
+            );
+        }
+    }
+}
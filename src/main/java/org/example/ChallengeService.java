@@ -1,30 +1,38 @@
 package org.example;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing challenges.
+ * Challenges and their participants are held in a {@link ChallengeRegistry}, so the service
+ * can be used from concurrent requests. Progress is not recomputed from a user's history on
+ * every change: a participant's progress starts from their history when they join, habit check
+ * and XP events then update their counter in the challenges they are in, and standings are kept
+ * ranked as they arrive. A user's run tracker is seeded from their history the first time it
+ * is used, so streaks carry over a restart.
  */
 @Service
 public class ChallengeService {
-    private final List<Challenge> challenges = new ArrayList<>();
+    private final ChallengeRegistry registry = new ChallengeRegistry();
+    private final Map<String, HabitRunTracker> streaks = new ConcurrentHashMap<>();
 
     /**
      * Creates a new challenge.
      */
     public Challenge createChallenge(String title, String description, ChallengeType type,
                                      int targetValue, LocalDate startDate, LocalDate endDate, String reward) {
-        String id = "challenge-" + System.currentTimeMillis();
         Challenge challenge = new Challenge(
-            id, title, description, type, targetValue, 0, startDate, endDate, true,
-            new ArrayList<>(), reward
+            registry.nextId(), title, description, type, targetValue, 0, startDate, endDate, true,
+            List.of(), reward
         );
-        challenges.add(challenge);
+        registry.register(challenge);
         return challenge;
     }
 
@@ -32,79 +40,164 @@ public class ChallengeService {
      * Gets all active challenges.
      */
     public List<Challenge> getActiveChallenges(LocalDate currentDate) {
-        return challenges.stream()
-            .filter(c -> c.isCurrentlyActive(currentDate))
-            .toList();
+        return registry.getActive(currentDate);
     }
 
     /**
      * Gets all challenges.
      */
     public List<Challenge> getAllChallenges() {
-        return new ArrayList<>(challenges);
+        return registry.getAll();
     }
 
     /**
      * Gets a challenge by ID.
      */
     public Challenge getChallengeById(String id) {
-        return challenges.stream()
-            .filter(c -> c.id().equals(id))
-            .findFirst()
-            .orElseThrow(() -> new IllegalArgumentException("Challenge not found: " + id));
+        Challenge challenge = registry.get(id);
+        if (challenge == null) {
+            throw new IllegalArgumentException("Challenge not found: " + id);
+        }
+        return challenge;
     }
 
     /**
-     * Joins a user to a challenge.
+     * Joins a user to a challenge. Joining a challenge twice has no effect.
+     *
+     * @return the challenge with its updated participants
      */
     public Challenge joinChallenge(String challengeId, String username) {
+        registry.join(challengeId, username);
+        return getChallengeById(challengeId);
+    }
+
+    /**
+     * Starts a participant's progress in a challenge from their history: stats-based challenges
+     * from their current stats, streak challenges from their best run so far, and habit
+     * challenges from their completions within the challenge dates.
+     *
+     * @param challengeId the challenge's id
+     * @param username the participant's username
+     * @param userStats the participant's current stats
+     * @param habitService the participant's habit service
+     */
+    public void startProgress(String challengeId, String username, UserStats userStats, HabitService habitService) {
         Challenge challenge = getChallengeById(challengeId);
-        List<String> newParticipants = new ArrayList<>(challenge.participants());
-        if (!newParticipants.contains(username)) {
-            newParticipants.add(username);
+        ChallengeStandings standings = registry.getStandings(challengeId);
+        switch (challenge.type()) {
+            case STREAK_CHALLENGE -> standings.raise(username, runTracker(username, habitService).getBestStreak());
+            case HABIT_CHALLENGE -> {
+                int[] completed = new int[1];
+                habitService.forEachHabitCheck(check -> {
+                    if (check.isDone() && challenge.isCurrentlyActive(check.date())) {
+                        completed[0]++;
+                    }
+                });
+                standings.set(username, completed[0]);
+            }
+            default -> updateFromStats(standings, challenge.type(), username, userStats);
         }
-        return new Challenge(
-            challenge.id(), challenge.title(), challenge.description(), challenge.type(),
-            challenge.targetValue(), challenge.currentValue(), challenge.startDate(),
-            challenge.endDate(), challenge.active(), newParticipants, challenge.reward()
-        );
     }
 
     /**
-     * Updates challenge progress for a user.
+     * Removes a user from a challenge. Leaving a challenge the user is not in has no effect.
+     *
+     * @return the challenge with its updated participants
      */
-    public Challenge updateChallengeProgress(String challengeId, UserStats userStats,
-                                            List<Habit> habits, HabitService habitService,
-                                            AnalyticsService analyticsService, LocalDate currentDate) {
-        Challenge challenge = getChallengeById(challengeId);
-        int currentValue = 0;
+    public Challenge leaveChallenge(String challengeId, String username) {
+        registry.leave(challengeId, username);
+        return getChallengeById(challengeId);
+    }
 
-        switch (challenge.type()) {
-            case XP_CHALLENGE:
-                currentValue = userStats.getTotalXp();
-                break;
-            case LEVEL_CHALLENGE:
-                currentValue = userStats.getLevel();
-                break;
-            case STREAK_CHALLENGE:
-                Map<Habit, HabitStreak> streaks = analyticsService.calculateAllHabitStreaks(
-                    habits, habitService, currentDate);
-                currentValue = streaks.values().stream()
-                    .mapToInt(s -> Math.max(s.currentStreak(), s.longestStreak()))
-                    .max()
-                    .orElse(0);
-                break;
-            case HABIT_CHALLENGE:
-                currentValue = (int) habitService.getAllHabitChecks().stream()
-                    .filter(check -> check.result() == HabitCheckResult.DONE)
-                    .count();
-                break;
-            case CONSISTENCY_CHALLENGE:
-                // This would need goal consistency calculation
-                currentValue = (int) (userStats.getTotalXp() / 100); // Simplified
-                break;
+    /**
+     * Checks whether a user takes part in a challenge.
+     */
+    public boolean isParticipant(String challengeId, String username) {
+        return registry.isParticipant(challengeId, username);
+    }
+
+    /**
+     * Gets the number of participants in a challenge.
+     */
+    public int getParticipantCount(String challengeId) {
+        return registry.getParticipantCount(challengeId);
+    }
+
+    /**
+     * Follows a habit check published after it was saved.
+     */
+    @EventListener
+    public void onHabitChecked(HabitChecked event) {
+        recordHabitCheck(event.username(), event.check(), event.after(), event.habitService());
+    }
+
+    /**
+     * Follows a goal note published after it was saved.
+     */
+    @EventListener
+    public void onGoalNoteAdded(GoalNoteAdded event) {
+        recordXpUpdate(event.username(), event.note().date(), event.after());
+    }
+
+    /**
+     * Records a habit check for a user, updating their progress in every challenge they take
+     * part in that is active on the check date.
+     *
+     * @param username the user's username
+     * @param check the habit check
+     * @param userStats the user's stats after the check
+     * @param habitService the user's habit service, holding the check
+     */
+    public void recordHabitCheck(String username, HabitCheck check, UserStats userStats, HabitService habitService) {
+        int bestStreak = runTracker(username, habitService).record(check);
+        for (String challengeId : registry.getChallengeIdsFor(username)) {
+            Challenge challenge = registry.getDefinition(challengeId);
+            if (challenge == null || !challenge.isCurrentlyActive(check.date())) {
+                continue;
+            }
+            ChallengeStandings standings = registry.getStandings(challengeId);
+            switch (challenge.type()) {
+                case STREAK_CHALLENGE -> standings.raise(username, bestStreak);
+                case HABIT_CHALLENGE -> {
+                    if (check.isDone()) {
+                        standings.add(username, 1);
+                    }
+                }
+                default -> updateFromStats(standings, challenge.type(), username, userStats);
+            }
+        }
+    }
+
+    /**
+     * Records a change to a user's XP, updating their progress in every XP, level and
+     * consistency challenge they take part in that is active on the given date.
+     *
+     * @param username the user's username
+     * @param date the date of the change
+     * @param userStats the user's stats after the change
+     */
+    public void recordXpUpdate(String username, LocalDate date, UserStats userStats) {
+        for (String challengeId : registry.getChallengeIdsFor(username)) {
+            Challenge challenge = registry.getDefinition(challengeId);
+            if (challenge != null && challenge.isCurrentlyActive(date)) {
+                updateFromStats(registry.getStandings(challengeId), challenge.type(), username, userStats);
+            }
         }
+    }
 
+    /**
+     * Gets a user's progress in a challenge.
+     *
+     * @return the challenge with the user's progress as its current value
+     * @throws IllegalArgumentException if the challenge does not exist or the user is not a participant
+     */
+    public Challenge getChallengeProgress(String challengeId, String username) {
+        Challenge challenge = getChallengeById(challengeId);
+        Integer currentValue = registry.getStandings(challengeId).getValue(username);
+        if (currentValue == null) {
+            throw new IllegalArgumentException(
+                "User '" + username + "' is not participating in challenge " + challengeId);
+        }
         return new Challenge(
             challenge.id(), challenge.title(), challenge.description(), challenge.type(),
             challenge.targetValue(), currentValue, challenge.startDate(),
@@ -112,6 +205,46 @@ public class ChallengeService {
         );
     }
 
+    /**
+     * Gets the top participants of a challenge.
+     *
+     * @param limit the maximum number of standings to return (default 10, capped at 100)
+     * @return the standings, best first
+     */
+    public List<ChallengeStanding> getStandings(String challengeId, int limit) {
+        if (limit <= 0) {
+            limit = 10;
+        }
+        if (limit > 100) {
+            limit = 100; // Cap at 100
+        }
+        return registry.getStandings(challengeId).top(limit);
+    }
+
+    /**
+     * Gets a user's run tracker, seeded from their history when first used.
+     */
+    private HabitRunTracker runTracker(String username, HabitService habitService) {
+        return streaks.computeIfAbsent(username, key -> {
+            HabitRunTracker tracker = new HabitRunTracker();
+            habitService.forEachHabitCheck(tracker::record);
+            return tracker;
+        });
+    }
+
+    private static void updateFromStats(ChallengeStandings standings, ChallengeType type,
+                                        String username, UserStats userStats) {
+        switch (type) {
+            case XP_CHALLENGE -> standings.set(username, userStats.getTotalXp());
+            case LEVEL_CHALLENGE -> standings.set(username, userStats.getLevel());
+            // Simplified until goal consistency is tracked per event
+            case CONSISTENCY_CHALLENGE -> standings.set(username, userStats.getTotalXp() / 100);
+            default -> {
+                // Streak and habit challenges only move on habit checks
+            }
+        }
+    }
+
     /**
      * Gets default challenges.
      */
@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * A participant's position in a challenge.
+ *
+ * @param rank the 1-based rank; participants with equal progress share a rank
+ * @param username the participant's username
+ * @param value the participant's progress towards the challenge target
+ */
+public record ChallengeStanding(int rank, String username, int value) {
+    /**
+     * Creates a challenge standing.
+     */
+    public ChallengeStanding {
+        if (rank < 1) {
+            throw new IllegalArgumentException("Rank must be at least 1");
+        }
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Username cannot be null or blank");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Participants of one challenge and their progress, kept ranked as progress changes.
+ *
+ * Progress values live in a concurrent map and a skip list orders them by value, so an
+ * update is O(log n) and the top N are read in O(log n + N) without sorting. Updates to
+ * different participants never block each other. Readers are weakly consistent: a
+ * participant being updated may briefly be missing from a ranking read.
+ */
+public class ChallengeStandings {
+    private static final Comparator<Score> RANKING = Comparator.comparingInt(Score::value).reversed()
+        .thenComparing(Score::participant);
+
+    private final ConcurrentHashMap<String, Integer> values = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Score> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    /**
+     * Adds a participant with no progress.
+     *
+     * @param participant the participant's username
+     * @return true if added; false if already a participant
+     */
+    public boolean enter(String participant) {
+        boolean[] added = new boolean[1];
+        values.computeIfAbsent(participant, key -> {
+            ranking.add(new Score(key, 0));
+            added[0] = true;
+            return 0;
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes a participant and their progress.
+     *
+     * @param participant the participant's username
+     * @return true if removed; false if not a participant
+     */
+    public boolean remove(String participant) {
+        boolean[] removed = new boolean[1];
+        values.computeIfPresent(participant, (key, value) -> {
+            ranking.remove(new Score(key, value));
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Sets a participant's progress. Ignored for non-participants.
+     *
+     * @param participant the participant's username
+     * @param value the new progress
+     */
+    public void set(String participant, int value) {
+        update(participant, current -> value);
+    }
+
+    /**
+     * Adds to a participant's progress. Ignored for non-participants.
+     *
+     * @param participant the participant's username
+     * @param delta the amount to add
+     */
+    public void add(String participant, int delta) {
+        update(participant, current -> current + delta);
+    }
+
+    /**
+     * Raises a participant's progress to a value if it is higher. Ignored for non-participants.
+     *
+     * @param participant the participant's username
+     * @param value the candidate progress
+     */
+    public void raise(String participant, int value) {
+        update(participant, current -> Math.max(current, value));
+    }
+
+    /**
+     * Returns true if a user takes part.
+     *
+     * @param participant the participant's username
+     * @return true if a participant
+     */
+    public boolean contains(String participant) {
+        return values.containsKey(participant);
+    }
+
+    /**
+     * Gets a participant's progress.
+     *
+     * @param participant the participant's username
+     * @return the progress, or null if not a participant
+     */
+    public Integer getValue(String participant) {
+        return values.get(participant);
+    }
+
+    /**
+     * Gets the highest ranked participants.
+     *
+     * @param limit the maximum number of standings to return
+     * @return the standings, best first
+     */
+    public List<ChallengeStanding> top(int limit) {
+        List<ChallengeStanding> standings = new ArrayList<>(Math.min(limit, values.size()));
+        Iterator<Score> scores = ranking.iterator();
+        int position = 0;
+        int rank = 0;
+        int previousValue = 0;
+        while (standings.size() < limit && scores.hasNext()) {
+            Score score = scores.next();
+            position++;
+            if (position == 1 || score.value != previousValue) {
+                rank = position;
+                previousValue = score.value;
+            }
+            standings.add(new ChallengeStanding(rank, score.participant, score.value));
+        }
+        return standings;
+    }
+
+    /**
+     * Gets the participants' usernames.
+     *
+     * @return a live, unmodifiable view of the participants
+     */
+    public Set<String> participants() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+
+    /**
+     * Gets the number of participants.
+     *
+     * @return the participant count
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private void update(String participant, IntUnaryOperator change) {
+        values.computeIfPresent(participant, (key, current) -> {
+            int updated = change.applyAsInt(current);
+            if (updated != current) {
+                ranking.remove(new Score(key, current));
+                ranking.add(new Score(key, updated));
+            }
+            return updated;
+        });
+    }
+
+    private record Score(String participant, int value) {
+    }
+}
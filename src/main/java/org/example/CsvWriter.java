@@ -0,0 +1,240 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * Minimal streaming CSV writer following RFC 4180.
+ *
+ * Fields are appended to a reusable character buffer that is handed to the underlying
+ * writer whenever it fills up, so rows are never built as intermediate strings.
+ * A field is quoted only when it contains a comma, double quote, CR or LF; embedded
+ * quotes are doubled. Records end with CRLF.
+ */
+public class CsvWriter implements Flushable, Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final char[] LINE_END = {'\r', '\n'};
+
+    private final Writer out;
+    private final char[] buffer;
+    private int position;
+    private boolean firstField = true;
+
+    /**
+     * Creates a writer with the default buffer size.
+     *
+     * @param out the destination (must not be null)
+     * @throws IllegalArgumentException if out is null
+     */
+    public CsvWriter(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer with a custom buffer size.
+     *
+     * @param out the destination (must not be null)
+     * @param bufferSize the buffer size in characters (must be at least 32)
+     * @throws IllegalArgumentException if out is null or bufferSize is too small
+     */
+    public CsvWriter(Writer out, int bufferSize) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (bufferSize < 32) {
+            throw new IllegalArgumentException("Buffer size must be at least 32");
+        }
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Writes a text field, quoting it if needed. A null value is written as an empty field.
+     *
+     * @param value the field value
+     * @return this writer
+     * @throws IOException if writing fails
+     */
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        if (!needsQuoting(value)) {
+            append(value);
+            return this;
+        }
+        appendChar('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                appendChar('"');
+            }
+            appendChar(c);
+        }
+        appendChar('"');
+        return this;
+    }
+
+    /**
+     * Writes a numeric field.
+     *
+     * @param value the field value
+     * @return this writer
+     * @throws IOException if writing fails
+     */
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return this;
+        }
+        ensureRoom(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        reverse(start, position - 1);
+        return this;
+    }
+
+    /**
+     * Writes a date field in ISO-8601 format (yyyy-MM-dd).
+     *
+     * @param date the date (null is written as an empty field)
+     * @return this writer
+     * @throws IOException if writing fails
+     */
+    public CsvWriter field(LocalDate date) throws IOException {
+        if (date == null) {
+            return field((String) null);
+        }
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return field(date.toString());
+        }
+        separator();
+        ensureRoom(10);
+        appendDigits(year, 4);
+        buffer[position++] = '-';
+        appendDigits(date.getMonthValue(), 2);
+        buffer[position++] = '-';
+        appendDigits(date.getDayOfMonth(), 2);
+        return this;
+    }
+
+    /**
+     * Ends the current record.
+     *
+     * @throws IOException if writing fails
+     */
+    public void endRow() throws IOException {
+        ensureRoom(LINE_END.length);
+        buffer[position++] = LINE_END[0];
+        buffer[position++] = LINE_END[1];
+        firstField = true;
+    }
+
+    /**
+     * Writes a complete record of text fields.
+     *
+     * @param fields the field values
+     * @throws IOException if writing fails
+     */
+    public void row(String... fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        endRow();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (firstField) {
+            firstField = false;
+        } else {
+            appendChar(',');
+        }
+    }
+
+    private static boolean needsQuoting(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(String value) throws IOException {
+        int length = value.length();
+        int offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length - offset, buffer.length - position);
+            value.getChars(offset, offset + chunk, buffer, position);
+            position += chunk;
+            offset += chunk;
+        }
+    }
+
+    private void appendChar(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    private void appendDigits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            char tmp = buffer[from];
+            buffer[from++] = buffer[to];
+            buffer[to--] = tmp;
+        }
+    }
+
+    private void ensureRoom(int chars) throws IOException {
+        if (buffer.length - position < chars) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
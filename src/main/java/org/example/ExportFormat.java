@@ -0,0 +1,42 @@
+package org.example;
+
+/**
+ * Enumeration of supported export file formats.
+ */
+public enum ExportFormat {
+    JSON("json"),
+    CSV("csv");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the file extension used for this format (without the leading dot).
+     *
+     * @return the file extension
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Parses a format name case-insensitively.
+     *
+     * @param value the format name, e.g. "json" or "csv"
+     * @return the matching format
+     * @throws IllegalArgumentException if the value is null or not a supported format
+     */
+    public static ExportFormat fromString(String value) {
+        if (value != null) {
+            for (ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
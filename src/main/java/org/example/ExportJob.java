@@ -0,0 +1,230 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Represents an asynchronous export of a user's data to a compressed file.
+ *
+ * The job is shared between the request threads that poll it and the worker that
+ * produces the file, so all state transitions are synchronized. Downloads in progress are
+ * counted, and a file that expires while it is being read is handed back for deletion by
+ * the last reader instead.
+ */
+public class ExportJob {
+    private final String id;
+    private final Long userId;
+    private final ExportFormat format;
+    private final LocalDateTime createdAt;
+    private ExportJobStatus status;
+    private LocalDateTime completedAt;
+    private Path file;
+    private long sizeBytes;
+    private String errorMessage;
+    private int openDownloads;
+    private Path expiredFile;
+
+    /**
+     * Creates a new queued export job.
+     *
+     * @param id the unique job id (must not be null or blank)
+     * @param userId the owning user's id (must not be null)
+     * @param format the export format (must not be null)
+     * @param createdAt when the job was submitted (must not be null)
+     * @throws IllegalArgumentException if validation fails
+     */
+    public ExportJob(String id, Long userId, ExportFormat format, LocalDateTime createdAt) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Job id cannot be null or blank");
+        }
+        if (userId == null) {
+            throw new IllegalArgumentException("User id cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Export format cannot be null");
+        }
+        if (createdAt == null) {
+            throw new IllegalArgumentException("CreatedAt cannot be null");
+        }
+        this.id = id;
+        this.userId = userId;
+        this.format = format;
+        this.createdAt = createdAt;
+        this.status = ExportJobStatus.QUEUED;
+    }
+
+    /**
+     * Moves the job from QUEUED to RUNNING.
+     *
+     * @return true if the job was queued and is now running, false if it was expired meanwhile
+     */
+    public synchronized boolean markRunning() {
+        if (status != ExportJobStatus.QUEUED) {
+            return false;
+        }
+        status = ExportJobStatus.RUNNING;
+        return true;
+    }
+
+    /**
+     * Records a successfully written export file.
+     *
+     * @param file the compressed export file
+     * @param sizeBytes the file size in bytes
+     * @param completedAt when the file was finished
+     */
+    public synchronized void markCompleted(Path file, long sizeBytes, LocalDateTime completedAt) {
+        this.status = ExportJobStatus.COMPLETED;
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * Records a failed export.
+     *
+     * @param errorMessage a short description of the failure
+     * @param completedAt when the job stopped
+     */
+    public synchronized void markFailed(String errorMessage, LocalDateTime completedAt) {
+        this.status = ExportJobStatus.FAILED;
+        this.errorMessage = errorMessage;
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * Marks the job as expired and forgets its file.
+     *
+     * @return the file to delete now, or null if there was none or it is still being downloaded
+     */
+    public synchronized Path markExpired() {
+        Path previousFile = file;
+        status = ExportJobStatus.EXPIRED;
+        file = null;
+        if (previousFile != null && openDownloads > 0) {
+            expiredFile = previousFile; // Deleted when the last download is released
+            return null;
+        }
+        return previousFile;
+    }
+
+    /**
+     * Starts a download of the export file, keeping the file until the download is released.
+     *
+     * @return the export file, or null if the job has not completed or has expired
+     */
+    public synchronized Path acquireDownload() {
+        if (status != ExportJobStatus.COMPLETED || file == null) {
+            return null;
+        }
+        openDownloads++;
+        return file;
+    }
+
+    /**
+     * Ends a download started with {@link #acquireDownload()}.
+     *
+     * @return the file to delete if the job expired during the last open download, otherwise null
+     */
+    public synchronized Path releaseDownload() {
+        if (openDownloads == 0) {
+            throw new IllegalStateException("No download of export job " + id + " is open");
+        }
+        openDownloads--;
+        Path fileToDelete = openDownloads == 0 ? expiredFile : null;
+        if (fileToDelete != null) {
+            expiredFile = null;
+        }
+        return fileToDelete;
+    }
+
+    /**
+     * Returns the job id.
+     *
+     * @return the job id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the owning user's id.
+     *
+     * @return the owning user's id
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the export format.
+     *
+     * @return the export format
+     */
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the submission time.
+     *
+     * @return when the job was submitted
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the current status.
+     *
+     * @return the current status
+     */
+    public synchronized ExportJobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the completion time.
+     *
+     * @return when the job completed or failed, or null if still pending
+     */
+    public synchronized LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Returns the compressed export file.
+     *
+     * @return the export file, or null if not completed or expired
+     */
+    public synchronized Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the export file size.
+     *
+     * @return the export file size in bytes (0 until completed)
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Returns the failure description.
+     *
+     * @return the failure description, or null if the job has not failed
+     */
+    public synchronized String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Gets the file name offered to clients when downloading the export.
+     *
+     * @return the download file name, e.g. "user-data.json.gz"
+     */
+    public String getDownloadFileName() {
+        return "user-data." + format.getExtension() + ".gz";
+    }
+}
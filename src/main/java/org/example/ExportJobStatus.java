@@ -0,0 +1,12 @@
+package org.example;
+
+/**
+ * Lifecycle states of an asynchronous export job.
+ */
+public enum ExportJobStatus {
+    QUEUED,     // Waiting for a free export worker
+    RUNNING,    // Export file is being written
+    COMPLETED,  // Export file is ready for download
+    FAILED,     // Export could not be produced
+    EXPIRED     // Export file was removed after its retention period
+}
@@ -1,8 +1,19 @@
 package org.example;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -11,93 +22,216 @@ import java.util.List;
  */
 @Service
 public class ExportService {
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     /**
      * Exports all user data to JSON format.
+     * Prefer {@link #writeJson} for large histories; this variant buffers the whole document.
      */
     public String exportToJson(UserStats userStats,
                                List<Habit> habits,
                                List<Goal> goals,
                                HabitService habitService,
                                GoalService goalService,
-                               AchievementService achievementService,
-                               MilestoneService milestoneService,
-                               AnalyticsService analyticsService) {
+                               List<Achievement> achievements,
+                               List<Milestone> milestones) {
         try {
-            List<HabitCheck> habitChecks = habitService.getAllHabitChecks();
-            List<GoalNote> goalNotes = goalService.getAllGoalNotes();
-            
-            LocalDate currentDate = LocalDate.now();
-            List<Achievement> achievements = achievementService.calculateAchievements(
-                userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
-            List<Milestone> milestones = milestoneService.getMilestones(
-                userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
-
-            ExportData exportData = new ExportData(
-                currentDate,
-                userStats,
-                habits,
-                goals,
-                habitChecks,
-                goalNotes,
-                achievements,
-                milestones
-            );
-
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(exportData);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeJson(out, userStats, habits, goals, habitService, goalService,
+                achievements, milestones);
+            return out.toString(StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("Failed to export data: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Streams all user data as JSON to the given output stream.
+     *
+     * Habit checks and goal notes are written one at a time as they are read from the
+     * services, so memory use does not grow with the size of the history. Checks and notes
+     * refer to habits and goals by name/title; the full definitions are written once in the
+     * "habits" and "goals" arrays. The stream is flushed but not closed.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeJson(OutputStream out,
+                          UserStats userStats,
+                          List<Habit> habits,
+                          List<Goal> goals,
+                          HabitService habitService,
+                          GoalService goalService,
+                          List<Achievement> achievements,
+                          List<Milestone> milestones) throws IOException {
+        LocalDate currentDate = LocalDate.now();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            json.writeStartObject();
+            json.writeStringField("exportDate", currentDate.toString());
+            json.writeFieldName("userStats");
+            json.writeObject(userStats);
+            json.writeFieldName("habits");
+            json.writeObject(habits);
+            json.writeFieldName("goals");
+            json.writeObject(goals);
+
+            json.writeArrayFieldStart("habitChecks");
+            try {
+                habitService.forEachHabitCheck(check -> writeHabitCheck(json, check));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("goalNotes");
+            try {
+                goalService.forEachGoalNote(note -> writeGoalNote(json, note));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            json.writeEndArray();
+
+            json.writeFieldName("achievements");
+            json.writeObject(achievements);
+            json.writeFieldName("milestones");
+            json.writeObject(milestones);
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeHabitCheck(JsonGenerator json, HabitCheck check) {
+        try {
+            json.writeStartObject();
+            json.writeStringField("habit", check.habit().getName());
+            json.writeStringField("date", check.date().toString());
+            json.writeStringField("result", check.result().name());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeGoalNote(JsonGenerator json, GoalNote note) {
+        try {
+            json.writeStartObject();
+            json.writeStringField("goal", note.goal().getTitle());
+            json.writeStringField("date", note.date().toString());
+            json.writeStringField("textNote", note.textNote());
+            json.writeNumberField("points", note.points());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Exports user data to CSV format.
+     * Prefer {@link #writeCsv} for large histories; this variant buffers the whole file.
      */
     public String exportToCsv(UserStats userStats,
                               List<Habit> habits,
                               List<Goal> goals,
                               HabitService habitService,
                               GoalService goalService) {
-        StringBuilder csv = new StringBuilder();
-        
+        StringWriter csv = new StringWriter();
+        try {
+            writeCsv(csv, userStats, habits, goals, habitService, goalService);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Streams user data as RFC 4180 CSV (UTF-8) to the given output stream.
+     * The stream is flushed but not closed.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeCsv(OutputStream out,
+                         UserStats userStats,
+                         List<Habit> habits,
+                         List<Goal> goals,
+                         HabitService habitService,
+                         GoalService goalService) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeCsv(writer, userStats, habits, goals, habitService, goalService);
+    }
+
+    private void writeCsv(Writer writer,
+                          UserStats userStats,
+                          List<Habit> habits,
+                          List<Goal> goals,
+                          HabitService habitService,
+                          GoalService goalService) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        LocalDate today = LocalDate.now();
+
         // Header
-        csv.append("Type,Name,Date,Value,Description\n");
-        
+        csv.row("Type", "Name", "Date", "Value", "Description");
+
         // User stats
-        csv.append(String.format("STATS,Total XP,%s,%d,Total accumulated XP\n", 
-            LocalDate.now(), userStats.getTotalXp()));
-        csv.append(String.format("STATS,Level,%s,%d,Current level\n", 
-            LocalDate.now(), userStats.getLevel()));
-        
+        csv.field("STATS").field("Total XP").field(today).field(userStats.getTotalXp())
+            .field("Total accumulated XP").endRow();
+        csv.field("STATS").field("Level").field(today).field(userStats.getLevel())
+            .field("Current level").endRow();
+
         // Habits
         for (Habit habit : habits) {
-            csv.append(String.format("HABIT,%s,%s,%d,Habit: %s\n",
-                habit.getName(), LocalDate.now(), habit.getDifficulty().getValue(), habit.getName()));
+            csv.field("HABIT").field(habit.getName()).field(today).field(habit.getDifficulty().getValue())
+                .field("Habit: " + habit.getName()).endRow();
         }
-        
+
         // Habit checks
-        for (HabitCheck check : habitService.getAllHabitChecks()) {
-            csv.append(String.format("HABIT_CHECK,%s,%s,%s,%s\n",
-                check.habit().getName(),
-                check.date(),
-                check.result().name(),
-                check.result() == HabitCheckResult.DONE ? "Completed" : "Missed"));
+        try {
+            habitService.forEachHabitCheck(check -> writeHabitCheckRow(csv, check));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        
+
         // Goals
         for (Goal goal : goals) {
-            csv.append(String.format("GOAL,%s,%s,%d,Goal: %s\n",
-                goal.getTitle(), goal.getStartDate(), goal.getTotalProgressPoints(), goal.getDescription()));
+            csv.field("GOAL").field(goal.getTitle()).field(goal.getStartDate()).field(goal.getTotalProgressPoints())
+                .field("Goal: " + goal.getDescription()).endRow();
         }
-        
+
         // Goal notes
-        for (GoalNote note : goalService.getAllGoalNotes()) {
-            csv.append(String.format("GOAL_NOTE,Progress,%s,%d,%s\n",
-                note.date(), note.points(), note.textNote()));
+        try {
+            goalService.forEachGoalNote(note -> writeGoalNoteRow(csv, note));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        csv.flush();
+    }
+
+    private static void writeHabitCheckRow(CsvWriter csv, HabitCheck check) {
+        try {
+            csv.field("HABIT_CHECK")
+                .field(check.habit().getName())
+                .field(check.date())
+                .field(check.result().name())
+                .field(check.result() == HabitCheckResult.DONE ? "Completed" : "Missed")
+                .endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeGoalNoteRow(CsvWriter csv, GoalNote note) {
+        try {
+            csv.field("GOAL_NOTE")
+                .field("Progress")
+                .field(note.date())
+                .field(note.points())
+                .field(note.textNote())
+                .endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        
-        return csv.toString();
     }
 }
 
@@ -43,9 +43,6 @@ public class GoalConsistencyCalculator {
             return new GoalConsistency(goal, 0.0, 0, 0, 0.0);
         }
 
-        int activeDays = relevantNotes.size();
-        int totalNotes = relevantNotes.size();
-
         // Calculate gaps between activity days
         double totalGapDays = 0.0;
         int gapCount = 0;
@@ -62,6 +59,37 @@ public class GoalConsistencyCalculator {
             }
         }
 
+        return calculateConsistency(goal, relevantNotes.size(), totalGapDays, gapCount, currentDate);
+    }
+
+    /**
+     * Calculates consistency metrics for a goal from its note counts, such as counts
+     * aggregated by a database query.
+     *
+     * @param goal the goal to calculate consistency for
+     * @param activeDays the number of days with a note (one note per goal per day)
+     * @param totalGapDays the total number of days without a note between consecutive notes
+     * @param gapCount the number of gaps of at least one day between consecutive notes
+     * @param currentDate the current date for calculations
+     * @return the GoalConsistency information
+     * @throws IllegalArgumentException if goal or currentDate is null, or a count is negative
+     */
+    public GoalConsistency calculateConsistency(Goal goal, int activeDays, double totalGapDays, int gapCount,
+                                                LocalDate currentDate) {
+        if (goal == null) {
+            throw new IllegalArgumentException("Goal cannot be null");
+        }
+        if (currentDate == null) {
+            throw new IllegalArgumentException("Current date cannot be null");
+        }
+        if (activeDays < 0 || totalGapDays < 0 || gapCount < 0) {
+            throw new IllegalArgumentException("Note counts cannot be negative");
+        }
+        if (activeDays == 0) {
+            return new GoalConsistency(goal, 0.0, 0, 0, 0.0);
+        }
+        int totalNotes = activeDays;
+
         // Calculate average gap days
         double averageGapDays = gapCount > 0 ? totalGapDays / gapCount : 0.0;
 
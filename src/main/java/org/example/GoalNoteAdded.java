@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * Published after a goal note was added and the user's new stats were saved, so the services
+ * tracking a user's progress can follow it.
+ *
+ * @param userId the user's id
+ * @param username the user's name
+ * @param note the added note
+ * @param transaction the XP transaction the note produced
+ * @param before the user's stats before the note
+ * @param after the user's stats after the note
+ * @param goalService the user's goal service, holding the note
+ */
+public record GoalNoteAdded(Long userId, String username, GoalNote note, XpTransaction transaction,
+                            UserStats before, UserStats after, GoalService goalService) {
+}
@@ -1,10 +1,21 @@
 package org.example;
 
+import org.example.history.DatedRecordArchive;
+import org.example.history.HistoryCodec;
+import org.example.history.IdInterner;
+
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -12,14 +23,16 @@ import java.util.stream.Collectors;
  * Provides anti-cheat validation, daily goal XP limits, and progress tracking.
  * 
  * Goal XP contributes to overall user XP and respects the daily XP cap from HabitService.
+ * Notes older than a cutoff can be moved to compact cold storage with {@link #archiveNotesBefore(LocalDate)}.
  */
 public class GoalService {
     private final GoalProgressCalculator progressCalculator;
     private final DailyGoalXpLimit dailyGoalXpLimit;
     private final LevelCalculator levelCalculator;
     private final Map<String, Goal> goals; // Using title as key for simplicity
-    private final Map<LocalDate, Map<Goal, GoalNote>> dailyGoalNotes; // date -> (goal -> note)
+    private final NavigableMap<LocalDate, Map<Goal, GoalNote>> dailyGoalNotes; // date -> (goal -> note), notes in insertion order
     private final Map<LocalDate, Map<Goal, Integer>> dailyGoalXp; // date -> (goal -> xp assigned)
+    private final DatedRecordArchive<GoalNote> archivedNotes;
 
     /**
      * Creates a new GoalService with default settings.
@@ -53,8 +66,10 @@ public class GoalService {
         this.dailyGoalXpLimit = dailyGoalXpLimit;
         this.levelCalculator = levelCalculator;
         this.goals = new HashMap<>();
-        this.dailyGoalNotes = new HashMap<>();
+        this.dailyGoalNotes = new TreeMap<>();
         this.dailyGoalXp = new HashMap<>();
+        HistoryCodec codec = new HistoryCodec(new IdInterner<>(), new IdInterner<>());
+        this.archivedNotes = new DatedRecordArchive<>(codec.goalNoteCodec());
     }
 
     /**
@@ -136,7 +151,7 @@ public class GoalService {
 
         // Anti-cheat: Prevent adding more than one note per goal per day
         Map<Goal, GoalNote> notesForDate = dailyGoalNotes.getOrDefault(date, new HashMap<>());
-        if (notesForDate.containsKey(goal)) {
+        if (notesForDate.containsKey(goal) || findArchivedNote(goal, date) != null) {
             throw new IllegalStateException(
                 String.format("A note for goal '%s' has already been added on %s. Only one note per goal per day is allowed.",
                     goal.getTitle(), date));
@@ -163,7 +178,7 @@ public class GoalService {
 
         // Store the note
         if (!dailyGoalNotes.containsKey(date)) {
-            dailyGoalNotes.put(date, new HashMap<>());
+            dailyGoalNotes.put(date, new LinkedHashMap<>());
         }
         dailyGoalNotes.get(date).put(goal, note);
 
@@ -196,6 +211,42 @@ public class GoalService {
         return new NoteResult(updatedStats, note, transaction);
     }
 
+    /**
+     * Restores a goal note from persisted history. The goal is added if it is not held yet, and
+     * the note's points count towards the goal's daily XP limit. No XP is applied to user stats,
+     * since the stored stats already include it.
+     *
+     * @param note the persisted note (must not be null)
+     * @throws IllegalArgumentException if note is null
+     * @throws IllegalStateException if a note for the same goal and date is already held
+     */
+    public void restoreGoalNote(GoalNote note) {
+        if (note == null) {
+            throw new IllegalArgumentException("Goal note cannot be null");
+        }
+        Goal goal = goals.computeIfAbsent(note.goal().getTitle(), title -> note.goal());
+        if (getGoalNote(goal, note.date()) != null) {
+            throw new IllegalStateException(
+                String.format("A note for goal '%s' on %s is already held", goal.getTitle(), note.date()));
+        }
+        dailyGoalNotes.computeIfAbsent(note.date(), date -> new LinkedHashMap<>()).put(goal, note);
+        dailyGoalXp.computeIfAbsent(note.date(), date -> new HashMap<>()).merge(goal, note.points(), Integer::sum);
+    }
+
+    /**
+     * Creates a service holding a copy of this service's goals and notes, archived notes
+     * included, for reading on another thread. Later notes on either service do not show in
+     * the other.
+     *
+     * @return the copy
+     */
+    public GoalService copy() {
+        GoalService copy = new GoalService(progressCalculator, dailyGoalXpLimit, levelCalculator);
+        goals.values().forEach(copy::addGoal);
+        getAllGoalNotes().forEach(copy::restoreGoalNote);
+        return copy;
+    }
+
     /**
      * Gets all notes for a specific goal.
      *
@@ -206,8 +257,7 @@ public class GoalService {
         if (goal == null) {
             throw new IllegalArgumentException("Goal cannot be null");
         }
-        return dailyGoalNotes.values().stream()
-                .flatMap(map -> map.values().stream())
+        return getAllGoalNotes().stream()
                 .filter(note -> note.goal().equals(goal))
                 .sorted((a, b) -> a.date().compareTo(b.date()))
                 .collect(Collectors.toList());
@@ -228,7 +278,8 @@ public class GoalService {
             throw new IllegalArgumentException("Date cannot be null");
         }
         Map<Goal, GoalNote> notesForDate = dailyGoalNotes.get(date);
-        return notesForDate != null ? notesForDate.get(goal) : null;
+        GoalNote note = notesForDate != null ? notesForDate.get(goal) : null;
+        return note != null ? note : findArchivedNote(goal, date);
     }
 
     /**
@@ -274,9 +325,134 @@ public class GoalService {
      * @return a list of all goal notes
      */
     public List<GoalNote> getAllGoalNotes() {
-        return dailyGoalNotes.values().stream()
-                .flatMap(map -> map.values().stream())
+        List<GoalNote> notes = new ArrayList<>(archivedNotes.size());
+        archivedNotes.forEach((date, note) -> notes.add(note));
+        for (Map<Goal, GoalNote> notesForDate : dailyGoalNotes.values()) {
+            notes.addAll(notesForDate.values());
+        }
+        return List.copyOf(notes);
+    }
+
+    /**
+     * Visits every goal note, archived notes first and then in-memory notes by date,
+     * without materializing the full history.
+     *
+     * @param consumer receives each goal note (must not be null)
+     * @throws IllegalArgumentException if consumer is null
+     */
+    public void forEachGoalNote(Consumer<GoalNote> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        archivedNotes.forEach((date, note) -> consumer.accept(note));
+        for (Map<Goal, GoalNote> notesForDate : dailyGoalNotes.values()) {
+            notesForDate.values().forEach(consumer);
+        }
+    }
+
+    /**
+     * Iterates goal notes newest date first, starting at a date, merging in-memory and
+     * archived notes. Notes sharing a date keep the order they were added in, in-memory
+     * ones first. Notes are produced lazily, so a caller that stops early only touches
+     * the days it reads.
+     *
+     * @param onOrBefore only notes dated on or before this date are returned (must not be null)
+     * @return an iterator of goal notes in descending date order
+     * @throws IllegalArgumentException if onOrBefore is null
+     */
+    public Iterator<GoalNote> descendingGoalNotes(LocalDate onOrBefore) {
+        if (onOrBefore == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        Iterator<Map<Goal, GoalNote>> hotDays = dailyGoalNotes.headMap(onOrBefore, true).descendingMap().values().iterator();
+        Iterator<Map.Entry<LocalDate, GoalNote>> archived = archivedNotes.descendingIterator(onOrBefore);
+        return new Iterator<>() {
+            private Iterator<GoalNote> hotDay = Collections.emptyIterator();
+            private GoalNote nextHot = advanceHot();
+            private GoalNote nextArchived = archived.hasNext() ? archived.next().getValue() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextArchived != null;
+            }
+
+            @Override
+            public GoalNote next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                GoalNote result;
+                if (nextHot == null || (nextArchived != null && nextArchived.date().isAfter(nextHot.date()))) {
+                    result = nextArchived;
+                    nextArchived = archived.hasNext() ? archived.next().getValue() : null;
+                } else {
+                    result = nextHot;
+                    nextHot = advanceHot();
+                }
+                return result;
+            }
+
+            private GoalNote advanceHot() {
+                while (!hotDay.hasNext() && hotDays.hasNext()) {
+                    hotDay = hotDays.next().values().iterator();
+                }
+                return hotDay.hasNext() ? hotDay.next() : null;
+            }
+        };
+    }
+
+    /**
+     * Moves goal notes older than the cutoff into compact cold storage.
+     * Archived notes remain visible through every read method and still count
+     * towards the one-note-per-goal-per-day rule. Dates at or before the most
+     * recently archived date stay in memory.
+     *
+     * @param cutoff notes dated strictly before this date are archived (must not be null)
+     * @return the number of notes archived
+     * @throws IllegalArgumentException if cutoff is null
+     */
+    public int archiveNotesBefore(LocalDate cutoff) {
+        if (cutoff == null) {
+            throw new IllegalArgumentException("Cutoff date cannot be null");
+        }
+        LocalDate archivedUpTo = archivedNotes.lastDate();
+        List<LocalDate> dates = dailyGoalNotes.headMap(cutoff, false).keySet().stream()
+                .filter(date -> archivedUpTo == null || date.isAfter(archivedUpTo))
                 .toList();
+        int archived = 0;
+        for (LocalDate date : dates) {
+            for (GoalNote note : dailyGoalNotes.remove(date).values()) {
+                archivedNotes.append(date, note);
+                archived++;
+            }
+            // A goal can only get XP once per day, so past totals are no longer needed
+            dailyGoalXp.remove(date);
+        }
+        if (archived > 0) {
+            archivedNotes.trimToSize();
+        }
+        return archived;
+    }
+
+    /**
+     * Gets the number of goal notes held in cold storage.
+     *
+     * @return the number of archived notes
+     */
+    public int getArchivedNoteCount() {
+        return archivedNotes.size();
+    }
+
+    private GoalNote findArchivedNote(Goal goal, LocalDate date) {
+        if (archivedNotes.isEmpty()) {
+            return null;
+        }
+        for (GoalNote note : archivedNotes.get(date)) {
+            if (note.goal().equals(goal)) {
+                return note;
+            }
+        }
+        return null;
     }
 
     /**
@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * Published after a habit check was recorded and the user's new stats were saved, so the
+ * services tracking a user's progress can follow it.
+ *
+ * @param userId the user's id
+ * @param username the user's name
+ * @param check the recorded check
+ * @param transaction the XP transaction the check produced
+ * @param before the user's stats before the check
+ * @param after the user's stats after the check
+ * @param habitService the user's habit service, holding the check
+ */
+public record HabitChecked(Long userId, String username, HabitCheck check, XpTransaction transaction,
+                           UserStats before, UserStats after, HabitService habitService) {
+}
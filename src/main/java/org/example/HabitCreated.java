@@ -0,0 +1,12 @@
+package org.example;
+
+/**
+ * Published after a habit was created and saved, so the services tracking a user's progress
+ * can follow it.
+ *
+ * @param userId the user's id
+ * @param habit the created habit
+ * @param habitCount the number of habits the user has stored, including this one
+ */
+public record HabitCreated(Long userId, Habit habit, long habitCount) {
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks a user's runs of consecutive completed days per habit as checks arrive,
+ * so the best streak is known without replaying the user's history.
+ * Checks recorded out of date order do not extend a run.
+ *
+ * Thread-safe.
+ */
+public class HabitRunTracker {
+    private final Map<Habit, Run> runs = new HashMap<>();
+    private int bestStreak;
+
+    /**
+     * Records a habit check.
+     *
+     * @param check the habit check
+     * @return the best streak so far, in days
+     */
+    public synchronized int record(HabitCheck check) {
+        // A missed day cannot be followed by a consecutive completion, so only completions matter
+        if (!check.isDone()) {
+            return bestStreak;
+        }
+        Run run = runs.get(check.habit());
+        int length = 1;
+        if (run != null) {
+            if (!check.date().isAfter(run.lastDone())) {
+                bestStreak = Math.max(bestStreak, 1);
+                return bestStreak;
+            }
+            if (check.date().equals(run.lastDone().plusDays(1))) {
+                length = run.length() + 1;
+            }
+        }
+        runs.put(check.habit(), new Run(check.date(), length));
+        bestStreak = Math.max(bestStreak, length);
+        return bestStreak;
+    }
+
+    /**
+     * Gets the longest run of consecutive completed days of any habit.
+     *
+     * @return the best streak, in days
+     */
+    public synchronized int getBestStreak() {
+        return bestStreak;
+    }
+
+    /**
+     * Gets the length of a habit's most recent run of completed days.
+     *
+     * @param habit the habit
+     * @return the run length in days, or 0 if the habit has no completions
+     */
+    public synchronized int getLatestRun(Habit habit) {
+        Run run = runs.get(habit);
+        return run != null ? run.length() : 0;
+    }
+
+    private record Run(LocalDate lastDone, int length) {
+    }
+}
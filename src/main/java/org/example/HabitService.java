@@ -1,22 +1,41 @@
 package org.example;
 
+import org.example.history.DatedRecordArchive;
+import org.example.history.HistoryCodec;
+import org.example.history.IdInterner;
+
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * Main service for managing habit checks and XP tracking.
  * Provides anti-cheat validation, daily XP capping, and activity tracking.
  * 
  * This is the primary API for interacting with the habit system.
+ *
+ * Activity older than a cutoff can be moved to compact cold storage with
+ * {@link #archiveActivityBefore(LocalDate)}; archived days stay fully readable.
+ * Days whose persisted checks were rolled up into daily totals are held as
+ * {@link RolledUpDay}s, which keep their XP in the history but no longer list checks.
  */
 public class HabitService {
     private final XpCalculator xpCalculator;
     private final LevelCalculator levelCalculator;
     private final XpDecayCalculator decayCalculator;
     private final DailyXpLimit dailyXpLimit;
-    private final Map<LocalDate, DailyActivityLog> activityLogs;
+    private final NavigableMap<LocalDate, DailyActivityLog> activityLogs;
+    private final DatedRecordArchive<DailyActivityLog> archivedLogs;
+    private final NavigableMap<LocalDate, RolledUpDay> rolledUpDays = new TreeMap<>();
     private LocalDate lastActivityDate;
 
     /**
@@ -59,7 +78,9 @@ public class HabitService {
         this.levelCalculator = levelCalculator;
         this.decayCalculator = decayCalculator;
         this.dailyXpLimit = dailyXpLimit;
-        this.activityLogs = new HashMap<>();
+        this.activityLogs = new TreeMap<>();
+        HistoryCodec codec = new HistoryCodec(new IdInterner<>(), new IdInterner<>());
+        this.archivedLogs = new DatedRecordArchive<>(codec.activityLogCodec());
     }
 
     /**
@@ -93,7 +114,7 @@ public class HabitService {
         }
 
         // Anti-cheat: Prevent duplicate rewards for the same habit on the same day
-        DailyActivityLog todayLog = activityLogs.getOrDefault(date, DailyActivityLog.empty(date));
+        DailyActivityLog todayLog = findActivityLog(date);
         if (result == HabitCheckResult.DONE && todayLog.hasHabitBeenChecked(habit)) {
             throw new IllegalStateException(
                 String.format("Habit '%s' has already been checked as DONE on %s. Cannot reward twice.", 
@@ -201,7 +222,7 @@ public class HabitService {
         if (date == null) {
             throw new IllegalArgumentException("Date cannot be null");
         }
-        return activityLogs.getOrDefault(date, DailyActivityLog.empty(date));
+        return findActivityLog(date);
     }
 
     /**
@@ -250,7 +271,7 @@ public class HabitService {
             return; // No need to record zero XP
         }
 
-        DailyActivityLog todayLog = activityLogs.getOrDefault(date, DailyActivityLog.empty(date));
+        DailyActivityLog todayLog = findActivityLog(date);
         DailyActivityLog updatedLog = todayLog.addXp(xpAmount);
         activityLogs.put(date, updatedLog);
 
@@ -260,6 +281,61 @@ public class HabitService {
         }
     }
 
+    /**
+     * Restores a day's activity log from persisted history, replacing any log held for that date.
+     * No business rules are applied and no XP is awarded, since the stored stats already include
+     * the day; this only rebuilds the state later checks and analytics read.
+     *
+     * @param log the persisted activity log (must not be null)
+     * @throws IllegalArgumentException if log is null
+     */
+    public void restoreActivityLog(DailyActivityLog log) {
+        if (log == null) {
+            throw new IllegalArgumentException("Activity log cannot be null");
+        }
+        activityLogs.put(log.getDate(), log);
+        if (lastActivityDate == null || log.getDate().isAfter(lastActivityDate)) {
+            lastActivityDate = log.getDate();
+        }
+    }
+
+    /**
+     * Restores a day whose persisted checks and notes were rolled up into daily totals,
+     * replacing any rolled-up totals held for that date.
+     *
+     * @param day the rolled-up day (must not be null)
+     * @throws IllegalArgumentException if day is null
+     */
+    public void restoreRolledUpDay(RolledUpDay day) {
+        if (day == null) {
+            throw new IllegalArgumentException("Rolled-up day cannot be null");
+        }
+        rolledUpDays.put(day.date(), day);
+    }
+
+    /**
+     * Gets the rolled-up days, oldest first.
+     *
+     * @return a list of rolled-up days
+     */
+    public List<RolledUpDay> getRolledUpDays() {
+        return List.copyOf(rolledUpDays.values());
+    }
+
+    /**
+     * Creates a service holding a copy of this service's history, archived and rolled-up days
+     * included, for reading on another thread. Activity logs are immutable, so the copy shares
+     * them, and later checks on either service do not show in the other.
+     *
+     * @return the copy
+     */
+    public HabitService copy() {
+        HabitService copy = new HabitService(xpCalculator, levelCalculator, decayCalculator, dailyXpLimit);
+        getAllActivityLogs().values().forEach(copy::restoreActivityLog);
+        rolledUpDays.values().forEach(copy::restoreRolledUpDay);
+        return copy;
+    }
+
     /**
      * Gets all activity logs for analytics purposes.
      * Returns a copy of the internal map.
@@ -267,7 +343,10 @@ public class HabitService {
      * @return a map of date to activity log
      */
     public Map<LocalDate, DailyActivityLog> getAllActivityLogs() {
-        return new HashMap<>(activityLogs);
+        Map<LocalDate, DailyActivityLog> allLogs = new HashMap<>();
+        archivedLogs.forEach(allLogs::put);
+        allLogs.putAll(activityLogs); // Days updated after archiving shadow their archived copy
+        return allLogs;
     }
 
     /**
@@ -276,9 +355,148 @@ public class HabitService {
      * @return a list of all habit checks
      */
     public List<HabitCheck> getAllHabitChecks() {
-        return activityLogs.values().stream()
-                .flatMap(log -> log.getHabitChecks().stream())
+        List<HabitCheck> checks = new ArrayList<>();
+        archivedLogs.forEach((date, log) -> {
+            if (!activityLogs.containsKey(date)) {
+                checks.addAll(log.getHabitChecks());
+            }
+        });
+        for (DailyActivityLog log : activityLogs.values()) {
+            checks.addAll(log.getHabitChecks());
+        }
+        return List.copyOf(checks);
+    }
+
+    /**
+     * Visits every habit check, archived days first and then in-memory days by date,
+     * without materializing the full history.
+     * Archived days are decoded one at a time.
+     *
+     * @param consumer receives each habit check (must not be null)
+     * @throws IllegalArgumentException if consumer is null
+     */
+    public void forEachHabitCheck(Consumer<HabitCheck> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        archivedLogs.forEach((date, log) -> {
+            if (!activityLogs.containsKey(date)) {
+                log.getHabitChecks().forEach(consumer);
+            }
+        });
+        for (DailyActivityLog log : activityLogs.values()) {
+            log.getHabitChecks().forEach(consumer);
+        }
+    }
+
+    /**
+     * Iterates activity logs newest first, starting at a date, merging in-memory and
+     * archived days. Logs are produced lazily, so a caller that stops early only touches
+     * the days it reads.
+     *
+     * @param onOrBefore only logs dated on or before this date are returned (must not be null)
+     * @return an iterator of activity logs in descending date order
+     * @throws IllegalArgumentException if onOrBefore is null
+     */
+    public Iterator<DailyActivityLog> descendingActivityLogs(LocalDate onOrBefore) {
+        if (onOrBefore == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        Iterator<DailyActivityLog> hot = activityLogs.headMap(onOrBefore, true).descendingMap().values().iterator();
+        Iterator<Map.Entry<LocalDate, DailyActivityLog>> archived = archivedLogs.descendingIterator(onOrBefore);
+        return new Iterator<>() {
+            private DailyActivityLog nextHot = hot.hasNext() ? hot.next() : null;
+            private Map.Entry<LocalDate, DailyActivityLog> nextArchived = archived.hasNext() ? archived.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextArchived != null;
+            }
+
+            @Override
+            public DailyActivityLog next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                DailyActivityLog result;
+                if (nextHot == null || (nextArchived != null && nextArchived.getKey().isAfter(nextHot.getDate()))) {
+                    result = nextArchived.getValue();
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                    return result;
+                }
+                result = nextHot;
+                if (nextArchived != null && nextArchived.getKey().equals(nextHot.getDate())) {
+                    // Days updated after archiving shadow their archived copy
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                nextHot = hot.hasNext() ? hot.next() : null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Gets the distinct habits that have at least one check, in order of first check.
+     *
+     * @return a list of checked habits
+     */
+    public List<Habit> getCheckedHabits() {
+        Set<Habit> habits = new LinkedHashSet<>();
+        forEachHabitCheck(check -> habits.add(check.habit()));
+        return new ArrayList<>(habits);
+    }
+
+    /**
+     * Moves activity logs older than the cutoff into compact cold storage.
+     * Archived days are encoded as a few bytes per habit check and remain visible
+     * through every read method. Days at or before the most recently archived date
+     * (e.g. back-filled after a previous archive run) stay in memory.
+     *
+     * @param cutoff logs dated strictly before this date are archived (must not be null)
+     * @return the number of days archived
+     * @throws IllegalArgumentException if cutoff is null
+     */
+    public int archiveActivityBefore(LocalDate cutoff) {
+        if (cutoff == null) {
+            throw new IllegalArgumentException("Cutoff date cannot be null");
+        }
+        LocalDate archivedUpTo = archivedLogs.lastDate();
+        List<LocalDate> dates = activityLogs.headMap(cutoff, false).keySet().stream()
+                .filter(date -> archivedUpTo == null || date.isAfter(archivedUpTo))
                 .toList();
+        for (LocalDate date : dates) {
+            archivedLogs.append(date, activityLogs.remove(date));
+        }
+        if (!dates.isEmpty()) {
+            archivedLogs.trimToSize();
+        }
+        return dates.size();
+    }
+
+    /**
+     * Gets the number of days held in cold storage.
+     *
+     * @return the number of archived days
+     */
+    public int getArchivedDayCount() {
+        return archivedLogs.size();
+    }
+
+    /**
+     * Looks up the log for a date in memory first, then in cold storage.
+     */
+    private DailyActivityLog findActivityLog(LocalDate date) {
+        DailyActivityLog log = activityLogs.get(date);
+        if (log != null) {
+            return log;
+        }
+        if (!archivedLogs.isEmpty()) {
+            List<DailyActivityLog> archived = archivedLogs.get(date);
+            if (!archived.isEmpty()) {
+                return archived.get(0);
+            }
+        }
+        return DailyActivityLog.empty(date);
     }
 
     /**
@@ -0,0 +1,43 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Replays a user's habit checks and goal notes in date order, merged into one sequence,
+ * for the services that rebuild their per-user state from history on first access.
+ */
+final class HistoryReplay {
+    private HistoryReplay() {
+    }
+
+    /**
+     * Visits every habit check and goal note by date. Checks and notes on the same day keep
+     * the order they are held in, and a day's checks come before its notes.
+     *
+     * @param habitService the user's habit service
+     * @param goalService the user's goal service
+     * @param onHabitCheck receives each habit check
+     * @param onGoalNote receives each goal note
+     */
+    static void replay(HabitService habitService, GoalService goalService,
+                       Consumer<HabitCheck> onHabitCheck, Consumer<GoalNote> onGoalNote) {
+        List<HabitCheck> checks = new ArrayList<>();
+        habitService.forEachHabitCheck(checks::add);
+        checks.sort(Comparator.comparing(HabitCheck::date));
+        List<GoalNote> notes = new ArrayList<>();
+        goalService.forEachGoalNote(notes::add);
+        notes.sort(Comparator.comparing(GoalNote::date));
+        int c = 0;
+        int n = 0;
+        while (c < checks.size() || n < notes.size()) {
+            if (n == notes.size() || (c < checks.size() && !checks.get(c).date().isAfter(notes.get(n).date()))) {
+                onHabitCheck.accept(checks.get(c++));
+            } else {
+                onGoalNote.accept(notes.get(n++));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+/**
+ * The milestones a user works towards. Each milestone is a threshold on the counter for its type.
+ */
+public enum MilestoneRule {
+    FIRST_THOUSAND(MilestoneType.TOTAL_XP, 1000, "First Thousand", "Earn 1,000 total XP"),
+    FIVE_K_CLUB(MilestoneType.TOTAL_XP, 5000, "Five K Club", "Earn 5,000 total XP"),
+    TEN_K_CHAMPION(MilestoneType.TOTAL_XP, 10000, "Ten K Champion", "Earn 10,000 total XP"),
+    QUARTER_CENTURY(MilestoneType.TOTAL_XP, 25000, "Quarter Century", "Earn 25,000 total XP"),
+    HALF_CENTURY(MilestoneType.TOTAL_XP, 50000, "Half Century", "Earn 50,000 total XP"),
+    CENTURY_MASTER(MilestoneType.TOTAL_XP, 100000, "Century Master", "Earn 100,000 total XP"),
+    RISING_STAR(MilestoneType.LEVEL, 5, "Rising Star", "Reach Level 5"),
+    EXPERIENCED(MilestoneType.LEVEL, 10, "Experienced", "Reach Level 10"),
+    VETERAN(MilestoneType.LEVEL, 20, "Veteran", "Reach Level 20"),
+    MASTER(MilestoneType.LEVEL, 50, "Master", "Reach Level 50"),
+    LEGEND(MilestoneType.LEVEL, 100, "Legend", "Reach Level 100"),
+    WEEK_WARRIOR(MilestoneType.STREAK, 7, "Week Warrior", "Maintain a 7-day streak"),
+    MONTH_MASTER(MilestoneType.STREAK, 30, "Month Master", "Maintain a 30-day streak"),
+    CENTURY_CLUB(MilestoneType.STREAK, 100, "Century Club", "Maintain a 100-day streak"),
+    YEAR_CHAMPION(MilestoneType.STREAK, 365, "Year Champion", "Maintain a 365-day streak"),
+    HABIT_STARTER(MilestoneType.HABITS_COMPLETED, 100, "Habit Starter", "Complete 100 habits"),
+    HABIT_ENTHUSIAST(MilestoneType.HABITS_COMPLETED, 500, "Habit Enthusiast", "Complete 500 habits"),
+    HABIT_MASTER(MilestoneType.HABITS_COMPLETED, 1000, "Habit Master", "Complete 1,000 habits"),
+    MONTH_ACTIVE(MilestoneType.DAYS_ACTIVE, 30, "Month Active", "Be active for 30 days"),
+    CENTURY_ACTIVE(MilestoneType.DAYS_ACTIVE, 100, "Century Active", "Be active for 100 days"),
+    YEAR_ACTIVE(MilestoneType.DAYS_ACTIVE, 365, "Year Active", "Be active for 365 days");
+
+    private final MilestoneType type;
+    private final int threshold;
+    private final String title;
+    private final String description;
+
+    MilestoneRule(MilestoneType type, int threshold, String title, String description) {
+        this.type = type;
+        this.threshold = threshold;
+        this.title = title;
+        this.description = description;
+    }
+
+    public MilestoneType getType() {
+        return type;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
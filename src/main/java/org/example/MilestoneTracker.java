@@ -0,0 +1,155 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One user's milestone counters: total XP, level, best streak, completed habits and active days.
+ *
+ * Counters are updated from habit check, goal note and XP events. The milestones of each type
+ * are indexed by threshold, so when a counter changes the number of thresholds it has reached
+ * is found by binary search, and the date each milestone was first reached is recorded.
+ * The milestone list is built from the counters alone.
+ *
+ * Thread-safe.
+ */
+public class MilestoneTracker {
+    private static final Map<MilestoneType, MilestoneRule[]> RULES_BY_TYPE = new EnumMap<>(MilestoneType.class);
+    private static final Map<MilestoneType, int[]> THRESHOLDS_BY_TYPE = new EnumMap<>(MilestoneType.class);
+
+    static {
+        Map<MilestoneType, List<MilestoneRule>> grouped = new EnumMap<>(MilestoneType.class);
+        for (MilestoneRule rule : MilestoneRule.values()) {
+            grouped.computeIfAbsent(rule.getType(), type -> new ArrayList<>()).add(rule);
+        }
+        for (Map.Entry<MilestoneType, List<MilestoneRule>> entry : grouped.entrySet()) {
+            MilestoneRule[] rules = entry.getValue().toArray(new MilestoneRule[0]);
+            Arrays.sort(rules, Comparator.comparingInt(MilestoneRule::getThreshold));
+            RULES_BY_TYPE.put(entry.getKey(), rules);
+            THRESHOLDS_BY_TYPE.put(entry.getKey(), Arrays.stream(rules).mapToInt(MilestoneRule::getThreshold).toArray());
+        }
+    }
+
+    private final XpCalculator xpCalculator = new XpCalculator();
+    private final HabitRunTracker habitRuns = new HabitRunTracker();
+    private final Map<MilestoneType, Integer> values = new EnumMap<>(MilestoneType.class);
+    private final Map<MilestoneType, Integer> reached = new EnumMap<>(MilestoneType.class);
+    private final Map<MilestoneRule, LocalDate> reachedDates = new EnumMap<>(MilestoneRule.class);
+    private final Map<LocalDate, DayActivity> days = new HashMap<>();
+    private int completions;
+    private int activeDays;
+
+    /**
+     * Records a habit check.
+     *
+     * @param check the habit check
+     */
+    public synchronized void recordHabitCheck(HabitCheck check) {
+        LocalDate date = check.date();
+        update(MilestoneType.STREAK, habitRuns.record(check), date);
+        if (check.isDone()) {
+            update(MilestoneType.HABITS_COMPLETED, ++completions, date);
+        }
+        // Matches the XP history: a day is active if its habit XP is non-zero or a goal note earned XP
+        int amount = xpCalculator.calculateTransaction(check.habit(), check.result()).amount();
+        recordDayActivity(date, amount, 0);
+    }
+
+    /**
+     * Records a goal note.
+     *
+     * @param note the goal note
+     */
+    public synchronized void recordGoalNote(GoalNote note) {
+        if (note.points() > 0) {
+            recordDayActivity(note.date(), 0, 1);
+        }
+    }
+
+    /**
+     * Records a user's XP and level.
+     *
+     * @param date the date of the change
+     * @param userStats the user's stats
+     */
+    public synchronized void recordStats(LocalDate date, UserStats userStats) {
+        update(MilestoneType.TOTAL_XP, userStats.getTotalXp(), date);
+        update(MilestoneType.LEVEL, userStats.getLevel(), date);
+    }
+
+    /**
+     * Gets the current value of a counter.
+     *
+     * @param type the milestone type
+     * @return the counter value
+     */
+    public synchronized int getValue(MilestoneType type) {
+        return values.getOrDefault(type, 0);
+    }
+
+    /**
+     * Gets every milestone with its progress.
+     *
+     * @return the milestones in rule order
+     */
+    public synchronized List<Milestone> getMilestones() {
+        List<Milestone> milestones = new ArrayList<>(MilestoneRule.values().length);
+        for (MilestoneRule rule : MilestoneRule.values()) {
+            int value = values.getOrDefault(rule.getType(), 0);
+            milestones.add(value >= rule.getThreshold()
+                ? Milestone.achieved(rule.getType(), rule.getTitle(), rule.getDescription(),
+                    rule.getThreshold(), value, reachedDates.get(rule))
+                : Milestone.unachieved(rule.getType(), rule.getTitle(), rule.getDescription(),
+                    rule.getThreshold(), value));
+        }
+        return milestones;
+    }
+
+    private void recordDayActivity(LocalDate date, int habitXp, int xpNotes) {
+        DayActivity before = days.getOrDefault(date, DayActivity.NONE);
+        DayActivity after = new DayActivity(before.habitXp() + habitXp, before.xpNotes() + xpNotes);
+        days.put(date, after);
+        if (before.isActive() != after.isActive()) {
+            activeDays += after.isActive() ? 1 : -1;
+            update(MilestoneType.DAYS_ACTIVE, activeDays, date);
+        }
+    }
+
+    private void update(MilestoneType type, int value, LocalDate date) {
+        values.put(type, Math.max(0, value));
+        int[] thresholds = THRESHOLDS_BY_TYPE.get(type);
+        // Number of thresholds at or below the value
+        int index = Arrays.binarySearch(thresholds, value);
+        int count = index >= 0 ? upperBound(thresholds, index) : -index - 1;
+        int previous = reached.getOrDefault(type, 0);
+        if (count > previous) {
+            MilestoneRule[] rules = RULES_BY_TYPE.get(type);
+            for (int i = previous; i < count; i++) {
+                reachedDates.putIfAbsent(rules[i], date);
+            }
+            reached.put(type, count);
+        }
+    }
+
+    private static int upperBound(int[] thresholds, int index) {
+        int end = index + 1;
+        while (end < thresholds.length && thresholds[end] == thresholds[index]) {
+            end++;
+        }
+        return end;
+    }
+
+    private record DayActivity(int habitXp, int xpNotes) {
+        static final DayActivity NONE = new DayActivity(0, 0);
+
+        boolean isActive() {
+            return habitXp != 0 || xpNotes > 0;
+        }
+    }
+}
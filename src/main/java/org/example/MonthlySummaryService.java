@@ -1,10 +1,10 @@
 package org.example;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,104 +16,54 @@ import java.util.stream.Collectors;
 public class MonthlySummaryService {
 
     private final AchievementService achievementService;
+    private final CalendarRollupService calendarRollupService;
 
     public MonthlySummaryService() {
-        this.achievementService = new AchievementService();
+        this(new AchievementService(), new CalendarRollupService());
     }
 
-    public MonthlySummaryService(AchievementService achievementService) {
+    @Autowired
+    public MonthlySummaryService(AchievementService achievementService, CalendarRollupService calendarRollupService) {
         this.achievementService = achievementService;
+        this.calendarRollupService = calendarRollupService;
     }
 
     /**
-     * Generates a monthly summary for a user.
+     * Generates a monthly summary for a user, covering the calendar month that contains the given date.
      *
+     * @param userId the user's id
      * @param userStats the user's current stats
-     * @param habits the user's habits
      * @param goals the user's goals
      * @param habitService the habit service
      * @param goalService the goal service
      * @param analyticsService the analytics service
-     * @param monthEndDate the end date of the month (defaults to today if null)
+     * @param monthEndDate a date in the month (defaults to today if null)
      * @return a MonthlySummary with all monthly metrics
      */
-    public MonthlySummary generateMonthlySummary(UserStats userStats,
-                                                 List<Habit> habits,
+    public MonthlySummary generateMonthlySummary(Long userId,
+                                                 UserStats userStats,
                                                  List<Goal> goals,
                                                  HabitService habitService,
                                                  GoalService goalService,
                                                  AnalyticsService analyticsService,
                                                  LocalDate monthEndDate) {
-        final LocalDate monthEnd = monthEndDate != null ? monthEndDate : LocalDate.now();
-        LocalDate monthStart = monthEnd.withDayOfMonth(1);
-
-        // Get XP history for the month
-        List<XpHistoryEntry> allHistory = analyticsService.buildXpHistory(habitService, goalService);
-        List<XpHistoryEntry> monthHistory = allHistory.stream()
-            .filter(entry -> !entry.date().isBefore(monthStart) && !entry.date().isAfter(monthEnd))
-            .sorted(Comparator.comparing(XpHistoryEntry::date))
-            .collect(Collectors.toList());
-
-        // Calculate total XP gained
-        int totalXpGained = monthHistory.stream()
-            .filter(entry -> entry.xpChange() > 0)
-            .mapToInt(XpHistoryEntry::xpChange)
-            .sum();
-
-        // Count habits completed
-        List<HabitCheck> monthHabitChecks = habitService.getAllHabitChecks().stream()
-            .filter(check -> !check.date().isBefore(monthStart) && !check.date().isAfter(monthEnd))
-            .filter(check -> check.result() == HabitCheckResult.DONE)
-            .collect(Collectors.toList());
-        int habitsCompleted = monthHabitChecks.size();
-
-        // Count goals progressed
-        List<GoalNote> monthGoalNotes = goalService.getAllGoalNotes().stream()
-            .filter(note -> !note.date().isBefore(monthStart) && !note.date().isAfter(monthEnd))
-            .collect(Collectors.toList());
-        int goalsProgressed = monthGoalNotes.size();
-
-        // Count active days
-        long activeDays = monthHistory.stream()
-            .map(XpHistoryEntry::date)
-            .distinct()
-            .count();
+        LocalDate date = monthEndDate != null ? monthEndDate : LocalDate.now();
+        PeriodRollup month = calendarRollupService.getRollup(userId, userStats, habitService, goalService)
+            .getMonth(date, userStats);
+        LocalDate monthStart = month.start();
+        LocalDate monthEnd = month.end();
 
         // Calculate average consistency
         Map<Goal, GoalConsistency> consistency = analyticsService.calculateAllGoalConsistency(
-            goals, goalService, monthEnd);
+            goals, goalService, date);
         double averageConsistency = consistency.values().stream()
             .mapToDouble(GoalConsistency::consistencyScore)
             .average()
             .orElse(0.0);
 
-        // Get longest streak
-        Map<Habit, HabitStreak> streaks = analyticsService.calculateAllHabitStreaks(
-            habits, habitService, monthEnd);
-        int longestStreak = streaks.values().stream()
-            .mapToInt(HabitStreak::currentStreak)
-            .max()
-            .orElse(0);
-
-        // Estimate level at start (approximate - in production, track historical levels)
-        int levelAtStart = Math.max(1, userStats.getLevel() - (totalXpGained / 1000)); // Rough estimate
-        int levelAtEnd = userStats.getLevel();
-        int levelGained = Math.max(0, levelAtEnd - levelAtStart);
-
-        // Get top habits by completion count
-        List<String> topHabits = monthHabitChecks.stream()
-            .collect(Collectors.groupingBy(
-                check -> check.habit().getName(),
-                Collectors.counting()))
-            .entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-
         // Get achievements unlocked this month
-        List<Achievement> allAchievements = achievementService.calculateAchievements(
-            userStats, habits, goals, habitService, goalService, analyticsService, monthEnd);
+        List<Achievement> allAchievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
         List<String> achievementsUnlocked = allAchievements.stream()
             .filter(Achievement::isUnlocked)
             .filter(ach -> ach.getUnlockedDate() != null && 
@@ -124,22 +74,22 @@ public class MonthlySummaryService {
 
         // Generate summary message
         String summaryMessage = generateSummaryMessage(
-            totalXpGained, habitsCompleted, goalsProgressed, (int) activeDays, 
-            averageConsistency, longestStreak, levelGained);
+            month.xpGained(), month.habitsCompleted(), month.goalsProgressed(), month.activeDays(),
+            averageConsistency, month.longestStreak(), month.levelGained());
 
         return new MonthlySummary(
             monthStart,
             monthEnd,
-            totalXpGained,
-            habitsCompleted,
-            goalsProgressed,
-            (int) activeDays,
+            month.xpGained(),
+            month.habitsCompleted(),
+            month.goalsProgressed(),
+            month.activeDays(),
             averageConsistency,
-            longestStreak,
-            levelAtStart,
-            levelAtEnd,
-            levelGained,
-            topHabits,
+            month.longestStreak(),
+            month.levelAtStart(),
+            month.levelAtEnd(),
+            month.levelGained(),
+            month.topHabits(5),
             achievementsUnlocked,
             summaryMessage
         );
@@ -35,5 +35,24 @@ public record Notification(
             throw new IllegalArgumentException("ScheduledFor cannot be null");
         }
     }
+
+    /**
+     * Returns a copy of this notification with the given id.
+     *
+     * @param newId the id to assign
+     * @return the renumbered notification
+     */
+    public Notification withId(Long newId) {
+        return new Notification(newId, type, title, message, createdAt, scheduledFor, read, actionUrl);
+    }
+
+    /**
+     * Returns a copy of this notification marked as read.
+     *
+     * @return the read notification
+     */
+    public Notification asRead() {
+        return read ? this : new Notification(id, type, title, message, createdAt, scheduledFor, true, actionUrl);
+    }
 }
 
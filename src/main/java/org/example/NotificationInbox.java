@@ -0,0 +1,167 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * A user's materialized notifications.
+ *
+ * Notifications are stored when they are produced, each under a delivery key so the same
+ * reminder is not delivered twice. The unread counter is maintained on every delivery,
+ * read and eviction, so badge polls read it without locking or scanning the inbox.
+ * The inbox keeps only the most recent notifications; older ones are evicted first.
+ */
+public class NotificationInbox {
+    private static final Comparator<Notification> DISPLAY_ORDER =
+        Comparator.comparing(Notification::scheduledFor).thenComparing(Notification::id);
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, Long> idsByKey = new HashMap<>();
+    private final AtomicInteger unreadCount = new AtomicInteger();
+
+    /**
+     * Creates an empty inbox.
+     *
+     * @param capacity the maximum number of notifications kept
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public NotificationInbox(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Inbox capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Delivers a notification unless one with the same key is already in the inbox.
+     * An id is allocated only when the notification is actually stored.
+     *
+     * @param key the delivery key identifying the notification
+     * @param notification the notification to store (its id is replaced)
+     * @param idAllocator supplies the id for a stored notification
+     * @return the stored notification, or null if the key was already delivered
+     * @throws IllegalArgumentException if key or notification is null
+     */
+    public synchronized Notification deliver(String key, Notification notification, LongSupplier idAllocator) {
+        if (key == null) {
+            throw new IllegalArgumentException("Delivery key cannot be null");
+        }
+        if (notification == null) {
+            throw new IllegalArgumentException("Notification cannot be null");
+        }
+        if (idsByKey.containsKey(key)) {
+            return null;
+        }
+        Notification stored = notification.withId(idAllocator.getAsLong());
+        entries.put(stored.id(), new Entry(key, stored));
+        idsByKey.put(key, stored.id());
+        if (!stored.read()) {
+            unreadCount.incrementAndGet();
+        }
+        evictOverflow();
+        return stored;
+    }
+
+    /**
+     * Checks whether a notification with a delivery key is in the inbox.
+     *
+     * @param key the delivery key
+     * @return true if the key was delivered and not evicted since
+     */
+    public synchronized boolean contains(String key) {
+        return idsByKey.containsKey(key);
+    }
+
+    /**
+     * Marks a notification as read.
+     *
+     * @param notificationId the notification id
+     * @return true if the notification was unread
+     * @throws IllegalArgumentException if the notification is not in the inbox
+     */
+    public synchronized boolean markAsRead(Long notificationId) {
+        Entry entry = notificationId != null ? entries.get(notificationId) : null;
+        if (entry == null) {
+            throw new IllegalArgumentException("Notification not found: " + notificationId);
+        }
+        if (entry.notification().read()) {
+            return false;
+        }
+        entries.put(notificationId, new Entry(entry.key(), entry.notification().asRead()));
+        unreadCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Marks every notification in the inbox as read.
+     *
+     * @return the number of notifications that were unread
+     */
+    public synchronized int markAllAsRead() {
+        int marked = 0;
+        for (Map.Entry<Long, Entry> mapEntry : entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            if (!entry.notification().read()) {
+                mapEntry.setValue(new Entry(entry.key(), entry.notification().asRead()));
+                marked++;
+            }
+        }
+        unreadCount.addAndGet(-marked);
+        return marked;
+    }
+
+    /**
+     * Gets the number of unread notifications. Does not lock the inbox.
+     *
+     * @return the unread count
+     */
+    public int getUnreadCount() {
+        return unreadCount.get();
+    }
+
+    /**
+     * Gets the notifications in the inbox, ordered by scheduled time.
+     *
+     * @return a snapshot of the notifications
+     */
+    public synchronized List<Notification> getNotifications() {
+        List<Notification> notifications = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            notifications.add(entry.notification());
+        }
+        notifications.sort(DISPLAY_ORDER);
+        return notifications;
+    }
+
+    /**
+     * Gets the number of notifications in the inbox.
+     *
+     * @return the inbox size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (entries.size() > capacity && oldest.hasNext()) {
+            Entry evicted = oldest.next();
+            oldest.remove();
+            idsByKey.remove(evicted.key());
+            if (!evicted.notification().read()) {
+                unreadCount.decrementAndGet();
+            }
+        }
+    }
+
+    private record Entry(String key, Notification notification) {
+    }
+}
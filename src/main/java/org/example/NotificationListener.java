@@ -0,0 +1,16 @@
+package org.example;
+
+/**
+ * Receives notifications as they are delivered into a user's inbox.
+ */
+@FunctionalInterface
+public interface NotificationListener {
+    /**
+     * Called after a notification has been stored in a user's inbox.
+     * Implementations must not block; they run on the delivering thread.
+     *
+     * @param userId the user's id
+     * @param notification the stored notification
+     */
+    void onDelivered(Long userId, Notification notification);
+}
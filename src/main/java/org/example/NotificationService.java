@@ -5,19 +5,30 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing notifications and reminders.
+ *
+ * Produced notifications are materialized into a per-user {@link NotificationInbox}, which
+ * keeps read state and an unread counter, so unread-count polls do not regenerate anything.
  */
 @Service
 public class NotificationService {
-    private final List<Notification> notifications = new ArrayList<>();
-    private long nextId = 1;
+    private static final int INBOX_CAPACITY = 200;
+
+    private final Map<Long, NotificationInbox> inboxes = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final List<NotificationListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Generates notifications for a user based on their activity and preferences.
@@ -40,45 +51,197 @@ public class NotificationService {
                                                     AnalyticsService analyticsService,
                                                     UserPreferences preferences,
                                                     LocalDate currentDate) {
+        return buildNotifications(userStats, habits, goals, habitService, goalService, analyticsService,
+                preferences, currentDate, true).stream()
+            .map(notification -> notification.withId(nextId.getAndIncrement()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Generates notifications for a user and delivers the ones not already delivered today
+     * into the user's inbox. Habit reminders and goal deadline warnings are not generated here;
+     * they are delivered by timers when they fall due.
+     *
+     * @param userId the user's id
+     * @param userStats the user's stats
+     * @param habits the user's habits
+     * @param goals the user's goals
+     * @param habitService the habit service
+     * @param goalService the goal service
+     * @param analyticsService the analytics service
+     * @param preferences the user's preferences
+     * @param currentDate the current date
+     * @return the newly delivered notifications
+     */
+    public List<Notification> deliverNotifications(Long userId,
+                                                   UserStats userStats,
+                                                   List<Habit> habits,
+                                                   List<Goal> goals,
+                                                   HabitService habitService,
+                                                   GoalService goalService,
+                                                   AnalyticsService analyticsService,
+                                                   UserPreferences preferences,
+                                                   LocalDate currentDate) {
+        return deliverAll(userId, buildNotifications(userStats, habits, goals, habitService,
+            goalService, analyticsService, preferences, currentDate, false), currentDate);
+    }
+
+    /**
+     * Delivers the notifications a habit check produced: a level-up if the check raised the
+     * user's level, and a streak warning for the checked habit. Only the checked habit's run is
+     * read, so the cost does not grow with the user's history.
+     *
+     * @param userId the user's id
+     * @param before the user's stats before the check
+     * @param after the user's stats after the check
+     * @param habit the checked habit
+     * @param currentStreak the length of the habit's active run of completed days, or 0
+     * @param streakStartDate the first day of that run, or null if there is none
+     * @param currentDate the current date
+     * @return the newly delivered notifications
+     */
+    public List<Notification> deliverHabitCheckNotifications(Long userId, UserStats before, UserStats after,
+                                                             Habit habit, int currentStreak,
+                                                             LocalDate streakStartDate, LocalDate currentDate) {
+        LocalDateTime now = LocalDateTime.now();
         List<Notification> notifications = new ArrayList<>();
+        Notification warning = createStreakWarning(habit.getName(), currentStreak, streakStartDate, currentDate, now);
+        if (warning != null) {
+            notifications.add(warning);
+        }
+        if (after.getLevel() > before.getLevel()) {
+            notifications.add(createLevelUp(after.getLevel(), now));
+        }
+        return deliverAll(userId, notifications, currentDate);
+    }
+
+    /**
+     * Delivers the notifications a goal note produced: a level-up if the note raised the
+     * user's level, and a motivational message if their goals are consistently worked on.
+     * Consistency is only computed while the day's motivational message is not in the inbox.
+     *
+     * @param userId the user's id
+     * @param before the user's stats before the note
+     * @param after the user's stats after the note
+     * @param averageConsistency supplies the average consistency of the user's goals, from 0.0 to 1.0
+     * @param currentDate the current date
+     * @return the newly delivered notifications
+     */
+    public List<Notification> deliverGoalNoteNotifications(Long userId, UserStats before, UserStats after,
+                                                           DoubleSupplier averageConsistency, LocalDate currentDate) {
         LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>();
+        if (after.getLevel() > before.getLevel()) {
+            notifications.add(createLevelUp(after.getLevel(), now));
+        }
+        Notification motivational = createMotivational(now);
+        if (!getInbox(userId).contains(deliveryKey(motivational, currentDate))
+                && averageConsistency.getAsDouble() >= 0.8) {
+            notifications.add(motivational);
+        }
+        return deliverAll(userId, notifications, currentDate);
+    }
 
-        // Habit reminders (if enabled)
-        if (preferences.isEmailNotifications() && preferences.getDailyReminderTime() != null) {
-            LocalTime reminderTime = preferences.getDailyReminderTime();
-            LocalDateTime reminderDateTime = currentDate.atTime(reminderTime);
-            
-            if (reminderDateTime.isAfter(now) || reminderDateTime.isBefore(now.minusHours(1))) {
-                for (Habit habit : habits) {
-                    notifications.add(new Notification(
-                        nextId++,
-                        NotificationType.HABIT_REMINDER,
-                        "Habit Reminder",
-                        String.format("Don't forget to complete '%s' today!", habit.getName()),
-                        now,
-                        reminderDateTime,
-                        false,
-                        "/habits"
-                    ));
-                }
+    private List<Notification> deliverAll(Long userId, List<Notification> notifications, LocalDate currentDate) {
+        NotificationInbox inbox = getInbox(userId);
+        List<Notification> delivered = new ArrayList<>();
+        for (Notification notification : notifications) {
+            Notification stored = inbox.deliver(deliveryKey(notification, currentDate), notification,
+                nextId::getAndIncrement);
+            if (stored != null) {
+                delivered.add(stored);
+                notifyListeners(userId, stored);
             }
         }
+        return delivered;
+    }
+
+    /**
+     * Delivers a single notification into a user's inbox.
+     *
+     * @param userId the user's id
+     * @param key the delivery key; a notification whose key is already in the inbox is dropped
+     * @param notification the notification (its id is assigned on delivery)
+     * @return the stored notification, or null if it was a duplicate
+     */
+    public Notification deliver(Long userId, String key, Notification notification) {
+        Notification stored = getInbox(userId).deliver(key, notification, nextId::getAndIncrement);
+        if (stored != null) {
+            notifyListeners(userId, stored);
+        }
+        return stored;
+    }
+
+    /**
+     * Registers a listener that is told about every notification delivered into an inbox.
+     *
+     * @param listener the listener
+     */
+    public void addListener(NotificationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
 
-        // Goal deadline warnings
-        for (Goal goal : goals) {
-            if (goal.getTargetDate() != null) {
-                long daysUntilDeadline = java.time.temporal.ChronoUnit.DAYS.between(currentDate, goal.getTargetDate());
-                if (daysUntilDeadline <= 7 && daysUntilDeadline > 0) {
-                    notifications.add(new Notification(
-                        nextId++,
-                        NotificationType.GOAL_DEADLINE,
-                        "Goal Deadline Approaching",
-                        String.format("'%s' deadline is in %d day%s", goal.getTitle(), daysUntilDeadline, daysUntilDeadline > 1 ? "s" : ""),
-                        now,
-                        now,
-                        false,
-                        "/goals"
-                    ));
+    private void notifyListeners(Long userId, Notification notification) {
+        for (NotificationListener listener : listeners) {
+            listener.onDelivered(userId, notification);
+        }
+    }
+
+    /**
+     * Gets a user's inbox, creating an empty one if needed.
+     *
+     * @param userId the user's id
+     * @return the inbox
+     */
+    public NotificationInbox getInbox(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        return inboxes.computeIfAbsent(userId, id -> new NotificationInbox(INBOX_CAPACITY));
+    }
+
+    /**
+     * Checks whether a user already has an inbox.
+     *
+     * @param userId the user's id
+     * @return true if notifications have been delivered to the user
+     */
+    public boolean hasInbox(Long userId) {
+        return userId != null && inboxes.containsKey(userId);
+    }
+
+    private List<Notification> buildNotifications(UserStats userStats,
+                                                  List<Habit> habits,
+                                                  List<Goal> goals,
+                                                  HabitService habitService,
+                                                  GoalService goalService,
+                                                  AnalyticsService analyticsService,
+                                                  UserPreferences preferences,
+                                                  LocalDate currentDate,
+                                                  boolean includeTimed) {
+        List<Notification> notifications = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (includeTimed) {
+            // Habit reminders (if enabled)
+            if (preferences.isEmailNotifications() && preferences.getDailyReminderTime() != null) {
+                LocalTime reminderTime = preferences.getDailyReminderTime();
+                LocalDateTime reminderDateTime = currentDate.atTime(reminderTime);
+
+                if (reminderDateTime.isAfter(now) || reminderDateTime.isBefore(now.minusHours(1))) {
+                    notifications.addAll(createHabitReminders(habits, reminderDateTime, now));
+                }
+            }
+
+            // Goal deadline warnings
+            for (Goal goal : goals) {
+                Notification warning = createGoalDeadlineWarning(goal.getTitle(), goal.getTargetDate(),
+                    currentDate, now);
+                if (warning != null) {
+                    notifications.add(warning);
                 }
             }
         }
@@ -88,37 +251,17 @@ public class NotificationService {
             habits, habitService, currentDate);
         for (Map.Entry<Habit, HabitStreak> entry : streaks.entrySet()) {
             HabitStreak streak = entry.getValue();
-            if (streak.currentStreak() > 0) {
-                LocalDate lastActivity = streak.streakStartDate();
-                if (lastActivity.isBefore(currentDate.minusDays(1))) {
-                    notifications.add(new Notification(
-                        nextId++,
-                        NotificationType.STREAK_WARNING,
-                        "Streak Warning",
-                        String.format("Your '%s' streak is at risk! Complete it today to maintain your %d-day streak.",
-                            entry.getKey().getName(), streak.currentStreak()),
-                        now,
-                        now,
-                        false,
-                        "/habits"
-                    ));
-                }
+            Notification warning = createStreakWarning(entry.getKey().getName(), streak.currentStreak(),
+                streak.streakStartDate(), currentDate, now);
+            if (warning != null) {
+                notifications.add(warning);
             }
         }
 
         // Level up notification (if recently leveled up)
         // This would need historical tracking - for now, we'll check if level is high
         if (userStats.getLevel() >= 5) {
-            notifications.add(new Notification(
-                nextId++,
-                NotificationType.LEVEL_UP,
-                "Level Up!",
-                String.format("Congratulations! You've reached Level %d!", userStats.getLevel()),
-                now,
-                now,
-                false,
-                "/dashboard"
-            ));
+            notifications.add(createLevelUp(userStats.getLevel(), now));
         }
 
         // Motivational messages
@@ -129,16 +272,7 @@ public class NotificationService {
             .orElse(0.0);
         
         if (consistency >= 0.8) {
-            notifications.add(new Notification(
-                nextId++,
-                NotificationType.MOTIVATIONAL,
-                "Great Job!",
-                "You're maintaining excellent consistency! Keep up the amazing work!",
-                now,
-                now,
-                false,
-                "/dashboard"
-            ));
+            notifications.add(createMotivational(now));
         }
 
         return notifications.stream()
@@ -146,12 +280,166 @@ public class NotificationService {
             .collect(Collectors.toList());
     }
 
+    private static Notification createStreakWarning(String habitName, int currentStreak, LocalDate streakStartDate,
+                                                    LocalDate currentDate, LocalDateTime now) {
+        if (currentStreak <= 0 || !streakStartDate.isBefore(currentDate.minusDays(1))) {
+            return null;
+        }
+        return new Notification(
+            null,
+            NotificationType.STREAK_WARNING,
+            "Streak Warning",
+            String.format("Your '%s' streak is at risk! Complete it today to maintain your %d-day streak.",
+                habitName, currentStreak),
+            now,
+            now,
+            false,
+            "/habits"
+        );
+    }
+
+    private static Notification createLevelUp(int level, LocalDateTime now) {
+        return new Notification(
+            null,
+            NotificationType.LEVEL_UP,
+            "Level Up!",
+            String.format("Congratulations! You've reached Level %d!", level),
+            now,
+            now,
+            false,
+            "/dashboard"
+        );
+    }
+
+    private static Notification createMotivational(LocalDateTime now) {
+        return new Notification(
+            null,
+            NotificationType.MOTIVATIONAL,
+            "Great Job!",
+            "You're maintaining excellent consistency! Keep up the amazing work!",
+            now,
+            now,
+            false,
+            "/dashboard"
+        );
+    }
+
+    /**
+     * Creates a reminder for each habit.
+     *
+     * @param habits the user's habits
+     * @param reminderDateTime when the reminders are scheduled for
+     * @param now the creation time
+     * @return one reminder per habit (ids unassigned)
+     */
+    public List<Notification> createHabitReminders(List<Habit> habits, LocalDateTime reminderDateTime,
+                                                   LocalDateTime now) {
+        List<Notification> reminders = new ArrayList<>(habits.size());
+        for (Habit habit : habits) {
+            reminders.add(new Notification(
+                null,
+                NotificationType.HABIT_REMINDER,
+                "Habit Reminder",
+                String.format("Don't forget to complete '%s' today!", habit.getName()),
+                now,
+                reminderDateTime,
+                false,
+                "/habits"
+            ));
+        }
+        return reminders;
+    }
+
+    /**
+     * Creates a deadline warning for a goal whose target date is one to seven days away.
+     *
+     * @param goalTitle the goal title
+     * @param targetDate the goal's target date
+     * @param currentDate the current date
+     * @param now the creation time
+     * @return the warning (id unassigned), or null if the deadline is not approaching
+     */
+    public Notification createGoalDeadlineWarning(String goalTitle, LocalDate targetDate, LocalDate currentDate,
+                                                  LocalDateTime now) {
+        long daysUntilDeadline = ChronoUnit.DAYS.between(currentDate, targetDate);
+        if (daysUntilDeadline > 7 || daysUntilDeadline <= 0) {
+            return null;
+        }
+        return new Notification(
+            null,
+            NotificationType.GOAL_DEADLINE,
+            "Goal Deadline Approaching",
+            String.format("'%s' deadline is in %d day%s", goalTitle, daysUntilDeadline, daysUntilDeadline > 1 ? "s" : ""),
+            now,
+            now,
+            false,
+            "/goals"
+        );
+    }
+
     /**
-     * Marks a notification as read.
+     * Gets the key under which a notification is delivered, so that the same notification
+     * produced twice on one day is only stored once.
+     *
+     * @param notification the notification
+     * @param currentDate the date it is produced for
+     * @return the delivery key
+     */
+    public static String deliveryKey(Notification notification, LocalDate currentDate) {
+        // A level is only reached once; everything else may be delivered again the next day
+        if (notification.type() == NotificationType.LEVEL_UP) {
+            return notification.type() + ":" + notification.message();
+        }
+        return notification.type() + ":" + currentDate + ":" + notification.message();
+    }
+
+    /**
+     * Marks a notification in a user's inbox as read.
+     *
+     * @param userId the user's id
+     * @param notificationId the notification id
+     * @return true if the notification was unread
+     * @throws IllegalArgumentException if the notification is not in the user's inbox
+     */
+    public boolean markAsRead(Long userId, Long notificationId) {
+        NotificationInbox inbox = userId != null ? inboxes.get(userId) : null;
+        if (inbox == null) {
+            throw new IllegalArgumentException("Notification not found: " + notificationId);
+        }
+        return inbox.markAsRead(notificationId);
+    }
+
+    /**
+     * Marks all notifications in a user's inbox as read.
+     *
+     * @param userId the user's id
+     * @return the number of notifications that were unread
+     */
+    public int markAllAsRead(Long userId) {
+        NotificationInbox inbox = userId != null ? inboxes.get(userId) : null;
+        return inbox != null ? inbox.markAllAsRead() : 0;
+    }
+
+    /**
+     * Gets the notifications in a user's inbox without creating one.
+     *
+     * @param userId the user's id
+     * @return the notifications ordered by scheduled time, or an empty list if nothing has been delivered
+     */
+    public List<Notification> getNotifications(Long userId) {
+        NotificationInbox inbox = userId != null ? inboxes.get(userId) : null;
+        return inbox != null ? inbox.getNotifications() : List.of();
+    }
+
+    /**
+     * Gets a user's unread notification count from their inbox in constant time.
+     *
+     * @param userId the user's id
+     * @return the unread count, or 0 if nothing has been delivered
      */
-    public void markAsRead(Long notificationId) {
-        // In production, this would update the database
-        // For now, we'll just track it in memory
+    public int getUnreadCount(Long userId) {
+        NotificationInbox inbox = userId != null ? inboxes.get(userId) : null;
+        return inbox != null ? inbox.getUnreadCount() : 0;
     }
 
     /**
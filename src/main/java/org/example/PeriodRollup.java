@@ -0,0 +1,69 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totals for one calendar period (an ISO week or a month), maintained by {@link CalendarRollup}.
+ *
+ * XP gained and active days follow the XP history: a day's habit XP counts when its net is
+ * positive, goal notes count when they earned points. The XP and level at the start and end of
+ * the period are the user's stats before the period's first event and after its last.
+ */
+public record PeriodRollup(
+    LocalDate start,
+    LocalDate end,
+    int xpGained,
+    int habitsCompleted,
+    int goalsProgressed,
+    int activeDays,
+    int longestStreak,
+    Map<String, Integer> habitCompletions,
+    int xpAtStart,
+    int levelAtStart,
+    int xpAtEnd,
+    int levelAtEnd
+) {
+    /**
+     * Creates a period rollup.
+     */
+    public PeriodRollup {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Period dates cannot be null");
+        }
+        habitCompletions = Map.copyOf(habitCompletions);
+    }
+
+    /**
+     * Creates the rollup of a period without activity.
+     */
+    public static PeriodRollup empty(LocalDate start, LocalDate end, UserStats stats) {
+        return new PeriodRollup(start, end, 0, 0, 0, 0, 0, Map.of(),
+            stats.getTotalXp(), stats.getLevel(), stats.getTotalXp(), stats.getLevel());
+    }
+
+    /**
+     * Gets the most completed habits, ties broken by name.
+     *
+     * @param limit the maximum number of habits
+     * @return habit names, most completions first
+     */
+    public List<String> topHabits(int limit) {
+        return habitCompletions.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()))
+            .limit(limit)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    /**
+     * Gets the number of levels gained during the period.
+     *
+     * @return the levels gained (never negative)
+     */
+    public int levelGained() {
+        return Math.max(0, levelAtEnd - levelAtStart);
+    }
+}
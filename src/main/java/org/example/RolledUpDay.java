@@ -0,0 +1,30 @@
+package org.example;
+
+import java.time.LocalDate;
+
+/**
+ * Represents a day of history that the retention job compacted into daily totals after its
+ * individual habit checks and goal notes were dropped.
+ *
+ * @param date the day
+ * @param habitXp the XP the day's habit checks were worth, as in the XP history
+ * @param goalPoints the points of the day's goal notes
+ */
+public record RolledUpDay(LocalDate date, int habitXp, int goalPoints) {
+    /**
+     * Creates a rolled-up day.
+     *
+     * @param date the day (must not be null)
+     * @param habitXp the XP the day's habit checks were worth (can be negative)
+     * @param goalPoints the points of the day's goal notes (must not be negative)
+     * @throws IllegalArgumentException if date is null or goalPoints is negative
+     */
+    public RolledUpDay {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        if (goalPoints < 0) {
+            throw new IllegalArgumentException("Goal points cannot be negative");
+        }
+    }
+}
@@ -133,8 +133,8 @@ public class SocialSharingService {
                                                          List<Goal> goals,
                                                          HabitService habitService,
                                                          GoalService goalService,
-                                                         AchievementService achievementService,
-                                                         MilestoneService milestoneService,
+                                                         List<Achievement> achievements,
+                                                         List<Milestone> milestones,
                                                          AnalyticsService analyticsService,
                                                          LocalDate currentDate) {
         List<ShareableContent> content = new ArrayList<>();
@@ -145,15 +145,11 @@ public class SocialSharingService {
         }
 
         // Achievements
-        List<Achievement> achievements = achievementService.calculateAchievements(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
         achievements.stream()
             .filter(Achievement::isUnlocked)
             .forEach(ach -> content.add(generateAchievementShare(ach)));
 
         // Milestones
-        List<Milestone> milestones = milestoneService.getMilestones(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
         milestones.stream()
             .filter(Milestone::achieved)
             .forEach(mil -> content.add(generateMilestoneShare(mil)));
@@ -1,10 +1,10 @@
 package org.example;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,99 +16,55 @@ import java.util.stream.Collectors;
 public class WeeklySummaryService {
 
     private final AchievementService achievementService;
+    private final CalendarRollupService calendarRollupService;
 
     public WeeklySummaryService() {
-        this.achievementService = new AchievementService();
+        this(new AchievementService(), new CalendarRollupService());
     }
 
-    public WeeklySummaryService(AchievementService achievementService) {
+    @Autowired
+    public WeeklySummaryService(AchievementService achievementService, CalendarRollupService calendarRollupService) {
         this.achievementService = achievementService;
+        this.calendarRollupService = calendarRollupService;
     }
 
     /**
-     * Generates a weekly summary for a user.
+     * Generates a weekly summary for a user, covering the ISO week (Monday to Sunday)
+     * that contains the given date.
      *
+     * @param userId the user's id
      * @param userStats the user's current stats
-     * @param habits the user's habits
      * @param goals the user's goals
      * @param habitService the habit service
      * @param goalService the goal service
      * @param analyticsService the analytics service
-     * @param weekEndDate the end date of the week (defaults to today if null)
+     * @param weekEndDate a date in the week (defaults to today if null)
      * @return a WeeklySummary with all weekly metrics
      */
-    public WeeklySummary generateWeeklySummary(UserStats userStats,
-                                               List<Habit> habits,
+    public WeeklySummary generateWeeklySummary(Long userId,
+                                               UserStats userStats,
                                                List<Goal> goals,
                                                HabitService habitService,
                                                GoalService goalService,
                                                AnalyticsService analyticsService,
                                                LocalDate weekEndDate) {
-        final LocalDate weekEnd = weekEndDate != null ? weekEndDate : LocalDate.now();
-        LocalDate weekStart = weekEnd.minusDays(6);
-
-        // Get XP history for the week
-        List<XpHistoryEntry> allHistory = analyticsService.buildXpHistory(habitService, goalService);
-        List<XpHistoryEntry> weekHistory = allHistory.stream()
-            .filter(entry -> !entry.date().isBefore(weekStart) && !entry.date().isAfter(weekEnd))
-            .sorted(Comparator.comparing(XpHistoryEntry::date))
-            .collect(Collectors.toList());
-
-        // Calculate total XP gained
-        int totalXpGained = weekHistory.stream()
-            .filter(entry -> entry.xpChange() > 0)
-            .mapToInt(XpHistoryEntry::xpChange)
-            .sum();
-
-        // Count habits completed
-        List<HabitCheck> weekHabitChecks = habitService.getAllHabitChecks().stream()
-            .filter(check -> !check.date().isBefore(weekStart) && !check.date().isAfter(weekEnd))
-            .filter(check -> check.result() == HabitCheckResult.DONE)
-            .collect(Collectors.toList());
-        int habitsCompleted = weekHabitChecks.size();
-
-        // Count goals progressed
-        List<GoalNote> weekGoalNotes = goalService.getAllGoalNotes().stream()
-            .filter(note -> !note.date().isBefore(weekStart) && !note.date().isAfter(weekEnd))
-            .collect(Collectors.toList());
-        int goalsProgressed = weekGoalNotes.size();
-
-        // Count active days
-        long activeDays = weekHistory.stream()
-            .map(XpHistoryEntry::date)
-            .distinct()
-            .count();
+        LocalDate date = weekEndDate != null ? weekEndDate : LocalDate.now();
+        PeriodRollup week = calendarRollupService.getRollup(userId, userStats, habitService, goalService)
+            .getWeek(date, userStats);
+        LocalDate weekStart = week.start();
+        LocalDate weekEnd = week.end();
 
         // Calculate average consistency
         Map<Goal, GoalConsistency> consistency = analyticsService.calculateAllGoalConsistency(
-            goals, goalService, weekEnd);
+            goals, goalService, date);
         double averageConsistency = consistency.values().stream()
             .mapToDouble(GoalConsistency::consistencyScore)
             .average()
             .orElse(0.0);
 
-        // Get longest streak
-        Map<Habit, HabitStreak> streaks = analyticsService.calculateAllHabitStreaks(
-            habits, habitService, weekEnd);
-        int longestStreak = streaks.values().stream()
-            .mapToInt(HabitStreak::currentStreak)
-            .max()
-            .orElse(0);
-
-        // Get top habits by completion count
-        List<String> topHabits = weekHabitChecks.stream()
-            .collect(Collectors.groupingBy(
-                check -> check.habit().getName(),
-                Collectors.counting()))
-            .entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-
         // Get achievements unlocked this week
-        List<Achievement> allAchievements = achievementService.calculateAchievements(
-            userStats, habits, goals, habitService, goalService, analyticsService, weekEnd);
+        List<Achievement> allAchievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
         List<String> achievementsUnlocked = allAchievements.stream()
             .filter(Achievement::isUnlocked)
             .filter(ach -> ach.getUnlockedDate() != null && 
@@ -118,21 +74,20 @@ public class WeeklySummaryService {
             .collect(Collectors.toList());
 
         // Generate summary message
-        int activeDaysInt = (int) activeDays;
         String summaryMessage = generateSummaryMessage(
-            totalXpGained, habitsCompleted, goalsProgressed, activeDaysInt, 
-            averageConsistency, longestStreak);
+            week.xpGained(), week.habitsCompleted(), week.goalsProgressed(), week.activeDays(),
+            averageConsistency, week.longestStreak());
 
         return new WeeklySummary(
             weekStart,
             weekEnd,
-            totalXpGained,
-            habitsCompleted,
-            goalsProgressed,
-            activeDaysInt,
+            week.xpGained(),
+            week.habitsCompleted(),
+            week.goalsProgressed(),
+            week.activeDays(),
             averageConsistency,
-            longestStreak,
-            topHabits,
+            week.longestStreak(),
+            week.topHabits(3),
             achievementsUnlocked,
             summaryMessage
         );
@@ -102,6 +102,31 @@ public class BehaviorDriftDetector {
         return driftEvents;
     }
 
+    /**
+     * Detects drift for a new snapshot against a user's stored history, before the snapshot
+     * is appended. Only the new snapshot is compared, against the latest stored snapshot at
+     * least the minimum drift period older, so each snapshot is checked once as it arrives.
+     *
+     * @param history the user's stored snapshots
+     * @param latest the new snapshot
+     * @param detectionDate the date when drift detection is performed
+     * @return a DriftEvent if meaningful drift is detected, null otherwise
+     */
+    public DriftEvent detectIncrementalDrift(BehaviorTimeSeries history, BehaviorSnapshot latest,
+                                             LocalDate detectionDate) {
+        if (history == null) {
+            throw new IllegalArgumentException("History cannot be null");
+        }
+        if (latest == null) {
+            throw new IllegalArgumentException("Latest snapshot cannot be null");
+        }
+        BehaviorSnapshot baseline = history.onOrBefore(latest.date().minusDays(MIN_DAYS_FOR_DRIFT));
+        if (baseline == null) {
+            return null; // Not enough history yet
+        }
+        return detectDrift(baseline, latest, detectionDate);
+    }
+
     /**
      * Calculates changes in all metrics between two snapshots.
      */
@@ -0,0 +1,164 @@
+package org.example.behavior.drift;
+
+import org.example.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes a user's behavior snapshot from their recent activity.
+ *
+ * All metrics cover a fixed window ending on the snapshot date, read newest first from the
+ * habit and goal services, so the cost depends on the window and not on the length of the
+ * user's history.
+ */
+public class BehaviorSnapshotCalculator {
+    static final int WINDOW_DAYS = 14;
+
+    private final TrendAnalyzer trendAnalyzer;
+    private final BurnoutDetector burnoutDetector;
+
+    /**
+     * Creates a new BehaviorSnapshotCalculator with default analyzers.
+     */
+    public BehaviorSnapshotCalculator() {
+        this(new TrendAnalyzer(), new BurnoutDetector());
+    }
+
+    /**
+     * Creates a new BehaviorSnapshotCalculator with custom analyzers.
+     *
+     * @param trendAnalyzer the trend analyzer
+     * @param burnoutDetector the burnout detector
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public BehaviorSnapshotCalculator(TrendAnalyzer trendAnalyzer, BurnoutDetector burnoutDetector) {
+        if (trendAnalyzer == null) {
+            throw new IllegalArgumentException("TrendAnalyzer cannot be null");
+        }
+        if (burnoutDetector == null) {
+            throw new IllegalArgumentException("BurnoutDetector cannot be null");
+        }
+        this.trendAnalyzer = trendAnalyzer;
+        this.burnoutDetector = burnoutDetector;
+    }
+
+    /**
+     * Gets the first date of history the snapshot of a date reads.
+     *
+     * @param date the snapshot date
+     * @return the first date read
+     */
+    public LocalDate historyStart(LocalDate date) {
+        return date.minusDays(WINDOW_DAYS);
+    }
+
+    /**
+     * Computes the snapshot of a user's behavior on a date.
+     *
+     * @param habitService the user's habit service
+     * @param goalService the user's goal service
+     * @param date the snapshot date
+     * @return the snapshot
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public BehaviorSnapshot calculate(HabitService habitService, GoalService goalService, LocalDate date) {
+        if (habitService == null || goalService == null) {
+            throw new IllegalArgumentException("Services cannot be null");
+        }
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+
+        LocalDate windowStart = date.minusDays(WINDOW_DAYS - 1);
+        // One extra day so the first day of the window can continue a run
+        Map<LocalDate, DailyActivityLog> logs = new HashMap<>();
+        Iterator<DailyActivityLog> descending = habitService.descendingActivityLogs(date);
+        while (descending.hasNext()) {
+            DailyActivityLog log = descending.next();
+            if (log.getDate().isBefore(windowStart.minusDays(1))) {
+                break;
+            }
+            logs.put(log.getDate(), log);
+        }
+
+        int totalXp = 0;
+        int checks = 0;
+        int done = 0;
+        int activeDays = 0;
+        int continuedDays = 0;
+        boolean previousActive = isActive(logs.get(windowStart.minusDays(1)));
+        List<XpHistoryEntry> history = new ArrayList<>();
+        for (LocalDate day = windowStart; !day.isAfter(date); day = day.plusDays(1)) {
+            DailyActivityLog log = logs.get(day);
+            boolean active = isActive(log);
+            if (log != null) {
+                totalXp += log.getXpGained();
+                for (HabitCheck check : log.getHabitChecks()) {
+                    checks++;
+                    if (check.result() == HabitCheckResult.DONE) {
+                        done++;
+                    }
+                }
+                if (log.getXpGained() != 0) {
+                    history.add(new XpHistoryEntry(day, log.getXpGained(), XpSource.HABIT));
+                }
+            }
+            if (active) {
+                activeDays++;
+                if (previousActive) {
+                    continuedDays++;
+                }
+            }
+            previousActive = active;
+        }
+
+        double averageDailyXp = Math.max(0.0, (double) totalXp / WINDOW_DAYS);
+        double completionRate = checks == 0 ? 0.0 : 100.0 * done / checks;
+        double streakStability = activeDays == 0 ? 0.0 : 100.0 * continuedDays / activeDays;
+
+        Trend trend = trendAnalyzer.analyzeTrend(history, WINDOW_DAYS, date);
+        BurnoutWarning burnout = burnoutDetector.detectBurnout(trend, history, logs,
+            habitService.getDailyXpLimit(), date);
+
+        Set<Goal> activeGoals = new HashSet<>();
+        for (Goal goal : goalService.getAllGoals()) {
+            if (!goal.getStartDate().isAfter(date) && !goal.isOverdue(date)) {
+                activeGoals.add(goal);
+            }
+        }
+        Set<Goal> engagedGoals = new HashSet<>();
+        Iterator<GoalNote> notes = goalService.descendingGoalNotes(date);
+        while (notes.hasNext() && engagedGoals.size() < activeGoals.size()) {
+            GoalNote note = notes.next();
+            if (note.date().isBefore(windowStart)) {
+                break;
+            }
+            if (activeGoals.contains(note.goal())) {
+                engagedGoals.add(note.goal());
+            }
+        }
+        double goalEngagementRate = activeGoals.isEmpty() ? 0.0 : 100.0 * engagedGoals.size() / activeGoals.size();
+
+        return new BehaviorSnapshot(date, averageDailyXp, completionRate, streakStability,
+            burnout.severityScore(), activeGoals.size(), goalEngagementRate);
+    }
+
+    private static boolean isActive(DailyActivityLog log) {
+        if (log == null) {
+            return false;
+        }
+        for (HabitCheck check : log.getHabitChecks()) {
+            if (check.result() == HabitCheckResult.DONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
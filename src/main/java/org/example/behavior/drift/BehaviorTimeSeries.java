@@ -0,0 +1,239 @@
+package org.example.behavior.drift;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact time series of one user's behavior snapshots.
+ *
+ * Snapshots are stored column-wise as an epoch day and six float metrics, so each one takes
+ * 28 bytes instead of a record object. Recent snapshots are kept at full resolution; those
+ * older than the raw retention are averaged into one snapshot per ISO week, dated on the
+ * Monday, and weekly snapshots older than the downsampled retention are dropped.
+ *
+ * Not thread-safe; callers must synchronize.
+ */
+public class BehaviorTimeSeries {
+    private final int rawRetentionDays;
+    private final int downsampledRetentionDays;
+    private final Tier raw = new Tier();
+    private final Tier weekly = new Tier();
+
+    /**
+     * Creates an empty series.
+     *
+     * @param rawRetentionDays how long snapshots are kept at full resolution (must be positive)
+     * @param downsampledRetentionDays how long weekly snapshots are kept (must not be less than rawRetentionDays)
+     * @throws IllegalArgumentException if the retentions are invalid
+     */
+    public BehaviorTimeSeries(int rawRetentionDays, int downsampledRetentionDays) {
+        if (rawRetentionDays <= 0) {
+            throw new IllegalArgumentException("Raw retention must be positive");
+        }
+        if (downsampledRetentionDays < rawRetentionDays) {
+            throw new IllegalArgumentException("Downsampled retention cannot be shorter than raw retention");
+        }
+        this.rawRetentionDays = rawRetentionDays;
+        this.downsampledRetentionDays = downsampledRetentionDays;
+    }
+
+    /**
+     * Appends a snapshot. A snapshot on the same date as the latest one replaces it.
+     *
+     * @param snapshot the snapshot (must not be null)
+     * @throws IllegalArgumentException if the snapshot is null or older than the latest one
+     */
+    public void append(BehaviorSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        long day = snapshot.date().toEpochDay();
+        long lastDay = raw.size > 0 ? raw.days[raw.size - 1] : weekly.size > 0 ? weekly.days[weekly.size - 1] : Long.MIN_VALUE;
+        if (day < lastDay) {
+            throw new IllegalArgumentException("Snapshots must be appended in date order");
+        }
+        if (raw.size > 0 && day == lastDay) {
+            raw.size--;
+        }
+        raw.add(snapshot);
+    }
+
+    /**
+     * Gets the latest snapshot.
+     *
+     * @return the latest snapshot, or null if the series is empty
+     */
+    public BehaviorSnapshot latest() {
+        if (raw.size > 0) {
+            return raw.get(raw.size - 1);
+        }
+        return weekly.size > 0 ? weekly.get(weekly.size - 1) : null;
+    }
+
+    /**
+     * Gets the latest snapshot dated on or before a date.
+     *
+     * @param date the date (must not be null)
+     * @return the snapshot, or null if there is none that old
+     */
+    public BehaviorSnapshot onOrBefore(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        long day = date.toEpochDay();
+        int index = raw.floor(day);
+        if (index >= 0) {
+            return raw.get(index);
+        }
+        index = weekly.floor(day);
+        return index >= 0 ? weekly.get(index) : null;
+    }
+
+    /**
+     * Downsamples and drops snapshots that have outlived their retention.
+     * Only whole weeks are downsampled, so a week is never split across tiers.
+     *
+     * @param today the current date (must not be null)
+     * @return the number of stored snapshots removed
+     */
+    public int compact(LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        int before = size();
+        long rawCutoff = today.minusDays(rawRetentionDays)
+            .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+        int expired = 0;
+        while (expired < raw.size && raw.days[expired] < rawCutoff) {
+            expired++;
+        }
+        int start = 0;
+        while (start < expired) {
+            LocalDate monday = LocalDate.ofEpochDay(raw.days[start])
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            long nextMonday = monday.plusWeeks(1).toEpochDay();
+            int end = start;
+            while (end < expired && raw.days[end] < nextMonday) {
+                end++;
+            }
+            weekly.addAverage(monday.toEpochDay(), raw, start, end);
+            start = end;
+        }
+        raw.removeFirst(expired);
+
+        long weeklyCutoff = today.minusDays(downsampledRetentionDays).toEpochDay();
+        int dropped = 0;
+        while (dropped < weekly.size && weekly.days[dropped] < weeklyCutoff) {
+            dropped++;
+        }
+        weekly.removeFirst(dropped);
+        return before - size();
+    }
+
+    /**
+     * Gets all stored snapshots, oldest first.
+     *
+     * @return the snapshots
+     */
+    public List<BehaviorSnapshot> toList() {
+        List<BehaviorSnapshot> snapshots = new ArrayList<>(size());
+        for (int i = 0; i < weekly.size; i++) {
+            snapshots.add(weekly.get(i));
+        }
+        for (int i = 0; i < raw.size; i++) {
+            snapshots.add(raw.get(i));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Gets the number of stored snapshots.
+     *
+     * @return the snapshot count
+     */
+    public int size() {
+        return raw.size + weekly.size;
+    }
+
+    /**
+     * Columns of snapshots in date order.
+     */
+    private static final class Tier {
+        private static final int METRICS = 6;
+
+        private int[] days = new int[8];
+        private float[] metrics = new float[8 * METRICS];
+        private int size;
+
+        void add(BehaviorSnapshot snapshot) {
+            add(snapshot.date().toEpochDay(), snapshot.averageDailyXp(), snapshot.habitCompletionRate(),
+                snapshot.streakStability(), snapshot.burnoutRiskScore(), snapshot.activeGoalCount(),
+                snapshot.goalEngagementRate());
+        }
+
+        void addAverage(long day, Tier source, int from, int to) {
+            double[] sums = new double[METRICS];
+            for (int i = from; i < to; i++) {
+                for (int m = 0; m < METRICS; m++) {
+                    sums[m] += source.metrics[i * METRICS + m];
+                }
+            }
+            int count = to - from;
+            add(day, sums[0] / count, sums[1] / count, sums[2] / count, sums[3] / count,
+                Math.round(sums[4] / count), sums[5] / count);
+        }
+
+        private void add(long day, double xp, double completion, double stability, double burnout,
+                         double goals, double engagement) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                metrics = Arrays.copyOf(metrics, size * 2 * METRICS);
+            }
+            days[size] = (int) day;
+            int offset = size * METRICS;
+            metrics[offset] = (float) xp;
+            metrics[offset + 1] = (float) completion;
+            metrics[offset + 2] = (float) stability;
+            metrics[offset + 3] = (float) burnout;
+            metrics[offset + 4] = (float) goals;
+            metrics[offset + 5] = (float) engagement;
+            size++;
+        }
+
+        BehaviorSnapshot get(int index) {
+            int offset = index * METRICS;
+            return new BehaviorSnapshot(LocalDate.ofEpochDay(days[index]), metrics[offset], metrics[offset + 1],
+                metrics[offset + 2], metrics[offset + 3], (int) metrics[offset + 4], metrics[offset + 5]);
+        }
+
+        /**
+         * Finds the last index dated on or before a day, or -1.
+         */
+        int floor(long day) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (days[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        void removeFirst(int count) {
+            if (count == 0) {
+                return;
+            }
+            System.arraycopy(days, count, days, 0, size - count);
+            System.arraycopy(metrics, count * METRICS, metrics, 0, (size - count) * METRICS);
+            size -= count;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.behavior.drift;
+
+/**
+ * A user whose latest behavior snapshot shows high-severity drift, raised by the cohort scan.
+ *
+ * @param userId the user's id
+ * @param event the drift detected
+ */
+public record DriftAlert(Long userId, DriftEvent event) {
+    /**
+     * Creates a new DriftAlert.
+     *
+     * @param userId the user's id
+     * @param event the drift detected
+     */
+    public DriftAlert {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id cannot be null");
+        }
+        if (event == null) {
+            throw new IllegalArgumentException("Drift event cannot be null");
+        }
+    }
+}
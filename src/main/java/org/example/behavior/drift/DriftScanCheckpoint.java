@@ -0,0 +1,86 @@
+package org.example.behavior.drift;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+
+/**
+ * Progress of a cohort drift scan, saved after each partition so a crashed run resumes
+ * where it stopped.
+ *
+ * @param scanDate the date the scan runs for
+ * @param lastUserId every user with an id up to and including this one has been scanned
+ * @param complete true once the whole cohort has been scanned
+ */
+public record DriftScanCheckpoint(LocalDate scanDate, long lastUserId, boolean complete) {
+    private static final String SCAN_DATE = "scanDate";
+    private static final String LAST_USER_ID = "lastUserId";
+    private static final String COMPLETE = "complete";
+
+    /**
+     * Creates a new DriftScanCheckpoint.
+     */
+    public DriftScanCheckpoint {
+        if (scanDate == null) {
+            throw new IllegalArgumentException("Scan date cannot be null");
+        }
+    }
+
+    /**
+     * Reads a checkpoint file.
+     *
+     * @param path the checkpoint file (must not be null)
+     * @return the checkpoint, or null if the file does not exist or cannot be parsed
+     * @throws IOException if the file cannot be read
+     */
+    public static DriftScanCheckpoint load(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        try {
+            return new DriftScanCheckpoint(LocalDate.parse(properties.getProperty(SCAN_DATE)),
+                Long.parseLong(properties.getProperty(LAST_USER_ID)),
+                Boolean.parseBoolean(properties.getProperty(COMPLETE)));
+        } catch (DateTimeParseException | NumberFormatException | NullPointerException e) {
+            return null; // Torn or foreign file: start over
+        }
+    }
+
+    /**
+     * Writes the checkpoint, replacing the file atomically.
+     *
+     * @param path the checkpoint file (must not be null)
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Properties properties = new Properties();
+        properties.setProperty(SCAN_DATE, scanDate.toString());
+        properties.setProperty(LAST_USER_ID, Long.toString(lastUserId));
+        properties.setProperty(COMPLETE, Boolean.toString(complete));
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Cohort drift scan progress");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
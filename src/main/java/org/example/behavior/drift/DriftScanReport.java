@@ -0,0 +1,56 @@
+package org.example.behavior.drift;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Outcome of one cohort drift scan run.
+ *
+ * @param scanDate the date the scan ran for
+ * @param resumedAfterUserId the checkpointed user id the run resumed after, or null for a fresh run
+ * @param usersScanned the number of users scanned by this run
+ * @param alertsRaised the number of high-severity alerts raised
+ * @param alertsDropped the number of alerts dropped because the alert queue was full
+ * @param elapsedMillis the wall-clock duration of the run
+ * @param partitions per-partition statistics, in user id order
+ */
+public record DriftScanReport(
+    LocalDate scanDate,
+    Long resumedAfterUserId,
+    int usersScanned,
+    int alertsRaised,
+    int alertsDropped,
+    long elapsedMillis,
+    List<PartitionStats> partitions
+) {
+    /**
+     * Creates a new DriftScanReport.
+     */
+    public DriftScanReport {
+        if (scanDate == null) {
+            throw new IllegalArgumentException("Scan date cannot be null");
+        }
+        partitions = partitions == null ? List.of() : List.copyOf(partitions);
+    }
+
+    /**
+     * Gets the scan throughput.
+     *
+     * @return users scanned per second of wall-clock time
+     */
+    public double usersPerSecond() {
+        return elapsedMillis == 0 ? usersScanned * 1000.0 : usersScanned * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Statistics for one partition of the scan.
+     *
+     * @param firstUserId the first user id in the partition
+     * @param lastUserId the last user id in the partition
+     * @param users the number of users scanned
+     * @param alerts the number of alerts raised
+     * @param latencyMillis the time spent scanning the partition
+     */
+    public record PartitionStats(long firstUserId, long lastUserId, int users, int alerts, long latencyMillis) {
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.config;
+
+import org.example.persistence.routing.ReadWriteRoutingDataSource;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write data source routing configuration class.
+ * Active when a replica URL is configured: {@code spring.datasource} stays the primary, and
+ * read-only transactions go to the {@code datasource.replica} pool. Requests for a user who
+ * wrote within the maximum replica lag, and requests that write, read from the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "url")
+public class DataSourceRoutingConfig implements WebMvcConfigurer {
+    private final ReplicaLagTracker lagTracker;
+
+    public DataSourceRoutingConfig(ReplicaLagTracker lagTracker) {
+        this.lagTracker = lagTracker;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties,
+                                 @Value("${datasource.replica.url}") String replicaUrl,
+                                 @Value("${datasource.replica.username:}") String replicaUsername,
+                                 @Value("${datasource.replica.password:}") String replicaPassword,
+                                 @Value("${datasource.replica.driver-class-name:}") String replicaDriver) {
+        DataSource primary = primaryProperties.initializeDataSourceBuilder().build();
+        DataSourceBuilder<?> replicaBuilder = DataSourceBuilder.create()
+            .url(replicaUrl)
+            .username(replicaUsername)
+            .password(replicaPassword);
+        if (!replicaDriver.isBlank()) {
+            replicaBuilder.driverClassName(replicaDriver);
+        }
+        return new LazyConnectionDataSourceProxy(
+            new ReadWriteRoutingDataSource(primary, replicaBuilder.build(), lagTracker));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadConsistencyInterceptor(lagTracker)).addPathPatterns("/api/users/{userId}/**");
+    }
+}
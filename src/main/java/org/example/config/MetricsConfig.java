@@ -0,0 +1,56 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.AchievementService;
+import org.example.CalendarRollupService;
+import org.example.MilestoneService;
+import org.example.metrics.AllocationRateMetrics;
+import org.example.service.UserEventStreamService;
+import org.example.service.UserService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics configuration class.
+ * Registers gauges for the per-user in-memory caches and the JVM allocation rate.
+ * HTTP endpoint latency and the hot-path timers in {@link org.example.metrics.HotPathMetrics}
+ * are published as histograms on the Prometheus scrape endpoint.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder userCacheMetrics(UserService userService, AchievementService achievementService,
+                                        MilestoneService milestoneService,
+                                        CalendarRollupService calendarRollupService,
+                                        UserEventStreamService userEventStreamService) {
+        return registry -> {
+            Gauge.builder("futureyou.cache.users", userService, UserService::getCachedUserCount)
+                .description("Users held in memory")
+                .tag("cache", "history")
+                .register(registry);
+            Gauge.builder("futureyou.cache.users", achievementService, AchievementService::getCachedUserCount)
+                .description("Users held in memory")
+                .tag("cache", "achievements")
+                .register(registry);
+            Gauge.builder("futureyou.cache.users", milestoneService, MilestoneService::getCachedUserCount)
+                .description("Users held in memory")
+                .tag("cache", "milestones")
+                .register(registry);
+            Gauge.builder("futureyou.cache.users", calendarRollupService, CalendarRollupService::getCachedUserCount)
+                .description("Users held in memory")
+                .tag("cache", "rollups")
+                .register(registry);
+            Gauge.builder("futureyou.events.subscribers", userEventStreamService,
+                    UserEventStreamService::getSubscriberCount)
+                .description("Open event streams")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder allocationRateMetrics() {
+        return new AllocationRateMetrics();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Binds the read context of a per-user request for data source routing. Reads of GET
+ * requests may use the replica unless the user wrote recently; any other request reads from
+ * the primary. Write services record their writes as their transactions commit; a non-GET
+ * request still counts as a write once it completes, for state kept outside the database.
+ */
+class ReadConsistencyInterceptor implements HandlerInterceptor {
+    private final ReplicaLagTracker lagTracker;
+
+    ReadConsistencyInterceptor(ReplicaLagTracker lagTracker) {
+        this.lagTracker = lagTracker;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isRead(request)) {
+            lagTracker.bindUser(userId(request));
+        } else {
+            lagTracker.bindPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        lagTracker.clear();
+        if (!isRead(request)) {
+            lagTracker.recordWrite(userId(request));
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map) || !(map.get("userId") instanceof String userId)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration class.
+ * Enables @Scheduled background tasks such as export job cleanup.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
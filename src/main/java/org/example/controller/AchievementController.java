@@ -7,7 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,14 +18,11 @@ import java.util.stream.Collectors;
 public class AchievementController {
     private final UserService userService;
     private final AchievementService achievementService;
-    private final AnalyticsService analyticsService;
 
     @Autowired
-    public AchievementController(UserService userService, AchievementService achievementService,
-                                AnalyticsService analyticsService) {
+    public AchievementController(UserService userService, AchievementService achievementService) {
         this.userService = userService;
         this.achievementService = achievementService;
-        this.analyticsService = analyticsService;
     }
 
     /**
@@ -44,19 +40,8 @@ public class AchievementController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
-        // Calculate achievements
-        LocalDate currentDate = LocalDate.now();
-        List<Achievement> achievements = achievementService.calculateAchievements(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
+        List<Achievement> achievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
 
         // Convert to DTOs
         List<AchievementDto> achievementDtos = achievements.stream()
@@ -81,19 +66,8 @@ public class AchievementController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
-        // Calculate achievements
-        LocalDate currentDate = LocalDate.now();
-        List<Achievement> achievements = achievementService.calculateAchievements(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
+        List<Achievement> achievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
 
         // Filter to only unlocked and convert to DTOs
         List<AchievementDto> achievementDtos = achievements.stream()
@@ -16,54 +16,49 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/users/{userId}/activity-feed")
 public class ActivityFeedController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
     private final ActivityFeedService activityFeedService;
-    private final AnalyticsService analyticsService;
 
     @Autowired
-    public ActivityFeedController(UserService userService, ActivityFeedService activityFeedService,
-                                 AnalyticsService analyticsService) {
+    public ActivityFeedController(UserService userService, ActivityFeedService activityFeedService) {
         this.userService = userService;
         this.activityFeedService = activityFeedService;
-        this.analyticsService = analyticsService;
     }
 
     /**
-     * Get activity feed for a user.
+     * Get a page of the activity feed for a user, newest first.
+     * When older entries remain, the cursor for the next page is returned in the
+     * X-Next-Cursor response header.
      *
-     * GET /api/users/{userId}/activity-feed?limit=50
+     * GET /api/users/{userId}/activity-feed?limit=50&cursor=...
      */
     @GetMapping
     public ResponseEntity<List<ActivityFeedEntryDto>> getActivityFeed(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "50") Integer limit) {
+            @RequestParam(defaultValue = "50") Integer limit,
+            @RequestParam(required = false) String cursor) {
         // Validate user exists
         userService.getUser(userId);
 
         // Get user data
-        UserStats userStats = userService.getUserStats(userId);
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
         // Generate activity feed
-        List<ActivityFeedEntry> feed = activityFeedService.generateActivityFeed(
-            userStats, habits, goals, habitService, goalService, analyticsService, limit);
+        ActivityFeedPage page = activityFeedService.getActivityFeedPage(habitService, goalService, limit, cursor);
 
         // Convert to DTOs
-        List<ActivityFeedEntryDto> feedDtos = feed.stream()
+        List<ActivityFeedEntryDto> feedDtos = page.entries().stream()
             .map(this::toActivityFeedEntryDto)
             .collect(Collectors.toList());
 
-        return ResponseEntity.ok(feedDtos);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(feedDtos);
     }
 
     private ActivityFeedEntryDto toActivityFeedEntryDto(ActivityFeedEntry entry) {
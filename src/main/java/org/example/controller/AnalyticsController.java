@@ -2,9 +2,11 @@ package org.example.controller;
 
 import org.example.*;
 import org.example.dto.*;
+import org.example.service.AnalyticsQueryService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
@@ -20,11 +22,14 @@ import java.util.stream.Collectors;
 public class AnalyticsController {
     private final UserService userService;
     private final AnalyticsService analyticsService;
+    private final AnalyticsQueryService analyticsQueryService;
 
     @Autowired
-    public AnalyticsController(UserService userService, AnalyticsService analyticsService) {
+    public AnalyticsController(UserService userService, AnalyticsService analyticsService,
+                               AnalyticsQueryService analyticsQueryService) {
         this.userService = userService;
         this.analyticsService = analyticsService;
+        this.analyticsQueryService = analyticsQueryService;
     }
 
     /**
@@ -40,40 +45,19 @@ public class AnalyticsController {
 
         // Get user data
         UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-        GoalService goalService = userService.getGoalService(userId);
 
-        // Build analytics
+        // Build analytics, from the history tables for users not held in memory
         java.time.LocalDate currentDate = java.time.LocalDate.now();
-        List<XpHistoryEntry> xpHistory = analyticsService.buildXpHistory(habitService, goalService);
-        
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-        
-        // Calculate streaks
-        Map<Habit, HabitStreak> habitStreaksMap = analyticsService.calculateAllHabitStreaks(
-            habits, habitService, currentDate);
-        List<HabitStreak> habitStreaks = new ArrayList<>(habitStreaksMap.values());
-        
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-        
-        // Calculate consistency (average of all goal consistencies)
-        Map<Goal, GoalConsistency> goalConsistencyMap = analyticsService.calculateAllGoalConsistency(
-            goals, goalService, currentDate);
-        double consistency = goalConsistencyMap.values().stream()
-            .mapToDouble(GoalConsistency::consistencyScore)
-            .average()
-            .orElse(0.0);
-        
-        // Analyze trend
-        Trend trend = analyticsService.analyzeXpTrend(habitService, goalService, 14, currentDate);
-        
-        // Detect burnout
-        BurnoutWarning burnoutWarning = analyticsService.detectBurnout(habitService, goalService, currentDate);
+        AnalyticsService.DashboardAnalytics analytics = userService.isUserLoaded(userId)
+            ? analyticsService.analyzeDashboard(userService.getHabitService(userId),
+                userService.getGoalService(userId), currentDate)
+            : analyticsQueryService.analyzeDashboard(userId, currentDate);
+        List<HabitStreak> habitStreaks = new ArrayList<>(analytics.habitStreaks().values());
+        int goalCount = analytics.goalConsistency().size();
+        double consistency = analytics.averageConsistencyScore();
+        Trend trend = analytics.xpTrend();
+        BurnoutWarning burnoutWarning = analytics.burnoutWarning();
+        List<XpHistoryEntry> lastWeekHistory = analytics.xpHistoryAfter(currentDate.minusDays(7));
 
         // Build dashboard DTO
         DashboardDto dashboard = new DashboardDto();
@@ -83,10 +67,10 @@ public class AnalyticsController {
         dashboard.setLevel(userStats.getLevel());
         
         // Habits and goals summary
-        dashboard.setTotalHabits(habits.size());
-        dashboard.setActiveHabits(habits.size());
-        dashboard.setTotalGoals(goals.size());
-        dashboard.setActiveGoals(goals.size()); // All goals are considered active
+        dashboard.setTotalHabits(habitStreaks.size());
+        dashboard.setActiveHabits(habitStreaks.size());
+        dashboard.setTotalGoals(goalCount);
+        dashboard.setActiveGoals(goalCount); // All goals are considered active
         
         // Analytics metrics
         dashboard.setConsistencyScore(consistency);
@@ -99,10 +83,7 @@ public class AnalyticsController {
             .orElse(0));
         
         // Recent activity (last 7 days)
-        long recentActivityDays = xpHistory.stream()
-            .filter(entry -> entry.date().isAfter(java.time.LocalDate.now().minusDays(7)))
-            .count();
-        dashboard.setActiveDaysLastWeek((int) recentActivityDays);
+        dashboard.setActiveDaysLastWeek(lastWeekHistory.size());
         
         // XP trends
         dashboard.setTrendDirection(trend.name());
@@ -125,8 +106,7 @@ public class AnalyticsController {
         dashboard.setTopStreaks(topStreaks);
         
         // Recent XP activity (last 7 days)
-        List<XpActivityDto> recentActivity = xpHistory.stream()
-            .filter(entry -> entry.date().isAfter(java.time.LocalDate.now().minusDays(7)))
+        List<XpActivityDto> recentActivity = lastWeekHistory.stream()
             .sorted((a, b) -> b.date().compareTo(a.date()))
             .map(this::toXpActivityDto)
             .collect(Collectors.toList());
@@ -141,6 +121,7 @@ public class AnalyticsController {
      * GET /api/users/{userId}/analytics/detailed
      */
     @GetMapping("/detailed")
+    @Transactional(readOnly = true)
     public ResponseEntity<DetailedAnalyticsDto> getDetailedAnalytics(@PathVariable Long userId) {
         // Validate user exists
         userService.getUser(userId);
@@ -0,0 +1,41 @@
+package org.example.controller;
+
+import org.example.service.BulkExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * REST controller for bulk exports across all users.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class BulkExportController {
+    private final BulkExportService bulkExportService;
+
+    @Autowired
+    public BulkExportController(BulkExportService bulkExportService) {
+        this.bulkExportService = bulkExportService;
+    }
+
+    /**
+     * Export every user's habit checks, goal notes and XP events in the columnar format.
+     * The file is streamed as partitions of the user base are scanned.
+     *
+     * GET /api/export/columnar
+     */
+    @GetMapping("/columnar")
+    public ResponseEntity<StreamingResponseBody> exportColumnar() {
+        String filename = "history-" + LocalDate.now() + ".fych";
+        StreamingResponseBody body = out -> bulkExportService.writeColumnarExport(out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .body(body);
+    }
+}
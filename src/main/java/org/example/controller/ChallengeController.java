@@ -2,6 +2,8 @@ package org.example.controller;
 
 import org.example.*;
 import org.example.dto.ChallengeDto;
+import org.example.dto.ChallengeStandingDto;
+import org.example.persistence.entity.UserEntity;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -20,14 +22,11 @@ import java.util.stream.Collectors;
 public class ChallengeController {
     private final ChallengeService challengeService;
     private final UserService userService;
-    private final AnalyticsService analyticsService;
 
     @Autowired
-    public ChallengeController(ChallengeService challengeService, UserService userService,
-                              AnalyticsService analyticsService) {
+    public ChallengeController(ChallengeService challengeService, UserService userService) {
         this.challengeService = challengeService;
         this.userService = userService;
-        this.analyticsService = analyticsService;
     }
 
     /**
@@ -78,34 +77,50 @@ public class ChallengeController {
     @PostMapping("/{id}/join")
     public ResponseEntity<ChallengeDto> joinChallenge(@PathVariable String id, @RequestParam String username) {
         Challenge challenge = challengeService.joinChallenge(id, username);
+
+        // Start progress from the user's stats and history; later checks and notes update it
+        userService.findUserByUsername(username).ifPresent(user -> userService.withUserLock(user.getId(), () ->
+            challengeService.startProgress(id, username, userService.getUserStats(user.getId()),
+                userService.getHabitService(user.getId()))));
         return ResponseEntity.ok(toChallengeDto(challenge));
     }
 
+    /**
+     * Leave a challenge.
+     *
+     * POST /api/challenges/{id}/leave
+     */
+    @PostMapping("/{id}/leave")
+    public ResponseEntity<ChallengeDto> leaveChallenge(@PathVariable String id, @RequestParam String username) {
+        Challenge challenge = challengeService.leaveChallenge(id, username);
+        return ResponseEntity.ok(toChallengeDto(challenge));
+    }
+
+    /**
+     * Get the top participants of a challenge.
+     *
+     * GET /api/challenges/{id}/standings?limit=10
+     */
+    @GetMapping("/{id}/standings")
+    public ResponseEntity<List<ChallengeStandingDto>> getStandings(@PathVariable String id,
+                                                                   @RequestParam(defaultValue = "10") int limit) {
+        List<ChallengeStandingDto> dtos = challengeService.getStandings(id, limit).stream()
+            .map(this::toChallengeStandingDto)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(dtos);
+    }
+
     /**
      * Get user's progress in a challenge.
      *
-     * GET /api/users/{userId}/challenges/{challengeId}/progress
+     * GET /api/challenges/users/{userId}/challenges/{challengeId}/progress
      */
     @GetMapping("/users/{userId}/challenges/{challengeId}/progress")
     public ResponseEntity<ChallengeDto> getChallengeProgress(@PathVariable Long userId, @PathVariable String challengeId) {
         // Validate user exists
-        userService.getUser(userId);
-
-        // Get user data
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Update challenge progress
-        LocalDate currentDate = LocalDate.now();
-        Challenge challenge = challengeService.updateChallengeProgress(
-            challengeId, userStats, habits, habitService, analyticsService, currentDate);
+        UserEntity user = userService.getUser(userId);
 
+        Challenge challenge = challengeService.getChallengeProgress(challengeId, user.getUsername());
         return ResponseEntity.ok(toChallengeDto(challenge));
     }
 
@@ -125,5 +140,13 @@ public class ChallengeController {
         dto.setProgressPercentage(challenge.getProgressPercentage());
         return dto;
     }
+
+    private ChallengeStandingDto toChallengeStandingDto(ChallengeStanding standing) {
+        ChallengeStandingDto dto = new ChallengeStandingDto();
+        dto.setRank(standing.rank());
+        dto.setUsername(standing.username());
+        dto.setValue(standing.value());
+        return dto;
+    }
 }
 
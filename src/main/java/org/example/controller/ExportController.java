@@ -1,16 +1,26 @@
 package org.example.controller;
 
 import org.example.*;
-import org.example.dto.ExportDataDto;
+import org.example.dto.ExportJobDto;
+import org.example.service.ExportJobService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST controller for export endpoints.
@@ -18,94 +28,244 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/users/{userId}/export")
 public class ExportController {
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv; charset=UTF-8");
+    private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int COPY_BUFFER_SIZE = 16384;
+
     private final UserService userService;
     private final ExportService exportService;
     private final AchievementService achievementService;
     private final MilestoneService milestoneService;
-    private final AnalyticsService analyticsService;
+    private final ExportJobService exportJobService;
 
     @Autowired
     public ExportController(UserService userService, ExportService exportService,
                            AchievementService achievementService, MilestoneService milestoneService,
-                           AnalyticsService analyticsService) {
+                           ExportJobService exportJobService) {
         this.userService = userService;
         this.exportService = exportService;
         this.achievementService = achievementService;
         this.milestoneService = milestoneService;
-        this.analyticsService = analyticsService;
+        this.exportJobService = exportJobService;
     }
 
     /**
      * Export user data as JSON.
+     * The document is streamed to the response as it is generated, from a snapshot of the
+     * user's data taken before returning; it is gzip-compressed when the client sends
+     * {@code Accept-Encoding: gzip}.
      *
      * GET /api/users/{userId}/export/json
      */
     @GetMapping("/json")
-    public ResponseEntity<ExportDataDto> exportJson(@PathVariable Long userId) {
-        // Validate user exists
-        userService.getUser(userId);
-
-        // Get user data
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-        GoalService goalService = userService.getGoalService(userId);
-
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
+    public ResponseEntity<StreamingResponseBody> exportJson(
+            @PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        UserSnapshot snapshot = snapshot(userId);
+        UserStats userStats = snapshot.userStats();
+        HabitService habitService = snapshot.habitService();
+        GoalService goalService = snapshot.goalService();
+        List<Habit> habits = habitService.getCheckedHabits();
         List<Goal> goals = goalService.getAllGoals();
+        List<Achievement> achievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
+        List<Milestone> milestones = milestoneService.getMilestones(
+            userId, userStats, habitService, goalService);
 
-        // Export data
-        String jsonData = exportService.exportToJson(
-            userStats, habits, goals, habitService, goalService,
-            achievementService, milestoneService, analyticsService);
-
-        ExportDataDto dto = new ExportDataDto();
-        dto.setExportDate(LocalDate.now());
-        dto.setFormat("JSON");
-        dto.setData(jsonData);
-
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=user-data.json")
-            .contentType(MediaType.APPLICATION_JSON)
-            .body(dto);
+        return streamed("user-data.json", MediaType.APPLICATION_JSON, acceptEncoding,
+            out -> exportService.writeJson(out, userStats, habits, goals, habitService, goalService,
+                achievements, milestones));
     }
 
     /**
-     * Export user data as CSV.
+     * Export user data as CSV (RFC 4180).
+     * Rows are streamed to the response as they are generated, from a snapshot of the user's
+     * data taken before returning; the body is gzip-compressed when the client sends
+     * {@code Accept-Encoding: gzip}.
      *
      * GET /api/users/{userId}/export/csv
      */
     @GetMapping("/csv")
-    public ResponseEntity<String> exportCsv(@PathVariable Long userId) {
-        // Validate user exists
-        userService.getUser(userId);
-
-        // Get user data
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-        GoalService goalService = userService.getGoalService(userId);
-
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        UserSnapshot snapshot = snapshot(userId);
+        UserStats userStats = snapshot.userStats();
+        HabitService habitService = snapshot.habitService();
+        GoalService goalService = snapshot.goalService();
+        List<Habit> habits = habitService.getCheckedHabits();
         List<Goal> goals = goalService.getAllGoals();
 
-        // Export data
-        String csvData = exportService.exportToCsv(userStats, habits, goals, habitService, goalService);
+        return streamed("user-data.csv", TEXT_CSV, acceptEncoding,
+            out -> exportService.writeCsv(out, userStats, habits, goals, habitService, goalService));
+    }
 
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=user-data.csv")
-            .contentType(MediaType.TEXT_PLAIN)
-            .body(csvData);
+    /**
+     * Submit an asynchronous export job.
+     * The export is written to a compressed file in the background; poll the returned
+     * job for its status and download it once completed.
+     *
+     * POST /api/users/{userId}/export/jobs?format=json|csv
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ExportJobDto> submitExportJob(@PathVariable Long userId,
+                                                        @RequestParam(defaultValue = "json") String format) {
+        ExportJob job = exportJobService.submit(userId, ExportFormat.fromString(format));
+        ExportJobDto dto = toExportJobDto(job);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.LOCATION, jobUrl(job))
+            .body(dto);
     }
-}
 
+    /**
+     * Get the status of an export job.
+     *
+     * GET /api/users/{userId}/export/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ExportJobDto> getExportJob(@PathVariable Long userId, @PathVariable String jobId) {
+        return ResponseEntity.ok(toExportJobDto(exportJobService.getJob(userId, jobId)));
+    }
+
+    /**
+     * Download the gzip-compressed file of a completed export job.
+     * Supports single HTTP byte ranges (with If-Range) so interrupted downloads can resume.
+     *
+     * GET /api/users/{userId}/export/jobs/{jobId}/download
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadExportJob(
+            @PathVariable Long userId,
+            @PathVariable String jobId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) throws IOException {
+        ExportJob job = exportJobService.getJob(userId, jobId);
+        // Held open until the file has been streamed, so expiry cannot delete it mid-download
+        ExportJobService.Download download = exportJobService.openDownload(userId, jobId);
+        boolean streaming = false;
+        try {
+            Path file = download.getFile();
+            long length = Files.size(file);
+            String etag = "\"" + job.getId() + "\"";
+
+            ByteRange range = ifRange == null || ifRange.equals(etag) ? ByteRange.parse(rangeHeader, length) : null;
+            if (range != null && !range.isSatisfiable()) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, range.toContentRange())
+                    .build();
+            }
+
+            long start = range != null ? range.start() : 0;
+            long count = range != null ? range.length() : length;
+            HttpStatus status = range != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK;
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getDownloadFileName())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(etag)
+                .contentType(APPLICATION_GZIP)
+                .contentLength(count);
+            if (range != null) {
+                response.header(HttpHeaders.CONTENT_RANGE, range.toContentRange());
+            }
+            ResponseEntity<StreamingResponseBody> body = response.body(out -> {
+                try (download) {
+                    copyRange(file, start, count, out);
+                }
+            });
+            streaming = true;
+            return body;
+        } finally {
+            if (!streaming) {
+                download.close();
+            }
+        }
+    }
+
+    /**
+     * Copies a user's stats and history under the user's lock, so the body streamed on the
+     * async thread never reads services that concurrent checks and notes are changing.
+     */
+    private UserSnapshot snapshot(Long userId) {
+        userService.getUser(userId); // Validate user exists
+        return userService.withUserLock(userId, () -> new UserSnapshot(userService.getUserStats(userId),
+            userService.getHabitService(userId).copy(), userService.getGoalService(userId).copy()));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> streamed(String filename, MediaType mediaType,
+                                                                  String acceptEncoding,
+                                                                  StreamingResponseBody writer) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                writer.writeTo(compressed);
+                compressed.finish();
+            } else {
+                writer.writeTo(out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(mediaType);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+
+    private static void copyRange(Path file, long start, long count, OutputStream out) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            channel.position(start);
+            InputStream in = Channels.newInputStream(channel);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private String jobUrl(ExportJob job) {
+        return "/api/users/" + job.getUserId() + "/export/jobs/" + job.getId();
+    }
+
+    private ExportJobDto toExportJobDto(ExportJob job) {
+        ExportJobDto dto = new ExportJobDto();
+        dto.setJobId(job.getId());
+        dto.setFormat(job.getFormat().name());
+        dto.setStatus(job.getStatus().name());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        dto.setExpiresAt(exportJobService.getExpiresAt(job));
+        dto.setSizeBytes(job.getSizeBytes());
+        dto.setErrorMessage(job.getErrorMessage());
+        if (job.getStatus() == ExportJobStatus.COMPLETED) {
+            dto.setDownloadUrl(jobUrl(job) + "/download");
+        }
+        return dto;
+    }
+
+    private record UserSnapshot(UserStats userStats, HabitService habitService, GoalService goalService) {
+    }
+}
@@ -5,9 +5,13 @@ import org.example.*;
 import org.example.dto.*;
 import org.example.dto.mapper.DtoMapper;
 import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.projection.GoalSummary;
 import org.example.service.GoalManagementService;
+import org.example.service.HistoryBulkWriteService;
+import org.example.service.NotificationTimerService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,11 +31,19 @@ public class GoalController {
 
     private final UserService userService;
     private final GoalManagementService goalManagementService;
+    private final NotificationTimerService notificationTimerService;
+    private final HistoryBulkWriteService historyWriteService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public GoalController(UserService userService, GoalManagementService goalManagementService) {
+    public GoalController(UserService userService, GoalManagementService goalManagementService,
+                          NotificationTimerService notificationTimerService,
+                          HistoryBulkWriteService historyWriteService, ApplicationEventPublisher eventPublisher) {
         this.userService = userService;
         this.goalManagementService = goalManagementService;
+        this.notificationTimerService = notificationTimerService;
+        this.historyWriteService = historyWriteService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -77,7 +89,10 @@ public class GoalController {
         
         // Add goal to domain service (for business logic)
         GoalService goalService = userService.getGoalService(userId);
-        goalService.addGoal(goal);
+        userService.withUserLock(userId, () -> goalService.addGoal(goal));
+
+        // Schedule deadline warnings
+        notificationTimerService.scheduleGoalDeadline(userId, goal);
         
         // Calculate initial progress
         double progress = goalService.calculateProgress(goal);
@@ -113,12 +128,7 @@ public class GoalController {
             @RequestParam(required = false) LocalDate date) {
         
         // Verify user exists
-        userService.getUser(userId);
-        
-        // Get user stats and services
-        UserStats userStats = userService.getUserStats(userId);
-        GoalService goalService = userService.getGoalService(userId);
-        HabitService habitService = userService.getHabitService(userId);
+        org.example.persistence.entity.UserEntity user = userService.getUser(userId);
         
         // Use provided date or today
         LocalDate noteDate = date != null ? date : LocalDate.now();
@@ -127,22 +137,41 @@ public class GoalController {
         GoalEntity goalEntity = goalManagementService.getGoal(goalId, userId);
         Goal goal = goalManagementService.toDomainGoal(goalEntity);
         
-        // Ensure goal is in domain service (for business logic)
-        if (goalService.getGoal(goal.getTitle()) == null) {
-            goalService.addGoal(goal);
-        }
-        
-        // Add goal note
-        GoalService.NoteResult result = goalService.addGoalNote(
-            userStats, goal, noteDate, request.getTextNote(), 
-            request.getRequestedXp(), habitService);
-        
-        // Update user stats in persistence
-        userService.updateUserStats(userId, result.userStats());
-        
-        // Convert to DTO
-        XpUpdateResultDto response = DtoMapper.toXpUpdateResultDto(
-            result.transaction(), result.userStats());
+        // Read, add and write back under the user's lock, so concurrent notes and the
+        // history archive never interleave with this one
+        XpUpdateResultDto response = userService.withUserLock(userId, () -> {
+            UserStats userStats = userService.getUserStats(userId);
+            GoalService goalService = userService.getGoalService(userId);
+            HabitService habitService = userService.getHabitService(userId);
+
+            // Ensure goal is in domain service (for business logic)
+            if (goalService.getGoal(goal.getTitle()) == null) {
+                goalService.addGoal(goal);
+            }
+
+            // Add goal note
+            GoalService.NoteResult result = goalService.addGoalNote(
+                userStats, goal, noteDate, request.getTextNote(),
+                request.getRequestedXp(), habitService);
+
+            // Persist the new stats, the note and its day in one transaction, so they survive a
+            // restart together. The note is already held in memory, so if storing it fails the
+            // user is dropped from memory and rebuilt from what was stored on next access.
+            try {
+                historyWriteService.recordGoalNote(goalEntity, result.note(), habitService.getActivityLog(noteDate),
+                    result.transaction(), result.userStats());
+            } catch (RuntimeException e) {
+                userService.evictUser(userId);
+                throw e;
+            }
+
+            // Let event streams, challenges, achievements, milestones and rollups follow the note
+            eventPublisher.publishEvent(new GoalNoteAdded(userId, user.getUsername(), result.note(),
+                result.transaction(), userStats, result.userStats(), goalService));
+
+            // Convert to DTO
+            return DtoMapper.toXpUpdateResultDto(result.transaction(), result.userStats());
+        });
         
         return ResponseEntity.ok(response);
     }
@@ -169,22 +198,24 @@ public class GoalController {
     @GetMapping
     public ResponseEntity<java.util.List<GoalDto>> getUserGoals(@PathVariable Long userId) {
         // Verify user exists
-        org.example.persistence.entity.UserEntity user = userService.getUser(userId);
+        userService.getUser(userId);
         
-        // Get all goals for user
-        java.util.List<GoalEntity> goalEntities = goalManagementService.getUserGoals(user);
+        // Read only the listed columns; progress still comes from the domain service
+        java.util.List<GoalSummary> summaries = goalManagementService.getUserGoalSummaries(userId);
         GoalService goalService = userService.getGoalService(userId);
         
         // Convert to DTOs
-        java.util.List<GoalDto> goals = goalEntities.stream()
-                .map(entity -> {
-                    Goal goal = goalManagementService.toDomainGoal(entity);
+        java.util.List<GoalDto> goals = summaries.stream()
+                .map(summary -> {
+                    Goal goal = goalManagementService.toDomainGoal(summary);
                     // Ensure goal is in domain service for progress calculation
-                    if (goalService.getGoal(goal.getTitle()) == null) {
-                        goalService.addGoal(goal);
-                    }
+                    userService.withUserLock(userId, () -> {
+                        if (goalService.getGoal(goal.getTitle()) == null) {
+                            goalService.addGoal(goal);
+                        }
+                    });
                     double progress = goalService.calculateProgress(goal);
-                    return DtoMapper.toGoalDto(goal, entity.getId(), progress);
+                    return DtoMapper.toGoalDto(goal, summary.id(), progress);
                 })
                 .collect(java.util.stream.Collectors.toList());
         
@@ -6,8 +6,10 @@ import org.example.dto.*;
 import org.example.dto.mapper.DtoMapper;
 import org.example.persistence.entity.HabitEntity;
 import org.example.service.HabitManagementService;
+import org.example.service.HistoryBulkWriteService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,11 +30,16 @@ public class HabitController {
 
     private final UserService userService;
     private final HabitManagementService habitManagementService;
+    private final HistoryBulkWriteService historyWriteService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public HabitController(UserService userService, HabitManagementService habitManagementService) {
+    public HabitController(UserService userService, HabitManagementService habitManagementService,
+                           HistoryBulkWriteService historyWriteService, ApplicationEventPublisher eventPublisher) {
         this.userService = userService;
         this.habitManagementService = habitManagementService;
+        this.historyWriteService = historyWriteService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -66,6 +73,7 @@ public class HabitController {
         
         // Persist habit
         HabitEntity habitEntity = habitManagementService.createHabit(user, habit);
+        eventPublisher.publishEvent(new HabitCreated(userId, habit, habitManagementService.countUserHabits(userId)));
         
         // Convert to DTO
         HabitDto habitDto = DtoMapper.toHabitDto(habit, habitEntity.getId());
@@ -92,11 +100,7 @@ public class HabitController {
             @RequestParam(required = false) LocalDate date) {
         
         // Verify user exists
-        userService.getUser(userId);
-        
-        // Get user stats and services
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
+        org.example.persistence.entity.UserEntity user = userService.getUser(userId);
         
         // Use provided date or today
         LocalDate checkDate = date != null ? date : LocalDate.now();
@@ -105,16 +109,35 @@ public class HabitController {
         HabitEntity habitEntity = habitManagementService.getHabit(habitId, userId);
         Habit habit = habitManagementService.toDomainHabit(habitEntity);
         
-        // Check habit
-        HabitService.CheckResult result = habitService.checkHabit(
-            userStats, habit, checkDate, HabitCheckResult.DONE);
-        
-        // Update user stats in persistence
-        userService.updateUserStats(userId, result.userStats());
-        
-        // Convert to DTO
-        XpUpdateResultDto response = DtoMapper.toXpUpdateResultDto(
-            result.transaction(), result.userStats());
+        // Read, check and write back under the user's lock, so concurrent checks and the
+        // history archive never interleave with this one
+        XpUpdateResultDto response = userService.withUserLock(userId, () -> {
+            UserStats userStats = userService.getUserStats(userId);
+            HabitService habitService = userService.getHabitService(userId);
+
+            // Check habit
+            HabitService.CheckResult result = habitService.checkHabit(
+                userStats, habit, checkDate, HabitCheckResult.DONE);
+
+            // Persist the new stats, the check and its day in one transaction, so they survive a
+            // restart together. The check is already held in memory, so if storing it fails the
+            // user is dropped from memory and rebuilt from what was stored on next access.
+            HabitCheck check = new HabitCheck(habit, checkDate, HabitCheckResult.DONE);
+            try {
+                historyWriteService.recordHabitCheck(habitEntity, check, result.activityLog(), result.transaction(),
+                    result.userStats());
+            } catch (RuntimeException e) {
+                userService.evictUser(userId);
+                throw e;
+            }
+
+            // Let event streams, challenges, achievements, milestones and rollups follow the check
+            eventPublisher.publishEvent(new HabitChecked(userId, user.getUsername(), check, result.transaction(),
+                userStats, result.userStats(), habitService));
+
+            // Convert to DTO
+            return DtoMapper.toXpUpdateResultDto(result.transaction(), result.userStats());
+        });
         
         return ResponseEntity.ok(response);
     }
@@ -139,11 +162,7 @@ public class HabitController {
             @RequestParam(required = false) LocalDate date) {
         
         // Verify user exists
-        userService.getUser(userId);
-        
-        // Get user stats and services
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
+        org.example.persistence.entity.UserEntity user = userService.getUser(userId);
         
         // Use provided date or today
         LocalDate checkDate = date != null ? date : LocalDate.now();
@@ -152,16 +171,35 @@ public class HabitController {
         HabitEntity habitEntity = habitManagementService.getHabit(habitId, userId);
         Habit habit = habitManagementService.toDomainHabit(habitEntity);
         
-        // Check habit as missed
-        HabitService.CheckResult result = habitService.checkHabit(
-            userStats, habit, checkDate, HabitCheckResult.MISSED);
-        
-        // Update user stats in persistence
-        userService.updateUserStats(userId, result.userStats());
-        
-        // Convert to DTO
-        XpUpdateResultDto response = DtoMapper.toXpUpdateResultDto(
-            result.transaction(), result.userStats());
+        // Read, check and write back under the user's lock, so concurrent checks and the
+        // history archive never interleave with this one
+        XpUpdateResultDto response = userService.withUserLock(userId, () -> {
+            UserStats userStats = userService.getUserStats(userId);
+            HabitService habitService = userService.getHabitService(userId);
+
+            // Check habit as missed
+            HabitService.CheckResult result = habitService.checkHabit(
+                userStats, habit, checkDate, HabitCheckResult.MISSED);
+
+            // Persist the new stats, the check and its day in one transaction, so they survive a
+            // restart together. The check is already held in memory, so if storing it fails the
+            // user is dropped from memory and rebuilt from what was stored on next access.
+            HabitCheck check = new HabitCheck(habit, checkDate, HabitCheckResult.MISSED);
+            try {
+                historyWriteService.recordHabitCheck(habitEntity, check, result.activityLog(), result.transaction(),
+                    result.userStats());
+            } catch (RuntimeException e) {
+                userService.evictUser(userId);
+                throw e;
+            }
+
+            // Let event streams, challenges, achievements, milestones and rollups follow the check
+            eventPublisher.publishEvent(new HabitChecked(userId, user.getUsername(), check, result.transaction(),
+                userStats, result.userStats(), habitService));
+
+            // Convert to DTO
+            return DtoMapper.toXpUpdateResultDto(result.transaction(), result.userStats());
+        });
         
         return ResponseEntity.ok(response);
     }
@@ -188,17 +226,11 @@ public class HabitController {
     @GetMapping
     public ResponseEntity<java.util.List<HabitDto>> getUserHabits(@PathVariable Long userId) {
         // Verify user exists
-        org.example.persistence.entity.UserEntity user = userService.getUser(userId);
-        
-        // Get all habits for user
-        java.util.List<HabitEntity> habitEntities = habitManagementService.getUserHabits(user);
+        userService.getUser(userId);
         
-        // Convert to DTOs
-        java.util.List<HabitDto> habits = habitEntities.stream()
-                .map(entity -> {
-                    Habit habit = habitManagementService.toDomainHabit(entity);
-                    return DtoMapper.toHabitDto(habit, entity.getId());
-                })
+        // Read only the listed columns and convert straight to DTOs
+        java.util.List<HabitDto> habits = habitManagementService.getUserHabitSummaries(userId).stream()
+                .map(DtoMapper::toHabitDto)
                 .collect(java.util.stream.Collectors.toList());
         
         return ResponseEntity.ok(habits);
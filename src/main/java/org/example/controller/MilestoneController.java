@@ -7,7 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,14 +18,11 @@ import java.util.stream.Collectors;
 public class MilestoneController {
     private final UserService userService;
     private final MilestoneService milestoneService;
-    private final AnalyticsService analyticsService;
 
     @Autowired
-    public MilestoneController(UserService userService, MilestoneService milestoneService,
-                              AnalyticsService analyticsService) {
+    public MilestoneController(UserService userService, MilestoneService milestoneService) {
         this.userService = userService;
         this.milestoneService = milestoneService;
-        this.analyticsService = analyticsService;
     }
 
     /**
@@ -44,19 +40,9 @@ public class MilestoneController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
         // Get milestones
-        LocalDate currentDate = LocalDate.now();
         List<Milestone> milestones = milestoneService.getMilestones(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
+            userId, userStats, habitService, goalService);
 
         // Convert to DTOs
         List<MilestoneDto> milestoneDtos = milestones.stream()
@@ -81,19 +67,9 @@ public class MilestoneController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
         // Get milestones
-        LocalDate currentDate = LocalDate.now();
         List<Milestone> milestones = milestoneService.getMilestones(
-            userStats, habits, goals, habitService, goalService, analyticsService, currentDate);
+            userId, userStats, habitService, goalService);
 
         // Filter to only achieved and convert to DTOs
         List<MilestoneDto> milestoneDtos = milestones.stream()
@@ -46,18 +46,12 @@ public class MonthlySummaryController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
         // Get goals
         List<Goal> goals = goalService.getAllGoals();
 
         // Generate monthly summary
         MonthlySummary summary = monthlySummaryService.generateMonthlySummary(
-            userStats, habits, goals, habitService, goalService, analyticsService, monthEnd);
+            userId, userStats, goals, habitService, goalService, analyticsService, monthEnd);
 
         // Convert to DTO
         MonthlySummaryDto dto = toMonthlySummaryDto(summary);
@@ -2,12 +2,12 @@ package org.example.controller;
 
 import org.example.*;
 import org.example.dto.NotificationDto;
+import org.example.dto.mapper.DtoMapper;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,49 +19,29 @@ import java.util.stream.Collectors;
 public class NotificationController {
     private final UserService userService;
     private final NotificationService notificationService;
-    private final AnalyticsService analyticsService;
 
     @Autowired
-    public NotificationController(UserService userService, NotificationService notificationService,
-                                AnalyticsService analyticsService) {
+    public NotificationController(UserService userService, NotificationService notificationService) {
         this.userService = userService;
         this.notificationService = notificationService;
-        this.analyticsService = analyticsService;
     }
 
     /**
      * Get all notifications for a user.
+     * Reads the inbox; notifications are delivered by habit checks, goal notes and timers.
      *
      * GET /api/users/{userId}/notifications
      */
     @GetMapping
     public ResponseEntity<List<NotificationDto>> getNotifications(@PathVariable Long userId) {
-        // Validate user exists
-        userService.getUser(userId);
-
-        // Get user data
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-        GoalService goalService = userService.getGoalService(userId);
-        UserPreferences preferences = userService.getUserPreferences(userId);
-
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
-        // Generate notifications
-        LocalDate currentDate = LocalDate.now();
-        List<Notification> notifications = notificationService.generateNotifications(
-            userStats, habits, goals, habitService, goalService, analyticsService, preferences, currentDate);
+        // Inboxes only exist for known users, so only validate when there is none yet
+        if (!notificationService.hasInbox(userId)) {
+            userService.getUser(userId);
+        }
 
         // Convert to DTOs
-        List<NotificationDto> notificationDtos = notifications.stream()
-            .map(this::toNotificationDto)
+        List<NotificationDto> notificationDtos = notificationService.getNotifications(userId).stream()
+            .map(DtoMapper::toNotificationDto)
             .collect(Collectors.toList());
 
         return ResponseEntity.ok(notificationDtos);
@@ -69,37 +49,18 @@ public class NotificationController {
 
     /**
      * Get unread notifications count.
+     * Reads the inbox counter; nothing is regenerated.
      *
      * GET /api/users/{userId}/notifications/unread-count
      */
     @GetMapping("/unread-count")
     public ResponseEntity<Long> getUnreadCount(@PathVariable Long userId) {
-        // Validate user exists
-        userService.getUser(userId);
-
-        // Get user data
-        UserStats userStats = userService.getUserStats(userId);
-        HabitService habitService = userService.getHabitService(userId);
-        GoalService goalService = userService.getGoalService(userId);
-        UserPreferences preferences = userService.getUserPreferences(userId);
-
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
+        // Inboxes only exist for known users, so only validate when there is none yet
+        if (!notificationService.hasInbox(userId)) {
+            userService.getUser(userId);
+        }
 
-        // Get goals
-        List<Goal> goals = goalService.getAllGoals();
-
-        // Generate notifications
-        LocalDate currentDate = LocalDate.now();
-        List<Notification> notifications = notificationService.generateNotifications(
-            userStats, habits, goals, habitService, goalService, analyticsService, preferences, currentDate);
-
-        long unreadCount = notificationService.getUnreadCount(notifications);
-
-        return ResponseEntity.ok(unreadCount);
+        return ResponseEntity.ok((long) notificationService.getUnreadCount(userId));
     }
 
     /**
@@ -112,22 +73,21 @@ public class NotificationController {
         // Validate user exists
         userService.getUser(userId);
 
-        notificationService.markAsRead(notificationId);
+        notificationService.markAsRead(userId, notificationId);
 
         return ResponseEntity.ok().build();
     }
 
-    private NotificationDto toNotificationDto(Notification notification) {
-        NotificationDto dto = new NotificationDto();
-        dto.setId(notification.id());
-        dto.setType(notification.type().name());
-        dto.setTitle(notification.title());
-        dto.setMessage(notification.message());
-        dto.setCreatedAt(notification.createdAt());
-        dto.setScheduledFor(notification.scheduledFor());
-        dto.setRead(notification.read());
-        dto.setActionUrl(notification.actionUrl());
-        return dto;
+    /**
+     * Mark all notifications as read.
+     *
+     * PUT /api/users/{userId}/notifications/read-all
+     */
+    @PutMapping("/read-all")
+    public ResponseEntity<Integer> markAllAsRead(@PathVariable Long userId) {
+        // Validate user exists
+        userService.getUser(userId);
+
+        return ResponseEntity.ok(notificationService.markAllAsRead(userId));
     }
 }
-
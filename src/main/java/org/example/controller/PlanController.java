@@ -12,6 +12,7 @@ import org.example.strategy.scenario.ScenarioGeneratorService;
 import org.example.strategy.scenario.ScenarioImpactSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -56,6 +57,7 @@ public class PlanController {
      * GET /api/users/{userId}/plan/five-year?years=5
      */
     @GetMapping("/five-year")
+    @Transactional(readOnly = true)
     public ResponseEntity<FiveYearPlanDto> getFiveYearPlan(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "5") int years) {
@@ -60,9 +60,13 @@ public class SocialSharingController {
 
         // Generate shareable content
         LocalDate currentDate = LocalDate.now();
+        List<Achievement> achievements = achievementService.getAchievements(
+            userId, userStats, habitService, goalService);
+        List<Milestone> milestones = milestoneService.getMilestones(
+            userId, userStats, habitService, goalService);
         List<ShareableContent> content = socialSharingService.getAllShareableContent(
             userStats, habits, goals, habitService, goalService,
-            achievementService, milestoneService, analyticsService, currentDate);
+            achievements, milestones, analyticsService, currentDate);
 
         // Convert to DTOs
         List<ShareableContentDto> dtos = content.stream()
@@ -0,0 +1,43 @@
+package org.example.controller;
+
+import org.example.service.UserEventStreamService;
+import org.example.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller for a user's Server-Sent Events stream.
+ *
+ * Events:
+ * notification - a new notification was delivered
+ * unread-count - the current unread notification count
+ * xp           - XP changed after a habit check or goal note
+ * level-up     - the user reached a new level
+ */
+@RestController
+@RequestMapping("/api/users/{userId}/events")
+public class UserEventStreamController {
+    private final UserService userService;
+    private final UserEventStreamService userEventStreamService;
+
+    @Autowired
+    public UserEventStreamController(UserService userService, UserEventStreamService userEventStreamService) {
+        this.userService = userService;
+        this.userEventStreamService = userEventStreamService;
+    }
+
+    /**
+     * Opens the event stream for a user.
+     *
+     * GET /api/users/{userId}/events
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@PathVariable Long userId) {
+        // Validate user exists
+        userService.getUser(userId);
+
+        return userEventStreamService.subscribe(userId);
+    }
+}
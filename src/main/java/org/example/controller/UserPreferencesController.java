@@ -3,6 +3,7 @@ package org.example.controller;
 import jakarta.validation.Valid;
 import org.example.UserPreferences;
 import org.example.dto.UserPreferencesDto;
+import org.example.service.NotificationTimerService;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,10 +16,12 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/users/{userId}/preferences")
 public class UserPreferencesController {
     private final UserService userService;
+    private final NotificationTimerService notificationTimerService;
 
     @Autowired
-    public UserPreferencesController(UserService userService) {
+    public UserPreferencesController(UserService userService, NotificationTimerService notificationTimerService) {
         this.userService = userService;
+        this.notificationTimerService = notificationTimerService;
     }
 
     /**
@@ -51,6 +54,7 @@ public class UserPreferencesController {
 
         UserPreferences preferences = toUserPreferences(preferencesDto);
         userService.updateUserPreferences(userId, preferences);
+        notificationTimerService.updatePreferences(userId, preferences);
 
         UserPreferencesDto dto = toUserPreferencesDto(preferences);
         return ResponseEntity.ok(dto);
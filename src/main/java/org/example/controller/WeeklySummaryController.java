@@ -46,18 +46,12 @@ public class WeeklySummaryController {
         HabitService habitService = userService.getHabitService(userId);
         GoalService goalService = userService.getGoalService(userId);
 
-        // Get unique habits from habit checks
-        List<Habit> habits = habitService.getAllHabitChecks().stream()
-            .map(HabitCheck::habit)
-            .distinct()
-            .toList();
-
         // Get goals
         List<Goal> goals = goalService.getAllGoals();
 
         // Generate weekly summary
         WeeklySummary summary = weeklySummaryService.generateWeeklySummary(
-            userStats, habits, goals, habitService, goalService, analyticsService, weekEnd);
+            userId, userStats, goals, habitService, goalService, analyticsService, weekEnd);
 
         // Convert to DTO
         WeeklySummaryDto dto = toWeeklySummaryDto(summary);
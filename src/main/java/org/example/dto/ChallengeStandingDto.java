@@ -0,0 +1,21 @@
+package org.example.dto;
+
+/**
+ * DTO for a participant's position in a challenge.
+ */
+public class ChallengeStandingDto {
+    private int rank;
+    private String username;
+    private int value;
+
+    public ChallengeStandingDto() {
+    }
+
+    // Getters and setters
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public int getValue() { return value; }
+    public void setValue(int value) { this.value = value; }
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+/**
+ * DTO pushed to a user's event stream when they reach a new level.
+ */
+public class LevelUpDto {
+    private int previousLevel;
+    private int newLevel;
+    private int totalXp;
+
+    public LevelUpDto() {
+    }
+
+    public LevelUpDto(int previousLevel, int newLevel, int totalXp) {
+        this.previousLevel = previousLevel;
+        this.newLevel = newLevel;
+        this.totalXp = totalXp;
+    }
+
+    // Getters and setters
+    public int getPreviousLevel() { return previousLevel; }
+    public void setPreviousLevel(int previousLevel) { this.previousLevel = previousLevel; }
+    public int getNewLevel() { return newLevel; }
+    public void setNewLevel(int newLevel) { this.newLevel = newLevel; }
+    public int getTotalXp() { return totalXp; }
+    public void setTotalXp(int totalXp) { this.totalXp = totalXp; }
+}
@@ -3,6 +3,8 @@ package org.example.dto.mapper;
 import org.example.*;
 import org.example.dto.*;
 import org.example.persistence.entity.*;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.projection.HabitSummary;
 
 /**
  * Mapper class for converting between DTOs and domain models.
@@ -35,6 +37,14 @@ public class DtoMapper {
         return new HabitDto(id, habit.getName(), habit.getDifficulty().getValue());
     }
 
+    /**
+     * Converts a HabitSummary projection to HabitDto.
+     */
+    public static HabitDto toHabitDto(HabitSummary summary) {
+        return new HabitDto(summary.id(), summary.name(),
+            DomainEntityMapper.toDifficulty(summary.difficulty()).getValue());
+    }
+
     /**
      * Converts CreateHabitRequest to domain Habit.
      */
@@ -88,5 +98,22 @@ public class DtoMapper {
             transaction.reason()
         );
     }
-}
 
+    // ========== Notification Mappings ==========
+
+    /**
+     * Converts Notification to NotificationDto.
+     */
+    public static NotificationDto toNotificationDto(Notification notification) {
+        NotificationDto dto = new NotificationDto();
+        dto.setId(notification.id());
+        dto.setType(notification.type().name());
+        dto.setTitle(notification.title());
+        dto.setMessage(notification.message());
+        dto.setCreatedAt(notification.createdAt());
+        dto.setScheduledFor(notification.scheduledFor());
+        dto.setRead(notification.read());
+        dto.setActionUrl(notification.actionUrl());
+        return dto;
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.history;
+
+import org.example.HabitCheckResult;
+import org.example.XpSource;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Container format for bulk columnar history exports.
+ *
+ * Layout: a 4-byte magic and a version byte, followed by any number of row groups
+ * (each a 4-byte big-endian length and a {@link ColumnarRowGroup} payload), terminated
+ * by a zero length. Row groups are self-contained, so readers can decode them in
+ * parallel and writers can stream them as soon as each is ready.
+ */
+public final class ColumnarHistoryFile {
+    private static final byte[] MAGIC = {'F', 'Y', 'C', 'H'};
+    // Version 2 added the daily rollup table
+    private static final int VERSION = 2;
+
+    private ColumnarHistoryFile() {
+    }
+
+    /**
+     * Writes the file header.
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Writes an encoded row group.
+     *
+     * @param out the destination
+     * @param rowGroup the bytes produced by {@link ColumnarRowGroup#encode()} (must not be empty)
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if rowGroup is null or empty
+     */
+    public static void writeRowGroup(DataOutputStream out, byte[] rowGroup) throws IOException {
+        if (rowGroup == null || rowGroup.length == 0) {
+            throw new IllegalArgumentException("Row group cannot be null or empty");
+        }
+        out.writeInt(rowGroup.length);
+        out.write(rowGroup);
+    }
+
+    /**
+     * Writes the end marker. The stream is flushed but not closed.
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public static void writeEnd(DataOutputStream out) throws IOException {
+        out.writeInt(0);
+        out.flush();
+    }
+
+    /**
+     * Reads a whole file, delivering rows to the visitor row group by row group.
+     *
+     * @param input the source (not closed)
+     * @param visitor receives the decoded rows
+     * @return the number of row groups read
+     * @throws IOException if reading fails, the header is wrong, or the file is truncated
+     */
+    public static int read(InputStream input, Visitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a columnar history file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported columnar history version: " + version);
+        }
+        int rowGroups = 0;
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                throw new IOException("Columnar history file is truncated", e);
+            }
+            if (length == 0) {
+                return rowGroups;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid row group length: " + length);
+            }
+            byte[] rowGroup = new byte[length];
+            in.readFully(rowGroup);
+            ColumnarRowGroup.decode(rowGroup, visitor);
+            rowGroups++;
+        }
+    }
+
+    /**
+     * Receives rows decoded from a columnar history file.
+     */
+    public interface Visitor {
+        /**
+         * Called for each habit check row.
+         *
+         * @param userId the user's id
+         * @param date the check date
+         * @param habitName the habit name
+         * @param result the check result
+         */
+        default void onHabitCheck(long userId, LocalDate date, String habitName, HabitCheckResult result) {
+        }
+
+        /**
+         * Called for each goal note row.
+         *
+         * @param userId the user's id
+         * @param date the note date
+         * @param goalTitle the goal title
+         * @param points the points recorded with the note
+         * @param textNote the note text (may be null)
+         */
+        default void onGoalNote(long userId, LocalDate date, String goalTitle, int points, String textNote) {
+        }
+
+        /**
+         * Called for each XP event row.
+         *
+         * @param userId the user's id
+         * @param date the event date
+         * @param xpChange the XP change
+         * @param source the XP source
+         */
+        default void onXpEvent(long userId, LocalDate date, int xpChange, XpSource source) {
+        }
+
+        /**
+         * Called for each daily rollup row, a day whose raw rows the retention job dropped.
+         *
+         * @param rollup the day's totals
+         */
+        default void onDailyRollup(DailyRollupRow rollup) {
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package org.example.history;
+
+import org.example.HabitCheckResult;
+import org.example.XpSource;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A batch of history rows for a range of users, stored column by column.
+ *
+ * Rows are encoded as they are added, so a row group costs a few bytes per row while it
+ * is being built. Each table (habit checks, goal notes, XP events, daily rollups) is split
+ * into columns with an encoding chosen for its data:
+ * - user ids: run-length encoded (rows arrive grouped by user)
+ * - dates: delta-encoded epoch days
+ * - habit names and goal titles: dictionary-encoded
+ * - check results and XP sources: run-length encoded ordinals
+ * - XP changes, points and rollup totals: zig-zag varints
+ * Every column is then deflate-compressed on its own when that makes it smaller.
+ *
+ * Rows should be added sorted by user and date for the best compression, but any order
+ * round-trips correctly. Not thread-safe; build one row group per worker.
+ */
+public class ColumnarRowGroup {
+    private static final HabitCheckResult[] RESULTS = HabitCheckResult.values();
+    private static final XpSource[] SOURCES = XpSource.values();
+    private static final int STORED_RAW = 0;
+    private static final int STORED_DEFLATE = 1;
+
+    private final HabitCheckColumns habitChecks = new HabitCheckColumns();
+    private final GoalNoteColumns goalNotes = new GoalNoteColumns();
+    private final XpEventColumns xpEvents = new XpEventColumns();
+    private final DailyRollupColumns dailyRollups = new DailyRollupColumns();
+
+    /**
+     * Adds a habit check row.
+     *
+     * @param userId the user's id
+     * @param date the check date (must not be null)
+     * @param habitName the habit name (must not be null)
+     * @param result the check result (must not be null)
+     * @throws IllegalArgumentException if any object parameter is null
+     */
+    public void addHabitCheck(long userId, LocalDate date, String habitName, HabitCheckResult result) {
+        if (date == null || habitName == null || result == null) {
+            throw new IllegalArgumentException("Habit check fields cannot be null");
+        }
+        habitChecks.add(userId, date, habitName, result);
+    }
+
+    /**
+     * Adds a goal note row.
+     *
+     * @param userId the user's id
+     * @param date the note date (must not be null)
+     * @param goalTitle the goal title (must not be null)
+     * @param points the points recorded with the note
+     * @param textNote the note text (may be null)
+     * @throws IllegalArgumentException if date or goalTitle is null
+     */
+    public void addGoalNote(long userId, LocalDate date, String goalTitle, int points, String textNote) {
+        if (date == null || goalTitle == null) {
+            throw new IllegalArgumentException("Goal note date and title cannot be null");
+        }
+        goalNotes.add(userId, date, goalTitle, points, textNote);
+    }
+
+    /**
+     * Adds an XP event row.
+     *
+     * @param userId the user's id
+     * @param date the event date (must not be null)
+     * @param xpChange the XP change (negative for decay)
+     * @param source the XP source (must not be null)
+     * @throws IllegalArgumentException if date or source is null
+     */
+    public void addXpEvent(long userId, LocalDate date, int xpChange, XpSource source) {
+        if (date == null || source == null) {
+            throw new IllegalArgumentException("XP event date and source cannot be null");
+        }
+        xpEvents.add(userId, date, xpChange, source);
+    }
+
+    /**
+     * Adds a daily rollup row.
+     *
+     * @param rollup the rollup (must not be null)
+     * @throws IllegalArgumentException if rollup is null
+     */
+    public void addDailyRollup(DailyRollupRow rollup) {
+        if (rollup == null) {
+            throw new IllegalArgumentException("Daily rollup cannot be null");
+        }
+        dailyRollups.add(rollup);
+    }
+
+    /**
+     * Returns the total number of rows across all tables.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return habitChecks.rows + goalNotes.rows + xpEvents.rows + dailyRollups.rows;
+    }
+
+    /**
+     * Encodes the row group. The builder should not be used afterwards.
+     *
+     * @return the encoded row group
+     */
+    public byte[] encode() {
+        HistoryBuffer out = new HistoryBuffer(1024);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            habitChecks.writeTo(out, deflater);
+            goalNotes.writeTo(out, deflater);
+            xpEvents.writeTo(out, deflater);
+            dailyRollups.writeTo(out, deflater);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an encoded row group, delivering rows table by table in insertion order.
+     *
+     * @param encoded the bytes produced by {@link #encode()}
+     * @param visitor receives the decoded rows
+     * @throws IllegalStateException if the data is malformed
+     */
+    public static void decode(byte[] encoded, ColumnarHistoryFile.Visitor visitor) {
+        HistoryBuffer.Reader in = HistoryBuffer.reader(encoded);
+        Inflater inflater = new Inflater();
+        try {
+            // Habit checks
+            int rows = in.readVarInt();
+            RunLengthReader users = new RunLengthReader(readColumn(in, inflater));
+            DeltaReader days = new DeltaReader(readColumn(in, inflater));
+            DictionaryReader habits = new DictionaryReader(readColumn(in, inflater));
+            RunLengthReader results = new RunLengthReader(readColumn(in, inflater));
+            for (int i = 0; i < rows; i++) {
+                visitor.onHabitCheck(users.next(), LocalDate.ofEpochDay(days.next()), habits.next(),
+                    RESULTS[(int) results.next()]);
+            }
+
+            // Goal notes
+            rows = in.readVarInt();
+            users = new RunLengthReader(readColumn(in, inflater));
+            days = new DeltaReader(readColumn(in, inflater));
+            DictionaryReader goals = new DictionaryReader(readColumn(in, inflater));
+            HistoryBuffer.Reader points = readColumn(in, inflater);
+            HistoryBuffer.Reader texts = readColumn(in, inflater);
+            for (int i = 0; i < rows; i++) {
+                visitor.onGoalNote(users.next(), LocalDate.ofEpochDay(days.next()), goals.next(),
+                    points.readSignedVarInt(), texts.readString());
+            }
+
+            // XP events
+            rows = in.readVarInt();
+            users = new RunLengthReader(readColumn(in, inflater));
+            days = new DeltaReader(readColumn(in, inflater));
+            HistoryBuffer.Reader xpChanges = readColumn(in, inflater);
+            RunLengthReader sources = new RunLengthReader(readColumn(in, inflater));
+            for (int i = 0; i < rows; i++) {
+                visitor.onXpEvent(users.next(), LocalDate.ofEpochDay(days.next()), xpChanges.readSignedVarInt(),
+                    SOURCES[(int) sources.next()]);
+            }
+
+            // Daily rollups
+            rows = in.readVarInt();
+            users = new RunLengthReader(readColumn(in, inflater));
+            days = new DeltaReader(readColumn(in, inflater));
+            HistoryBuffer.Reader[] totals = new HistoryBuffer.Reader[DailyRollupColumns.TOTALS];
+            for (int t = 0; t < totals.length; t++) {
+                totals[t] = readColumn(in, inflater);
+            }
+            for (int i = 0; i < rows; i++) {
+                visitor.onDailyRollup(new DailyRollupRow(users.next(), LocalDate.ofEpochDay(days.next()),
+                    totals[0].readSignedVarInt(), totals[1].readSignedVarInt(), totals[2].readSignedVarInt(),
+                    totals[3].readSignedVarInt(), totals[4].readSignedVarInt(), totals[5].readSignedVarInt(),
+                    totals[6].readSignedVarInt()));
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeColumn(HistoryBuffer out, HistoryBuffer column, Deflater deflater) {
+        byte[] raw = column.toByteArray();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(16, raw.length / 2));
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        if (compressed.size() < raw.length) {
+            byte[] bytes = compressed.toByteArray();
+            out.writeByte(STORED_DEFLATE);
+            out.writeVarInt(raw.length);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        } else {
+            out.writeByte(STORED_RAW);
+            out.writeVarInt(raw.length);
+            out.writeBytes(raw, 0, raw.length);
+        }
+    }
+
+    private static HistoryBuffer.Reader readColumn(HistoryBuffer.Reader in, Inflater inflater) {
+        int storage = in.readByte();
+        int rawLength = in.readVarInt();
+        int storedLength = storage == STORED_DEFLATE ? in.readVarInt() : rawLength;
+        byte[] stored = in.readBytes(storedLength);
+        if (storage == STORED_RAW) {
+            return HistoryBuffer.reader(stored);
+        }
+        if (storage != STORED_DEFLATE) {
+            throw new IllegalStateException("Unknown column storage: " + storage);
+        }
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(stored);
+        try {
+            int read = 0;
+            while (read < rawLength) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated column data");
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt column data", e);
+        }
+        return HistoryBuffer.reader(raw);
+    }
+
+    // ========== Column tables ==========
+
+    private static class HabitCheckColumns {
+        private final RunLengthColumn users = new RunLengthColumn();
+        private final DeltaColumn days = new DeltaColumn();
+        private final DictionaryColumn habits = new DictionaryColumn();
+        private final RunLengthColumn results = new RunLengthColumn();
+        private int rows;
+
+        void add(long userId, LocalDate date, String habitName, HabitCheckResult result) {
+            users.add(userId);
+            days.add(date.toEpochDay());
+            habits.add(habitName);
+            results.add(result.ordinal());
+            rows++;
+        }
+
+        void writeTo(HistoryBuffer out, Deflater deflater) {
+            out.writeVarInt(rows);
+            writeColumn(out, users.finish(), deflater);
+            writeColumn(out, days.values, deflater);
+            writeColumn(out, habits.finish(), deflater);
+            writeColumn(out, results.finish(), deflater);
+        }
+    }
+
+    private static class GoalNoteColumns {
+        private final RunLengthColumn users = new RunLengthColumn();
+        private final DeltaColumn days = new DeltaColumn();
+        private final DictionaryColumn goals = new DictionaryColumn();
+        private final HistoryBuffer points = new HistoryBuffer();
+        private final HistoryBuffer texts = new HistoryBuffer(256);
+        private int rows;
+
+        void add(long userId, LocalDate date, String goalTitle, int notePoints, String textNote) {
+            users.add(userId);
+            days.add(date.toEpochDay());
+            goals.add(goalTitle);
+            points.writeSignedVarInt(notePoints);
+            texts.writeString(textNote);
+            rows++;
+        }
+
+        void writeTo(HistoryBuffer out, Deflater deflater) {
+            out.writeVarInt(rows);
+            writeColumn(out, users.finish(), deflater);
+            writeColumn(out, days.values, deflater);
+            writeColumn(out, goals.finish(), deflater);
+            writeColumn(out, points, deflater);
+            writeColumn(out, texts, deflater);
+        }
+    }
+
+    private static class XpEventColumns {
+        private final RunLengthColumn users = new RunLengthColumn();
+        private final DeltaColumn days = new DeltaColumn();
+        private final HistoryBuffer xpChanges = new HistoryBuffer();
+        private final RunLengthColumn sources = new RunLengthColumn();
+        private int rows;
+
+        void add(long userId, LocalDate date, int xpChange, XpSource source) {
+            users.add(userId);
+            days.add(date.toEpochDay());
+            xpChanges.writeSignedVarInt(xpChange);
+            sources.add(source.ordinal());
+            rows++;
+        }
+
+        void writeTo(HistoryBuffer out, Deflater deflater) {
+            out.writeVarInt(rows);
+            writeColumn(out, users.finish(), deflater);
+            writeColumn(out, days.values, deflater);
+            writeColumn(out, xpChanges, deflater);
+            writeColumn(out, sources.finish(), deflater);
+        }
+    }
+
+    private static class DailyRollupColumns {
+        // xpGained, xpEntries, habitsDone, habitsMissed, goalNotes, goalPoints, habitXp
+        static final int TOTALS = 7;
+
+        private final RunLengthColumn users = new RunLengthColumn();
+        private final DeltaColumn days = new DeltaColumn();
+        private final HistoryBuffer[] totals = new HistoryBuffer[TOTALS];
+        private int rows;
+
+        DailyRollupColumns() {
+            for (int t = 0; t < TOTALS; t++) {
+                totals[t] = new HistoryBuffer();
+            }
+        }
+
+        void add(DailyRollupRow rollup) {
+            users.add(rollup.userId());
+            days.add(rollup.date().toEpochDay());
+            totals[0].writeSignedVarInt(rollup.xpGained());
+            totals[1].writeSignedVarInt(rollup.xpEntries());
+            totals[2].writeSignedVarInt(rollup.habitsDone());
+            totals[3].writeSignedVarInt(rollup.habitsMissed());
+            totals[4].writeSignedVarInt(rollup.goalNotes());
+            totals[5].writeSignedVarInt(rollup.goalPoints());
+            totals[6].writeSignedVarInt(rollup.habitXp());
+            rows++;
+        }
+
+        void writeTo(HistoryBuffer out, Deflater deflater) {
+            out.writeVarInt(rows);
+            writeColumn(out, users.finish(), deflater);
+            writeColumn(out, days.values, deflater);
+            for (HistoryBuffer total : totals) {
+                writeColumn(out, total, deflater);
+            }
+        }
+    }
+
+    // ========== Column encodings ==========
+
+    /**
+     * (value delta, run length) pairs; value deltas are zig-zag encoded against the previous run.
+     */
+    private static class RunLengthColumn {
+        private final HistoryBuffer values = new HistoryBuffer();
+        private long previousRunValue;
+        private long runValue;
+        private int runLength;
+
+        void add(long value) {
+            if (runLength > 0 && value == runValue) {
+                runLength++;
+                return;
+            }
+            flushRun();
+            runValue = value;
+            runLength = 1;
+        }
+
+        HistoryBuffer finish() {
+            flushRun();
+            return values;
+        }
+
+        private void flushRun() {
+            if (runLength > 0) {
+                values.writeSignedVarLong(runValue - previousRunValue);
+                values.writeVarInt(runLength);
+                previousRunValue = runValue;
+                runLength = 0;
+            }
+        }
+    }
+
+    private static class RunLengthReader {
+        private final HistoryBuffer.Reader in;
+        private long value;
+        private int remaining;
+
+        RunLengthReader(HistoryBuffer.Reader in) {
+            this.in = in;
+        }
+
+        long next() {
+            if (remaining == 0) {
+                value += in.readSignedVarLong();
+                remaining = in.readVarInt();
+            }
+            remaining--;
+            return value;
+        }
+    }
+
+    /**
+     * Zig-zag encoded differences between consecutive values.
+     */
+    private static class DeltaColumn {
+        private final HistoryBuffer values = new HistoryBuffer();
+        private long previous;
+
+        void add(long value) {
+            values.writeSignedVarLong(value - previous);
+            previous = value;
+        }
+    }
+
+    private static class DeltaReader {
+        private final HistoryBuffer.Reader in;
+        private long value;
+
+        DeltaReader(HistoryBuffer.Reader in) {
+            this.in = in;
+        }
+
+        long next() {
+            value += in.readSignedVarLong();
+            return value;
+        }
+    }
+
+    /**
+     * Distinct strings followed by one dictionary id per row.
+     */
+    private static class DictionaryColumn {
+        private final IdInterner<String> dictionary = new IdInterner<>();
+        private final HistoryBuffer ids = new HistoryBuffer();
+
+        void add(String value) {
+            ids.writeVarInt(dictionary.intern(value));
+        }
+
+        HistoryBuffer finish() {
+            HistoryBuffer column = new HistoryBuffer(ids.size() + 16 * (dictionary.size() + 1));
+            column.writeVarInt(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++) {
+                column.writeString(dictionary.resolve(id));
+            }
+            byte[] idBytes = ids.toByteArray();
+            column.writeBytes(idBytes, 0, idBytes.length);
+            return column;
+        }
+    }
+
+    private static class DictionaryReader {
+        private final HistoryBuffer.Reader in;
+        private final String[] dictionary;
+
+        DictionaryReader(HistoryBuffer.Reader in) {
+            this.in = in;
+            this.dictionary = new String[in.readVarInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.readString();
+            }
+        }
+
+        String next() {
+            int id = in.readVarInt();
+            if (id >= dictionary.length) {
+                throw new IllegalStateException("Dictionary id out of range: " + id);
+            }
+            return dictionary[id];
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.history;
+
+import java.time.LocalDate;
+
+/**
+ * One user's history totals for one day, after the retention job rolled up and dropped the
+ * day's raw rows, as carried in a columnar history file.
+ *
+ * @param userId the user's id
+ * @param date the day
+ * @param xpGained the XP gained that day
+ * @param xpEntries the number of XP history entries rolled up
+ * @param habitsDone the number of completed habit checks
+ * @param habitsMissed the number of missed habit checks
+ * @param goalNotes the number of goal notes
+ * @param goalPoints the points of the day's goal notes
+ * @param habitXp the XP the day's habit checks were worth
+ */
+public record DailyRollupRow(long userId, LocalDate date, int xpGained, int xpEntries, int habitsDone,
+                             int habitsMissed, int goalNotes, int goalPoints, int habitXp) {
+    /**
+     * Creates a daily rollup row.
+     *
+     * @throws IllegalArgumentException if date is null
+     */
+    public DailyRollupRow {
+        if (date == null) {
+            throw new IllegalArgumentException("Daily rollup date cannot be null");
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.example.history;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only, date-ordered cold storage for history records.
+ *
+ * Records are kept encoded in a single byte buffer instead of as object graphs.
+ * Each record is prefixed by the day delta to the previous record, and a sparse
+ * block index (one entry per {@value #BLOCK_SIZE} records) allows a date lookup to
+ * decode at most a couple of blocks instead of the whole archive.
+ *
+ * Not thread-safe; callers guard it the same way they guard their hot state.
+ *
+ * @param <R> the type of record stored
+ */
+public class DatedRecordArchive<R> {
+    private static final int BLOCK_SIZE = 32;
+
+    private final RecordCodec<R> codec;
+    private final HistoryBuffer data = new HistoryBuffer(256);
+    private long[] blockStartDays = new long[8];
+    private int[] blockOffsets = new int[8];
+    private int blockCount;
+    private int recordCount;
+    private long lastEpochDay;
+
+    /**
+     * Creates an empty archive.
+     *
+     * @param codec the codec used to encode record payloads (must not be null)
+     * @throws IllegalArgumentException if codec is null
+     */
+    public DatedRecordArchive(RecordCodec<R> codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec cannot be null");
+        }
+        this.codec = codec;
+    }
+
+    /**
+     * Appends a record. Records must be appended in non-decreasing date order.
+     *
+     * @param date the date of the record (must not be null)
+     * @param record the record to append (must not be null)
+     * @throws IllegalArgumentException if date or record is null, or date is before the last archived date
+     */
+    public void append(LocalDate date, R record) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        if (record == null) {
+            throw new IllegalArgumentException("Record cannot be null");
+        }
+        long epochDay = date.toEpochDay();
+        if (recordCount > 0 && epochDay < lastEpochDay) {
+            throw new IllegalArgumentException(
+                "Records must be appended in date order: " + date + " is before " + lastDate());
+        }
+
+        long previousDay = lastEpochDay;
+        if (recordCount % BLOCK_SIZE == 0) {
+            if (blockCount == blockStartDays.length) {
+                blockStartDays = Arrays.copyOf(blockStartDays, blockCount * 2);
+                blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+            }
+            blockStartDays[blockCount] = epochDay;
+            blockOffsets[blockCount] = data.size();
+            blockCount++;
+            previousDay = epochDay;
+        }
+
+        data.writeVarLong(epochDay - previousDay);
+        codec.write(record, data);
+        lastEpochDay = epochDay;
+        recordCount++;
+    }
+
+    /**
+     * Returns all records stored for a date.
+     *
+     * @param date the date to look up (must not be null)
+     * @return the records for that date in append order (empty if none)
+     */
+    public List<R> get(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        List<R> result = new ArrayList<>();
+        if (recordCount == 0) {
+            return result;
+        }
+        long target = date.toEpochDay();
+        if (target < blockStartDays[0] || target > lastEpochDay) {
+            return result;
+        }
+
+        // Start from the last block that begins strictly before the target day;
+        // records for the target may spill over into following blocks.
+        int block = Math.max(0, lastBlockStartingBefore(target));
+        for (; block < blockCount && blockStartDays[block] <= target; block++) {
+            HistoryBuffer.Reader in = data.reader(blockOffsets[block]);
+            long day = blockStartDays[block];
+            int recordsInBlock = recordsInBlock(block);
+            for (int i = 0; i < recordsInBlock; i++) {
+                day += in.readVarLong();
+                if (day > target) {
+                    return result;
+                }
+                R record = codec.read(LocalDate.ofEpochDay(day), in);
+                if (day == target) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes every record in date order.
+     *
+     * @param consumer receives each record with its date
+     */
+    public void forEach(BiConsumer<LocalDate, R> consumer) {
+        for (int block = 0; block < blockCount; block++) {
+            HistoryBuffer.Reader in = data.reader(blockOffsets[block]);
+            long day = blockStartDays[block];
+            int recordsInBlock = recordsInBlock(block);
+            for (int i = 0; i < recordsInBlock; i++) {
+                day += in.readVarLong();
+                LocalDate date = LocalDate.ofEpochDay(day);
+                consumer.accept(date, codec.read(date, in));
+            }
+        }
+    }
+
+    /**
+     * Iterates records newest date first, starting at a date. Records sharing a date keep
+     * their append order. Blocks are decoded lazily, one at a time, so stopping early costs
+     * a binary search plus the blocks actually visited rather than a pass over the archive.
+     *
+     * @param onOrBefore only records dated on or before this date are returned (must not be null)
+     * @return an iterator of date and record pairs
+     * @throws IllegalArgumentException if onOrBefore is null
+     */
+    public Iterator<Map.Entry<LocalDate, R>> descendingIterator(LocalDate onOrBefore) {
+        if (onOrBefore == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return new DescendingIterator(onOrBefore.toEpochDay());
+    }
+
+    /**
+     * Returns the date of the most recently appended record.
+     *
+     * @return the last archived date, or null if the archive is empty
+     */
+    public LocalDate lastDate() {
+        return recordCount == 0 ? null : LocalDate.ofEpochDay(lastEpochDay);
+    }
+
+    /**
+     * Returns the number of archived records.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Returns true if nothing has been archived.
+     *
+     * @return true if the archive is empty
+     */
+    public boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    /**
+     * Returns the number of bytes used by encoded records and the block index.
+     *
+     * @return the approximate resident size in bytes
+     */
+    public long sizeInBytes() {
+        return data.size() + (long) blockCount * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Releases unused buffer capacity after a bulk append.
+     */
+    public void trimToSize() {
+        data.trimToSize();
+    }
+
+    private int recordsInBlock(int block) {
+        return block < blockCount - 1 ? BLOCK_SIZE : recordCount - block * BLOCK_SIZE;
+    }
+
+    private int lastBlockStartingBefore(long epochDay) {
+        int low = 0;
+        int high = blockCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blockStartDays[mid] < epochDay) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private final class DescendingIterator implements Iterator<Map.Entry<LocalDate, R>> {
+        private final long maxDay;
+        private final ArrayDeque<Map.Entry<LocalDate, R>> pending = new ArrayDeque<>();
+        private final List<Map.Entry<LocalDate, R>> carried = new ArrayList<>();
+        private int nextBlock;
+
+        DescendingIterator(long maxDay) {
+            this.maxDay = maxDay;
+            // Blocks starting after maxDay cannot hold a matching record
+            this.nextBlock = lastBlockStartingBefore(maxDay + 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && nextBlock >= 0) {
+                decodeBlock(nextBlock--);
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<LocalDate, R> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        private void decodeBlock(int block) {
+            List<Map.Entry<LocalDate, R>> records = new ArrayList<>(BLOCK_SIZE + carried.size());
+            HistoryBuffer.Reader in = data.reader(blockOffsets[block]);
+            long day = blockStartDays[block];
+            int recordsInBlock = recordsInBlock(block);
+            for (int i = 0; i < recordsInBlock; i++) {
+                day += in.readVarLong();
+                if (day > maxDay) {
+                    break;
+                }
+                LocalDate date = LocalDate.ofEpochDay(day);
+                records.add(Map.entry(date, codec.read(date, in)));
+            }
+            records.addAll(carried);
+            carried.clear();
+
+            int stop = 0;
+            if (block > 0 && !records.isEmpty()) {
+                // The oldest day may continue in the previous block; hold it back so its
+                // records are returned together and in append order
+                LocalDate oldest = records.get(0).getKey();
+                while (stop < records.size() && records.get(stop).getKey().equals(oldest)) {
+                    stop++;
+                }
+                carried.addAll(records.subList(0, stop));
+            }
+
+            // Newest day first, each day's records in append order
+            int end = records.size();
+            while (end > stop) {
+                LocalDate date = records.get(end - 1).getKey();
+                int start = end - 1;
+                while (start > stop && records.get(start - 1).getKey().equals(date)) {
+                    start--;
+                }
+                pending.addAll(records.subList(start, end));
+                end = start;
+            }
+        }
+    }
+
+    /**
+     * Encodes and decodes the payload of a single record. The date is handled by the archive.
+     *
+     * @param <R> the record type
+     */
+    public interface RecordCodec<R> {
+        /**
+         * Writes the record payload.
+         *
+         * @param record the record to encode
+         * @param out the buffer to write to
+         */
+        void write(R record, HistoryBuffer out);
+
+        /**
+         * Reads a record payload.
+         *
+         * @param date the date the record was archived under
+         * @param in the reader positioned at the payload
+         * @return the decoded record
+         */
+        R read(LocalDate date, HistoryBuffer.Reader in);
+    }
+}
@@ -0,0 +1,344 @@
+package org.example.history;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with variable-length integer encoding.
+ * Small non-negative values take one byte; signed values are zig-zag encoded
+ * so that small negative numbers stay small too.
+ */
+public class HistoryBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Creates an empty buffer.
+     */
+    public HistoryBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer with an initial capacity.
+     *
+     * @param initialCapacity the initial capacity in bytes (must be positive)
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public HistoryBuffer(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value the byte to write (only the low 8 bits are used)
+     */
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an unsigned variable-length int (7 bits per byte).
+     *
+     * @param value the value to write (treated as unsigned)
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an unsigned variable-length long (7 bits per byte).
+     *
+     * @param value the value to write (treated as unsigned)
+     */
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a signed int using zig-zag encoding.
+     *
+     * @param value the value to write
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a signed long using zig-zag encoding.
+     *
+     * @param value the value to write
+     */
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a nullable UTF-8 string prefixed by its encoded length plus one.
+     * A prefix of 0 denotes null.
+     *
+     * @param value the string to write (may be null)
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(utf8.length + 1);
+        writeBytes(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Writes raw bytes.
+     *
+     * @param source the source array
+     * @param offset the offset in the source array
+     * @param length the number of bytes to copy
+     */
+    public void writeBytes(byte[] source, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the buffer size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards all written bytes, keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the backing array to the written size.
+     * Useful once a buffer becomes read-only cold storage.
+     */
+    public void trimToSize() {
+        if (bytes.length > size) {
+            bytes = Arrays.copyOf(bytes, Math.max(size, 1));
+        }
+    }
+
+    /**
+     * Returns a copy of the written bytes.
+     *
+     * @return the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Writes the buffered bytes to a stream without copying them.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the write fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    /**
+     * Returns a reader positioned at the given offset.
+     *
+     * @param offset the byte offset to start reading from
+     * @return a new reader
+     * @throws IllegalArgumentException if offset is out of range
+     */
+    public Reader reader(int offset) {
+        return new Reader(bytes, offset, size);
+    }
+
+    /**
+     * Returns a reader over a standalone byte array.
+     *
+     * @param data the encoded bytes
+     * @return a new reader positioned at the start of the array
+     */
+    public static Reader reader(byte[] data) {
+        return new Reader(data, 0, data.length);
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = size + additional;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+
+    /**
+     * Sequential reader over encoded bytes.
+     */
+    public static class Reader {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        private Reader(byte[] bytes, int offset, int limit) {
+            if (offset < 0 || offset > limit) {
+                throw new IllegalArgumentException("Offset out of range: " + offset);
+            }
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        /**
+         * Returns true if there are unread bytes.
+         *
+         * @return true if more data is available
+         */
+        public boolean hasRemaining() {
+            return position < limit;
+        }
+
+        /**
+         * Returns the current read position.
+         *
+         * @return the byte offset of the next read
+         */
+        public int position() {
+            return position;
+        }
+
+        /**
+         * Reads a single unsigned byte.
+         *
+         * @return the byte value (0-255)
+         */
+        public int readByte() {
+            checkRemaining();
+            return bytes[position++] & 0xFF;
+        }
+
+        /**
+         * Reads an unsigned variable-length int.
+         *
+         * @return the decoded value
+         */
+        public int readVarInt() {
+            int result = 0;
+            int shift = 0;
+            while (true) {
+                int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 28) {
+                    throw new IllegalStateException("Malformed varint");
+                }
+            }
+        }
+
+        /**
+         * Reads an unsigned variable-length long.
+         *
+         * @return the decoded value
+         */
+        public long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalStateException("Malformed varlong");
+                }
+            }
+        }
+
+        /**
+         * Reads a zig-zag encoded signed int.
+         *
+         * @return the decoded value
+         */
+        public int readSignedVarInt() {
+            int raw = readVarInt();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        /**
+         * Reads a zig-zag encoded signed long.
+         *
+         * @return the decoded value
+         */
+        public long readSignedVarLong() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        /**
+         * Reads raw bytes written by {@link HistoryBuffer#writeBytes(byte[], int, int)}.
+         *
+         * @param length the number of bytes to read
+         * @return a copy of the bytes
+         */
+        public byte[] readBytes(int length) {
+            if (length < 0 || length > limit - position) {
+                throw new IllegalStateException("Byte length exceeds remaining data");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return value;
+        }
+
+        /**
+         * Reads a nullable UTF-8 string written by {@link HistoryBuffer#writeString(String)}.
+         *
+         * @return the decoded string, or null
+         */
+        public String readString() {
+            int prefix = readVarInt();
+            if (prefix == 0) {
+                return null;
+            }
+            int length = prefix - 1;
+            if (length > limit - position) {
+                throw new IllegalStateException("String length exceeds remaining data");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void checkRemaining() {
+            if (position >= limit) {
+                throw new IllegalStateException("Unexpected end of encoded data");
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.history;
+
+import org.example.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding for history records.
+ *
+ * Dates are written as zig-zag varint epoch days, enums as ordinals and habits/goals
+ * as interned ids, so a typical record takes only a few bytes:
+ * - HabitCheck: epoch day + (habit id, result) packed into one varint
+ * - XpHistoryEntry: epoch day + (xp change, source) packed into one varint
+ * - GoalNote: epoch day + goal id + points + length-prefixed UTF-8 text
+ *
+ * Ids are resolved through the interners passed to the constructor; a decoder must use
+ * interners populated in the same order as the encoder's.
+ */
+public class HistoryCodec {
+    private static final HabitCheckResult[] RESULTS = HabitCheckResult.values();
+    private static final XpSource[] SOURCES = XpSource.values();
+
+    private final IdInterner<Habit> habitIds;
+    private final IdInterner<Goal> goalIds;
+
+    /**
+     * Creates a new codec.
+     *
+     * @param habitIds the interner used for habit ids (must not be null)
+     * @param goalIds the interner used for goal ids (must not be null)
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public HistoryCodec(IdInterner<Habit> habitIds, IdInterner<Goal> goalIds) {
+        if (habitIds == null) {
+            throw new IllegalArgumentException("Habit interner cannot be null");
+        }
+        if (goalIds == null) {
+            throw new IllegalArgumentException("Goal interner cannot be null");
+        }
+        this.habitIds = habitIds;
+        this.goalIds = goalIds;
+    }
+
+    /**
+     * Returns the habit interner used by this codec.
+     *
+     * @return the habit interner
+     */
+    public IdInterner<Habit> getHabitIds() {
+        return habitIds;
+    }
+
+    /**
+     * Returns the goal interner used by this codec.
+     *
+     * @return the goal interner
+     */
+    public IdInterner<Goal> getGoalIds() {
+        return goalIds;
+    }
+
+    // ========== Full records (date included) ==========
+
+    /**
+     * Encodes a habit check.
+     *
+     * @param check the habit check to encode
+     * @param out the buffer to write to
+     */
+    public void writeHabitCheck(HabitCheck check, HistoryBuffer out) {
+        out.writeSignedVarLong(check.date().toEpochDay());
+        writeHabitRef(check.habit(), check.result(), out);
+    }
+
+    /**
+     * Decodes a habit check.
+     *
+     * @param in the reader to read from
+     * @return the decoded habit check
+     */
+    public HabitCheck readHabitCheck(HistoryBuffer.Reader in) {
+        LocalDate date = LocalDate.ofEpochDay(in.readSignedVarLong());
+        return readHabitRef(date, in);
+    }
+
+    /**
+     * Encodes a goal note.
+     *
+     * @param note the goal note to encode
+     * @param out the buffer to write to
+     */
+    public void writeGoalNote(GoalNote note, HistoryBuffer out) {
+        out.writeSignedVarLong(note.date().toEpochDay());
+        writeGoalNotePayload(note, out);
+    }
+
+    /**
+     * Decodes a goal note.
+     *
+     * @param in the reader to read from
+     * @return the decoded goal note
+     */
+    public GoalNote readGoalNote(HistoryBuffer.Reader in) {
+        LocalDate date = LocalDate.ofEpochDay(in.readSignedVarLong());
+        return readGoalNotePayload(date, in);
+    }
+
+    /**
+     * Encodes an XP history entry.
+     *
+     * @param entry the entry to encode
+     * @param out the buffer to write to
+     */
+    public void writeXpHistoryEntry(XpHistoryEntry entry, HistoryBuffer out) {
+        out.writeSignedVarLong(entry.date().toEpochDay());
+        long zigZagXp = ((long) entry.xpChange() << 1) ^ (entry.xpChange() >> 31);
+        out.writeVarLong(zigZagXp * SOURCES.length + entry.source().ordinal());
+    }
+
+    /**
+     * Decodes an XP history entry.
+     *
+     * @param in the reader to read from
+     * @return the decoded entry
+     */
+    public XpHistoryEntry readXpHistoryEntry(HistoryBuffer.Reader in) {
+        LocalDate date = LocalDate.ofEpochDay(in.readSignedVarLong());
+        long packed = in.readVarLong();
+        XpSource source = SOURCES[(int) (packed % SOURCES.length)];
+        long zigZagXp = packed / SOURCES.length;
+        int xpChange = (int) ((zigZagXp >>> 1) ^ -(zigZagXp & 1));
+        return new XpHistoryEntry(date, xpChange, source);
+    }
+
+    // ========== Date-less payloads for archives ==========
+
+    /**
+     * Returns a codec for a whole day of habit activity, used by {@link DatedRecordArchive}.
+     * The date is stored by the archive, so only XP and the checks are encoded.
+     *
+     * @return the daily activity log codec
+     */
+    public DatedRecordArchive.RecordCodec<DailyActivityLog> activityLogCodec() {
+        return new DatedRecordArchive.RecordCodec<>() {
+            @Override
+            public void write(DailyActivityLog log, HistoryBuffer out) {
+                out.writeVarInt(log.getXpGained());
+                List<HabitCheck> checks = log.getHabitChecks();
+                out.writeVarInt(checks.size());
+                for (HabitCheck check : checks) {
+                    writeHabitRef(check.habit(), check.result(), out);
+                }
+            }
+
+            @Override
+            public DailyActivityLog read(LocalDate date, HistoryBuffer.Reader in) {
+                int xpGained = in.readVarInt();
+                int count = in.readVarInt();
+                List<HabitCheck> checks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    checks.add(readHabitRef(date, in));
+                }
+                return new DailyActivityLog(date, xpGained, checks);
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for goal notes without their date, used by {@link DatedRecordArchive}.
+     *
+     * @return the goal note codec
+     */
+    public DatedRecordArchive.RecordCodec<GoalNote> goalNoteCodec() {
+        return new DatedRecordArchive.RecordCodec<>() {
+            @Override
+            public void write(GoalNote note, HistoryBuffer out) {
+                writeGoalNotePayload(note, out);
+            }
+
+            @Override
+            public GoalNote read(LocalDate date, HistoryBuffer.Reader in) {
+                return readGoalNotePayload(date, in);
+            }
+        };
+    }
+
+    private void writeHabitRef(Habit habit, HabitCheckResult result, HistoryBuffer out) {
+        int habitId = habitIds.intern(habit);
+        out.writeVarInt(habitId * RESULTS.length + result.ordinal());
+    }
+
+    private HabitCheck readHabitRef(LocalDate date, HistoryBuffer.Reader in) {
+        int packed = in.readVarInt();
+        Habit habit = habitIds.resolve(packed / RESULTS.length);
+        return new HabitCheck(habit, date, RESULTS[packed % RESULTS.length]);
+    }
+
+    private void writeGoalNotePayload(GoalNote note, HistoryBuffer out) {
+        out.writeVarInt(goalIds.intern(note.goal()));
+        out.writeVarInt(note.points());
+        out.writeString(note.textNote());
+    }
+
+    private GoalNote readGoalNotePayload(LocalDate date, HistoryBuffer.Reader in) {
+        Goal goal = goalIds.resolve(in.readVarInt());
+        int points = in.readVarInt();
+        String text = in.readString();
+        return new GoalNote(goal, date, text, points);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.history;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns small, dense integer ids to domain objects so encoded records can
+ * reference a habit or goal by id instead of carrying the full object.
+ * Ids are allocated in first-seen order starting at 0 and are never reused.
+ *
+ * @param <T> the type of object being interned (must have value-based equals/hashCode)
+ */
+public class IdInterner<T> {
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Returns the id for a value, allocating a new one if the value has not been seen before.
+     *
+     * @param value the value to intern (must not be null)
+     * @return the id of the value
+     * @throws IllegalArgumentException if value is null
+     */
+    public int intern(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        int newId = values.size();
+        ids.put(value, newId);
+        values.add(value);
+        return newId;
+    }
+
+    /**
+     * Returns the id for a value without allocating one.
+     *
+     * @param value the value to look up
+     * @return the id of the value, or -1 if it has not been interned
+     */
+    public int idOf(T value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the value for an id.
+     *
+     * @param id the id to resolve
+     * @return the interned value
+     * @throws IllegalArgumentException if the id has not been allocated
+     */
+    public T resolve(int id) {
+        if (id < 0 || id >= values.size()) {
+            throw new IllegalArgumentException("Unknown id: " + id);
+        }
+        return values.get(id);
+    }
+
+    /**
+     * Returns the number of interned values.
+     *
+     * @return the number of allocated ids
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Gauge for the JVM heap allocation rate, in bytes per second.
+ *
+ * The rate is derived from the {@code jvm.gc.memory.allocated} counter that Spring Boot's
+ * JVM metrics maintain. That counter advances at each young collection, so the gauge reports
+ * the average rate between two reads and holds its last value when reads come closer together
+ * than the minimum interval.
+ */
+public class AllocationRateMetrics implements MeterBinder {
+    static final String ALLOCATED_BYTES = "jvm.gc.memory.allocated";
+    private static final long MIN_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final LongSupplier nanoTime;
+    private final ToLongFunction<MeterRegistry> allocatedBytes;
+    private MeterRegistry registry;
+    private long lastBytes = -1;
+    private long lastNanos;
+    private double bytesPerSecond;
+
+    public AllocationRateMetrics() {
+        this(AllocationRateMetrics::readAllocatedBytes, System::nanoTime);
+    }
+
+    AllocationRateMetrics(ToLongFunction<MeterRegistry> allocatedBytes, LongSupplier nanoTime) {
+        this.allocatedBytes = allocatedBytes;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("futureyou.jvm.allocation.rate", this, AllocationRateMetrics::sample)
+            .description("Heap allocation rate between successive reads")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    synchronized double sample() {
+        long bytes = allocatedBytes.applyAsLong(registry);
+        long now = nanoTime.getAsLong();
+        if (lastBytes < 0) {
+            lastBytes = bytes;
+            lastNanos = now;
+            return 0.0;
+        }
+        long elapsed = now - lastNanos;
+        if (elapsed >= MIN_INTERVAL_NANOS) {
+            bytesPerSecond = Math.max(0, bytes - lastBytes) * 1e9 / elapsed;
+            lastBytes = bytes;
+            lastNanos = now;
+        }
+        return bytesPerSecond;
+    }
+
+    private static long readAllocatedBytes(MeterRegistry registry) {
+        Counter counter = registry.find(ALLOCATED_BYTES).counter();
+        return counter != null ? (long) counter.count() : 0L;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Latency timers for the application's hot paths.
+ *
+ * Timers are registered on Micrometer's global registry, which Spring Boot binds its own
+ * registries to, so services created with {@code new} outside the container are timed too.
+ * Every timer publishes a percentile histogram, so latency quantiles can be aggregated
+ * across instances on the scrape endpoint.
+ */
+public final class HotPathMetrics {
+    public static final String SIMULATION = "futureyou.simulation";
+    public static final String XP_HISTORY = "futureyou.analytics.xp.history";
+    public static final String STREAKS = "futureyou.analytics.streaks";
+    public static final String LEADERBOARD = "futureyou.leaderboard.top.users";
+    public static final String DRIFT_SCAN_PARTITION = "futureyou.drift.scan.partition";
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    private HotPathMetrics() {
+    }
+
+    /**
+     * Runs an operation and records its latency.
+     *
+     * @param name the timer name
+     * @param operation the operation to time
+     * @param <T> the result type
+     * @return the operation's result
+     */
+    public static <T> T time(String name, Supplier<T> operation) {
+        return timer(name).record(operation);
+    }
+
+    private static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, key -> Timer.builder(key)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(50_000))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * JPA entity recording the date a user unlocked an achievement.
+ * Unlocks never revert, so rows are only ever inserted.
+ */
+@Entity
+@Table(name = "achievement_unlocks",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "achievement"}))
+public class AchievementUnlockEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 40)
+    private String achievement;
+
+    @Column(nullable = false)
+    private LocalDate unlockedDate;
+
+    public AchievementUnlockEntity() {
+    }
+
+    public AchievementUnlockEntity(Long userId, String achievement, LocalDate unlockedDate) {
+        this.userId = userId;
+        this.achievement = achievement;
+        this.unlockedDate = unlockedDate;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getAchievement() {
+        return achievement;
+    }
+
+    public void setAchievement(String achievement) {
+        this.achievement = achievement;
+    }
+
+    public LocalDate getUnlockedDate() {
+        return unlockedDate;
+    }
+
+    public void setUnlockedDate(LocalDate unlockedDate) {
+        this.unlockedDate = unlockedDate;
+    }
+}
@@ -8,17 +8,24 @@ import java.util.List;
 /**
  * JPA entity representing daily activity log.
  * This is a persistence layer entity - business logic stays in domain models.
+ *
+ * The (user_id, date) index covers the log columns, so date range reads for a user are
+ * answered from the index alone. Ids are allocated from a pooled sequence so logs can be
+ * inserted in JDBC batches.
  */
 @Entity
 @Table(name = "daily_activity_logs", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "date"})
+}, indexes = {
+    @Index(name = "idx_activity_logs_user_date", columnList = "user_id, date, xp_gained, id")
 })
 public class DailyActivityLogEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_activity_logs_seq")
+    @SequenceGenerator(name = "daily_activity_logs_seq", sequenceName = "daily_activity_logs_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private UserEntity user;
 
@@ -29,6 +36,7 @@ public class DailyActivityLogEntity {
     private Integer xpGained;
 
     @OneToMany(mappedBy = "activityLog", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("id")
     private List<HabitCheckEntity> habitChecks = new ArrayList<>();
 
     public DailyActivityLogEntity() {
@@ -0,0 +1,130 @@
+package org.example.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * JPA entity holding one user's history totals for one day, after the raw XP entries, habit
+ * checks and goal notes of that day were rolled up and dropped by the retention job.
+ * Rows are written with plain JDBC by the rollup, so ids come from an identity column.
+ */
+@Entity
+@Table(name = "history_daily_rollups",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date"}))
+public class DailyHistoryRollupEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private Integer xpGained;
+
+    @Column(nullable = false)
+    private Integer xpEntries;
+
+    @Column(nullable = false)
+    private Integer habitsDone;
+
+    @Column(nullable = false)
+    private Integer habitsMissed;
+
+    @Column(nullable = false)
+    private Integer goalNotes;
+
+    @Column(nullable = false)
+    private Integer goalPoints;
+
+    // XP the day's habit checks are worth by the XP calculator, as listed in the XP history
+    @Column(nullable = false)
+    private Integer habitXp;
+
+    public DailyHistoryRollupEntity() {
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Integer getXpGained() {
+        return xpGained;
+    }
+
+    public void setXpGained(Integer xpGained) {
+        this.xpGained = xpGained;
+    }
+
+    public Integer getXpEntries() {
+        return xpEntries;
+    }
+
+    public void setXpEntries(Integer xpEntries) {
+        this.xpEntries = xpEntries;
+    }
+
+    public Integer getHabitsDone() {
+        return habitsDone;
+    }
+
+    public void setHabitsDone(Integer habitsDone) {
+        this.habitsDone = habitsDone;
+    }
+
+    public Integer getHabitsMissed() {
+        return habitsMissed;
+    }
+
+    public void setHabitsMissed(Integer habitsMissed) {
+        this.habitsMissed = habitsMissed;
+    }
+
+    public Integer getGoalNotes() {
+        return goalNotes;
+    }
+
+    public void setGoalNotes(Integer goalNotes) {
+        this.goalNotes = goalNotes;
+    }
+
+    public Integer getGoalPoints() {
+        return goalPoints;
+    }
+
+    public void setGoalPoints(Integer goalPoints) {
+        this.goalPoints = goalPoints;
+    }
+
+    public Integer getHabitXp() {
+        return habitXp;
+    }
+
+    public void setHabitXp(Integer habitXp) {
+        this.habitXp = habitXp;
+    }
+}
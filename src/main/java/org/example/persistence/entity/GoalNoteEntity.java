@@ -6,6 +6,8 @@ import java.time.LocalDate;
 /**
  * JPA entity representing a daily goal note.
  * This is a persistence layer entity - business logic stays in domain models.
+ *
+ * Ids are allocated from a pooled sequence so notes can be inserted in JDBC batches.
  */
 @Entity
 @Table(name = "goal_notes", uniqueConstraints = {
@@ -13,10 +15,11 @@ import java.time.LocalDate;
 })
 public class GoalNoteEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goal_notes_seq")
+    @SequenceGenerator(name = "goal_notes_seq", sequenceName = "goal_notes_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "goal_id", nullable = false)
     private GoalEntity goal;
 
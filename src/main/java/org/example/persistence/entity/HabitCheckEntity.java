@@ -6,21 +6,27 @@ import java.time.LocalDate;
 /**
  * JPA entity representing a habit check on a specific date.
  * This is a persistence layer entity - business logic stays in domain models.
+ *
+ * A habit checked more than once on a day, such as missed and then done, has a row for each
+ * check, as it has in memory. The (habit_id, date) index carries the result, so a habit's
+ * check history is read in date order from the index alone. Ids are allocated from a pooled
+ * sequence so checks can be inserted in JDBC batches.
  */
 @Entity
-@Table(name = "habit_checks", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"habit_id", "date"})
+@Table(name = "habit_checks", indexes = {
+    @Index(name = "idx_habit_checks_habit_date", columnList = "habit_id, date, result, id")
 })
 public class HabitCheckEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "habit_checks_seq")
+    @SequenceGenerator(name = "habit_checks_seq", sequenceName = "habit_checks_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "habit_id", nullable = false)
     private HabitEntity habit;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "activity_log_id")
     private DailyActivityLogEntity activityLog;
 
@@ -6,15 +6,22 @@ import java.time.LocalDate;
 /**
  * JPA entity representing an XP history entry.
  * This is a persistence layer entity - business logic stays in domain models.
+ *
+ * The (user_id, date) index also carries the id and the remaining columns, so date range
+ * reads and keyset pages for a user are answered from the index alone. Ids come from a pooled
+ * sequence rather than an identity column, so inserts of many entries go out in JDBC batches.
  */
 @Entity
-@Table(name = "xp_history_entries")
+@Table(name = "xp_history_entries", indexes = {
+    @Index(name = "idx_xp_history_user_date", columnList = "user_id, date, id, xp_change, source")
+})
 public class XpHistoryEntryEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "xp_history_entries_seq")
+    @SequenceGenerator(name = "xp_history_entries_seq", sequenceName = "xp_history_entries_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private UserEntity user;
 
@@ -2,6 +2,7 @@ package org.example.persistence.mapper;
 
 import org.example.*;
 import org.example.persistence.entity.*;
+import org.example.persistence.projection.GoalSummary;
 
 import java.util.List;
 import java.util.Map;
@@ -73,7 +74,7 @@ public class DomainEntityMapper {
     /**
      * Converts HabitEntity.DifficultyEnum to domain Difficulty.
      */
-    private static Difficulty toDifficulty(HabitEntity.DifficultyEnum difficultyEnum) {
+    public static Difficulty toDifficulty(HabitEntity.DifficultyEnum difficultyEnum) {
         return switch (difficultyEnum) {
             case ONE -> Difficulty.ONE;
             case TWO -> Difficulty.TWO;
@@ -200,6 +201,20 @@ public class DomainEntityMapper {
         );
     }
 
+    /**
+     * Converts a GoalSummary projection to domain Goal.
+     */
+    public static Goal toGoal(GoalSummary summary) {
+        return new Goal(
+            summary.title(),
+            summary.description(),
+            summary.startDate(),
+            summary.targetDate(),
+            summary.importance(),
+            summary.totalProgressPoints()
+        );
+    }
+
     // ========== GoalNote Mappings ==========
 
     /**
@@ -0,0 +1,66 @@
+package org.example.persistence.partition;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One month's range partition of a history table. On PostgreSQL the history tables are
+ * partitioned by date (see {@code db/postgres/history-partitions.sql}), with one partition
+ * per calendar month named after the table and the month, such as
+ * {@code xp_history_entries_2024_01}.
+ *
+ * @param table the partitioned parent table
+ * @param month the month the partition covers
+ */
+public record MonthlyPartition(String table, YearMonth month) {
+    /**
+     * The history tables partitioned by month.
+     */
+    public static final List<String> HISTORY_TABLES = List.of("xp_history_entries", "habit_checks", "goal_notes");
+
+    public MonthlyPartition {
+        if (table == null || !HISTORY_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Not a partitioned history table: " + table);
+        }
+        if (month == null) {
+            throw new IllegalArgumentException("Month cannot be null");
+        }
+    }
+
+    /**
+     * Gets the partition's table name.
+     */
+    public String name() {
+        return String.format("%s_%04d_%02d", table, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Gets the first date in the partition.
+     */
+    public LocalDate from() {
+        return month.atDay(1);
+    }
+
+    /**
+     * Gets the first date after the partition.
+     */
+    public LocalDate to() {
+        return month.plusMonths(1).atDay(1);
+    }
+
+    /**
+     * Gets the PostgreSQL statement that creates the partition if it does not exist.
+     */
+    public String createSql() {
+        return "CREATE TABLE IF NOT EXISTS " + name() + " PARTITION OF " + table
+            + " FOR VALUES FROM ('" + from() + "') TO ('" + to() + "')";
+    }
+
+    /**
+     * Gets the PostgreSQL statement that drops the partition and its rows.
+     */
+    public String dropSql() {
+        return "DROP TABLE IF EXISTS " + name();
+    }
+}
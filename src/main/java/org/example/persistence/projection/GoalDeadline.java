@@ -0,0 +1,13 @@
+package org.example.persistence.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the goal columns needed to schedule deadline warnings.
+ *
+ * @param userId the owning user's id
+ * @param title the goal title
+ * @param targetDate the target date
+ */
+public record GoalDeadline(Long userId, String title, LocalDate targetDate) {
+}
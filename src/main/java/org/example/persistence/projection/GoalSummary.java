@@ -0,0 +1,18 @@
+package org.example.persistence.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the goal columns returned by the goal list endpoint.
+ *
+ * @param id the goal id
+ * @param title the goal title
+ * @param description the goal description, or null
+ * @param startDate the start date
+ * @param targetDate the target date
+ * @param importance the importance (1-5)
+ * @param totalProgressPoints the points needed to complete the goal
+ */
+public record GoalSummary(Long id, String title, String description, LocalDate startDate, LocalDate targetDate,
+                          Integer importance, Integer totalProgressPoints) {
+}
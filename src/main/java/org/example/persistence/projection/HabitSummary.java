@@ -0,0 +1,13 @@
+package org.example.persistence.projection;
+
+import org.example.persistence.entity.HabitEntity;
+
+/**
+ * Read-only projection of the habit columns returned by the habit list endpoint.
+ *
+ * @param id the habit id
+ * @param name the habit name
+ * @param difficulty the habit difficulty
+ */
+public record HabitSummary(Long id, String name, HabitEntity.DifficultyEnum difficulty) {
+}
@@ -0,0 +1,12 @@
+package org.example.persistence.projection;
+
+/**
+ * Read-only projection of a user's name and XP, as ranked on the leaderboard.
+ *
+ * @param userId the user id
+ * @param username the username
+ * @param totalXp the total XP, or null if the user has no stats yet
+ * @param level the level, or null if the user has no stats yet
+ */
+public record UserXpSummary(Long userId, String username, Integer totalXp, Integer level) {
+}
@@ -0,0 +1,31 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.AchievementUnlockEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for AchievementUnlock entities.
+ */
+@Repository
+public interface AchievementUnlockRepository extends JpaRepository<AchievementUnlockEntity, Long> {
+    /**
+     * Finds all achievements a user has unlocked.
+     *
+     * @param userId the user's id
+     * @return list of unlocks
+     */
+    List<AchievementUnlockEntity> findByUserId(Long userId);
+
+    /**
+     * Saves unlocks in a transaction of their own, since achievements are also unlocked while
+     * a read-only request loads a user's ledger.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends AchievementUnlockEntity> List<S> saveAll(Iterable<S> entities);
+}
@@ -2,12 +2,17 @@ package org.example.persistence.repository;
 
 import org.example.persistence.entity.DailyActivityLogEntity;
 import org.example.persistence.entity.UserEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for DailyActivityLog entities.
@@ -24,11 +29,13 @@ public interface DailyActivityLogRepository extends JpaRepository<DailyActivityL
     Optional<DailyActivityLogEntity> findByUserAndDate(UserEntity user, LocalDate date);
 
     /**
-     * Finds all activity logs for a user, ordered by date descending.
+     * Finds all activity logs for a user, ordered by date descending. Habit checks and their
+     * habits are fetched with the logs, since mapping a log to the domain reads both.
      *
      * @param user the user
      * @return list of activity logs
      */
+    @EntityGraph(attributePaths = {"habitChecks", "habitChecks.habit"})
     List<DailyActivityLogEntity> findByUserOrderByDateDesc(UserEntity user);
 
     /**
@@ -37,8 +44,59 @@ public interface DailyActivityLogRepository extends JpaRepository<DailyActivityL
      * @param user the user
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
-     * @return list of activity logs
+     * @return list of activity logs, with their habit checks and habits fetched
      */
+    @EntityGraph(attributePaths = {"habitChecks", "habitChecks.habit"})
     List<DailyActivityLogEntity> findByUserAndDateBetween(UserEntity user, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Finds a user's activity logs from a date on, by user id.
+     *
+     * @param userId the user's id
+     * @param startDate the start date (inclusive)
+     * @return the activity logs in date order, with their habit checks and habits fetched
+     */
+    @EntityGraph(attributePaths = {"habitChecks", "habitChecks.habit"})
+    List<DailyActivityLogEntity> findByUserIdAndDateGreaterThanEqualOrderByDateAsc(Long userId, LocalDate startDate);
+
+    /**
+     * Finds the ids of users with activity logged since a date, most recently active first.
+     *
+     * @param since the earliest activity date (inclusive)
+     * @param limit the maximum number of users
+     * @return the user ids
+     */
+    @Query("SELECT l.user.id FROM DailyActivityLogEntity l WHERE l.date >= :since "
+        + "GROUP BY l.user.id ORDER BY MAX(l.date) DESC")
+    List<Long> findUserIdsActiveSince(@Param("since") LocalDate since, Limit limit);
+
+    /**
+     * Finds the page of a user's activity logs that follows a date. A user has one log per date.
+     *
+     * @param user the user
+     * @param afterDate the date of the last log already read (exclusive)
+     * @param endDate the end date (inclusive)
+     * @param limit the page size
+     * @return the next activity logs in date order
+     */
+    List<DailyActivityLogEntity> findByUserAndDateAfterAndDateLessThanEqualOrderByDateAsc(
+        UserEntity user, LocalDate afterDate, LocalDate endDate, Limit limit);
+
+    /**
+     * Streams a user's activity logs within a date range in keyset pages.
+     * The stream must be consumed within a transaction.
+     *
+     * @param user the user
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param pageSize the number of logs fetched per query
+     * @return the activity logs in date order
+     */
+    default Stream<DailyActivityLogEntity> streamByUserAndDateBetween(UserEntity user, LocalDate startDate,
+                                                                      LocalDate endDate, int pageSize) {
+        Limit limit = Limit.of(pageSize);
+        return KeysetPages.stream(last -> findByUserAndDateAfterAndDateLessThanEqualOrderByDateAsc(
+            user, last == null ? startDate.minusDays(1) : last.getDate(), endDate, limit), pageSize);
+    }
 }
 
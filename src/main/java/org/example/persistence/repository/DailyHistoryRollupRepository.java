@@ -0,0 +1,33 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.entity.DailyHistoryRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the daily history rollups that replace expired raw history.
+ */
+@Repository
+public interface DailyHistoryRollupRepository extends JpaRepository<DailyHistoryRollupEntity, Long> {
+    /**
+     * Finds a user's daily rollups within a date range, oldest first.
+     *
+     * @param userId the user's id
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return list of rollups
+     */
+    List<DailyHistoryRollupEntity> findByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate startDate,
+                                                                            LocalDate endDate);
+
+    /**
+     * Finds all of a user's daily rollups, oldest first.
+     *
+     * @param userId the user's id
+     * @return list of rollups
+     */
+    List<DailyHistoryRollupEntity> findByUserIdOrderByDateAsc(Long userId);
+}
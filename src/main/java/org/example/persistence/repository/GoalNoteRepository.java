@@ -3,6 +3,8 @@ package org.example.persistence.repository;
 import org.example.persistence.entity.GoalEntity;
 import org.example.persistence.entity.GoalNoteEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -39,5 +41,16 @@ public interface GoalNoteRepository extends JpaRepository<GoalNoteEntity, Long>
      * @return true if exists
      */
     boolean existsByGoalAndDate(GoalEntity goal, LocalDate date);
+
+    /**
+     * Finds the notes on all of a user's goals from a date on.
+     *
+     * @param userId the user's id
+     * @param startDate the start date (inclusive)
+     * @return the goal notes in date order, with their goals fetched
+     */
+    @Query("SELECT gn FROM GoalNoteEntity gn JOIN FETCH gn.goal g WHERE g.user.id = :userId "
+        + "AND gn.date >= :startDate ORDER BY gn.date, gn.id")
+    List<GoalNoteEntity> findByUserIdSince(@Param("userId") Long userId, @Param("startDate") LocalDate startDate);
 }
 
@@ -2,9 +2,14 @@ package org.example.persistence.repository;
 
 import org.example.persistence.entity.GoalEntity;
 import org.example.persistence.entity.UserEntity;
+import org.example.persistence.projection.GoalDeadline;
+import org.example.persistence.projection.GoalSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,5 +43,33 @@ public interface GoalRepository extends JpaRepository<GoalEntity, Long> {
      * @return true if exists
      */
     boolean existsByUserAndTitle(UserEntity user, String title);
-}
 
+    /**
+     * Finds all goals for a user by user id.
+     *
+     * @param userId the user's id
+     * @return the goals, in creation order
+     */
+    List<GoalEntity> findByUserIdOrderByIdAsc(Long userId);
+
+    /**
+     * Finds the list columns of a user's goals, without loading managed entities.
+     *
+     * @param userId the user's id
+     * @return the goal summaries, in creation order
+     */
+    @Query("SELECT new org.example.persistence.projection.GoalSummary(g.id, g.title, g.description, "
+        + "g.startDate, g.targetDate, g.importance, g.totalProgressPoints) "
+        + "FROM GoalEntity g WHERE g.user.id = :userId ORDER BY g.id")
+    List<GoalSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Finds the deadlines of all goals whose target date is after a date, across all users.
+     *
+     * @param date goals due on or before this date are left out
+     * @return the deadlines, in creation order
+     */
+    @Query("SELECT new org.example.persistence.projection.GoalDeadline(g.user.id, g.title, g.targetDate) "
+        + "FROM GoalEntity g WHERE g.targetDate > :date ORDER BY g.id")
+    List<GoalDeadline> findDeadlinesAfter(@Param("date") LocalDate date);
+}
@@ -2,12 +2,15 @@ package org.example.persistence.repository;
 
 import org.example.persistence.entity.HabitCheckEntity;
 import org.example.persistence.entity.HabitEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for HabitCheck entities.
@@ -23,13 +26,14 @@ public interface HabitCheckRepository extends JpaRepository<HabitCheckEntity, Lo
     List<HabitCheckEntity> findByHabit(HabitEntity habit);
 
     /**
-     * Finds a habit check by habit and date.
+     * Finds a habit's checks on a date. A habit checked more than once that day, such as
+     * missed and then done, has a check for each time.
      *
      * @param habit the habit
      * @param date the date
-     * @return the habit check if found
+     * @return the habit checks of that date
      */
-    Optional<HabitCheckEntity> findByHabitAndDate(HabitEntity habit, LocalDate date);
+    List<HabitCheckEntity> findByHabitAndDate(HabitEntity habit, LocalDate date);
 
     /**
      * Checks if a habit check exists for a habit on a specific date.
@@ -39,5 +43,57 @@ public interface HabitCheckRepository extends JpaRepository<HabitCheckEntity, Lo
      * @return true if exists
      */
     boolean existsByHabitAndDate(HabitEntity habit, LocalDate date);
+
+    /**
+     * Finds a user's habit checks from a date on that are not part of an activity log, such as
+     * imported history.
+     *
+     * @param userId the user's id
+     * @param startDate the start date (inclusive)
+     * @return the habit checks in date order, with their habits fetched
+     */
+    @Query("SELECT hc FROM HabitCheckEntity hc JOIN FETCH hc.habit h WHERE h.user.id = :userId "
+        + "AND hc.activityLog IS NULL AND hc.date >= :startDate ORDER BY hc.date, hc.id")
+    List<HabitCheckEntity> findUnloggedByUserIdSince(@Param("userId") Long userId,
+                                                     @Param("startDate") LocalDate startDate);
+
+    /**
+     * Finds the first page of a habit's checks in (date, id) order.
+     *
+     * @param habit the habit
+     * @param limit the page size
+     * @return the earliest habit checks
+     */
+    List<HabitCheckEntity> findByHabitOrderByDateAscIdAsc(HabitEntity habit, Limit limit);
+
+    /**
+     * Finds the page of a habit's checks that follows a position in (date, id) order.
+     * A habit can have several checks on a date, so the id breaks ties.
+     *
+     * @param habit the habit
+     * @param afterDate the date of the last check already read
+     * @param afterId the id of the last check already read
+     * @param limit the page size
+     * @return the next habit checks in (date, id) order
+     */
+    @Query("SELECT hc FROM HabitCheckEntity hc WHERE hc.habit = :habit "
+        + "AND (hc.date > :afterDate OR (hc.date = :afterDate AND hc.id > :afterId)) ORDER BY hc.date, hc.id")
+    List<HabitCheckEntity> findPageAfter(@Param("habit") HabitEntity habit, @Param("afterDate") LocalDate afterDate,
+                                         @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Streams all checks for a habit in keyset pages.
+     * The stream must be consumed within a transaction.
+     *
+     * @param habit the habit
+     * @param pageSize the number of checks fetched per query
+     * @return the habit checks in (date, id) order
+     */
+    default Stream<HabitCheckEntity> streamByHabit(HabitEntity habit, int pageSize) {
+        Limit limit = Limit.of(pageSize);
+        return KeysetPages.stream(last -> last == null
+            ? findByHabitOrderByDateAscIdAsc(habit, limit)
+            : findPageAfter(habit, last.getDate(), last.getId(), limit), pageSize);
+    }
 }
 
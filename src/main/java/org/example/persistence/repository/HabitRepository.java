@@ -2,7 +2,10 @@ package org.example.persistence.repository;
 
 import org.example.persistence.entity.HabitEntity;
 import org.example.persistence.entity.UserEntity;
+import org.example.persistence.projection.HabitSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -28,5 +31,23 @@ public interface HabitRepository extends JpaRepository<HabitEntity, Long> {
      * @return the habit if found
      */
     java.util.Optional<HabitEntity> findByUserAndName(UserEntity user, String name);
+
+    /**
+     * Counts a user's habits.
+     *
+     * @param userId the user's id
+     * @return the number of habits
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * Finds the list columns of a user's habits, without loading managed entities.
+     *
+     * @param userId the user's id
+     * @return the habit summaries, in creation order
+     */
+    @Query("SELECT new org.example.persistence.projection.HabitSummary(h.id, h.name, h.difficulty) "
+        + "FROM HabitEntity h WHERE h.user.id = :userId ORDER BY h.id")
+    List<HabitSummary> findSummariesByUserId(@Param("userId") Long userId);
 }
 
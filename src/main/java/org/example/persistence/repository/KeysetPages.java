@@ -0,0 +1,68 @@
+package org.example.persistence.repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams a range read as a sequence of keyset pages.
+ *
+ * Each page is fetched with a query that seeks past the last row of the previous page,
+ * so every page is an index range scan from the seek position instead of an offset that
+ * re-reads the rows before it. Pages are fetched lazily as the stream is consumed, and the
+ * stream must be consumed within the transaction the entities belong to.
+ */
+final class KeysetPages {
+    private KeysetPages() {
+    }
+
+    /**
+     * Creates a lazy stream of rows read page by page.
+     *
+     * @param nextPage fetches the page after a row; receives null for the first page
+     * @param pageSize the page size used by nextPage
+     * @param <T> the row type
+     * @return the rows in key order
+     */
+    static <T> Stream<T> stream(Function<T, List<T>> nextPage, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Iterator<T> rows = new Iterator<>() {
+            private List<T> page;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null) {
+                    page = nextPage.apply(null);
+                }
+                if (index < page.size()) {
+                    return true;
+                }
+                // A short page is the last one
+                if (page.size() < pageSize) {
+                    return false;
+                }
+                page = nextPage.apply(page.get(page.size() - 1));
+                index = 0;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows,
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -1,9 +1,15 @@
 package org.example.persistence.repository;
 
 import org.example.persistence.entity.UserEntity;
+import org.example.persistence.projection.UserXpSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +17,40 @@ import java.util.Optional;
  */
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
+    /**
+     * Finds a user by id together with their stats. The stats side of the one-to-one owns the
+     * join column, so it cannot be loaded lazily from the user; fetching it in the same query
+     * saves the second select Hibernate would otherwise issue.
+     *
+     * @param id the user id
+     * @return the user if found
+     */
+    @Override
+    @EntityGraph(attributePaths = "userStats")
+    Optional<UserEntity> findById(Long id);
+
+    /**
+     * Finds the top users by XP, then level, reading only the leaderboard columns. Users
+     * without stats rank as new users with no XP.
+     *
+     * @param limit the maximum number of users
+     * @return the ranked users, best first
+     */
+    @Query("SELECT new org.example.persistence.projection.UserXpSummary(u.id, u.username, s.totalXp, s.level) "
+        + "FROM UserEntity u LEFT JOIN u.userStats s "
+        + "ORDER BY COALESCE(s.totalXp, 0) DESC, COALESCE(s.level, 1) DESC, u.id")
+    List<UserXpSummary> findLeaderboard(Limit limit);
+
+    /**
+     * Finds the page of user ids that follows an id, in ascending order.
+     *
+     * @param afterId the last id already read (exclusive)
+     * @param limit the page size
+     * @return the next user ids
+     */
+    @Query("SELECT u.id FROM UserEntity u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Limit limit);
+
     /**
      * Finds a user by username.
      *
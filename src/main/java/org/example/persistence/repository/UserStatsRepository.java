@@ -19,5 +19,13 @@ public interface UserStatsRepository extends JpaRepository<UserStatsEntity, Long
      * @return the user stats if found
      */
     Optional<UserStatsEntity> findByUser(UserEntity user);
+
+    /**
+     * Finds user stats by the user's id, without loading the user.
+     *
+     * @param userId the user's id
+     * @return the user stats if found
+     */
+    Optional<UserStatsEntity> findByUserId(Long userId);
 }
 
@@ -2,11 +2,15 @@ package org.example.persistence.repository;
 
 import org.example.persistence.entity.UserEntity;
 import org.example.persistence.entity.XpHistoryEntryEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for XpHistoryEntry entities.
@@ -30,5 +34,40 @@ public interface XpHistoryEntryRepository extends JpaRepository<XpHistoryEntryEn
      * @return list of XP history entries
      */
     List<XpHistoryEntryEntity> findByUserAndDateBetween(UserEntity user, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Finds the page of a user's XP history entries that follows a position in (date, id) order.
+     * Several entries can share a date, so the id breaks ties.
+     *
+     * @param user the user
+     * @param afterDate the date of the last entry already read
+     * @param afterId the id of the last entry already read
+     * @param endDate the end date (inclusive)
+     * @param limit the page size
+     * @return the next entries in (date, id) order
+     */
+    @Query("SELECT e FROM XpHistoryEntryEntity e WHERE e.user = :user AND e.date <= :endDate "
+        + "AND (e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) ORDER BY e.date, e.id")
+    List<XpHistoryEntryEntity> findPageAfter(@Param("user") UserEntity user, @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") long afterId, @Param("endDate") LocalDate endDate,
+                                             Limit limit);
+
+    /**
+     * Streams a user's XP history entries within a date range in keyset pages.
+     * The stream must be consumed within a transaction.
+     *
+     * @param user the user
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param pageSize the number of entries fetched per query
+     * @return the entries in (date, id) order
+     */
+    default Stream<XpHistoryEntryEntity> streamByUserAndDateBetween(UserEntity user, LocalDate startDate,
+                                                                    LocalDate endDate, int pageSize) {
+        Limit limit = Limit.of(pageSize);
+        return KeysetPages.stream(last -> last == null
+            ? findPageAfter(user, startDate.minusDays(1), Long.MAX_VALUE, endDate, limit)
+            : findPageAfter(user, last.getDate(), last.getId(), endDate, limit), pageSize);
+    }
 }
 
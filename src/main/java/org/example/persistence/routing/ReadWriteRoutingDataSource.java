@@ -0,0 +1,54 @@
+package org.example.persistence.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Data source that sends read-only transactions to the replica and everything else to the
+ * primary, unless the current thread must read its own recent writes.
+ *
+ * The route is picked when a connection is obtained, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the proxy defers
+ * the real connection until the first statement, after the transaction is marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    /**
+     * The database a connection is routed to.
+     */
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagTracker lagTracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagTracker lagTracker) {
+        if (primary == null || replica == null) {
+            throw new IllegalArgumentException("Primary and replica data sources are required");
+        }
+        if (lagTracker == null) {
+            throw new IllegalArgumentException("Lag tracker cannot be null");
+        }
+        this.lagTracker = lagTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * Gets the route a connection obtained now would take.
+     */
+    public Route currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !lagTracker.requiresPrimary()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.persistence.routing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks recent writes per user so that reads can see their own writes despite replica lag.
+ *
+ * A user's reads go to the primary for the configured maximum replica lag after one of their
+ * writes, and to the replica after that. The read context of the current request (which user
+ * it reads for, or whether it must read from the primary) is bound to the request thread.
+ *
+ * Write services record a write when their transaction commits, so a read that follows the
+ * commit goes to the primary even if the request that wrote has not completed yet.
+ */
+@Component
+public class ReplicaLagTracker {
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long maxLagMillis;
+    private final Clock clock;
+    private final Map<Long, Long> lastWriteMillis = new ConcurrentHashMap<>();
+    private final ThreadLocal<ReadContext> readContext = new ThreadLocal<>();
+
+    @Autowired
+    public ReplicaLagTracker(@Value("${datasource.replica.max-lag-ms:2000}") long maxLagMillis) {
+        this(maxLagMillis, Clock.systemDefaultZone());
+    }
+
+    ReplicaLagTracker(long maxLagMillis, Clock clock) {
+        if (maxLagMillis < 0) {
+            throw new IllegalArgumentException("Maximum replica lag cannot be negative");
+        }
+        this.maxLagMillis = maxLagMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that a user's data was just written on the primary.
+     *
+     * @param userId the user's id
+     */
+    public void recordWrite(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = clock.millis();
+        lastWriteMillis.put(userId, now);
+        if (lastWriteMillis.size() > PRUNE_THRESHOLD) {
+            lastWriteMillis.values().removeIf(written -> now - written >= maxLagMillis);
+        }
+    }
+
+    /**
+     * Records a write by a user when the current transaction commits, or right away when no
+     * transaction is active. A rolled back transaction records nothing.
+     *
+     * @param userId the user's id
+     */
+    public void recordWriteOnCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWrite(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(userId);
+            }
+        });
+    }
+
+    /**
+     * Binds the user the current thread reads for.
+     *
+     * @param userId the user's id
+     */
+    public void bindUser(Long userId) {
+        readContext.set(new ReadContext(userId, false));
+    }
+
+    /**
+     * Sends every read on the current thread to the primary, such as the reads of a request
+     * that is about to write.
+     */
+    public void bindPrimary() {
+        readContext.set(new ReadContext(null, true));
+    }
+
+    /**
+     * Clears the current thread's read context.
+     */
+    public void clear() {
+        readContext.remove();
+    }
+
+    /**
+     * Checks whether the current thread must read from the primary: it is bound to the
+     * primary, or it reads for a user written within the maximum replica lag.
+     */
+    public boolean requiresPrimary() {
+        ReadContext context = readContext.get();
+        if (context == null) {
+            return false;
+        }
+        if (context.primaryOnly()) {
+            return true;
+        }
+        Long written = context.userId() != null ? lastWriteMillis.get(context.userId()) : null;
+        return written != null && clock.millis() - written < maxLagMillis;
+    }
+
+    private record ReadContext(Long userId, boolean primaryOnly) {
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.service;
+
+import org.example.AnalyticsService;
+import org.example.AnalyticsService.DashboardAnalytics;
+import org.example.BurnoutDetector;
+import org.example.BurnoutWarning;
+import org.example.DailyActivityLog;
+import org.example.DailyXpLimit;
+import org.example.Goal;
+import org.example.GoalConsistency;
+import org.example.GoalConsistencyCalculator;
+import org.example.Habit;
+import org.example.HabitCheckResult;
+import org.example.HabitStreak;
+import org.example.Trend;
+import org.example.TrendAnalyzer;
+import org.example.XpCalculator;
+import org.example.XpHistoryEntry;
+import org.example.XpSource;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service that computes a user's dashboard analytics straight from the history tables, for
+ * users whose habit and goal services are not held in memory. Loading those services only to
+ * answer one dashboard request reads and keeps the user's whole history.
+ *
+ * Streak runs and the gaps between goal notes are found with window functions, so only one
+ * row per habit and per goal leaves the database. XP entries and daily XP are read for the
+ * dashboard lookback only, together with the daily rollups of days whose checks and notes
+ * the retention job dropped. The aggregates go through the same calculators as
+ * {@link AnalyticsService#analyzeDashboard}, and the history read is the one
+ * {@link UserHistoryLoader} would restore, so both paths give the same results.
+ */
+@Service
+public class AnalyticsQueryService {
+    // Goals are keyed by title in memory; the first goal with a title shadows later ones
+    private static final String USER_GOALS_CTE =
+        "WITH user_goals AS (SELECT id, title, description, start_date, target_date, importance, "
+            + "total_progress_points, ROW_NUMBER() OVER (PARTITION BY title ORDER BY id) AS title_rank "
+            + "FROM goals WHERE user_id = ?)";
+    private static final String DAY_NUMBER = "FLOOR(EXTRACT(EPOCH FROM %s) / 86400)";
+
+    // A run of DONE checks continues while each check is on the day after the previous one
+    // (or the same day); a MISSED check is a run of its own. Habits are keyed by name and
+    // difficulty, as in memory.
+    private static final String HABIT_STREAKS_SQL =
+        "WITH checks AS (SELECT h.name, h.difficulty, hc.id, hc.date, hc.result, "
+            + DAY_NUMBER.formatted("hc.date") + " AS day_no "
+            + "FROM habit_checks hc JOIN habits h ON h.id = hc.habit_id WHERE h.user_id = ? AND hc.date >= ?), "
+            + "run_starts AS (SELECT name, difficulty, id, date, result, "
+            + "CASE WHEN result = 'DONE' "
+            + "AND LAG(result) OVER (PARTITION BY name, difficulty ORDER BY date, id) = 'DONE' "
+            + "AND day_no - LAG(day_no) OVER (PARTITION BY name, difficulty ORDER BY date, id) <= 1 "
+            + "THEN 0 ELSE 1 END AS starts_run, "
+            + "ROW_NUMBER() OVER (PARTITION BY name, difficulty ORDER BY date DESC, id DESC) AS from_last "
+            + "FROM checks), "
+            + "runs AS (SELECT name, difficulty, date, result, from_last, "
+            + "SUM(starts_run) OVER (PARTITION BY name, difficulty ORDER BY date, id ROWS UNBOUNDED PRECEDING) AS run_id "
+            + "FROM run_starts), "
+            + "run_lengths AS (SELECT name, difficulty, MIN(result) AS result, MIN(date) AS started, "
+            + "MAX(date) AS ended, COUNT(DISTINCT date) AS run_length, MIN(from_last) AS from_last "
+            + "FROM runs GROUP BY name, difficulty, run_id) "
+            + "SELECT name, difficulty, "
+            + "MAX(CASE WHEN result = 'DONE' THEN run_length ELSE 0 END) AS longest_streak, "
+            + "MAX(CASE WHEN from_last = 1 AND result = 'DONE' AND ended >= ? THEN run_length ELSE 0 END) AS current_streak, "
+            + "MAX(CASE WHEN from_last = 1 AND result = 'DONE' AND ended >= ? THEN started END) AS streak_start "
+            + "FROM run_lengths GROUP BY name, difficulty ORDER BY name, difficulty";
+    private static final String GOAL_CONSISTENCY_SQL =
+        USER_GOALS_CTE + ", "
+            + "notes AS (SELECT gn.goal_id, " + DAY_NUMBER.formatted("gn.date") + " AS day_no "
+            + "FROM goal_notes gn JOIN user_goals ug ON ug.id = gn.goal_id WHERE ug.title_rank = 1 AND gn.date >= ?), "
+            + "gaps AS (SELECT goal_id, day_no - LAG(day_no) OVER (PARTITION BY goal_id ORDER BY day_no) - 1 AS gap_days "
+            + "FROM notes), "
+            + "note_counts AS (SELECT goal_id, COUNT(*) AS active_days, "
+            + "SUM(CASE WHEN gap_days > 0 THEN gap_days ELSE 0 END) AS total_gap_days, "
+            + "SUM(CASE WHEN gap_days > 0 THEN 1 ELSE 0 END) AS gap_count FROM gaps GROUP BY goal_id) "
+            + "SELECT ug.title, ug.description, ug.start_date, ug.target_date, ug.importance, ug.total_progress_points, "
+            + "COALESCE(nc.active_days, 0), COALESCE(nc.total_gap_days, 0), COALESCE(nc.gap_count, 0) "
+            + "FROM user_goals ug LEFT JOIN note_counts nc ON nc.goal_id = ug.id "
+            + "WHERE ug.title_rank = 1 ORDER BY ug.id";
+    private static final String HABIT_CHECK_COUNTS_SQL =
+        "SELECT hc.date, h.name, h.difficulty, hc.result, COUNT(*) FROM habit_checks hc "
+            + "JOIN habits h ON h.id = hc.habit_id WHERE h.user_id = ? AND hc.date >= ? "
+            + "GROUP BY hc.date, h.name, h.difficulty, hc.result ORDER BY hc.date";
+    private static final String GOAL_XP_SQL =
+        USER_GOALS_CTE + " SELECT gn.date, gn.points FROM goal_notes gn JOIN user_goals ug ON ug.id = gn.goal_id "
+            + "WHERE ug.title_rank = 1 AND gn.points > 0 AND gn.date >= ? ORDER BY gn.date, gn.id";
+    private static final String ROLLUP_XP_SQL =
+        "SELECT date, habit_xp, goal_points FROM history_daily_rollups WHERE user_id = ? AND date >= ? ORDER BY date";
+    // Days without a stored activity log count their goal notes' points, as when rehydrated
+    private static final String DAILY_XP_SQL =
+        USER_GOALS_CTE + " SELECT date, xp_gained FROM daily_activity_logs WHERE user_id = ? AND date BETWEEN ? AND ? "
+            + "UNION ALL SELECT gn.date, SUM(gn.points) FROM goal_notes gn JOIN user_goals ug ON ug.id = gn.goal_id "
+            + "WHERE ug.title_rank = 1 AND gn.points > 0 AND gn.date BETWEEN ? AND ? "
+            + "AND NOT EXISTS (SELECT 1 FROM daily_activity_logs l WHERE l.user_id = ? AND l.date = gn.date) "
+            + "GROUP BY gn.date "
+            + "UNION ALL SELECT r.date, r.goal_points FROM history_daily_rollups r "
+            + "WHERE r.user_id = ? AND r.goal_points > 0 AND r.date BETWEEN ? AND ? "
+            + "AND NOT EXISTS (SELECT 1 FROM daily_activity_logs l WHERE l.user_id = ? AND l.date = r.date)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int historyDays;
+    private final XpCalculator xpCalculator = new XpCalculator();
+    private final GoalConsistencyCalculator consistencyCalculator = new GoalConsistencyCalculator();
+    private final TrendAnalyzer trendAnalyzer = new TrendAnalyzer();
+    private final BurnoutDetector burnoutDetector = new BurnoutDetector();
+
+    @Autowired
+    public AnalyticsQueryService(DataSource dataSource,
+                                 @Value("${users.rehydration.history-days:400}") int historyDays) {
+        if (historyDays <= 0) {
+            throw new IllegalArgumentException("History days must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.historyDays = historyDays;
+    }
+
+    /**
+     * Computes a user's dashboard analytics from the history tables, over the same history
+     * window that rehydration restores. The queries run in one read-only transaction, so they
+     * see the same data and may be served by the replica.
+     *
+     * @param userId the user's id
+     * @param currentDate the current date
+     * @return the dashboard analytics
+     */
+    @Transactional(readOnly = true)
+    public DashboardAnalytics analyzeDashboard(Long userId, LocalDate currentDate) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (currentDate == null) {
+            throw new IllegalArgumentException("Current date cannot be null");
+        }
+        LocalDate since = currentDate.minusDays(historyDays);
+        LocalDate recentStart = currentDate.minusDays(AnalyticsService.DASHBOARD_LOOKBACK_DAYS);
+        if (recentStart.isBefore(since)) {
+            recentStart = since;
+        }
+
+        Map<Habit, HabitStreak> streaks = new HashMap<>();
+        LocalDate activeSince = currentDate.minusDays(1);
+        jdbcTemplate.query(HABIT_STREAKS_SQL, rs -> {
+            Habit habit = habitOf(rs);
+            streaks.put(habit, new HabitStreak(habit, rs.getInt("current_streak"), rs.getInt("longest_streak"),
+                rs.getObject("streak_start", LocalDate.class)));
+        }, userId, since, activeSince, activeSince);
+
+        Map<Goal, GoalConsistency> consistency = new HashMap<>();
+        jdbcTemplate.query(GOAL_CONSISTENCY_SQL, rs -> {
+            Goal goal = new Goal(rs.getString(1), rs.getString(2), rs.getObject(3, LocalDate.class),
+                rs.getObject(4, LocalDate.class), rs.getInt(5), rs.getInt(6));
+            consistency.put(goal, consistencyCalculator.calculateConsistency(goal, rs.getInt(7), rs.getLong(8),
+                rs.getInt(9), currentDate));
+        }, userId, since);
+
+        List<XpHistoryEntry> recentHistory = recentXpHistory(userId, recentStart);
+        Trend trend = trendAnalyzer.analyzeTrend(recentHistory, AnalyticsService.DASHBOARD_LOOKBACK_DAYS, currentDate);
+        BurnoutWarning burnout = burnoutDetector.detectBurnout(trend, recentHistory,
+            dailyActivity(userId, recentStart, currentDate), DailyXpLimit.defaultLimit(), currentDate);
+        return new DashboardAnalytics(streaks, consistency, trend, burnout, recentHistory);
+    }
+
+    /**
+     * Reads the XP history from a date on: one habit entry per day with a non-zero XP total,
+     * then one goal entry per note with points and one per rolled-up day with goal points,
+     * ordered by date.
+     */
+    private List<XpHistoryEntry> recentXpHistory(Long userId, LocalDate from) {
+        Map<LocalDate, Integer> habitXpByDate = new TreeMap<>();
+        jdbcTemplate.query(HABIT_CHECK_COUNTS_SQL, rs -> {
+            HabitCheckResult result = HabitCheckResult.valueOf(rs.getString(4));
+            int xp = xpCalculator.calculateTransaction(habitOf(rs), result).amount() * rs.getInt(5);
+            habitXpByDate.merge(rs.getObject(1, LocalDate.class), xp, Integer::sum);
+        }, userId, from);
+        List<XpHistoryEntry> rolledUpGoalXp = new ArrayList<>();
+        jdbcTemplate.query(ROLLUP_XP_SQL, rs -> {
+            LocalDate date = rs.getObject(1, LocalDate.class);
+            habitXpByDate.merge(date, rs.getInt(2), Integer::sum);
+            if (rs.getInt(3) > 0) {
+                rolledUpGoalXp.add(new XpHistoryEntry(date, rs.getInt(3), XpSource.GOAL));
+            }
+        }, userId, from);
+
+        List<XpHistoryEntry> history = new ArrayList<>();
+        habitXpByDate.forEach((date, xp) -> {
+            if (xp != 0) {
+                history.add(new XpHistoryEntry(date, xp, XpSource.HABIT));
+            }
+        });
+        history.addAll(jdbcTemplate.query(GOAL_XP_SQL,
+            (rs, row) -> new XpHistoryEntry(rs.getObject(1, LocalDate.class), rs.getInt(2), XpSource.GOAL),
+            userId, from));
+        history.addAll(rolledUpGoalXp);
+        history.sort(Comparator.comparing(XpHistoryEntry::date));
+        return history;
+    }
+
+    /**
+     * Reads the XP gained per day within a date range, as activity logs.
+     */
+    private Map<LocalDate, DailyActivityLog> dailyActivity(Long userId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> xpByDate = new HashMap<>();
+        jdbcTemplate.query(DAILY_XP_SQL, rs -> {
+            xpByDate.merge(rs.getObject(1, LocalDate.class), rs.getInt(2), Integer::sum);
+        }, userId, userId, from, to, from, to, userId, userId, from, to, userId);
+        Map<LocalDate, DailyActivityLog> logs = new HashMap<>();
+        xpByDate.forEach((date, xp) -> logs.put(date, new DailyActivityLog(date, xp, List.of())));
+        return logs;
+    }
+
+    private static Habit habitOf(ResultSet rs) throws SQLException {
+        HabitEntity.DifficultyEnum difficulty = HabitEntity.DifficultyEnum.values()[rs.getInt("difficulty")];
+        return new Habit(rs.getString("name"), DomainEntityMapper.toDifficulty(difficulty));
+    }
+}
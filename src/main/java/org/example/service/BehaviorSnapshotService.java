@@ -0,0 +1,257 @@
+package org.example.service;
+
+import org.example.behavior.drift.BehaviorDriftDetector;
+import org.example.behavior.drift.BehaviorSnapshot;
+import org.example.behavior.drift.BehaviorSnapshotCalculator;
+import org.example.behavior.drift.BehaviorTimeSeries;
+import org.example.behavior.drift.DriftEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service that records a behavior snapshot for every user each day and checks it for drift.
+ *
+ * Every stored user is snapshotted, whether or not they are held in memory: user ids are read
+ * in pages, and each page is a batch snapshotted in parallel with the others. A user held in
+ * memory is read under their lock; any other user's recent history is loaded for the snapshot
+ * only, so a run does not pull every user into the cache. Each user's
+ * snapshots go into a compact {@link BehaviorTimeSeries} with retention and downsampling, and
+ * each new snapshot is compared once against the stored history as it arrives, so detection
+ * cost does not grow with the length of the series.
+ */
+@Service
+public class BehaviorSnapshotService {
+    private static final int MAX_DRIFT_EVENTS = 20;
+
+    private final UserService userService;
+    private final BehaviorSnapshotCalculator calculator;
+    private final BehaviorDriftDetector driftDetector;
+    private final int parallelism;
+    private final int batchSize;
+    private final int rawRetentionDays;
+    private final int downsampledRetentionDays;
+    private final Clock clock;
+    private final Map<Long, UserBehavior> behaviors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BehaviorSnapshotService(UserService userService, BehaviorDriftDetector driftDetector,
+                                   @Value("${behavior.snapshots.parallelism:4}") int parallelism,
+                                   @Value("${behavior.snapshots.batch-size:256}") int batchSize,
+                                   @Value("${behavior.snapshots.raw-retention-days:90}") int rawRetentionDays,
+                                   @Value("${behavior.snapshots.downsampled-retention-days:730}") int downsampledRetentionDays) {
+        this(userService, new BehaviorSnapshotCalculator(), driftDetector, parallelism, batchSize,
+            rawRetentionDays, downsampledRetentionDays, Clock.systemDefaultZone());
+    }
+
+    BehaviorSnapshotService(UserService userService, BehaviorSnapshotCalculator calculator,
+                            BehaviorDriftDetector driftDetector, int parallelism, int batchSize,
+                            int rawRetentionDays, int downsampledRetentionDays, Clock clock) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (rawRetentionDays <= 0 || downsampledRetentionDays < rawRetentionDays) {
+            throw new IllegalArgumentException("Snapshot retention must be positive and not shorter when downsampled");
+        }
+        this.userService = userService;
+        this.calculator = calculator;
+        this.driftDetector = driftDetector;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.rawRetentionDays = rawRetentionDays;
+        this.downsampledRetentionDays = downsampledRetentionDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Records today's snapshot for every user.
+     */
+    @Scheduled(cron = "${behavior.snapshots.cron:0 15 3 * * *}")
+    public void captureSnapshots() {
+        captureSnapshots(LocalDate.now(clock));
+    }
+
+    /**
+     * Records a snapshot dated on a day for every user.
+     *
+     * @param date the snapshot date
+     * @return the number of users snapshotted
+     * @throws IllegalStateException if a batch fails or the run is interrupted
+     */
+    public int captureSnapshots(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new SnapshotThreadFactory());
+        try {
+            List<Future<Integer>> batches = new ArrayList<>();
+            List<Long> page = userService.getUserIdsAfter(0, batchSize);
+            while (!page.isEmpty()) {
+                List<Long> userIds = page;
+                batches.add(executor.submit(() -> snapshotBatch(userIds, date)));
+                page = page.size() < batchSize ? List.of()
+                    : userService.getUserIdsAfter(page.get(page.size() - 1), batchSize);
+            }
+            int snapshotted = 0;
+            for (Future<Integer> batch : batches) {
+                snapshotted += batch.get();
+            }
+            return snapshotted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Behavior snapshot run interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Behavior snapshot batch failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stores a user's snapshot, checking it for drift against the earlier snapshots first.
+     *
+     * @param userId the user's id
+     * @param snapshot the snapshot
+     * @return the drift detected for this snapshot, or null if there was none
+     * @throws IllegalArgumentException if the snapshot is older than the user's latest one
+     */
+    public DriftEvent recordSnapshot(Long userId, BehaviorSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        return behaviors.computeIfAbsent(userId, id -> new UserBehavior()).record(snapshot);
+    }
+
+    /**
+     * Gets a user's stored snapshots, oldest first. Older snapshots are weekly averages.
+     *
+     * @param userId the user's id
+     * @return the snapshots (empty if none were recorded)
+     */
+    public List<BehaviorSnapshot> getSnapshots(Long userId) {
+        UserBehavior behavior = behaviors.get(userId);
+        return behavior != null ? behavior.snapshots() : List.of();
+    }
+
+    /**
+     * Gets the drift detected for a user's most recent snapshots, oldest first.
+     *
+     * @param userId the user's id
+     * @return the drift events (empty if none were detected)
+     */
+    public List<DriftEvent> getDriftEvents(Long userId) {
+        UserBehavior behavior = behaviors.get(userId);
+        return behavior != null ? behavior.driftEvents() : List.of();
+    }
+
+    /**
+     * Checks a user's latest snapshot for drift against their stored history, without
+     * recording anything.
+     *
+     * @param userId the user's id
+     * @param detectionDate the date when drift detection is performed
+     * @return the drift of the latest snapshot, or null if there is none or no snapshots were recorded
+     */
+    public DriftEvent detectLatestDrift(Long userId, LocalDate detectionDate) {
+        UserBehavior behavior = behaviors.get(userId);
+        return behavior != null ? behavior.latestDrift(detectionDate) : null;
+    }
+
+    /**
+     * Gets the ids of users with stored snapshots, in ascending order.
+     *
+     * @return the user ids
+     */
+    public List<Long> getTrackedUserIds() {
+        List<Long> userIds = new ArrayList<>(behaviors.keySet());
+        Collections.sort(userIds);
+        return userIds;
+    }
+
+    /**
+     * Gets the number of users with stored snapshots.
+     */
+    public int getTrackedUserCount() {
+        return behaviors.size();
+    }
+
+    private int snapshotBatch(List<Long> userIds, LocalDate date) {
+        int snapshotted = 0;
+        for (Long userId : userIds) {
+            BehaviorSnapshot snapshot = userService.readUserHistory(userId, calculator.historyStart(date),
+                (habitService, goalService) -> calculator.calculate(habitService, goalService, date));
+            recordSnapshot(userId, snapshot);
+            snapshotted++;
+        }
+        return snapshotted;
+    }
+
+    /**
+     * One user's snapshot series and recent drift.
+     */
+    private final class UserBehavior {
+        private final BehaviorTimeSeries series = new BehaviorTimeSeries(rawRetentionDays, downsampledRetentionDays);
+        private final Deque<DriftEvent> driftEvents = new ArrayDeque<>();
+
+        synchronized DriftEvent record(BehaviorSnapshot snapshot) {
+            DriftEvent drift = driftDetector.detectIncrementalDrift(series, snapshot, snapshot.date());
+            series.append(snapshot);
+            series.compact(snapshot.date());
+            // A rerun on the same day replaces that day's snapshot and its drift
+            if (!driftEvents.isEmpty() && driftEvents.peekLast().getLaterSnapshot().date().equals(snapshot.date())) {
+                driftEvents.removeLast();
+            }
+            if (drift != null) {
+                if (driftEvents.size() == MAX_DRIFT_EVENTS) {
+                    driftEvents.removeFirst();
+                }
+                driftEvents.addLast(drift);
+            }
+            return drift;
+        }
+
+        synchronized DriftEvent latestDrift(LocalDate detectionDate) {
+            BehaviorSnapshot latest = series.latest();
+            return latest != null ? driftDetector.detectIncrementalDrift(series, latest, detectionDate) : null;
+        }
+
+        synchronized List<BehaviorSnapshot> snapshots() {
+            return series.toList();
+        }
+
+        synchronized List<DriftEvent> driftEvents() {
+            return new ArrayList<>(driftEvents);
+        }
+    }
+
+    private static class SnapshotThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "behavior-snapshot-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
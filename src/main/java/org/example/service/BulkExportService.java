@@ -0,0 +1,185 @@
+package org.example.service;
+
+import org.example.HabitCheckResult;
+import org.example.XpSource;
+import org.example.history.ColumnarHistoryFile;
+import org.example.history.ColumnarRowGroup;
+import org.example.history.DailyRollupRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for exporting every user's history in the columnar format for offline analysis.
+ *
+ * The user id space is split into partitions that are scanned in parallel straight from
+ * the database with streaming JDBC queries, one {@link ColumnarRowGroup} per partition.
+ * Each partition is scanned in its own read-only transaction: PostgreSQL only honours the
+ * fetch size, streaming rows through a cursor, when autocommit is off. Row groups are
+ * written in partition order, and at most a few partitions are held in memory at once, so
+ * the export streams regardless of the size of the user base.
+ *
+ * Days the retention job rolled up are exported as their daily totals, alongside the raw
+ * rows that are still kept.
+ */
+@Service
+public class BulkExportService {
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String USER_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM users";
+    private static final String HABIT_CHECKS_SQL =
+        "SELECT h.user_id, hc.date, h.name, hc.result FROM habit_checks hc "
+            + "JOIN habits h ON h.id = hc.habit_id "
+            + "WHERE h.user_id BETWEEN ? AND ? ORDER BY h.user_id, hc.date";
+    private static final String GOAL_NOTES_SQL =
+        "SELECT g.user_id, gn.date, g.title, gn.points, gn.text_note FROM goal_notes gn "
+            + "JOIN goals g ON g.id = gn.goal_id "
+            + "WHERE g.user_id BETWEEN ? AND ? ORDER BY g.user_id, gn.date";
+    private static final String XP_EVENTS_SQL =
+        "SELECT user_id, date, xp_change, source FROM xp_history_entries "
+            + "WHERE user_id BETWEEN ? AND ? ORDER BY user_id, date";
+    private static final String DAILY_ROLLUPS_SQL =
+        "SELECT user_id, date, xp_gained, xp_entries, habits_done, habits_missed, goal_notes, goal_points, habit_xp "
+            + "FROM history_daily_rollups WHERE user_id BETWEEN ? AND ? ORDER BY user_id, date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final int usersPerPartition;
+
+    @Autowired
+    public BulkExportService(DataSource dataSource,
+                             @Value("${export.bulk.parallelism:4}") int parallelism,
+                             @Value("${export.bulk.users-per-partition:500}") int usersPerPartition) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (usersPerPartition <= 0) {
+            throw new IllegalArgumentException("Users per partition must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.usersPerPartition = usersPerPartition;
+    }
+
+    /**
+     * Writes all users' habit checks, goal notes, XP events and daily rollups as a columnar
+     * history file.
+     * The stream is flushed but not closed.
+     *
+     * @param out the destination
+     * @return the number of rows written
+     * @throws IOException if writing fails or a partition scan fails
+     */
+    public long writeColumnarExport(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        ColumnarHistoryFile.writeHeader(data);
+
+        long[] userIdRange = jdbcTemplate.queryForObject(USER_ID_RANGE_SQL,
+            (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long rows = 0;
+        if (userIdRange != null && userIdRange[1] > 0) {
+            rows = writePartitions(data, userIdRange[0], userIdRange[1]);
+        }
+
+        ColumnarHistoryFile.writeEnd(data);
+        return rows;
+    }
+
+    private long writePartitions(DataOutputStream out, long minUserId, long maxUserId) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new PartitionThreadFactory());
+        // Bound the partitions in flight so memory stays flat while keeping output in order
+        Deque<Future<EncodedPartition>> inFlight = new ArrayDeque<>();
+        long rows = 0;
+        try {
+            for (long start = minUserId; start <= maxUserId; start += usersPerPartition) {
+                long first = start;
+                long last = Math.min(maxUserId, start + usersPerPartition - 1);
+                inFlight.addLast(executor.submit(() ->
+                    readOnlyTransaction.execute(status -> scanPartition(first, last))));
+                if (inFlight.size() >= parallelism * 2) {
+                    rows += writeNext(out, inFlight);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                rows += writeNext(out, inFlight);
+            }
+            return rows;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long writeNext(DataOutputStream out, Deque<Future<EncodedPartition>> inFlight) throws IOException {
+        EncodedPartition partition;
+        try {
+            partition = inFlight.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bulk export interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Bulk export partition failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (partition.rows() == 0) {
+            return 0;
+        }
+        ColumnarHistoryFile.writeRowGroup(out, partition.bytes());
+        return partition.rows();
+    }
+
+    private EncodedPartition scanPartition(long firstUserId, long lastUserId) {
+        ColumnarRowGroup rowGroup = new ColumnarRowGroup();
+        jdbcTemplate.query(HABIT_CHECKS_SQL, rs -> {
+            rowGroup.addHabitCheck(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getString(3),
+                HabitCheckResult.valueOf(rs.getString(4)));
+        }, firstUserId, lastUserId);
+        jdbcTemplate.query(GOAL_NOTES_SQL, rs -> {
+            rowGroup.addGoalNote(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getString(3), rs.getInt(4),
+                rs.getString(5));
+        }, firstUserId, lastUserId);
+        jdbcTemplate.query(XP_EVENTS_SQL, rs -> {
+            rowGroup.addXpEvent(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3),
+                XpSource.valueOf(rs.getString(4)));
+        }, firstUserId, lastUserId);
+        jdbcTemplate.query(DAILY_ROLLUPS_SQL, rs -> {
+            rowGroup.addDailyRollup(new DailyRollupRow(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3),
+                rs.getInt(4), rs.getInt(5), rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9)));
+        }, firstUserId, lastUserId);
+        int rows = rowGroup.getRowCount();
+        return new EncodedPartition(rows, rows == 0 ? null : rowGroup.encode());
+    }
+
+    private record EncodedPartition(int rows, byte[] bytes) {
+    }
+
+    private static class PartitionThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "bulk-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
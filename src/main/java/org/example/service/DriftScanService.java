@@ -0,0 +1,239 @@
+package org.example.service;
+
+import org.example.behavior.drift.DriftAlert;
+import org.example.behavior.drift.DriftEvent;
+import org.example.behavior.drift.DriftScanCheckpoint;
+import org.example.behavior.drift.DriftScanReport;
+import org.example.behavior.drift.DriftSeverity;
+import org.example.metrics.HotPathMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for the nightly drift scan over the whole user cohort.
+ *
+ * Users with stored snapshots are split into ranges of consecutive ids, and each range is
+ * scanned as one task on a fork-join pool. At most two partitions per worker are in flight,
+ * so the scan's memory stays flat however large the cohort is. Partitions are retired in id
+ * order, and after each one the highest fully scanned user id is checkpointed to disk, so a
+ * run that crashes resumes after the last retired partition instead of starting over.
+ * Users whose latest snapshot shows high-severity drift are put on a bounded alert queue.
+ */
+@Service
+public class DriftScanService {
+    private final BehaviorSnapshotService snapshotService;
+    private final Path checkpointPath;
+    private final int parallelism;
+    private final int usersPerPartition;
+    private final BlockingQueue<DriftAlert> alerts;
+    private final Clock clock;
+    private final AtomicInteger droppedAlerts = new AtomicInteger();
+    private final AtomicReference<DriftScanReport> lastReport = new AtomicReference<>();
+
+    @Autowired
+    public DriftScanService(BehaviorSnapshotService snapshotService,
+                            @Value("${behavior.drift-scan.checkpoint:${java.io.tmpdir}/future-you-drift-scan.checkpoint}") String checkpointPath,
+                            @Value("${behavior.drift-scan.parallelism:4}") int parallelism,
+                            @Value("${behavior.drift-scan.users-per-partition:500}") int usersPerPartition,
+                            @Value("${behavior.drift-scan.alert-capacity:10000}") int alertCapacity) {
+        this(snapshotService, Paths.get(checkpointPath), parallelism, usersPerPartition, alertCapacity,
+            Clock.systemDefaultZone());
+    }
+
+    DriftScanService(BehaviorSnapshotService snapshotService, Path checkpointPath, int parallelism,
+                     int usersPerPartition, int alertCapacity, Clock clock) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (usersPerPartition <= 0) {
+            throw new IllegalArgumentException("Users per partition must be positive");
+        }
+        if (alertCapacity <= 0) {
+            throw new IllegalArgumentException("Alert capacity must be positive");
+        }
+        this.snapshotService = snapshotService;
+        this.checkpointPath = checkpointPath;
+        this.parallelism = parallelism;
+        this.usersPerPartition = usersPerPartition;
+        this.alerts = new ArrayBlockingQueue<>(alertCapacity);
+        this.clock = clock;
+    }
+
+    /**
+     * Scans the cohort for today, after the nightly snapshots have been recorded.
+     */
+    @Scheduled(cron = "${behavior.drift-scan.cron:0 45 3 * * *}")
+    public void scheduledScan() {
+        scan(LocalDate.now(clock));
+    }
+
+    /**
+     * Scans every user with stored snapshots for high-severity drift, resuming from the
+     * checkpoint if an earlier run for the same date stopped part way.
+     *
+     * @param scanDate the date the scan runs for
+     * @return the scan report; a run for a date that was already completed scans no users
+     * @throws UncheckedIOException if the checkpoint cannot be read or written
+     * @throws IllegalStateException if a partition fails or the scan is interrupted
+     */
+    public synchronized DriftScanReport scan(LocalDate scanDate) {
+        if (scanDate == null) {
+            throw new IllegalArgumentException("Scan date cannot be null");
+        }
+        long startNanos = System.nanoTime();
+        DriftScanCheckpoint checkpoint = loadCheckpoint();
+        Long resumedAfter = null;
+        if (checkpoint != null && checkpoint.scanDate().equals(scanDate)) {
+            if (checkpoint.complete()) {
+                return record(new DriftScanReport(scanDate, checkpoint.lastUserId(), 0, 0, 0, 0, List.of()));
+            }
+            resumedAfter = checkpoint.lastUserId();
+        }
+
+        List<Long> userIds = snapshotService.getTrackedUserIds();
+        int from = 0;
+        if (resumedAfter != null) {
+            while (from < userIds.size() && userIds.get(from) <= resumedAfter) {
+                from++;
+            }
+        }
+
+        List<DriftScanReport.PartitionStats> partitions = new ArrayList<>();
+        int dropsBefore = droppedAlerts.get();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        // Bound the partitions in flight and retire them in id order for the checkpoint
+        Deque<Future<DriftScanReport.PartitionStats>> inFlight = new ArrayDeque<>();
+        try {
+            for (int start = from; start < userIds.size(); start += usersPerPartition) {
+                List<Long> partition = userIds.subList(start, Math.min(userIds.size(), start + usersPerPartition));
+                inFlight.addLast(pool.submit(() -> HotPathMetrics.time(HotPathMetrics.DRIFT_SCAN_PARTITION,
+                    () -> scanPartition(partition, scanDate))));
+                if (inFlight.size() >= parallelism * 2) {
+                    partitions.add(retireNext(inFlight, scanDate));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                partitions.add(retireNext(inFlight, scanDate));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long lastUserId = resumedAfter != null ? resumedAfter : 0L;
+        if (!userIds.isEmpty()) {
+            lastUserId = Math.max(lastUserId, userIds.get(userIds.size() - 1));
+        }
+        saveCheckpoint(new DriftScanCheckpoint(scanDate, lastUserId, true));
+
+        int users = 0;
+        int raised = 0;
+        for (DriftScanReport.PartitionStats stats : partitions) {
+            users += stats.users();
+            raised += stats.alerts();
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return record(new DriftScanReport(scanDate, resumedAfter, users, raised,
+            droppedAlerts.get() - dropsBefore, elapsedMillis, partitions));
+    }
+
+    /**
+     * Removes and returns up to a number of pending alerts, oldest first.
+     *
+     * @param max the maximum number of alerts to return
+     * @return the alerts
+     */
+    public List<DriftAlert> pollAlerts(int max) {
+        List<DriftAlert> polled = new ArrayList<>();
+        alerts.drainTo(polled, Math.max(0, max));
+        return polled;
+    }
+
+    /**
+     * Gets the number of alerts waiting on the queue.
+     */
+    public int getPendingAlertCount() {
+        return alerts.size();
+    }
+
+    /**
+     * Gets the report of the most recent scan.
+     *
+     * @return the report, or null if no scan has run
+     */
+    public DriftScanReport getLastReport() {
+        return lastReport.get();
+    }
+
+    private DriftScanReport.PartitionStats retireNext(Deque<Future<DriftScanReport.PartitionStats>> inFlight,
+                                                      LocalDate scanDate) {
+        DriftScanReport.PartitionStats stats;
+        try {
+            stats = inFlight.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Drift scan interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Drift scan partition failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        saveCheckpoint(new DriftScanCheckpoint(scanDate, stats.lastUserId(), false));
+        return stats;
+    }
+
+    private DriftScanReport.PartitionStats scanPartition(List<Long> userIds, LocalDate scanDate) {
+        long startNanos = System.nanoTime();
+        int raised = 0;
+        for (Long userId : userIds) {
+            DriftEvent drift = snapshotService.detectLatestDrift(userId, scanDate);
+            if (drift != null && drift.getSeverity() == DriftSeverity.HIGH) {
+                if (alerts.offer(new DriftAlert(userId, drift))) {
+                    raised++;
+                } else {
+                    droppedAlerts.incrementAndGet();
+                }
+            }
+        }
+        return new DriftScanReport.PartitionStats(userIds.get(0), userIds.get(userIds.size() - 1), userIds.size(),
+            raised, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private DriftScanReport record(DriftScanReport report) {
+        lastReport.set(report);
+        return report;
+    }
+
+    private DriftScanCheckpoint loadCheckpoint() {
+        try {
+            return DriftScanCheckpoint.load(checkpointPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read drift scan checkpoint " + checkpointPath, e);
+        }
+    }
+
+    private void saveCheckpoint(DriftScanCheckpoint checkpoint) {
+        try {
+            checkpoint.save(checkpointPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write drift scan checkpoint " + checkpointPath, e);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service for asynchronous export jobs.
+ *
+ * Jobs run on a bounded worker pool and write gzip-compressed export files to a spool
+ * directory, so large exports do not hold a request thread and survive client disconnects.
+ * Finished files are kept for a retention period and then deleted by a scheduled sweep;
+ * a file that is being downloaded when it expires is deleted once the download ends.
+ */
+@Service
+public class ExportJobService {
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final String PART_SUFFIX = ".part";
+
+    private final UserService userService;
+    private final ExportService exportService;
+    private final AchievementService achievementService;
+    private final MilestoneService milestoneService;
+    private final Path spoolDirectory;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+    private final Clock clock;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportJobService(UserService userService, ExportService exportService,
+                            AchievementService achievementService, MilestoneService milestoneService,
+                            @Value("${export.jobs.spool-dir:${java.io.tmpdir}/future-you-exports}") String spoolDirectory,
+                            @Value("${export.jobs.workers:2}") int workers,
+                            @Value("${export.jobs.queue-capacity:16}") int queueCapacity,
+                            @Value("${export.jobs.retention-minutes:60}") long retentionMinutes) {
+        this(userService, exportService, achievementService, milestoneService,
+            Paths.get(spoolDirectory), workers, queueCapacity, Duration.ofMinutes(retentionMinutes),
+            Clock.systemDefaultZone());
+    }
+
+    ExportJobService(UserService userService, ExportService exportService,
+                     AchievementService achievementService, MilestoneService milestoneService,
+                     Path spoolDirectory, int workers,
+                     int queueCapacity, Duration retention, Clock clock) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Export worker count must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Export queue capacity must be positive");
+        }
+        if (retention == null || retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("Export retention must be positive");
+        }
+        this.userService = userService;
+        this.exportService = exportService;
+        this.achievementService = achievementService;
+        this.milestoneService = milestoneService;
+        this.spoolDirectory = spoolDirectory;
+        this.retention = retention;
+        this.clock = clock;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new ExportThreadFactory());
+    }
+
+    /**
+     * Creates the spool directory and removes export files left over from a previous run.
+     * Job state is held in memory, so such files can no longer be downloaded.
+     */
+    @PostConstruct
+    public void initSpoolDirectory() {
+        try {
+            Files.createDirectories(spoolDirectory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(spoolDirectory, "*.{gz,part}")) {
+                for (Path leftover : leftovers) {
+                    deleteQuietly(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare export spool directory " + spoolDirectory, e);
+        }
+    }
+
+    /**
+     * Stops the export workers. Running jobs are interrupted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits an export job for a user.
+     * The user's stats are read and their habit checks and goal notes copied on the calling
+     * thread, so the worker never reads history that later requests are changing.
+     *
+     * @param userId the user to export
+     * @param format the export format
+     * @return the queued job
+     * @throws IllegalArgumentException if the user does not exist
+     * @throws IllegalStateException if the export queue is full
+     */
+    public ExportJob submit(Long userId, ExportFormat format) {
+        userService.getUser(userId); // Validate user exists
+        UserStats userStats = userService.getUserStats(userId);
+        HabitService habitService = userService.getHabitService(userId).copy();
+        GoalService goalService = userService.getGoalService(userId).copy();
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), userId, format, LocalDateTime.now(clock));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runJob(job, userStats, habitService, goalService));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("Too many export jobs in progress, please try again later");
+        }
+        return job;
+    }
+
+    /**
+     * Gets an export job owned by a user.
+     *
+     * @param userId the owning user
+     * @param jobId the job id
+     * @return the job
+     * @throws IllegalArgumentException if no such job exists for the user
+     */
+    public ExportJob getJob(Long userId, String jobId) {
+        ExportJob job = jobId != null ? jobs.get(jobId) : null;
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("Export job not found: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Opens a download of a completed export job's file. The file is not deleted while the
+     * download is open, even if the job expires; it must be closed when the file has been read.
+     *
+     * @param userId the owning user
+     * @param jobId the job id
+     * @return the open download
+     * @throws IllegalArgumentException if no such job exists for the user
+     * @throws IllegalStateException if the job has not completed or has expired
+     */
+    public Download openDownload(Long userId, String jobId) {
+        ExportJob job = getJob(userId, jobId);
+        Path file = job.acquireDownload();
+        if (file == null) {
+            throw new IllegalStateException("Export job " + jobId + " is " + job.getStatus());
+        }
+        return new Download(job, file);
+    }
+
+    /**
+     * Gets the number of jobs waiting for a worker.
+     *
+     * @return the queue length
+     */
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Deletes the files of jobs older than the retention period and forgets jobs
+     * that have been expired for another full period.
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (ExportJob job : List.copyOf(jobs.values())) {
+            ExportJobStatus status = job.getStatus();
+            if (status == ExportJobStatus.RUNNING) {
+                continue;
+            }
+            LocalDateTime finishedAt = job.getCompletedAt() != null ? job.getCompletedAt() : job.getCreatedAt();
+            LocalDateTime expiresAt = finishedAt.plus(retention);
+            if (status == ExportJobStatus.EXPIRED) {
+                if (expiresAt.plus(retention).isBefore(now)) {
+                    jobs.remove(job.getId());
+                }
+            } else if (expiresAt.isBefore(now)) {
+                Path file = job.markExpired();
+                if (file != null) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the time after which a job's file is deleted.
+     *
+     * @param job the job
+     * @return the expiry time, or null while the job is still pending
+     */
+    public LocalDateTime getExpiresAt(ExportJob job) {
+        LocalDateTime completedAt = job.getCompletedAt();
+        return completedAt != null ? completedAt.plus(retention) : null;
+    }
+
+    private void runJob(ExportJob job, UserStats userStats, HabitService habitService, GoalService goalService) {
+        if (!job.markRunning()) {
+            return;
+        }
+        Path partFile = spoolDirectory.resolve(job.getId() + PART_SUFFIX);
+        Path file = spoolDirectory.resolve(job.getId() + "." + job.getFormat().getExtension() + ".gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(partFile)), GZIP_BUFFER_SIZE)) {
+                List<Habit> habits = habitService.getCheckedHabits();
+                List<Goal> goals = goalService.getAllGoals();
+                if (job.getFormat() == ExportFormat.JSON) {
+                    List<Achievement> achievements = achievementService.getAchievements(
+                        job.getUserId(), userStats, habitService, goalService);
+                    List<Milestone> milestones = milestoneService.getMilestones(
+                        job.getUserId(), userStats, habitService, goalService);
+                    exportService.writeJson(out, userStats, habits, goals, habitService, goalService,
+                        achievements, milestones);
+                } else {
+                    exportService.writeCsv(out, userStats, habits, goals, habitService, goalService);
+                }
+            }
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.markCompleted(file, Files.size(file), LocalDateTime.now(clock));
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(partFile);
+            deleteQuietly(file);
+            job.markFailed("Export failed: " + e.getMessage(), LocalDateTime.now(clock));
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Retried by the next cleanup run or on restart
+        }
+    }
+
+    /**
+     * An open download of an export file.
+     */
+    public static final class Download implements AutoCloseable {
+        private final ExportJob job;
+        private final Path file;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Download(ExportJob job, Path file) {
+            this.job = job;
+            this.file = file;
+        }
+
+        /**
+         * Gets the compressed export file.
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Releases the download, deleting the file if its job expired meanwhile.
+         * Closing more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                Path expired = job.releaseDownload();
+                if (expired != null) {
+                    deleteQuietly(expired);
+                }
+            }
+        }
+    }
+
+    private static class ExportThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "export-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
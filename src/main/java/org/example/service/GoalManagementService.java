@@ -4,7 +4,9 @@ import org.example.*;
 import org.example.persistence.entity.GoalEntity;
 import org.example.persistence.entity.UserEntity;
 import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.projection.GoalSummary;
 import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.routing.ReplicaLagTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,10 +20,16 @@ import java.util.List;
 @Service
 public class GoalManagementService {
     private final GoalRepository goalRepository;
+    private final ReplicaLagTracker replicaLagTracker;
 
-    @Autowired
     public GoalManagementService(GoalRepository goalRepository) {
+        this(goalRepository, new ReplicaLagTracker(0));
+    }
+
+    @Autowired
+    public GoalManagementService(GoalRepository goalRepository, ReplicaLagTracker replicaLagTracker) {
         this.goalRepository = goalRepository;
+        this.replicaLagTracker = replicaLagTracker;
     }
 
     /**
@@ -35,7 +43,9 @@ public class GoalManagementService {
         }
 
         GoalEntity entity = DomainEntityMapper.toGoalEntity(user, goal);
-        return goalRepository.save(entity);
+        GoalEntity saved = goalRepository.save(entity);
+        replicaLagTracker.recordWriteOnCommit(user.getId());
+        return saved;
     }
 
     /**
@@ -59,11 +69,26 @@ public class GoalManagementService {
         return goalRepository.findByUser(user);
     }
 
+    /**
+     * Gets the list columns of a user's goals, read as projections in a read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    public List<GoalSummary> getUserGoalSummaries(Long userId) {
+        return goalRepository.findSummariesByUserId(userId);
+    }
+
     /**
      * Converts GoalEntity to domain Goal.
      */
     public Goal toDomainGoal(GoalEntity entity) {
         return DomainEntityMapper.toGoal(entity);
     }
+
+    /**
+     * Converts a GoalSummary projection to domain Goal.
+     */
+    public Goal toDomainGoal(GoalSummary summary) {
+        return DomainEntityMapper.toGoal(summary);
+    }
 }
 
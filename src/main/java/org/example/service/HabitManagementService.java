@@ -4,7 +4,9 @@ import org.example.*;
 import org.example.persistence.entity.HabitEntity;
 import org.example.persistence.entity.UserEntity;
 import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.projection.HabitSummary;
 import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.routing.ReplicaLagTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,10 +21,16 @@ import java.util.stream.Collectors;
 @Service
 public class HabitManagementService {
     private final HabitRepository habitRepository;
+    private final ReplicaLagTracker replicaLagTracker;
 
-    @Autowired
     public HabitManagementService(HabitRepository habitRepository) {
+        this(habitRepository, new ReplicaLagTracker(0));
+    }
+
+    @Autowired
+    public HabitManagementService(HabitRepository habitRepository, ReplicaLagTracker replicaLagTracker) {
         this.habitRepository = habitRepository;
+        this.replicaLagTracker = replicaLagTracker;
     }
 
     /**
@@ -36,7 +44,9 @@ public class HabitManagementService {
         }
 
         HabitEntity entity = DomainEntityMapper.toHabitEntity(user, habit);
-        return habitRepository.save(entity);
+        HabitEntity saved = habitRepository.save(entity);
+        replicaLagTracker.recordWriteOnCommit(user.getId());
+        return saved;
     }
 
     /**
@@ -60,6 +70,22 @@ public class HabitManagementService {
         return habitRepository.findByUser(user);
     }
 
+    /**
+     * Gets the list columns of a user's habits, read as projections in a read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    public List<HabitSummary> getUserHabitSummaries(Long userId) {
+        return habitRepository.findSummariesByUserId(userId);
+    }
+
+    /**
+     * Counts a user's habits.
+     */
+    @Transactional(readOnly = true)
+    public long countUserHabits(Long userId) {
+        return habitRepository.countByUserId(userId);
+    }
+
     /**
      * Converts HabitEntity to domain Habit.
      */
@@ -0,0 +1,48 @@
+package org.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Service for the nightly move of loaded users' older habit days and goal notes into the
+ * compact in-memory cold storage of their habit and goal services.
+ *
+ * Archived history stays readable through the services, and the database stays the record
+ * of it, so nothing is lost if a user is evicted or the application restarts.
+ */
+@Service
+public class HistoryArchiveService {
+    private final UserService userService;
+    private final int archiveAfterDays;
+    private final Clock clock;
+
+    @Autowired
+    public HistoryArchiveService(UserService userService,
+                                 @Value("${history.archive.after-days:30}") int archiveAfterDays) {
+        this(userService, archiveAfterDays, Clock.systemDefaultZone());
+    }
+
+    HistoryArchiveService(UserService userService, int archiveAfterDays, Clock clock) {
+        if (archiveAfterDays <= 0) {
+            throw new IllegalArgumentException("Archive age must be at least one day");
+        }
+        this.userService = userService;
+        this.archiveAfterDays = archiveAfterDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Archives the history that has become old enough since the last run.
+     *
+     * @return the number of days plus notes archived across all loaded users
+     */
+    @Scheduled(cron = "${history.archive.cron:0 0 2 * * *}")
+    public int archiveOldHistory() {
+        return userService.archiveHistoryBefore(LocalDate.now(clock).minusDays(archiveAfterDays));
+    }
+}
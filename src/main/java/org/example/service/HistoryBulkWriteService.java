@@ -0,0 +1,212 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.DailyActivityLog;
+import org.example.GoalNote;
+import org.example.HabitCheck;
+import org.example.UserStats;
+import org.example.XpTransaction;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.UserStatsEntity;
+import org.example.persistence.entity.XpHistoryEntryEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service for writing history: habit checks, goal notes, daily activity logs and XP entries.
+ *
+ * The habit and goal endpoints record each check or note as it happens, together with the
+ * day's activity log and the user's new stats in one transaction, so a user's state can be
+ * rebuilt from the database after a restart and never shows a check without its XP.
+ * The list methods write large amounts of history in one go, such as imports and backfills;
+ * no endpoint imports history yet.
+ *
+ * The history tables take their ids from pooled sequences, so Hibernate can send the inserts
+ * in JDBC batches. Rows are persisted one batch at a time, and the persistence context is
+ * flushed and cleared after each batch so it does not grow with the size of the write.
+ * Parents (habits, goals and users) must already be stored; they are referenced, not saved.
+ */
+@Service
+public class HistoryBulkWriteService {
+    private static final String DAY_LOG_JPQL =
+        "SELECT l FROM DailyActivityLogEntity l WHERE l.user = :user AND l.date = :date";
+    private static final String USER_STATS_JPQL =
+        "SELECT s FROM UserStatsEntity s WHERE s.user = :user";
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final ReplicaLagTracker replicaLagTracker;
+
+    public HistoryBulkWriteService(EntityManager entityManager, int batchSize) {
+        this(entityManager, batchSize, new ReplicaLagTracker(0));
+    }
+
+    @Autowired
+    public HistoryBulkWriteService(EntityManager entityManager,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                                   ReplicaLagTracker replicaLagTracker) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.replicaLagTracker = replicaLagTracker;
+    }
+
+    /**
+     * Records a habit check, the activity log of its day and the user's stats after it. Every
+     * check is stored as its own row, so a habit missed and then done on a day is rebuilt with
+     * both checks, as it was held in memory.
+     *
+     * @param habit the stored habit
+     * @param check the check
+     * @param dayLog the check's day as held in memory after the check
+     * @param transaction the XP the check awarded or took
+     * @param userStats the user's stats after the check
+     * @throws IllegalStateException if the user has no stored stats
+     */
+    @Transactional
+    public void recordHabitCheck(HabitEntity habit, HabitCheck check, DailyActivityLog dayLog,
+                                 XpTransaction transaction, UserStats userStats) {
+        if (habit == null || check == null || dayLog == null || transaction == null || userStats == null) {
+            throw new IllegalArgumentException("Habit, check, day log, transaction and stats are required");
+        }
+        UserEntity user = habit.getUser();
+        writeUserStats(user, userStats);
+        DailyActivityLogEntity log = writeDayLog(user, dayLog);
+        HabitCheckEntity row = DomainEntityMapper.toHabitCheckEntity(habit, check);
+        row.setActivityLog(log);
+        log.getHabitChecks().add(row);
+        entityManager.persist(row);
+        writeXpEntry(user, check.date(), transaction, XpHistoryEntryEntity.XpSourceEnum.HABIT);
+        replicaLagTracker.recordWriteOnCommit(user.getId());
+    }
+
+    /**
+     * Records a goal note, and the activity log of its day if the note added XP to it. A goal
+     * takes one note per day, which {@link org.example.GoalService} enforces before the note
+     * gets here.
+     *
+     * @param goal the stored goal
+     * @param note the note
+     * @param dayLog the note's day as held in memory after the note
+     * @param transaction the XP the note awarded
+     * @param userStats the user's stats after the note
+     * @throws IllegalStateException if the user has no stored stats
+     */
+    @Transactional
+    public void recordGoalNote(GoalEntity goal, GoalNote note, DailyActivityLog dayLog, XpTransaction transaction,
+                               UserStats userStats) {
+        if (goal == null || note == null || dayLog == null || transaction == null || userStats == null) {
+            throw new IllegalArgumentException("Goal, note, day log, transaction and stats are required");
+        }
+        UserEntity user = goal.getUser();
+        writeUserStats(user, userStats);
+        // A note without XP leaves the day as it was, which may be no logged activity at all
+        if (!transaction.isNoOp()) {
+            writeDayLog(user, dayLog);
+        }
+        entityManager.persist(DomainEntityMapper.toGoalNoteEntity(goal, note));
+        writeXpEntry(user, note.date(), transaction, XpHistoryEntryEntity.XpSourceEnum.GOAL);
+        replicaLagTracker.recordWriteOnCommit(user.getId());
+    }
+
+    private void writeUserStats(UserEntity user, UserStats userStats) {
+        UserStatsEntity stats = entityManager.createQuery(USER_STATS_JPQL, UserStatsEntity.class)
+            .setParameter("user", user)
+            .getResultStream()
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("User stats not found for user: " + user.getId()));
+        stats.setTotalXp(userStats.getTotalXp());
+        stats.setLevel(userStats.getLevel());
+    }
+
+    private DailyActivityLogEntity writeDayLog(UserEntity user, DailyActivityLog dayLog) {
+        DailyActivityLogEntity log = entityManager.createQuery(DAY_LOG_JPQL, DailyActivityLogEntity.class)
+            .setParameter("user", user)
+            .setParameter("date", dayLog.getDate())
+            .getResultStream()
+            .findFirst()
+            .orElse(null);
+        if (log == null) {
+            log = new DailyActivityLogEntity(user, dayLog.getDate(), dayLog.getXpGained());
+            entityManager.persist(log);
+        } else {
+            log.setXpGained(dayLog.getXpGained());
+        }
+        return log;
+    }
+
+    private void writeXpEntry(UserEntity user, LocalDate date, XpTransaction transaction,
+                              XpHistoryEntryEntity.XpSourceEnum source) {
+        if (!transaction.isNoOp()) {
+            entityManager.persist(new XpHistoryEntryEntity(user, date, transaction.amount(), source));
+        }
+    }
+
+    /**
+     * Inserts habit checks in JDBC batches.
+     *
+     * @param checks the new checks
+     * @return the number of checks written
+     */
+    @Transactional
+    public int writeHabitChecks(List<HabitCheckEntity> checks) {
+        return persistInBatches(checks);
+    }
+
+    /**
+     * Inserts goal notes in JDBC batches.
+     *
+     * @param notes the new notes
+     * @return the number of notes written
+     */
+    @Transactional
+    public int writeGoalNotes(List<GoalNoteEntity> notes) {
+        return persistInBatches(notes);
+    }
+
+    /**
+     * Inserts XP history entries in JDBC batches.
+     *
+     * @param entries the new entries
+     * @return the number of entries written
+     */
+    @Transactional
+    public int writeXpHistory(List<XpHistoryEntryEntity> entries) {
+        return persistInBatches(entries);
+    }
+
+    private int persistInBatches(List<?> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Rows cannot be null");
+        }
+        int written = 0;
+        for (Object row : rows) {
+            if (row == null) {
+                throw new IllegalArgumentException("Rows cannot contain null");
+            }
+            entityManager.persist(row);
+            written++;
+            if (written % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return written;
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.service;
+
+import org.example.Habit;
+import org.example.HabitCheckResult;
+import org.example.XpCalculator;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.partition.MonthlyPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service that keeps the history tables bounded: raw XP entries, habit checks and goal notes
+ * older than a configurable number of months are compacted into one
+ * {@code history_daily_rollups} row per user and day, and the raw rows are then dropped.
+ *
+ * Each expired month is rolled up in its own transaction, and its raw rows are removed in
+ * that same transaction only after the rollup rows are written, so a failed rollup leaves the
+ * raw history untouched. Rollup rows are added to rather than replaced, so history backfilled
+ * into an already rolled-up month is merged on the next run. A rollup row also keeps the XP
+ * its day's habit checks were worth, so history and analytics reads list the same XP for the
+ * day after its checks are dropped.
+ *
+ * On PostgreSQL, where the history tables are partitioned by month, the job also creates the
+ * partitions for the coming months and drops an expired month's partition instead of deleting
+ * its rows one by one. Other databases keep plain tables and use range deletes.
+ */
+@Service
+public class HistoryRetentionService {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String OLDEST_DATE_SQL =
+        "SELECT MIN(d) FROM ("
+            + "SELECT MIN(date) AS d FROM xp_history_entries "
+            + "UNION ALL SELECT MIN(date) FROM habit_checks "
+            + "UNION ALL SELECT MIN(date) FROM goal_notes) oldest";
+    private static final String DAILY_TOTALS_SQL =
+        "SELECT user_id, date, SUM(xp_gained), SUM(xp_entries), SUM(habits_done), SUM(habits_missed), "
+            + "SUM(goal_notes), SUM(goal_points), SUM(habit_xp) FROM ("
+            + "SELECT user_id, date, xp_change AS xp_gained, 1 AS xp_entries, 0 AS habits_done, "
+            + "0 AS habits_missed, 0 AS goal_notes, 0 AS goal_points, 0 AS habit_xp "
+            + "FROM xp_history_entries WHERE date >= ? AND date < ? "
+            + "UNION ALL SELECT h.user_id, hc.date, 0, 0, "
+            + "CASE WHEN hc.result = 'DONE' THEN 1 ELSE 0 END, CASE WHEN hc.result = 'MISSED' THEN 1 ELSE 0 END, 0, 0, "
+            + habitXpCase() + " "
+            + "FROM habit_checks hc JOIN habits h ON h.id = hc.habit_id WHERE hc.date >= ? AND hc.date < ? "
+            + "UNION ALL SELECT g.user_id, gn.date, 0, 0, 0, 0, 1, gn.points, 0 "
+            + "FROM goal_notes gn JOIN goals g ON g.id = gn.goal_id WHERE gn.date >= ? AND gn.date < ?"
+            + ") history GROUP BY user_id, date ORDER BY date, user_id";
+    private static final String ADD_TO_ROLLUP_SQL =
+        "UPDATE history_daily_rollups SET xp_gained = xp_gained + ?, xp_entries = xp_entries + ?, "
+            + "habits_done = habits_done + ?, habits_missed = habits_missed + ?, "
+            + "goal_notes = goal_notes + ?, goal_points = goal_points + ?, habit_xp = habit_xp + ? "
+            + "WHERE user_id = ? AND date = ?";
+    private static final String INSERT_ROLLUP_SQL =
+        "INSERT INTO history_daily_rollups (xp_gained, xp_entries, habits_done, habits_missed, goal_notes, "
+            + "goal_points, habit_xp, user_id, date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String IS_PARTITIONED_SQL =
+        "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?";
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM pg_class WHERE relname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rollupAfterMonths;
+    private final int partitionsAheadMonths;
+    private final Clock clock;
+    private Boolean postgres;
+
+    @Autowired
+    public HistoryRetentionService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                   @Value("${history.retention.rollup-after-months:12}") int rollupAfterMonths,
+                                   @Value("${history.retention.partitions-ahead-months:3}") int partitionsAheadMonths) {
+        this(dataSource, transactionManager, rollupAfterMonths, partitionsAheadMonths, Clock.systemDefaultZone());
+    }
+
+    HistoryRetentionService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                            int rollupAfterMonths, int partitionsAheadMonths, Clock clock) {
+        if (rollupAfterMonths <= 0) {
+            throw new IllegalArgumentException("Rollup age must be at least one month");
+        }
+        if (partitionsAheadMonths < 0) {
+            throw new IllegalArgumentException("Partitions ahead cannot be negative");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rollupAfterMonths = rollupAfterMonths;
+        this.partitionsAheadMonths = partitionsAheadMonths;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates the coming months' partitions, then rolls up expired history.
+     */
+    @Scheduled(cron = "${history.retention.cron:0 30 2 * * *}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(clock);
+        ensurePartitions(today);
+        rollUpExpiredHistory(today);
+    }
+
+    /**
+     * Creates the monthly partitions from the current month through the configured number of
+     * months ahead. Does nothing unless the history tables are partitioned PostgreSQL tables.
+     *
+     * @param today the current date
+     * @return the number of partitions checked or created
+     */
+    public int ensurePartitions(LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        int ensured = 0;
+        for (String table : MonthlyPartition.HISTORY_TABLES) {
+            if (!isPartitioned(table)) {
+                continue;
+            }
+            for (int ahead = 0; ahead <= partitionsAheadMonths; ahead++) {
+                jdbcTemplate.execute(new MonthlyPartition(table, YearMonth.from(today).plusMonths(ahead)).createSql());
+                ensured++;
+            }
+        }
+        return ensured;
+    }
+
+    /**
+     * Rolls up every month older than the configured age into daily per-user rows, oldest
+     * month first, and drops the raw rows of each month once it is rolled up.
+     *
+     * @param today the current date; months before the one this many months back are expired
+     * @return the number of raw rows rolled up
+     */
+    public long rollUpExpiredHistory(LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        YearMonth firstKept = YearMonth.from(today).minusMonths(rollupAfterMonths);
+        long rolledUp = 0;
+        LocalDate oldest;
+        // Each rolled-up month is emptied, so the next oldest date moves on to the next month with history
+        while ((oldest = jdbcTemplate.queryForObject(OLDEST_DATE_SQL, LocalDate.class)) != null
+            && YearMonth.from(oldest).isBefore(firstKept)) {
+            YearMonth month = YearMonth.from(oldest);
+            rolledUp += transactionTemplate.execute(status -> rollUpMonth(month));
+        }
+        return rolledUp;
+    }
+
+    private long rollUpMonth(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long[] rawRows = new long[1];
+        jdbcTemplate.query(DAILY_TOTALS_SQL, rs -> {
+            Object[] totals = new Object[]{rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6), rs.getInt(7),
+                rs.getInt(8), rs.getInt(9), rs.getLong(1), rs.getObject(2, LocalDate.class)};
+            rawRows[0] += rs.getLong(4) + rs.getLong(5) + rs.getLong(6) + rs.getLong(7);
+            batch.add(totals);
+            if (batch.size() == BATCH_SIZE) {
+                writeRollups(batch);
+                batch.clear();
+            }
+        }, from, to, from, to, from, to);
+        writeRollups(batch);
+
+        for (String table : MonthlyPartition.HISTORY_TABLES) {
+            MonthlyPartition partition = new MonthlyPartition(table, month);
+            if (isPartitioned(table) && countOf(TABLE_EXISTS_SQL, partition.name()) > 0) {
+                jdbcTemplate.execute(partition.dropSql());
+            }
+            // Also clears rows of the month that landed in a default partition or a plain table
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE date >= ? AND date < ?", from, to);
+        }
+        return rawRows[0];
+    }
+
+    /**
+     * Builds the SQL expression for the XP a habit check ({@code hc}) of a habit ({@code h}) is
+     * worth, from the XP calculator, so the rollup matches the XP history built in memory.
+     */
+    private static String habitXpCase() {
+        XpCalculator xpCalculator = new XpCalculator();
+        StringBuilder sql = new StringBuilder("CASE");
+        for (HabitEntity.DifficultyEnum difficulty : HabitEntity.DifficultyEnum.values()) {
+            Habit habit = new Habit("rollup", DomainEntityMapper.toDifficulty(difficulty));
+            for (HabitCheckResult result : HabitCheckResult.values()) {
+                sql.append(" WHEN h.difficulty = ").append(difficulty.ordinal())
+                    .append(" AND hc.result = '").append(result.name()).append("' THEN ")
+                    .append(xpCalculator.calculateTransaction(habit, result).amount());
+            }
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+
+    private void writeRollups(List<Object[]> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(ADD_TO_ROLLUP_SQL, totals);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(totals.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ROLLUP_SQL, inserts);
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        if (!isPostgres()) {
+            return false;
+        }
+        return countOf(IS_PARTITIONED_SQL, table) > 0;
+    }
+
+    private int countOf(String sql, String name) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, name);
+        return count != null ? count : 0;
+    }
+
+    private synchronized boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
@@ -1,17 +1,16 @@
 package org.example.service;
 
 import org.example.LeaderboardEntry;
-import org.example.UserStats;
-import org.example.persistence.entity.UserEntity;
+import org.example.metrics.HotPathMetrics;
+import org.example.persistence.projection.UserXpSummary;
 import org.example.persistence.repository.UserRepository;
-import org.example.persistence.repository.UserStatsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Service for managing leaderboard functionality.
@@ -19,12 +18,10 @@ import java.util.stream.Collectors;
 @Service
 public class LeaderboardService {
     private final UserRepository userRepository;
-    private final UserStatsRepository userStatsRepository;
 
     @Autowired
-    public LeaderboardService(UserRepository userRepository, UserStatsRepository userStatsRepository) {
+    public LeaderboardService(UserRepository userRepository) {
         this.userRepository = userRepository;
-        this.userStatsRepository = userStatsRepository;
     }
 
     /**
@@ -33,6 +30,7 @@ public class LeaderboardService {
      * @param limit the maximum number of entries to return (default 10)
      * @return a list of leaderboard entries sorted by XP (descending)
      */
+    @Transactional(readOnly = true)
     public List<LeaderboardEntry> getTopUsers(int limit) {
         if (limit <= 0) {
             limit = 10;
@@ -40,42 +38,24 @@ public class LeaderboardService {
         if (limit > 100) {
             limit = 100; // Cap at 100
         }
+        int cappedLimit = limit;
+        return HotPathMetrics.time(HotPathMetrics.LEADERBOARD, () -> rankUsers(cappedLimit));
+    }
 
-        List<UserEntity> allUsers = userRepository.findAll();
-        List<LeaderboardEntry> entries = new ArrayList<>();
-
-        for (UserEntity user : allUsers) {
-            UserStats stats = userStatsRepository.findByUser(user)
-                .map(statsEntity -> org.example.persistence.mapper.DomainEntityMapper.toUserStats(statsEntity))
-                .orElse(org.example.UserStats.createNew());
-            
+    private List<LeaderboardEntry> rankUsers(int limit) {
+        // Ranking and the limit are applied in the query, which reads only the ranked columns
+        List<UserXpSummary> ranked = userRepository.findLeaderboard(Limit.of(limit));
+        List<LeaderboardEntry> entries = new ArrayList<>(ranked.size());
+        for (UserXpSummary user : ranked) {
             entries.add(new LeaderboardEntry(
-                user.getId(),
-                user.getUsername(),
-                stats.getTotalXp(),
-                stats.getLevel(),
-                0 // Rank will be set after sorting
+                user.userId(),
+                user.username(),
+                user.totalXp() != null ? user.totalXp() : 0,
+                user.level() != null ? user.level() : 1,
+                entries.size() + 1
             ));
         }
-
-        // Sort by XP descending, then by level descending
-        entries.sort(Comparator
-            .comparing(LeaderboardEntry::totalXp, Comparator.reverseOrder())
-            .thenComparing(LeaderboardEntry::level, Comparator.reverseOrder()));
-
-        // Assign ranks
-        for (int i = 0; i < entries.size(); i++) {
-            LeaderboardEntry entry = entries.get(i);
-            entries.set(i, new LeaderboardEntry(
-                entry.userId(),
-                entry.username(),
-                entry.totalXp(),
-                entry.level(),
-                i + 1
-            ));
-        }
-
-        return entries.stream().limit(limit).collect(Collectors.toList());
+        return entries;
     }
 
     /**
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Service that delivers activity notifications (streak warnings, level-ups and motivational
+ * messages) into a user's inbox when a habit check or goal note changes their progress.
+ *
+ * Notifications are derived from the event rather than recomputed from the user's history:
+ * a level-up when the event raised the user's level, a streak warning from the checked
+ * habit's current run, which is read back from today, and a motivational message from the
+ * consistency of the user's goals after a note, computed until that day's message is delivered.
+ *
+ * Reading the inbox never produces notifications; habit reminders and goal deadline warnings
+ * are delivered by {@link NotificationTimerService} when they fall due.
+ */
+@Service
+public class NotificationDeliveryService {
+    private final NotificationService notificationService;
+    private final AnalyticsService analyticsService;
+    private final Clock clock;
+
+    @Autowired
+    public NotificationDeliveryService(NotificationService notificationService, AnalyticsService analyticsService) {
+        this(notificationService, analyticsService, Clock.systemDefaultZone());
+    }
+
+    NotificationDeliveryService(NotificationService notificationService, AnalyticsService analyticsService,
+                                Clock clock) {
+        this.notificationService = notificationService;
+        this.analyticsService = analyticsService;
+        this.clock = clock;
+    }
+
+    /**
+     * Delivers the notifications due after a habit check.
+     */
+    @EventListener
+    public void onHabitChecked(HabitChecked event) {
+        LocalDate today = LocalDate.now(clock);
+        Habit habit = event.check().habit();
+        Run run = currentRun(event.habitService(), habit, today);
+        notificationService.deliverHabitCheckNotifications(event.userId(), event.before(), event.after(), habit,
+            run.length(), run.startDate(), today);
+    }
+
+    /**
+     * Delivers the notifications due after a goal note.
+     */
+    @EventListener
+    public void onGoalNoteAdded(GoalNoteAdded event) {
+        LocalDate today = LocalDate.now(clock);
+        GoalService goalService = event.goalService();
+        notificationService.deliverGoalNoteNotifications(event.userId(), event.before(), event.after(),
+            () -> analyticsService.calculateAllGoalConsistency(goalService.getAllGoals(), goalService, today)
+                .values().stream()
+                .mapToDouble(GoalConsistency::consistencyScore)
+                .average()
+                .orElse(0.0),
+            today);
+    }
+
+    /**
+     * Reads a habit's active run of completed days back from today, following the rules of
+     * {@link HabitStreakCalculator}: a run is active if the habit's latest check is a completion
+     * today or yesterday, and a day without a completion of the habit, or with a miss, ends it.
+     * Only the days of the run are read.
+     */
+    private static Run currentRun(HabitService habitService, Habit habit, LocalDate today) {
+        Iterator<DailyActivityLog> logs = habitService.descendingActivityLogs(today);
+        LocalDate expected = null;
+        int length = 0;
+        while (logs.hasNext()) {
+            DailyActivityLog log = logs.next();
+            if (expected == null && log.getDate().isBefore(today.minusDays(1))) {
+                break; // Not checked today or yesterday
+            }
+            if (expected != null && !log.getDate().equals(expected)) {
+                break;
+            }
+            HabitCheck latest = null;
+            boolean missed = false;
+            for (HabitCheck check : log.getHabitChecks()) {
+                if (check.habit().equals(habit)) {
+                    latest = check;
+                    missed |= check.isMissed();
+                }
+            }
+            if (latest == null && expected == null) {
+                continue; // Not checked today, the run may end yesterday
+            }
+            if (latest == null || !latest.isDone()) {
+                break;
+            }
+            length++;
+            expected = log.getDate().minusDays(1);
+            if (missed) {
+                break; // Completed after a miss on the same day, so the run starts here
+            }
+        }
+        return new Run(length, length > 0 ? expected.plusDays(1) : null);
+    }
+
+    private record Run(int length, LocalDate startDate) {
+    }
+}
@@ -0,0 +1,434 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.*;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.projection.GoalDeadline;
+import org.example.persistence.projection.HabitSummary;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.timer.TimerJournal;
+import org.example.timer.TimerRecord;
+import org.example.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service that delivers habit reminders and goal deadline warnings into users' inboxes
+ * when they fall due.
+ *
+ * Each user with reminders enabled has one recurring reminder timer, and each goal has one
+ * deadline timer that fires daily during the week before its target date. Timers live in a
+ * {@link TimingWheel} driven by a pluggable clock and are journaled to disk, so pending
+ * timers survive a restart; timers that fell due while the application was down fire on
+ * the first tick, and occurrences from a previous day are skipped rather than delivered late.
+ * On startup every stored goal that is still due gets a deadline timer if the journal has none
+ * for it. Habit reminders list the user's stored habits, so they reach every user with
+ * reminders enabled, whether or not their history is held in memory, and cover habits that
+ * were never checked.
+ */
+@Service
+public class NotificationTimerService {
+    private static final int DEADLINE_WARNING_DAYS = 7;
+    private static final int MIN_FRAMES_BEFORE_REWRITE = 1024;
+
+    private final UserService userService;
+    private final NotificationService notificationService;
+    private final GoalRepository goalRepository;
+    private final HabitRepository habitRepository;
+    private final Path journalPath;
+    private final Clock clock;
+    private final TimingWheel<TimerRecord> wheel;
+    private final Map<Long, TimingWheel.Timeout<TimerRecord>> timers = new HashMap<>();
+    private final Map<Long, Long> reminderTimerIds = new HashMap<>();
+    private final Map<GoalKey, Long> deadlineTimerIds = new HashMap<>();
+    private long nextTimerId = 1;
+    private TimerJournal journal;
+
+    @Autowired
+    public NotificationTimerService(UserService userService, NotificationService notificationService,
+                                    GoalRepository goalRepository, HabitRepository habitRepository,
+                                    @Value("${notifications.timers.journal:${java.io.tmpdir}/future-you-timers.journal}") String journalPath,
+                                    @Value("${notifications.timers.tick-ms:1000}") long tickMillis) {
+        this(userService, notificationService, goalRepository, habitRepository, Paths.get(journalPath), tickMillis,
+            Clock.systemDefaultZone());
+    }
+
+    NotificationTimerService(UserService userService, NotificationService notificationService,
+                             HabitRepository habitRepository, Path journalPath, long tickMillis, Clock clock) {
+        this(userService, notificationService, null, habitRepository, journalPath, tickMillis, clock);
+    }
+
+    NotificationTimerService(UserService userService, NotificationService notificationService,
+                             GoalRepository goalRepository, HabitRepository habitRepository, Path journalPath,
+                             long tickMillis, Clock clock) {
+        this.userService = userService;
+        this.notificationService = notificationService;
+        this.goalRepository = goalRepository;
+        this.habitRepository = habitRepository;
+        this.journalPath = journalPath;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, clock.millis());
+    }
+
+    /**
+     * Loads the timers pending in the journal, compacts it, and schedules deadline warnings
+     * for the stored goals that have none.
+     */
+    @PostConstruct
+    public synchronized void loadTimers() {
+        try {
+            List<TimerRecord> pending = TimerJournal.load(journalPath);
+            for (TimerRecord timer : pending) {
+                register(timer);
+                nextTimerId = Math.max(nextTimerId, timer.id() + 1);
+            }
+            journal = TimerJournal.rewrite(journalPath, pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load notification timers from " + journalPath, e);
+        }
+        if (goalRepository != null) {
+            scheduleMissingGoalDeadlines(goalRepository.findDeadlinesAfter(LocalDate.now(clock)));
+        }
+    }
+
+    /**
+     * Schedules deadline warnings for the goals that have no pending timer. Of several goals
+     * with the same user and title, the first one listed is kept.
+     *
+     * @param deadlines the goals' deadlines
+     * @return the number of goals scheduled
+     */
+    public synchronized int scheduleMissingGoalDeadlines(List<GoalDeadline> deadlines) {
+        int scheduled = 0;
+        Set<GoalKey> seen = new HashSet<>();
+        for (GoalDeadline deadline : deadlines) {
+            GoalKey key = new GoalKey(deadline.userId(), deadline.title());
+            if (seen.add(key) && !deadlineTimerIds.containsKey(key)) {
+                if (scheduleDeadline(deadline.userId(), deadline.title(), deadline.targetDate(),
+                        userService.getUserPreferences(deadline.userId()))) {
+                    scheduled++;
+                }
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * Reschedules a user's habit reminder and pending deadline warnings after their
+     * preferences changed, so they fire at the new reminder time and in the new time zone.
+     *
+     * @param userId the user's id
+     * @param preferences the user's new preferences
+     */
+    public synchronized void updatePreferences(Long userId, UserPreferences preferences) {
+        scheduleHabitReminders(userId, preferences);
+        List<TimerRecord> deadlines = new ArrayList<>();
+        for (Map.Entry<GoalKey, Long> entry : deadlineTimerIds.entrySet()) {
+            if (userId.equals(entry.getKey().userId())) {
+                deadlines.add(timers.get(entry.getValue()).getPayload());
+            }
+        }
+        for (TimerRecord timer : deadlines) {
+            cancelTimer(deadlineTimerIds.remove(new GoalKey(userId, timer.subject())));
+            scheduleDeadline(userId, timer.subject(), timer.targetDate(), preferences);
+        }
+    }
+
+    /**
+     * Flushes and closes the journal.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close notification timer journal", e);
+        } finally {
+            journal = null;
+        }
+    }
+
+    /**
+     * Schedules a user's daily habit reminder from their preferences, replacing any existing one.
+     * Nothing is scheduled if reminders are disabled.
+     *
+     * @param userId the user's id
+     * @param preferences the user's preferences
+     */
+    public synchronized void scheduleHabitReminders(Long userId, UserPreferences preferences) {
+        cancelTimer(reminderTimerIds.remove(userId));
+        if (!preferences.isEmailNotifications() || preferences.getDailyReminderTime() == null) {
+            return;
+        }
+        ZoneId zone = zoneOf(preferences);
+        ZonedDateTime next = nextOccurrence(preferences.getDailyReminderTime(), zone);
+        schedule(new TimerRecord(nextTimerId++, userId, NotificationType.HABIT_REMINDER,
+            next.toInstant().toEpochMilli(), zone.getId(), "", null));
+    }
+
+    /**
+     * Schedules the deadline warnings for a goal, replacing any existing timer for it.
+     * Warnings fire at the user's reminder time on each of the seven days before the target date.
+     *
+     * @param userId the user's id
+     * @param goal the goal
+     */
+    public synchronized void scheduleGoalDeadline(Long userId, Goal goal) {
+        cancelTimer(deadlineTimerIds.remove(new GoalKey(userId, goal.getTitle())));
+        scheduleDeadline(userId, goal.getTitle(), goal.getTargetDate(), userService.getUserPreferences(userId));
+    }
+
+    private boolean scheduleDeadline(Long userId, String goalTitle, LocalDate targetDate,
+                                     UserPreferences preferences) {
+        ZoneId zone = zoneOf(preferences);
+        LocalDate today = LocalDate.now(clock.withZone(zone));
+        LocalDate firstDay = targetDate.minusDays(DEADLINE_WARNING_DAYS);
+        if (firstDay.isBefore(today)) {
+            firstDay = today;
+        }
+        if (!firstDay.isBefore(targetDate)) {
+            return false;
+        }
+        ZonedDateTime first = firstDay.atTime(reminderTimeOf(preferences)).atZone(zone);
+        if (first.toInstant().isBefore(clock.instant())) {
+            // Today's warning is already due
+            first = ZonedDateTime.now(clock.withZone(zone));
+        }
+        schedule(new TimerRecord(nextTimerId++, userId, NotificationType.GOAL_DEADLINE,
+            first.toInstant().toEpochMilli(), zone.getId(), goalTitle, targetDate));
+        return true;
+    }
+
+    /**
+     * Cancels a user's habit reminder.
+     *
+     * @param userId the user's id
+     * @return true if a reminder was pending
+     */
+    public synchronized boolean cancelHabitReminders(Long userId) {
+        return cancelTimer(reminderTimerIds.remove(userId));
+    }
+
+    /**
+     * Cancels the deadline warnings for a goal.
+     *
+     * @param userId the user's id
+     * @param goalTitle the goal title
+     * @return true if a warning was pending
+     */
+    public synchronized boolean cancelGoalDeadline(Long userId, String goalTitle) {
+        return cancelTimer(deadlineTimerIds.remove(new GoalKey(userId, goalTitle)));
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the pending timer count
+     */
+    public synchronized int getPendingTimerCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Fires the timers that are due, delivers their notifications and schedules the next occurrences.
+     *
+     * @return the number of notifications delivered
+     */
+    @Scheduled(fixedDelayString = "${notifications.timers.tick-ms:1000}")
+    public int fireDueTimers() {
+        List<TimerRecord> due;
+        synchronized (this) {
+            due = wheel.advanceTo(clock.millis());
+            for (TimerRecord timer : due) {
+                timers.remove(timer.id());
+                if (timer.type() == NotificationType.HABIT_REMINDER) {
+                    reminderTimerIds.remove(timer.userId(), timer.id());
+                } else {
+                    deadlineTimerIds.remove(new GoalKey(timer.userId(), timer.subject()), timer.id());
+                }
+                journal(() -> journal.appendRemoved(timer.id()));
+            }
+        }
+
+        int delivered = 0;
+        for (TimerRecord timer : due) {
+            delivered += timer.type() == NotificationType.HABIT_REMINDER
+                ? fireHabitReminder(timer)
+                : fireGoalDeadline(timer);
+        }
+
+        synchronized (this) {
+            compactJournalIfNeeded();
+            journal(() -> journal.flush());
+        }
+        return delivered;
+    }
+
+    private int fireHabitReminder(TimerRecord timer) {
+        ZoneId zone = ZoneId.of(timer.zone());
+        ZonedDateTime occurrence = Instant.ofEpochMilli(timer.deadlineMillis()).atZone(zone);
+        int delivered = 0;
+        if (!isStale(occurrence)) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            // The stored habit list, read without loading the user's history into memory
+            List<Habit> habits = new ArrayList<>();
+            for (HabitSummary summary : habitRepository.findSummariesByUserId(timer.userId())) {
+                habits.add(new Habit(summary.name(), DomainEntityMapper.toDifficulty(summary.difficulty())));
+            }
+            for (Notification reminder : notificationService.createHabitReminders(habits,
+                    occurrence.toLocalDateTime(), now)) {
+                delivered += deliver(timer.userId(), reminder, occurrence.toLocalDate());
+            }
+        }
+
+        synchronized (this) {
+            if (!reminderTimerIds.containsKey(timer.userId())) {
+                ZonedDateTime next = nextOccurrence(occurrence.toLocalTime(), zone);
+                schedule(new TimerRecord(nextTimerId++, timer.userId(), NotificationType.HABIT_REMINDER,
+                    next.toInstant().toEpochMilli(), timer.zone(), "", null));
+            }
+        }
+        return delivered;
+    }
+
+    private int fireGoalDeadline(TimerRecord timer) {
+        ZoneId zone = ZoneId.of(timer.zone());
+        ZonedDateTime occurrence = Instant.ofEpochMilli(timer.deadlineMillis()).atZone(zone);
+        int delivered = 0;
+        if (!isStale(occurrence)) {
+            Notification warning = notificationService.createGoalDeadlineWarning(timer.subject(),
+                timer.targetDate(), occurrence.toLocalDate(), LocalDateTime.now(clock));
+            if (warning != null) {
+                delivered += deliver(timer.userId(), warning, occurrence.toLocalDate());
+            }
+        }
+
+        LocalDate nextDay = LocalDate.now(clock.withZone(zone)).plusDays(1);
+        if (nextDay.isBefore(timer.targetDate())) {
+            LocalTime reminderTime = reminderTimeOf(userService.getUserPreferences(timer.userId()));
+            synchronized (this) {
+                GoalKey key = new GoalKey(timer.userId(), timer.subject());
+                if (!deadlineTimerIds.containsKey(key)) {
+                    schedule(new TimerRecord(nextTimerId++, timer.userId(), NotificationType.GOAL_DEADLINE,
+                        nextDay.atTime(reminderTime).atZone(zone).toInstant().toEpochMilli(), timer.zone(),
+                        timer.subject(), timer.targetDate()));
+                }
+            }
+        }
+        return delivered;
+    }
+
+    private int deliver(long userId, Notification notification, LocalDate date) {
+        String key = NotificationService.deliveryKey(notification, date);
+        return notificationService.deliver(userId, key, notification) != null ? 1 : 0;
+    }
+
+    private boolean isStale(ZonedDateTime occurrence) {
+        // An occurrence missed during downtime is dropped once its day is over
+        return occurrence.toLocalDate().isBefore(LocalDate.now(clock.withZone(occurrence.getZone())));
+    }
+
+    private ZonedDateTime nextOccurrence(LocalTime time, ZoneId zone) {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(zone));
+        ZonedDateTime next = now.toLocalDate().atTime(time).atZone(zone);
+        return next.isAfter(now) ? next : next.plusDays(1);
+    }
+
+    private void schedule(TimerRecord timer) {
+        register(timer);
+        journal(() -> journal.appendScheduled(timer));
+    }
+
+    private void register(TimerRecord timer) {
+        timers.put(timer.id(), wheel.schedule(timer.deadlineMillis(), timer));
+        if (timer.type() == NotificationType.HABIT_REMINDER) {
+            reminderTimerIds.put(timer.userId(), timer.id());
+        } else {
+            deadlineTimerIds.put(new GoalKey(timer.userId(), timer.subject()), timer.id());
+        }
+    }
+
+    private boolean cancelTimer(Long timerId) {
+        if (timerId == null) {
+            return false;
+        }
+        TimingWheel.Timeout<TimerRecord> timeout = timers.remove(timerId);
+        if (timeout == null || !wheel.cancel(timeout)) {
+            return false;
+        }
+        journal(() -> journal.appendRemoved(timerId));
+        return true;
+    }
+
+    private void compactJournalIfNeeded() {
+        long frames = journal.getFrameCount();
+        if (frames < MIN_FRAMES_BEFORE_REWRITE || frames < 4L * timers.size()) {
+            return;
+        }
+        List<TimerRecord> pending = new ArrayList<>(timers.size());
+        for (TimingWheel.Timeout<TimerRecord> timeout : timers.values()) {
+            pending.add(timeout.getPayload());
+        }
+        journal(() -> {
+            journal.close();
+            journal = TimerJournal.rewrite(journalPath, pending);
+        });
+    }
+
+    private void journal(JournalWrite write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write notification timer journal " + journalPath, e);
+        }
+    }
+
+    private ZoneId zoneOf(UserPreferences preferences) {
+        if (preferences.getTimezone() == null) {
+            return clock.getZone();
+        }
+        try {
+            return ZoneId.of(preferences.getTimezone());
+        } catch (DateTimeException e) {
+            return clock.getZone();
+        }
+    }
+
+    private static LocalTime reminderTimeOf(UserPreferences preferences) {
+        LocalTime time = preferences.getDailyReminderTime();
+        return time != null ? time : LocalTime.of(9, 0);
+    }
+
+    private interface JournalWrite {
+        void run() throws IOException;
+    }
+
+    private record GoalKey(long userId, String goalTitle) {
+    }
+}
@@ -0,0 +1,278 @@
+package org.example.service;
+
+import org.example.*;
+import org.example.dto.LevelUpDto;
+import org.example.dto.mapper.DtoMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service for pushing per-user events (new notifications, unread counts, XP updates and
+ * level-ups) to connected clients over Server-Sent Events.
+ *
+ * Each connection has a bounded buffer. Publishing never blocks: events are queued and a
+ * sender task, run on a virtual thread, drains the buffer only while there is something to
+ * send, so idle connections hold no thread. A connection whose buffer overflows is closed;
+ * the client reconnects and receives a fresh unread count.
+ */
+@Service
+public class UserEventStreamService {
+    static final String EVENT_NOTIFICATION = "notification";
+    static final String EVENT_UNREAD_COUNT = "unread-count";
+    static final String EVENT_XP = "xp";
+    static final String EVENT_LEVEL_UP = "level-up";
+
+    private final NotificationService notificationService;
+    private final Executor senderExecutor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong droppedSubscriptions = new AtomicLong();
+
+    @Autowired
+    public UserEventStreamService(NotificationService notificationService,
+                                  @Value("${events.stream.buffer-size:64}") int bufferSize,
+                                  @Value("${events.stream.timeout-ms:1800000}") long timeoutMillis) {
+        this(notificationService, virtualThreadExecutor(), bufferSize, timeoutMillis);
+    }
+
+    UserEventStreamService(NotificationService notificationService, Executor senderExecutor, int bufferSize,
+                           long timeoutMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Event buffer size must be positive");
+        }
+        this.notificationService = notificationService;
+        this.senderExecutor = senderExecutor;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        notificationService.addListener(this::publishNotification);
+    }
+
+    private static Executor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("user-events-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Opens an event stream for a user. The current unread count is sent first.
+     *
+     * @param userId the user's id
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long userId) {
+        return subscribe(userId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long userId, SseEmitter emitter) {
+        Subscription subscription = new Subscription(userId, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        subscriptions.compute(userId, (id, existing) -> {
+            Set<Subscription> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        subscription.offer(new Event(EVENT_UNREAD_COUNT, notificationService.getUnreadCount(userId)));
+        return emitter;
+    }
+
+    /**
+     * Pushes a newly delivered notification and the new unread count to a user's streams.
+     *
+     * @param userId the user's id
+     * @param notification the notification
+     */
+    public void publishNotification(Long userId, Notification notification) {
+        if (!subscriptions.containsKey(userId)) {
+            return;
+        }
+        publish(userId, new Event(EVENT_NOTIFICATION, DtoMapper.toNotificationDto(notification)));
+        publish(userId, new Event(EVENT_UNREAD_COUNT, notificationService.getUnreadCount(userId)));
+    }
+
+    /**
+     * Pushes the XP change of a habit check published after it was saved.
+     */
+    @EventListener
+    public void onHabitChecked(HabitChecked event) {
+        publishXpUpdate(event.userId(), event.before(), event.transaction(), event.after());
+    }
+
+    /**
+     * Pushes the XP change of a goal note published after it was saved.
+     */
+    @EventListener
+    public void onGoalNoteAdded(GoalNoteAdded event) {
+        publishXpUpdate(event.userId(), event.before(), event.transaction(), event.after());
+    }
+
+    /**
+     * Pushes an XP update to a user's streams, followed by a level-up event if the level increased.
+     *
+     * @param userId the user's id
+     * @param previousStats the stats before the update
+     * @param transaction the XP transaction
+     * @param newStats the stats after the update
+     */
+    public void publishXpUpdate(Long userId, UserStats previousStats, XpTransaction transaction, UserStats newStats) {
+        if (!subscriptions.containsKey(userId)) {
+            return;
+        }
+        publish(userId, new Event(EVENT_XP, DtoMapper.toXpUpdateResultDto(transaction, newStats)));
+        if (newStats.getLevel() > previousStats.getLevel()) {
+            publish(userId, new Event(EVENT_LEVEL_UP,
+                new LevelUpDto(previousStats.getLevel(), newStats.getLevel(), newStats.getTotalXp())));
+        }
+    }
+
+    /**
+     * Sends a comment to every stream so proxies keep idle connections open
+     * and connections to departed clients are detected.
+     */
+    @Scheduled(fixedDelayString = "${events.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscription> set : subscriptions.values()) {
+            for (Subscription subscription : set) {
+                subscription.offer(Event.HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of open streams.
+     *
+     * @return the open stream count
+     */
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<Subscription> set : subscriptions.values()) {
+            count += set.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of streams closed because the client could not keep up.
+     *
+     * @return the dropped stream count
+     */
+    public long getDroppedSubscriptionCount() {
+        return droppedSubscriptions.get();
+    }
+
+    private void publish(Long userId, Event event) {
+        Set<Subscription> set = subscriptions.get(userId);
+        if (set == null) {
+            return;
+        }
+        for (Subscription subscription : set) {
+            subscription.offer(event);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Event(String name, Object data) {
+        static final Event HEARTBEAT = new Event(null, null);
+
+        SseEmitter.SseEventBuilder toBuilder() {
+            if (name == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().name(name).data(data);
+        }
+    }
+
+    /**
+     * One open stream: a bounded buffer drained by at most one sender task at a time.
+     */
+    private final class Subscription implements Runnable {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // Slow consumer: disconnect rather than buffer without bound
+                droppedSubscriptions.incrementAndGet();
+                closeAndComplete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    closeAndComplete();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Event event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    try {
+                        emitter.send(event.toBuilder());
+                    } catch (IOException | IllegalStateException e) {
+                        closeAndComplete();
+                        return;
+                    }
+                }
+                sending.set(false);
+                // Recheck in case an event was queued after the last poll
+                if (closed.get() || buffer.isEmpty() || !sending.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            buffer.clear();
+            remove(this);
+            return true;
+        }
+
+        private void closeAndComplete() {
+            if (close()) {
+                emitter.complete();
+            }
+        }
+    }
+}
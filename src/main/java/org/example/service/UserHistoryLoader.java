@@ -0,0 +1,175 @@
+package org.example.service;
+
+import org.example.DailyActivityLog;
+import org.example.Goal;
+import org.example.GoalNote;
+import org.example.GoalService;
+import org.example.HabitCheck;
+import org.example.HabitService;
+import org.example.RolledUpDay;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.DailyHistoryRollupEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.DailyHistoryRollupRepository;
+import org.example.persistence.repository.GoalNoteRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service that rebuilds a user's in-memory {@link HabitService} and {@link GoalService} from
+ * persisted history, so streaks, consistency and simulation inputs survive a restart.
+ *
+ * Raw history is read for a configurable number of days back, with one range query per table:
+ * activity logs with their habit checks, habit checks not part of a log (such as imported
+ * history), goals and goal notes. Raw history older than the window is not restored, so
+ * streaks, consistency and read-backs start at the window's first day. The default window of
+ * 400 days covers all raw history the retention job keeps (the current month and the 12 before
+ * it), so a shorter window is a deliberate cut. The daily rollups that replace checks and notes
+ * expired by the retention job are all restored, whatever their age.
+ *
+ * A day without a persisted log is rebuilt from its checks, with its goal notes' points as the
+ * XP gained, as if the notes had just been added.
+ */
+@Service
+public class UserHistoryLoader {
+    private final DailyActivityLogRepository dailyActivityLogRepository;
+    private final HabitCheckRepository habitCheckRepository;
+    private final GoalRepository goalRepository;
+    private final GoalNoteRepository goalNoteRepository;
+    private final DailyHistoryRollupRepository rollupRepository;
+    private final int historyDays;
+    private final Clock clock;
+
+    @Autowired
+    public UserHistoryLoader(DailyActivityLogRepository dailyActivityLogRepository,
+                             HabitCheckRepository habitCheckRepository,
+                             GoalRepository goalRepository,
+                             GoalNoteRepository goalNoteRepository,
+                             DailyHistoryRollupRepository rollupRepository,
+                             @Value("${users.rehydration.history-days:400}") int historyDays) {
+        this(dailyActivityLogRepository, habitCheckRepository, goalRepository, goalNoteRepository, rollupRepository,
+            historyDays, Clock.systemDefaultZone());
+    }
+
+    UserHistoryLoader(DailyActivityLogRepository dailyActivityLogRepository, HabitCheckRepository habitCheckRepository,
+                      GoalRepository goalRepository, GoalNoteRepository goalNoteRepository,
+                      DailyHistoryRollupRepository rollupRepository, int historyDays, Clock clock) {
+        if (historyDays <= 0) {
+            throw new IllegalArgumentException("History days must be positive");
+        }
+        this.dailyActivityLogRepository = dailyActivityLogRepository;
+        this.habitCheckRepository = habitCheckRepository;
+        this.goalRepository = goalRepository;
+        this.goalNoteRepository = goalNoteRepository;
+        this.rollupRepository = rollupRepository;
+        this.historyDays = historyDays;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads a user's habit and goal state from persisted history. A user without history gets
+     * empty services.
+     *
+     * @param userId the user's id
+     * @return the rebuilt services
+     */
+    @Transactional(readOnly = true)
+    public UserHistory load(Long userId) {
+        return load(userId, LocalDate.now(clock).minusDays(historyDays));
+    }
+
+    /**
+     * Loads a user's habit and goal state from the raw history from a date on, such as for a
+     * read that only looks at recent days. Goals and rollups are loaded in full.
+     *
+     * @param userId the user's id
+     * @param since the first date of raw history to load
+     * @return the rebuilt services
+     */
+    @Transactional(readOnly = true)
+    public UserHistory load(Long userId, LocalDate since) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (since == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        NavigableMap<LocalDate, DailyActivityLog> logs = new TreeMap<>();
+        for (DailyActivityLogEntity entity
+                : dailyActivityLogRepository.findByUserIdAndDateGreaterThanEqualOrderByDateAsc(userId, since)) {
+            logs.put(entity.getDate(), DomainEntityMapper.toDailyActivityLog(entity));
+        }
+        Set<LocalDate> loggedDates = new HashSet<>(logs.keySet());
+        for (HabitCheckEntity entity : habitCheckRepository.findUnloggedByUserIdSince(userId, since)) {
+            HabitCheck check = DomainEntityMapper.toHabitCheck(entity);
+            logs.put(check.date(), logOf(logs, check.date()).addHabitCheck(check, 0));
+        }
+
+        GoalService goalService = new GoalService();
+        for (GoalEntity entity : goalRepository.findByUserIdOrderByIdAsc(userId)) {
+            Goal goal = DomainEntityMapper.toGoal(entity);
+            if (goalService.getGoal(goal.getTitle()) == null) {
+                goalService.addGoal(goal);
+            }
+        }
+        for (GoalNoteEntity entity : goalNoteRepository.findByUserIdSince(userId, since)) {
+            GoalNote note = DomainEntityMapper.toGoalNote(entity);
+            if (!note.goal().equals(goalService.getGoal(note.goal().getTitle()))) {
+                continue; // Shadowed by an earlier goal with the same title
+            }
+            goalService.restoreGoalNote(note);
+            if (!loggedDates.contains(note.date())) {
+                logs.put(note.date(), logOf(logs, note.date()).addXp(Math.max(0, note.points())));
+            }
+        }
+
+        HabitService habitService = new HabitService();
+        for (DailyHistoryRollupEntity entity
+                : rollupRepository.findByUserIdOrderByDateAsc(userId)) {
+            RolledUpDay day = new RolledUpDay(entity.getDate(), entity.getHabitXp(), entity.getGoalPoints());
+            habitService.restoreRolledUpDay(day);
+            if (!loggedDates.contains(day.date()) && day.goalPoints() > 0) {
+                logs.put(day.date(), logOf(logs, day.date()).addXp(day.goalPoints()));
+            }
+        }
+        logs.values().forEach(habitService::restoreActivityLog);
+        return new UserHistory(habitService, goalService);
+    }
+
+    private static DailyActivityLog logOf(NavigableMap<LocalDate, DailyActivityLog> logs, LocalDate date) {
+        DailyActivityLog log = logs.get(date);
+        return log != null ? log : DailyActivityLog.empty(date);
+    }
+
+    /**
+     * A user's in-memory habit and goal state.
+     *
+     * @param habitService the user's habit service
+     * @param goalService the user's goal service
+     */
+    public record UserHistory(HabitService habitService, GoalService goalService) {
+        /**
+         * Creates the state of a user without history.
+         *
+         * @return empty services
+         */
+        public static UserHistory empty() {
+            return new UserHistory(new HabitService(), new GoalService());
+        }
+    }
+}
@@ -6,13 +6,24 @@ import org.example.persistence.entity.UserStatsEntity;
 import org.example.persistence.mapper.DomainEntityMapper;
 import org.example.persistence.repository.UserRepository;
 import org.example.persistence.repository.UserStatsRepository;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.example.service.UserHistoryLoader.UserHistory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Service for managing users and their associated services.
@@ -22,16 +33,30 @@ import java.util.Optional;
 public class UserService {
     private final UserRepository userRepository;
     private final UserStatsRepository userStatsRepository;
+    private final ReplicaLagTracker replicaLagTracker;
+    private final UserHistoryLoader historyLoader;
     
-    // In-memory storage for user services (in production, this would be managed differently)
-    private final Map<Long, HabitService> habitServices = new HashMap<>();
-    private final Map<Long, GoalService> goalServices = new HashMap<>();
+    // In-memory user services, rebuilt from persisted history on first access after a restart.
+    // A user's entry holds their load while it runs, so concurrent first accesses share it.
+    private final Map<Long, CompletableFuture<UserHistory>> userHistories = new ConcurrentHashMap<>();
     private final Map<Long, UserPreferences> userPreferences = new HashMap<>();
+    // One lock per user, kept across evictions so every caller for a user agrees on it
+    private final Map<Long, Object> userLocks = new ConcurrentHashMap<>();
 
-    @Autowired
+    /**
+     * Creates a UserService whose users start with empty habit and goal services.
+     */
     public UserService(UserRepository userRepository, UserStatsRepository userStatsRepository) {
+        this(userRepository, userStatsRepository, new ReplicaLagTracker(0), null);
+    }
+
+    @Autowired
+    public UserService(UserRepository userRepository, UserStatsRepository userStatsRepository,
+                       ReplicaLagTracker replicaLagTracker, UserHistoryLoader historyLoader) {
         this.userRepository = userRepository;
         this.userStatsRepository = userStatsRepository;
+        this.replicaLagTracker = replicaLagTracker;
+        this.historyLoader = historyLoader;
     }
 
     /**
@@ -55,10 +80,10 @@ public class UserService {
         statsEntity = userStatsRepository.save(statsEntity);
         user.setUserStats(statsEntity);
         user = userRepository.save(user);
+        replicaLagTracker.recordWriteOnCommit(user.getId());
 
         // Initialize services for this user
-        habitServices.put(user.getId(), new HabitService());
-        goalServices.put(user.getId(), new GoalService());
+        userHistories.put(user.getId(), CompletableFuture.completedFuture(UserHistory.empty()));
         userPreferences.put(user.getId(), new UserPreferences());
 
         return user;
@@ -67,19 +92,29 @@ public class UserService {
     /**
      * Gets a user by ID.
      */
+    @Transactional(readOnly = true)
     public UserEntity getUser(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
     }
 
     /**
-     * Gets user stats as domain model.
+     * Finds a user by username.
+     *
+     * @return the user, or empty if no user has that username
      */
+    @Transactional(readOnly = true)
+    public Optional<UserEntity> findUserByUsername(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    /**
+     * Gets user stats as domain model. May be served by the read replica, except right after
+     * the user's stats were updated.
+     */
+    @Transactional(readOnly = true)
     public UserStats getUserStats(Long userId) {
-        UserEntity user = getUser(userId);
-        UserStatsEntity statsEntity = userStatsRepository.findByUser(user)
-                .orElseThrow(() -> new IllegalStateException("User stats not found for user: " + userId));
-        return DomainEntityMapper.toUserStats(statsEntity);
+        return DomainEntityMapper.toUserStats(getUserStatsEntity(userId));
     }
 
     /**
@@ -87,27 +122,172 @@ public class UserService {
      */
     @Transactional
     public void updateUserStats(Long userId, UserStats newStats) {
-        UserEntity user = getUser(userId);
-        UserStatsEntity statsEntity = userStatsRepository.findByUser(user)
-                .orElseThrow(() -> new IllegalStateException("User stats not found for user: " + userId));
-        
+        UserStatsEntity statsEntity = getUserStatsEntity(userId);
         statsEntity.setTotalXp(newStats.getTotalXp());
         statsEntity.setLevel(newStats.getLevel());
         userStatsRepository.save(statsEntity);
+        replicaLagTracker.recordWriteOnCommit(userId);
+    }
+
+    /**
+     * Reads a user's stats by user id, so the common case is a single query. The user is only
+     * loaded when the stats are missing, to tell an unknown user from missing stats.
+     */
+    private UserStatsEntity getUserStatsEntity(Long userId) {
+        Optional<UserStatsEntity> statsEntity = userStatsRepository.findByUserId(userId);
+        if (statsEntity.isPresent()) {
+            return statsEntity.get();
+        }
+        getUser(userId); // Validate user exists
+        throw new IllegalStateException("User stats not found for user: " + userId);
     }
 
     /**
-     * Gets the HabitService for a user.
+     * Gets the HabitService for a user, loading it from persisted history on first access.
      */
     public HabitService getHabitService(Long userId) {
-        return habitServices.computeIfAbsent(userId, k -> new HabitService());
+        return getUserHistory(userId).habitService();
     }
 
     /**
-     * Gets the GoalService for a user.
+     * Gets the GoalService for a user, loading it from persisted history on first access.
      */
     public GoalService getGoalService(Long userId) {
-        return goalServices.computeIfAbsent(userId, k -> new GoalService());
+        return getUserHistory(userId).goalService();
+    }
+
+    /**
+     * Loads a user's habit and goal services into memory if they are not held yet.
+     *
+     * @return true if this call loaded them
+     */
+    public boolean warmUp(Long userId) {
+        if (userHistories.containsKey(userId)) {
+            return false;
+        }
+        getUserHistory(userId);
+        return true;
+    }
+
+    /**
+     * Checks whether a user's habit and goal services are held in memory, without loading
+     * them. A user whose load is still running is not loaded yet.
+     *
+     * @return true if the user's services are loaded
+     */
+    public boolean isUserLoaded(Long userId) {
+        CompletableFuture<UserHistory> history = userHistories.get(userId);
+        return history != null && history.isDone() && !history.isCompletedExceptionally();
+    }
+
+    /**
+     * Drops a user's habit and goal services from memory. The next access loads them again
+     * from persisted history.
+     */
+    public void evictUser(Long userId) {
+        userHistories.remove(userId);
+    }
+
+    /**
+     * Gets the number of users whose habit and goal services are held in memory.
+     */
+    public int getCachedUserCount() {
+        return userHistories.size();
+    }
+
+    /**
+     * Gets the ids of users whose habit and goal services are held in memory.
+     */
+    public List<Long> getCachedUserIds() {
+        return new ArrayList<>(userHistories.keySet());
+    }
+
+    /**
+     * Gets a page of stored user ids in ascending order, whether or not the users are held in
+     * memory.
+     *
+     * @param afterId the last id already read (exclusive)
+     * @param limit the page size
+     * @return the next user ids
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getUserIdsAfter(long afterId, int limit) {
+        return userRepository.findIdsAfter(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Runs a read over a user's habit and goal services without keeping them in memory. A user
+     * held in memory is read under their lock. Any other user's history is loaded from a date on
+     * for this read only, so a run over every user does not fill the cache.
+     *
+     * @param userId the user's id
+     * @param since the first date the read looks at
+     * @param reader the read
+     * @return the read's result
+     */
+    public <T> T readUserHistory(Long userId, LocalDate since, BiFunction<HabitService, GoalService, T> reader) {
+        if (isUserLoaded(userId)) {
+            UserHistory history = getUserHistory(userId);
+            return withUserLock(userId, () -> reader.apply(history.habitService(), history.goalService()));
+        }
+        UserHistory history = historyLoader != null ? historyLoader.load(userId, since) : UserHistory.empty();
+        return reader.apply(history.habitService(), history.goalService());
+    }
+
+    /**
+     * Gets a user's habit and goal services. The first caller for a user runs the load, and
+     * callers arriving while it runs wait for the same result. A failed load is not kept, so
+     * the next access retries it.
+     */
+    private UserHistory getUserHistory(Long userId) {
+        CompletableFuture<UserHistory> history = userHistories.get(userId);
+        if (history == null) {
+            CompletableFuture<UserHistory> loading = new CompletableFuture<>();
+            history = userHistories.putIfAbsent(userId, loading);
+            if (history == null) {
+                try {
+                    loading.complete(historyLoader != null ? historyLoader.load(userId) : UserHistory.empty());
+                } catch (RuntimeException e) {
+                    userHistories.remove(userId, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+                history = loading;
+            }
+        }
+        try {
+            return history.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs an action while holding the user's lock. Every change to a user's in-memory habit
+     * and goal state (checks, notes, new goals and archiving) runs under this lock, so two
+     * changes never interleave and a change never runs while its history is being archived.
+     *
+     * @return the action's result
+     */
+    public <T> T withUserLock(Long userId, Supplier<T> action) {
+        synchronized (userLocks.computeIfAbsent(userId, id -> new Object())) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Runs an action while holding the user's lock.
+     *
+     * @see #withUserLock(Long, Supplier)
+     */
+    public void withUserLock(Long userId, Runnable action) {
+        withUserLock(userId, () -> {
+            action.run();
+            return null;
+        });
     }
 
     /**
@@ -124,5 +304,26 @@ public class UserService {
         getUser(userId); // Validate user exists
         userPreferences.put(userId, preferences);
     }
+
+    /**
+     * Moves habit and goal history older than the cutoff into compact cold storage
+     * for every user currently held in memory. Each user is archived under their lock, so
+     * the archive never runs alongside a check or note of theirs.
+     *
+     * @param cutoff history dated strictly before this date is archived
+     * @return the number of days plus notes archived across all users
+     */
+    public int archiveHistoryBefore(LocalDate cutoff) {
+        int archived = 0;
+        for (Map.Entry<Long, CompletableFuture<UserHistory>> entry : userHistories.entrySet()) {
+            CompletableFuture<UserHistory> history = entry.getValue();
+            if (history.isDone() && !history.isCompletedExceptionally()) {
+                UserHistory loaded = history.join();
+                archived += withUserLock(entry.getKey(), () -> loaded.habitService().archiveActivityBefore(cutoff)
+                    + loaded.goalService().archiveNotesBefore(cutoff));
+            }
+        }
+        return archived;
+    }
 }
 
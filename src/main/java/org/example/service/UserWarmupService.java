@@ -0,0 +1,105 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service that loads recently active users' habit and goal state in the background at
+ * startup, so their first requests after a restart do not wait for the load.
+ *
+ * Users are warmed up most recently active first, one at a time, up to a configured number.
+ * A request for a user whose load is running waits for that load instead of starting another.
+ */
+@Service
+public class UserWarmupService {
+    private final UserService userService;
+    private final DailyActivityLogRepository dailyActivityLogRepository;
+    private final int activeDays;
+    private final int maxUsers;
+    private final Clock clock;
+    private Thread warmupThread;
+
+    @Autowired
+    public UserWarmupService(UserService userService, DailyActivityLogRepository dailyActivityLogRepository,
+                             @Value("${users.rehydration.warmup-active-days:7}") int activeDays,
+                             @Value("${users.rehydration.warmup-max-users:1000}") int maxUsers) {
+        this(userService, dailyActivityLogRepository, activeDays, maxUsers, Clock.systemDefaultZone());
+    }
+
+    UserWarmupService(UserService userService, DailyActivityLogRepository dailyActivityLogRepository,
+                      int activeDays, int maxUsers, Clock clock) {
+        if (activeDays < 0) {
+            throw new IllegalArgumentException("Warm-up active days cannot be negative");
+        }
+        if (maxUsers < 0) {
+            throw new IllegalArgumentException("Warm-up user count cannot be negative");
+        }
+        this.userService = userService;
+        this.dailyActivityLogRepository = dailyActivityLogRepository;
+        this.activeDays = activeDays;
+        this.maxUsers = maxUsers;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the warm-up on a background thread. Nothing is started if warm-up is disabled
+     * with a user count of zero.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (maxUsers == 0 || warmupThread != null) {
+            return;
+        }
+        warmupThread = new Thread(this::warmUpRecentUsers, "user-warmup");
+        warmupThread.setDaemon(true);
+        warmupThread.start();
+    }
+
+    /**
+     * Stops a warm-up that is still running.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (warmupThread != null) {
+            warmupThread.interrupt();
+            warmupThread = null;
+        }
+    }
+
+    /**
+     * Loads the users active within the configured number of days, stopping early if the
+     * thread is interrupted.
+     *
+     * @return the number of users loaded by this call
+     */
+    public int warmUpRecentUsers() {
+        if (maxUsers == 0) {
+            return 0;
+        }
+        LocalDate since = LocalDate.now(clock).minusDays(activeDays);
+        List<Long> userIds = dailyActivityLogRepository.findUserIdsActiveSince(since, Limit.of(maxUsers));
+        int loaded = 0;
+        for (Long userId : userIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                if (userService.warmUp(userId)) {
+                    loaded++;
+                }
+            } catch (RuntimeException e) {
+                // Failed loads are not kept, so the user's first request retries it
+            }
+        }
+        return loaded;
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.simulation.engine;
 
 import org.example.*;
+import org.example.metrics.HotPathMetrics;
 import org.example.simulation.explanation.SimulationExplanationGenerator;
 import org.example.simulation.model.*;
 import org.springframework.stereotype.Service;
@@ -50,6 +51,10 @@ public class FutureSimulationService {
         if (input == null) {
             throw new IllegalArgumentException("Simulation input cannot be null");
         }
+        return HotPathMetrics.time(HotPathMetrics.SIMULATION, () -> runSimulation(input));
+    }
+
+    private SimulationResult runSimulation(SimulationInput input) {
 
         // Calculate base yearly XP gain
         double baseYearlyXpGain = calculateBaseYearlyXpGain(input);
@@ -0,0 +1,229 @@
+package org.example.timer;
+
+import org.example.NotificationType;
+import org.example.history.HistoryBuffer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of pending notification timers.
+ *
+ * Frames use the same layout as the history journal: a one-byte tag, a varint payload length
+ * and the payload. A schedule frame records a timer and a remove frame records that it fired
+ * or was cancelled, so the pending set is the schedules without a matching remove.
+ * The journal is rewritten with only the pending timers when it is opened and whenever
+ * removed timers dominate it. A truncated trailing frame is ignored on load.
+ */
+public class TimerJournal implements Closeable {
+    private static final int TAG_SCHEDULE = 1;
+    private static final int TAG_REMOVE = 2;
+
+    private static final NotificationType[] TYPES = NotificationType.values();
+
+    private final Path path;
+    private final OutputStream out;
+    private final HistoryBuffer frame = new HistoryBuffer();
+    private final HistoryBuffer header = new HistoryBuffer(8);
+    private long frameCount;
+
+    private TimerJournal(Path path, OutputStream out, long frameCount) {
+        this.path = path;
+        this.out = out;
+        this.frameCount = frameCount;
+    }
+
+    /**
+     * Reads the timers still pending in a journal file.
+     *
+     * @param path the journal file (must not be null)
+     * @return the pending timers in the order they were scheduled (empty if the file does not exist)
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static List<TimerRecord> load(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        Map<Long, TimerRecord> pending = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) {
+                    break;
+                }
+                byte[] payload;
+                try {
+                    int length = readVarInt(in);
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException truncated) {
+                    break; // Incomplete trailing frame
+                }
+                HistoryBuffer.Reader reader = HistoryBuffer.reader(payload);
+                switch (tag) {
+                    case TAG_SCHEDULE -> {
+                        TimerRecord timer = readTimer(reader);
+                        pending.put(timer.id(), timer);
+                    }
+                    case TAG_REMOVE -> pending.remove(reader.readVarLong());
+                    default -> throw new IOException("Unknown timer journal frame tag: " + tag);
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Writes a fresh journal holding the given timers, replacing the file atomically,
+     * and opens it for appending.
+     *
+     * @param path the journal file (must not be null)
+     * @param timers the pending timers
+     * @return an open journal
+     * @throws IOException if the file cannot be written
+     */
+    public static TimerJournal rewrite(Path path, Collection<TimerRecord> timers) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream tempOut = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            TimerJournal writer = new TimerJournal(temp, tempOut, 0);
+            for (TimerRecord timer : timers) {
+                writer.appendScheduled(timer);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE));
+        return new TimerJournal(path, out, timers.size());
+    }
+
+    /**
+     * Appends a scheduled timer.
+     *
+     * @param timer the timer (must not be null)
+     * @throws IOException if the write fails
+     */
+    public synchronized void appendScheduled(TimerRecord timer) throws IOException {
+        if (timer == null) {
+            throw new IllegalArgumentException("Timer cannot be null");
+        }
+        frame.clear();
+        frame.writeVarLong(timer.id());
+        frame.writeVarLong(timer.userId());
+        frame.writeVarInt(timer.type().ordinal());
+        frame.writeSignedVarLong(timer.deadlineMillis());
+        frame.writeString(timer.zone());
+        frame.writeString(timer.subject());
+        if (timer.targetDate() != null) {
+            frame.writeByte(1);
+            frame.writeSignedVarLong(timer.targetDate().toEpochDay());
+        } else {
+            frame.writeByte(0);
+        }
+        writeFrame(TAG_SCHEDULE);
+    }
+
+    /**
+     * Appends the removal of a timer that fired or was cancelled.
+     *
+     * @param timerId the timer id
+     * @throws IOException if the write fails
+     */
+    public synchronized void appendRemoved(long timerId) throws IOException {
+        frame.clear();
+        frame.writeVarLong(timerId);
+        writeFrame(TAG_REMOVE);
+    }
+
+    /**
+     * Gets the number of frames in the journal file, used to decide when to rewrite it.
+     *
+     * @return the frame count
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the journal file.
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Flushes buffered frames to the file.
+     *
+     * @throws IOException if the flush fails
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void writeFrame(int tag) throws IOException {
+        header.clear();
+        header.writeByte(tag);
+        header.writeVarInt(frame.size());
+        header.writeTo(out);
+        frame.writeTo(out);
+        frameCount++;
+    }
+
+    private static TimerRecord readTimer(HistoryBuffer.Reader in) {
+        long id = in.readVarLong();
+        long userId = in.readVarLong();
+        NotificationType type = TYPES[in.readVarInt()];
+        long deadlineMillis = in.readSignedVarLong();
+        String zone = in.readString();
+        String subject = in.readString();
+        LocalDate targetDate = in.readByte() != 0 ? LocalDate.ofEpochDay(in.readSignedVarLong()) : null;
+        return new TimerRecord(id, userId, type, deadlineMillis, zone, subject, targetDate);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Malformed frame length");
+            }
+        }
+    }
+}
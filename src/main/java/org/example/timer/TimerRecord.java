@@ -0,0 +1,36 @@
+package org.example.timer;
+
+import org.example.NotificationType;
+
+import java.time.LocalDate;
+
+/**
+ * A pending notification timer as stored in the {@link TimerJournal}.
+ * Records carry everything needed to fire and reschedule them, so timers keep working
+ * after a restart even before the user's data is loaded again.
+ *
+ * @param id the timer id, unique within the journal
+ * @param userId the user the notification is for
+ * @param type the kind of notification the timer produces
+ * @param deadlineMillis when the timer is due, in epoch milliseconds
+ * @param zone the user's time zone id, used to compute the next occurrence
+ * @param subject what the timer is about, e.g. a goal title (empty if not applicable)
+ * @param targetDate the goal's target date for deadline timers (null otherwise)
+ */
+public record TimerRecord(long id, long userId, NotificationType type, long deadlineMillis, String zone,
+                          String subject, LocalDate targetDate) {
+    /**
+     * Creates a timer record.
+     */
+    public TimerRecord {
+        if (type == null) {
+            throw new IllegalArgumentException("NotificationType cannot be null");
+        }
+        if (zone == null || zone.isBlank()) {
+            throw new IllegalArgumentException("Zone cannot be null or blank");
+        }
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject cannot be null");
+        }
+    }
+}
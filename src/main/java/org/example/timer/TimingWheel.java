@@ -0,0 +1,263 @@
+package org.example.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel holding a large number of pending timers.
+ *
+ * Time is divided into ticks of a fixed length, counted from the epoch. There are
+ * {@value #LEVELS} wheels of {@value #WHEEL_SIZE} slots; a slot on level n covers
+ * 64<sup>n</sup> ticks. A timer is placed on the lowest level whose current rotation
+ * contains its deadline and is moved down a level when the wheel above reaches its slot,
+ * so scheduling and cancelling are O(1) and each timer is moved at most {@value #LEVELS} times.
+ * Timers beyond the top level's range wait in an overflow list that is rescanned once per
+ * full rotation.
+ *
+ * Not thread-safe; callers must synchronize.
+ *
+ * @param <T> the timer payload type
+ */
+public class TimingWheel<T> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Bucket<T>[][] wheels;
+    private final Bucket<T> overflow = new Bucket<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the tick length in milliseconds (must be positive)
+     * @param startMillis the current time in epoch milliseconds
+     * @throws IllegalArgumentException if tickMillis is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        this.wheels = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules a timer. A deadline in the past fires on the next advance.
+     *
+     * @param deadlineMillis when the timer is due, in epoch milliseconds
+     * @param payload the payload returned when the timer fires
+     * @return a handle for cancelling the timer
+     */
+    public Timeout<T> schedule(long deadlineMillis, T payload) {
+        // Round up so a timer never fires before its deadline
+        long tick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        Timeout<T> timeout = new Timeout<>(deadlineMillis, payload, Math.max(tick, currentTick));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancels a pending timer.
+     *
+     * @param timeout the timer handle
+     * @return true if the timer was pending; false if it already fired or was cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to a point in time and collects the timers that fell due.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the payloads of the expired timers, earlier ticks first
+     */
+    public List<T> advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> expired = new ArrayList<>();
+        while (currentTick <= targetTick) {
+            if (size == 0) {
+                currentTick = targetTick + 1;
+                break;
+            }
+            processTick(expired);
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the pending timer count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the tick length.
+     *
+     * @return the tick length in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void processTick(List<T> expired) {
+        if ((currentTick & mask(LEVELS)) == 0) {
+            cascade(overflow);
+        }
+        // Higher levels first, so timers can fall through several levels in one tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & mask(level)) == 0) {
+                cascade(wheels[level][slot(currentTick, level)]);
+            }
+        }
+        Bucket<T> due = wheels[0][slot(currentTick, 0)];
+        for (Timeout<T> timeout = due.detachAll(); timeout != null; ) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            size--;
+            expired.add(timeout.payload);
+            timeout = next;
+        }
+    }
+
+    private void cascade(Bucket<T> bucket) {
+        for (Timeout<T> timeout = bucket.detachAll(); timeout != null; ) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long tick = timeout.tick;
+        for (int level = 0; level < LEVELS; level++) {
+            // The timer belongs on this level if it falls in the current rotation of the level above
+            if ((tick >>> (WHEEL_BITS * (level + 1))) == (currentTick >>> (WHEEL_BITS * (level + 1)))) {
+                wheels[level][slot(tick, level)].add(timeout);
+                return;
+            }
+        }
+        overflow.add(timeout);
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+    }
+
+    private static long mask(int level) {
+        return (1L << (WHEEL_BITS * level)) - 1;
+    }
+
+    /**
+     * Handle to a scheduled timer.
+     *
+     * @param <T> the payload type
+     */
+    public static final class Timeout<T> {
+        private final long deadlineMillis;
+        private final T payload;
+        private final long tick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(long deadlineMillis, T payload, long tick) {
+            this.deadlineMillis = deadlineMillis;
+            this.payload = payload;
+            this.tick = tick;
+        }
+
+        /**
+         * Returns when the timer is due.
+         *
+         * @return the deadline in epoch milliseconds
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Returns the timer payload.
+         *
+         * @return the payload
+         */
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Returns whether the timer is still waiting to fire.
+         *
+         * @return true if the timer has neither fired nor been cancelled
+         */
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    /**
+     * Doubly linked list of timers, so a timer can unlink itself in O(1).
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Empties the bucket, returning its timers as a singly linked chain through next.
+         */
+        Timeout<T> detachAll() {
+            Timeout<T> first = head;
+            head = null;
+            for (Timeout<T> timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+                timeout.prev = null;
+            }
+            return first;
+        }
+    }
+}
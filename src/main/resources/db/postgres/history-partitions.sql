@@ -0,0 +1,63 @@
+-- PostgreSQL schema for the month-partitioned history tables.
+-- Run once against a new database before the application first starts, so Hibernate's
+-- ddl-auto finds these tables in place instead of creating plain ones. Foreign keys are
+-- left out so the script does not depend on the tables Hibernate creates.
+-- HistoryRetentionService creates upcoming monthly partitions and drops expired ones after
+-- rolling them up. The default partitions catch rows outside the created range, such as
+-- backfills of old history.
+-- A partitioned table's primary and unique keys must include the partition key, hence
+-- (id, date) rather than id alone.
+
+CREATE SEQUENCE IF NOT EXISTS xp_history_entries_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS habit_checks_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS goal_notes_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS xp_history_entries (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    xp_change INTEGER NOT NULL,
+    source VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
+CREATE INDEX IF NOT EXISTS idx_xp_history_user_date
+    ON xp_history_entries (user_id, date, id, xp_change, source);
+CREATE TABLE IF NOT EXISTS xp_history_entries_default PARTITION OF xp_history_entries DEFAULT;
+
+CREATE TABLE IF NOT EXISTS habit_checks (
+    id BIGINT NOT NULL,
+    habit_id BIGINT NOT NULL,
+    activity_log_id BIGINT,
+    date DATE NOT NULL,
+    result VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
+CREATE INDEX IF NOT EXISTS idx_habit_checks_habit_date
+    ON habit_checks (habit_id, date, result, id);
+CREATE TABLE IF NOT EXISTS habit_checks_default PARTITION OF habit_checks DEFAULT;
+
+CREATE TABLE IF NOT EXISTS goal_notes (
+    id BIGINT NOT NULL,
+    goal_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    text_note TEXT,
+    points INTEGER NOT NULL,
+    PRIMARY KEY (id, date),
+    UNIQUE (goal_id, date)
+) PARTITION BY RANGE (date);
+CREATE TABLE IF NOT EXISTS goal_notes_default PARTITION OF goal_notes DEFAULT;
+
+-- A habit checked more than once on a day (missed, then done) stores a row per check, as it
+-- is held in memory. Databases created before that still carry a unique (habit_id, date) key
+-- on habit_checks, under the name PostgreSQL or Hibernate gave it; drop it.
+DO $$
+DECLARE
+    unique_key RECORD;
+BEGIN
+    FOR unique_key IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'habit_checks'::regclass AND contype = 'u'
+    LOOP
+        EXECUTE format('ALTER TABLE habit_checks DROP CONSTRAINT %I', unique_key.conname);
+    END LOOP;
+END $$;
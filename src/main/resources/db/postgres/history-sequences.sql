@@ -0,0 +1,16 @@
+-- Moves the history tables of an existing PostgreSQL database onto the pooled id sequences.
+-- Run once, with the application stopped, before its first start with sequence-generated
+-- history ids. New databases do not need it: the sequences start empty with the tables.
+-- Hibernate's pooled optimizer reads a sequence value as the top of a block of 50 ids, so
+-- each sequence is set to hand out MAX(id) + 50 next, making the first block start right
+-- after the highest id already stored by the identity columns.
+
+CREATE SEQUENCE IF NOT EXISTS xp_history_entries_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS habit_checks_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS goal_notes_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS daily_activity_logs_seq INCREMENT BY 50;
+
+SELECT setval('xp_history_entries_seq', COALESCE(MAX(id), 0) + 50, false) FROM xp_history_entries;
+SELECT setval('habit_checks_seq', COALESCE(MAX(id), 0) + 50, false) FROM habit_checks;
+SELECT setval('goal_notes_seq', COALESCE(MAX(id), 0) + 50, false) FROM goal_notes;
+SELECT setval('daily_activity_logs_seq', COALESCE(MAX(id), 0) + 50, false) FROM daily_activity_logs;
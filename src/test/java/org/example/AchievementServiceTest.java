@@ -0,0 +1,183 @@
+package org.example;
+
+import org.example.persistence.repository.AchievementUnlockRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AchievementLedger and event-driven achievement unlocks.
+ */
+class AchievementServiceTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TODAY = START.plusDays(60);
+
+    private final Habit exercise = new Habit("Exercise", Difficulty.TWO);
+
+    @Test
+    void testUnlocksAreDatedByTheEventThatCrossedTheThreshold() {
+        AchievementLedger ledger = new AchievementLedger();
+
+        List<AchievementRule> first = ledger.recordHabitCheck(
+            new HabitCheck(exercise, START, HabitCheckResult.DONE), null);
+        assertEquals(List.of(AchievementRule.FIRST_STEPS), first);
+
+        for (int day = 1; day < 6; day++) {
+            ledger.recordHabitCheck(new HabitCheck(exercise, START.plusDays(day), HabitCheckResult.DONE), null);
+        }
+        List<AchievementRule> seventh = ledger.recordHabitCheck(
+            new HabitCheck(exercise, START.plusDays(6), HabitCheckResult.DONE), null);
+        assertEquals(List.of(AchievementRule.WEEK_WARRIOR, AchievementRule.PERFECT_WEEK), seventh);
+        assertEquals(START.plusDays(6), ledger.getUnlockedDate(AchievementRule.WEEK_WARRIOR));
+
+        // Unlocks never revert or move
+        ledger.recordHabitCheck(new HabitCheck(exercise, START.plusDays(8), HabitCheckResult.MISSED), null);
+        assertEquals(START.plusDays(6), ledger.getUnlockedDate(AchievementRule.WEEK_WARRIOR));
+        assertNull(ledger.getUnlockedDate(AchievementRule.MONTH_MASTER));
+    }
+
+    @Test
+    void testStatsOnlyUnlockLevelAndXpRules() {
+        AchievementLedger ledger = new AchievementLedger();
+
+        List<AchievementRule> unlocked = ledger.recordStats(START, new UserStats(5200, 10));
+
+        assertEquals(List.of(AchievementRule.RISING_STAR, AchievementRule.EXPERIENCED,
+            AchievementRule.XP_NOVICE, AchievementRule.XP_COLLECTOR), unlocked);
+        assertTrue(ledger.recordStats(START.plusDays(1), new UserStats(5300, 10)).isEmpty());
+        assertTrue(ledger.isPending(AchievementRule.Measure.TOTAL_XP));
+        assertNull(ledger.getUnlockedDate(AchievementRule.FIRST_STEPS));
+    }
+
+    @Test
+    void testRestoredUnlocksKeepTheirDates() {
+        AchievementLedger ledger = new AchievementLedger();
+        ledger.restore(AchievementRule.FIRST_STEPS, START.minusDays(30));
+        ledger.restore(AchievementRule.FIRST_STEPS, START.minusDays(10));
+
+        assertTrue(ledger.recordHabitCheck(new HabitCheck(exercise, START, HabitCheckResult.DONE), null).isEmpty());
+        assertEquals(START.minusDays(30), ledger.getUnlockedDate(AchievementRule.FIRST_STEPS));
+
+        List<Achievement> achievements = ledger.getAchievements();
+        assertEquals(AchievementRule.values().length, achievements.size());
+        Achievement firstSteps = achievements.get(AchievementRule.FIRST_STEPS.ordinal());
+        assertTrue(firstSteps.isUnlocked());
+        assertEquals(START.minusDays(30), firstSteps.getUnlockedDate());
+    }
+
+    @Test
+    void testServiceReplaysHistoryThenFollowsEvents() {
+        AchievementService service = new AchievementService(null, null, new AnalyticsService(),
+            Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 7; day++) {
+            stats = habitService.checkHabit(stats, exercise, START.plusDays(day), HabitCheckResult.DONE).userStats();
+        }
+
+        // Events before the first read are recovered by the replay
+        service.recordHabitCheck(1L, new HabitCheck(exercise, START.plusDays(7), HabitCheckResult.DONE), stats);
+
+        List<Achievement> achievements = service.getAchievements(1L, stats, habitService, goalService);
+        assertEquals(START, unlockedDate(achievements, AchievementRule.FIRST_STEPS));
+        assertEquals(START.plusDays(6), unlockedDate(achievements, AchievementRule.WEEK_WARRIOR));
+        assertNull(unlockedDate(achievements, AchievementRule.HABIT_MASTER));
+
+        // Habit master follows habit creation, not checks
+        LocalDate day = TODAY.plusDays(1);
+        for (int i = 1; i <= 4; i++) {
+            Habit habit = new Habit("Habit " + i, Difficulty.ONE);
+            stats = habitService.checkHabit(stats, habit, day, HabitCheckResult.DONE).userStats();
+            service.recordHabitCheck(1L, new HabitCheck(habit, day, HabitCheckResult.DONE), stats);
+        }
+        assertNull(unlockedDate(service.getAchievements(1L, stats, habitService, goalService),
+            AchievementRule.HABIT_MASTER));
+        service.onHabitCreated(new HabitCreated(1L, new Habit("Habit 5", Difficulty.ONE), 4));
+        service.recordHabitCount(1L, day, 5);
+        achievements = service.getAchievements(1L, stats, habitService, goalService);
+        assertEquals(day, unlockedDate(achievements, AchievementRule.HABIT_MASTER));
+
+        // Another user's ledger is independent
+        assertNull(unlockedDate(service.getAchievements(2L, UserStats.createNew(), new HabitService(),
+            new GoalService()), AchievementRule.FIRST_STEPS));
+    }
+
+    @Test
+    void testHabitMasterCountsStoredHabits() {
+        HabitRepository habits = (HabitRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {HabitRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "countByUserId" -> args[0].equals(1L) ? 5L : 4L;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        AchievementService service = new AchievementService(null, habits, new AnalyticsService(),
+            Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+
+        // Created habits count whether or not they were ever checked
+        assertEquals(TODAY, unlockedDate(service.getAchievements(1L, UserStats.createNew(), new HabitService(),
+            new GoalService()), AchievementRule.HABIT_MASTER));
+        assertNull(unlockedDate(service.getAchievements(2L, UserStats.createNew(), new HabitService(),
+            new GoalService()), AchievementRule.HABIT_MASTER));
+
+        service.onHabitCreated(new HabitCreated(2L, new Habit("Stretch", Difficulty.ONE), 5));
+        assertEquals(TODAY, unlockedDate(service.getAchievements(2L, UserStats.createNew(), new HabitService(),
+            new GoalService()), AchievementRule.HABIT_MASTER));
+    }
+
+    @Test
+    void testConcurrentFirstReadsSaveUnlocksOnce() throws Exception {
+        CyclicBarrier bothLoading = new CyclicBarrier(2);
+        AtomicInteger saves = new AtomicInteger();
+        AchievementUnlockRepository repository = (AchievementUnlockRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {AchievementUnlockRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "findByUserId" -> {
+                    bothLoading.await(5, TimeUnit.SECONDS);
+                    yield List.of();
+                }
+                case "saveAll" -> {
+                    saves.incrementAndGet();
+                    yield List.of();
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        AchievementService service = new AchievementService(repository, null, new AnalyticsService(),
+            Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        UserStats stats = habitService.checkHabit(UserStats.createNew(), exercise, START, HabitCheckResult.DONE)
+            .userStats();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<List<Achievement>> read = () -> service.getAchievements(1L, stats, habitService, goalService);
+            Future<List<Achievement>> first = executor.submit(read);
+            Future<List<Achievement>> second = executor.submit(read);
+
+            assertEquals(START, unlockedDate(first.get(), AchievementRule.FIRST_STEPS));
+            assertEquals(START, unlockedDate(second.get(), AchievementRule.FIRST_STEPS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, saves.get());
+        assertEquals(1, service.getCachedUserCount());
+    }
+
+    private static LocalDate unlockedDate(List<Achievement> achievements, AchievementRule rule) {
+        return achievements.get(rule.ordinal()).getUnlockedDate();
+    }
+}
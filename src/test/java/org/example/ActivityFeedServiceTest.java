@@ -0,0 +1,145 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ActivityFeedService.
+ */
+class ActivityFeedServiceTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 120;
+
+    private final ActivityFeedService feedService = new ActivityFeedService();
+    private HabitService habitService;
+    private GoalService goalService;
+
+    @BeforeEach
+    void setUp() {
+        habitService = new HabitService();
+        goalService = new GoalService();
+        Habit exercise = new Habit("Exercise", Difficulty.THREE);
+        Habit reading = new Habit("Reading", Difficulty.ONE);
+        Goal marathon = new Goal("Marathon", "Run a marathon", START, START.plusMonths(6), 4, 500);
+        goalService.addGoal(marathon);
+
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate date = START.plusDays(day);
+            if (day % 5 != 4) {
+                stats = habitService.checkHabit(stats, exercise, date,
+                    day % 3 == 0 ? HabitCheckResult.MISSED : HabitCheckResult.DONE).userStats();
+            }
+            if (day % 2 == 0) {
+                stats = habitService.checkHabit(stats, reading, date, HabitCheckResult.DONE).userStats();
+            }
+            if (day % 4 == 1) {
+                // Every other note gets no XP and so produces no XP entry
+                int xp = day % 8 == 1 ? 5 : 0;
+                stats = goalService.addGoalNote(stats, marathon, date, "Run", xp, habitService).userStats();
+            }
+        }
+    }
+
+    @Test
+    void testFeedMatchesFullySortedHistory() {
+        List<ActivityFeedEntry> expected = fullySortedFeed();
+
+        assertEquals(expected.subList(0, 50), feedService.generateActivityFeed(habitService, goalService, null));
+        assertEquals(expected.subList(0, 200), feedService.generateActivityFeed(habitService, goalService, 500));
+    }
+
+    @Test
+    void testPagesConcatenateToFullFeed() {
+        List<ActivityFeedEntry> expected = fullySortedFeed();
+
+        // A page size that does not divide a day's entries, so cursors land mid-day
+        List<ActivityFeedEntry> paged = readAllPages(7);
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void testPagingAcrossArchivedHistory() {
+        List<ActivityFeedEntry> expected = fullySortedFeed();
+        habitService.archiveActivityBefore(START.plusDays(60));
+        goalService.archiveNotesBefore(START.plusDays(60));
+        assertTrue(habitService.getArchivedDayCount() > 0);
+        assertTrue(goalService.getArchivedNoteCount() > 0);
+
+        assertEquals(expected, readAllPages(11));
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        int total = fullySortedFeed().size();
+        ActivityFeedPage first = feedService.getActivityFeedPage(habitService, goalService, 200, null);
+        assertTrue(first.hasNext());
+
+        ActivityFeedPage second = feedService.getActivityFeedPage(habitService, goalService, 200, first.nextCursor());
+        assertEquals(total - 200, second.entries().size());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testEmptyHistory() {
+        ActivityFeedPage page = feedService.getActivityFeedPage(new HabitService(), new GoalService(), 10, null);
+        assertTrue(page.entries().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> feedService.getActivityFeedPage(habitService, goalService, 10, "not a cursor"));
+        assertThrows(IllegalArgumentException.class,
+            () -> feedService.getActivityFeedPage(habitService, goalService, 10, "MTo1"));
+    }
+
+    private List<ActivityFeedEntry> readAllPages(int pageSize) {
+        List<ActivityFeedEntry> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ActivityFeedPage page = feedService.getActivityFeedPage(habitService, goalService, pageSize, cursor);
+            assertTrue(page.entries().size() <= pageSize);
+            all.addAll(page.entries());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    /**
+     * Builds the whole feed and sorts it, as the feed used to be produced.
+     */
+    private List<ActivityFeedEntry> fullySortedFeed() {
+        List<ActivityFeedEntry> feed = new ArrayList<>();
+        for (HabitCheck check : habitService.getAllHabitChecks()) {
+            boolean done = check.result() == HabitCheckResult.DONE;
+            feed.add(new ActivityFeedEntry(check.date().atStartOfDay(),
+                done ? ActivityType.HABIT_COMPLETED : ActivityType.HABIT_MISSED,
+                done ? "Habit Completed" : "Habit Missed",
+                String.format(done ? "Completed '%s'" : "Missed '%s'", check.habit().getName()),
+                done ? check.habit().getDifficulty().getValue() * 10 : -15,
+                "HABIT"));
+        }
+        for (GoalNote note : goalService.getAllGoalNotes()) {
+            feed.add(new ActivityFeedEntry(note.date().atStartOfDay(), ActivityType.GOAL_PROGRESS,
+                "Goal Progress", String.format("Made progress on goal: %d XP", note.points()), note.points(), "GOAL"));
+        }
+        for (XpHistoryEntry entry : new AnalyticsService().buildXpHistory(habitService, goalService)) {
+            if (entry.xpChange() > 0) {
+                feed.add(new ActivityFeedEntry(entry.date().atStartOfDay(), ActivityType.GOAL_PROGRESS,
+                    "XP Gained", String.format("Gained %d XP from %s", entry.xpChange(), entry.source().name()),
+                    entry.xpChange(), entry.source().name()));
+            }
+        }
+        feed.sort(Comparator.comparing(ActivityFeedEntry::timestamp).reversed());
+        return feed;
+    }
+}
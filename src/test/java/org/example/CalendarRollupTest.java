@@ -0,0 +1,176 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CalendarRollup and the rollup-backed summary services.
+ */
+class CalendarRollupTest {
+    // A Monday
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final Habit exercise = new Habit("Exercise", Difficulty.THREE);
+    private final Habit reading = new Habit("Reading", Difficulty.ONE);
+    private final Goal marathon = new Goal("Marathon", "Run a marathon", START, START.plusMonths(6), 4, 500);
+
+    @Test
+    void testRollupsMatchFilteredHistory() {
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        goalService.addGoal(marathon);
+        CalendarRollupService service = new CalendarRollupService();
+        UserStats stats = UserStats.createNew();
+        // Load before any activity so every change arrives as an event
+        CalendarRollup rollup = service.getRollup(1L, stats, habitService, goalService);
+
+        for (int day = 0; day < 45; day++) {
+            LocalDate date = START.plusDays(day);
+            if (day % 6 != 5) {
+                UserStats before = stats;
+                HabitCheckResult result = day % 4 == 3 ? HabitCheckResult.MISSED : HabitCheckResult.DONE;
+                stats = habitService.checkHabit(stats, exercise, date, result).userStats();
+                service.recordHabitCheck(1L, new HabitCheck(exercise, date, result), before, stats);
+            }
+            if (day % 3 == 0) {
+                UserStats before = stats;
+                GoalService.NoteResult note = goalService.addGoalNote(stats, marathon, date, "Run", 20, habitService);
+                stats = note.userStats();
+                service.recordGoalNote(1L, note.note(), before, stats);
+            }
+        }
+
+        List<XpHistoryEntry> history = new AnalyticsService().buildXpHistory(habitService, goalService);
+        for (LocalDate date : List.of(START, START.plusDays(9), START.plusDays(40))) {
+            PeriodRollup week = rollup.getWeek(date, stats);
+            assertEquals(DayOfWeek.MONDAY, week.start().getDayOfWeek());
+            assertEquals(week.start().plusDays(6), week.end());
+            assertFalse(date.isBefore(week.start()) || date.isAfter(week.end()));
+            assertMatches(week, history, habitService, goalService);
+        }
+        PeriodRollup january = rollup.getMonth(START.plusDays(20), stats);
+        assertEquals(START, january.start());
+        assertEquals(START.plusDays(30), january.end());
+        assertMatches(january, history, habitService, goalService);
+
+        // Boundaries chain from one month to the next
+        PeriodRollup february = rollup.getMonth(START.plusDays(40), stats);
+        assertEquals(january.xpAtEnd(), february.xpAtStart());
+        assertEquals(january.levelAtEnd(), february.levelAtStart());
+        assertEquals(stats.getTotalXp(), february.xpAtEnd());
+        assertEquals(0, january.xpAtStart());
+        assertEquals(List.of("Exercise"), january.topHabits(5));
+
+        // A month without activity carries the last known stats
+        PeriodRollup april = rollup.getMonth(START.plusMonths(3), stats);
+        assertEquals(0, april.habitsCompleted());
+        assertEquals(stats.getLevel(), april.levelAtStart());
+        assertEquals(0, april.levelGained());
+    }
+
+    @Test
+    void testReplayedRollupEndsAtCurrentStats() {
+        HabitService habitService = new HabitService();
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 10; day++) {
+            stats = habitService.checkHabit(stats, exercise, START.plusDays(day), HabitCheckResult.DONE).userStats();
+            stats = habitService.checkHabit(stats, reading, START.plusDays(day), HabitCheckResult.DONE).userStats();
+        }
+
+        CalendarRollup rollup = new CalendarRollupService().getRollup(1L, stats, habitService, new GoalService());
+
+        PeriodRollup secondWeek = rollup.getWeek(START.plusDays(7), stats);
+        assertEquals(6, secondWeek.habitsCompleted());
+        assertEquals(3, secondWeek.activeDays());
+        assertEquals(10, secondWeek.longestStreak());
+        assertEquals(stats.getTotalXp(), secondWeek.xpAtEnd());
+    }
+
+    @Test
+    void testBackdatedChecksKeepBoundariesInDateOrder() {
+        HabitService habitService = new HabitService();
+        CalendarRollupService service = new CalendarRollupService();
+        UserStats stats = UserStats.createNew();
+        CalendarRollup rollup = service.getRollup(1L, stats, habitService, new GoalService());
+
+        List<HabitCheck> checks = new ArrayList<>();
+        for (int day = 7; day <= 15; day++) {
+            checks.add(new HabitCheck(exercise, START.plusDays(day), HabitCheckResult.DONE));
+        }
+        // Backdated into an earlier day of an active week, and into a week without activity
+        checks.add(new HabitCheck(reading, START.plusDays(9), HabitCheckResult.DONE));
+        checks.add(new HabitCheck(reading, START.plusDays(3), HabitCheckResult.DONE));
+        checks.add(new HabitCheck(reading, START.plusDays(11), HabitCheckResult.MISSED));
+        for (HabitCheck check : checks) {
+            UserStats before = stats;
+            stats = habitService.checkHabit(stats, check.habit(), check.date(), check.result()).userStats();
+            service.recordHabitCheck(1L, check, before, stats);
+        }
+
+        CalendarRollup replayed = new CalendarRollupService().getRollup(1L, stats, habitService, new GoalService());
+        for (int week = 0; week < 3; week++) {
+            assertSameBoundaries(replayed.getWeek(START.plusWeeks(week), stats),
+                rollup.getWeek(START.plusWeeks(week), stats));
+        }
+        assertSameBoundaries(replayed.getMonth(START, stats), rollup.getMonth(START, stats));
+        assertEquals(0, rollup.getWeek(START, stats).xpAtStart());
+        assertEquals(rollup.getWeek(START, stats).xpAtEnd(), rollup.getWeek(START.plusWeeks(1), stats).xpAtStart());
+        assertEquals(stats.getTotalXp(), rollup.getWeek(START.plusWeeks(2), stats).xpAtEnd());
+    }
+
+    @Test
+    void testMonthlySummaryUsesRecordedLevels() {
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        goalService.addGoal(marathon);
+        CalendarRollupService rollups = new CalendarRollupService();
+        MonthlySummaryService summaries = new MonthlySummaryService(new AchievementService(), rollups);
+        UserStats stats = UserStats.createNew();
+        rollups.getRollup(1L, stats, habitService, goalService);
+        for (int day = 0; day < 20; day++) {
+            UserStats before = stats;
+            GoalService.NoteResult note = goalService.addGoalNote(
+                stats, marathon, START.plusDays(day), "Run " + day, 50, habitService);
+            stats = note.userStats();
+            rollups.recordGoalNote(1L, note.note(), before, stats);
+        }
+
+        MonthlySummary summary = summaries.generateMonthlySummary(1L, stats, goalService.getAllGoals(),
+            habitService, goalService, new AnalyticsService(), START.plusDays(25));
+
+        assertEquals(1, summary.levelAtStart());
+        assertEquals(stats.getLevel(), summary.levelAtEnd());
+        assertEquals(stats.getLevel() - 1, summary.levelGained());
+        assertEquals(20, summary.goalsProgressed());
+    }
+
+    private static void assertSameBoundaries(PeriodRollup expected, PeriodRollup actual) {
+        assertEquals(expected.xpAtStart(), actual.xpAtStart());
+        assertEquals(expected.levelAtStart(), actual.levelAtStart());
+        assertEquals(expected.xpAtEnd(), actual.xpAtEnd());
+        assertEquals(expected.levelAtEnd(), actual.levelAtEnd());
+    }
+
+    private static void assertMatches(PeriodRollup period, List<XpHistoryEntry> history,
+                                      HabitService habitService, GoalService goalService) {
+        List<XpHistoryEntry> inPeriod = history.stream()
+            .filter(entry -> !entry.date().isBefore(period.start()) && !entry.date().isAfter(period.end()))
+            .toList();
+        assertEquals(inPeriod.stream().filter(e -> e.xpChange() > 0).mapToInt(XpHistoryEntry::xpChange).sum(),
+            period.xpGained());
+        assertEquals(inPeriod.stream().map(XpHistoryEntry::date).distinct().count(), period.activeDays());
+        assertEquals(habitService.getAllHabitChecks().stream()
+            .filter(check -> check.isDone() && !check.date().isBefore(period.start())
+                && !check.date().isAfter(period.end()))
+            .count(), period.habitsCompleted());
+        assertEquals(goalService.getAllGoalNotes().stream()
+            .filter(note -> !note.date().isBefore(period.start()) && !note.date().isAfter(period.end()))
+            .count(), period.goalsProgressed());
+    }
+}
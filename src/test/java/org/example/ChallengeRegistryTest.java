@@ -0,0 +1,118 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChallengeRegistry and the challenge operations built on it.
+ */
+class ChallengeRegistryTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void testJoinIsStored() {
+        ChallengeService service = new ChallengeService();
+        Challenge challenge = createChallenge(service, START, START.plusDays(7));
+
+        service.joinChallenge(challenge.id(), "alice");
+        Challenge joined = service.joinChallenge(challenge.id(), "bob");
+        service.joinChallenge(challenge.id(), "alice");
+
+        assertEquals(Set.of("alice", "bob"), new HashSet<>(joined.participants()));
+        assertEquals(2, service.getChallengeById(challenge.id()).participants().size());
+        assertTrue(service.isParticipant(challenge.id(), "bob"));
+
+        service.leaveChallenge(challenge.id(), "bob");
+        assertFalse(service.isParticipant(challenge.id(), "bob"));
+        assertEquals(List.of("alice"), service.getChallengeById(challenge.id()).participants());
+
+        assertThrows(IllegalArgumentException.class, () -> service.joinChallenge("challenge-404", "alice"));
+        assertThrows(IllegalArgumentException.class, () -> service.joinChallenge(challenge.id(), " "));
+    }
+
+    @Test
+    void testActiveChallengesByDateRange() {
+        ChallengeService service = new ChallengeService();
+        Challenge past = createChallenge(service, START, START.plusDays(7));
+        Challenge current = createChallenge(service, START.plusDays(5), START.plusDays(20));
+        Challenge future = createChallenge(service, START.plusDays(30), START.plusDays(40));
+
+        assertEquals(List.of(past.id(), current.id()), ids(service.getActiveChallenges(START.plusDays(7))));
+        assertEquals(List.of(current.id()), ids(service.getActiveChallenges(START.plusDays(8))));
+        assertEquals(List.of(future.id()), ids(service.getActiveChallenges(START.plusDays(40))));
+        assertTrue(service.getActiveChallenges(START.plusDays(41)).isEmpty());
+        assertEquals(List.of(past.id(), current.id(), future.id()), ids(service.getAllChallenges()));
+    }
+
+    @Test
+    void testConcurrentCreationYieldsUniqueIds() throws InterruptedException {
+        ChallengeService service = new ChallengeService();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ids.add(createChallenge(service, START, START.plusDays(7)).id());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, ids.size());
+        assertEquals(4000, service.getAllChallenges().size());
+    }
+
+    @Test
+    void testConcurrentJoinsAndLeaves() throws InterruptedException {
+        ChallengeRegistry registry = new ChallengeRegistry();
+        String id = registry.nextId();
+        registry.register(new Challenge(id, "Big", "Everyone", ChallengeType.XP_CHALLENGE, 500, 0,
+            START, START.plusDays(7), true, List.of(), "Badge"));
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    String user = "user-" + offset + "-" + i;
+                    registry.join(id, user);
+                    if (i % 2 == 1) {
+                        registry.leave(id, user);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100_000, registry.getParticipantCount(id));
+        assertTrue(registry.isParticipant(id, "user-3-49998"));
+        assertFalse(registry.isParticipant(id, "user-3-49999"));
+        assertThrows(IllegalStateException.class, () -> registry.register(registry.get(id)));
+    }
+
+    private static Challenge createChallenge(ChallengeService service, LocalDate start, LocalDate end) {
+        return service.createChallenge("Weekly XP", "Earn XP", ChallengeType.XP_CHALLENGE, 500, start, end, "Badge");
+    }
+
+    private static List<String> ids(List<Challenge> challenges) {
+        List<String> ids = new ArrayList<>();
+        for (Challenge challenge : challenges) {
+            ids.add(challenge.id());
+        }
+        return ids;
+    }
+}
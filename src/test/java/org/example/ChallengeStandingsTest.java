@@ -0,0 +1,153 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChallengeStandings and event-driven challenge progress.
+ */
+class ChallengeStandingsTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void testRankingWithTies() {
+        ChallengeStandings standings = new ChallengeStandings();
+        for (String user : List.of("alice", "bob", "carol", "dave")) {
+            standings.enter(user);
+        }
+        standings.set("alice", 30);
+        standings.set("bob", 50);
+        standings.set("carol", 30);
+        standings.add("dave", 5);
+        standings.raise("bob", 40);
+        standings.set("erin", 100); // Not a participant
+
+        assertEquals(List.of(
+            new ChallengeStanding(1, "bob", 50),
+            new ChallengeStanding(2, "alice", 30),
+            new ChallengeStanding(2, "carol", 30),
+            new ChallengeStanding(4, "dave", 5)
+        ), standings.top(10));
+        assertEquals(2, standings.top(2).size());
+        assertNull(standings.getValue("erin"));
+
+        assertTrue(standings.remove("bob"));
+        assertFalse(standings.remove("bob"));
+        assertEquals("alice", standings.top(1).get(0).username());
+    }
+
+    @Test
+    void testConcurrentUpdatesKeepRankingConsistent() throws InterruptedException {
+        ChallengeStandings standings = new ChallengeStandings();
+        int users = 2000;
+        for (int i = 0; i < users; i++) {
+            standings.enter("user-" + i);
+        }
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 10; round++) {
+                    for (int i = 0; i < users; i++) {
+                        standings.add("user-" + i, i % 7);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<ChallengeStanding> all = standings.top(users);
+        assertEquals(users, all.size());
+        for (ChallengeStanding standing : all) {
+            int i = Integer.parseInt(standing.username().substring("user-".length()));
+            assertEquals(40 * (i % 7), standing.value());
+        }
+        assertEquals(240, all.get(0).value());
+    }
+
+    @Test
+    void testProgressFollowsEvents() {
+        ChallengeService service = new ChallengeService();
+        Challenge habits = service.createChallenge("Habits", "Complete habits", ChallengeType.HABIT_CHALLENGE,
+            10, START, START.plusDays(6), "Badge");
+        Challenge streak = service.createChallenge("Streak", "Keep a streak", ChallengeType.STREAK_CHALLENGE,
+            5, START, START.plusDays(30), "Badge");
+        Challenge xp = service.createChallenge("XP", "Earn XP", ChallengeType.XP_CHALLENGE,
+            500, START, START.plusDays(30), "Badge");
+        for (Challenge challenge : List.of(habits, streak, xp)) {
+            service.joinChallenge(challenge.id(), "alice");
+            service.joinChallenge(challenge.id(), "bob");
+        }
+
+        Habit exercise = new Habit("Exercise", Difficulty.TWO);
+        UserStats stats = new UserStats(120, 2);
+        HabitService aliceHabits = new HabitService();
+        for (int day = 0; day < 10; day++) {
+            HabitCheckResult result = day == 3 ? HabitCheckResult.MISSED : HabitCheckResult.DONE;
+            HabitCheck check = new HabitCheck(exercise, START.plusDays(day), result);
+            service.recordHabitCheck("alice", check, stats, aliceHabits);
+        }
+        service.recordHabitCheck("bob", new HabitCheck(exercise, START, HabitCheckResult.DONE), new UserStats(300, 3),
+            new HabitService());
+        service.recordXpUpdate("carol", START, new UserStats(900, 5)); // Not a participant
+
+        // Days 0-6 are in the habit challenge window, one of them missed
+        assertEquals(6, service.getChallengeProgress(habits.id(), "alice").currentValue());
+        // Days 4-9 are the longest run
+        assertEquals(6, service.getChallengeProgress(streak.id(), "alice").currentValue());
+        assertEquals(120, service.getChallengeProgress(xp.id(), "alice").currentValue());
+
+        List<ChallengeStanding> xpStandings = service.getStandings(xp.id(), 10);
+        assertEquals("bob", xpStandings.get(0).username());
+        assertEquals(300, xpStandings.get(0).value());
+        assertEquals(2, xpStandings.size());
+
+        service.leaveChallenge(xp.id(), "bob");
+        assertThrows(IllegalArgumentException.class, () -> service.getChallengeProgress(xp.id(), "bob"));
+        assertEquals(1, service.getStandings(xp.id(), 10).size());
+    }
+
+    @Test
+    void testProgressStartsFromHistory() {
+        Habit exercise = new Habit("Exercise", Difficulty.TWO);
+        HabitService habitService = new HabitService();
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 8; day++) {
+            HabitCheckResult result = day == 2 ? HabitCheckResult.MISSED : HabitCheckResult.DONE;
+            stats = habitService.checkHabit(stats, exercise, START.plusDays(day), result).userStats();
+        }
+
+        ChallengeService service = new ChallengeService();
+        Challenge habits = service.createChallenge("Habits", "Complete habits", ChallengeType.HABIT_CHALLENGE,
+            10, START.plusDays(1), START.plusDays(30), "Badge");
+        Challenge streak = service.createChallenge("Streak", "Keep a streak", ChallengeType.STREAK_CHALLENGE,
+            10, START, START.plusDays(30), "Badge");
+        Challenge xp = service.createChallenge("XP", "Earn XP", ChallengeType.XP_CHALLENGE,
+            500, START, START.plusDays(30), "Badge");
+        for (Challenge challenge : List.of(habits, streak, xp)) {
+            service.joinChallenge(challenge.id(), "alice");
+            service.startProgress(challenge.id(), "alice", stats, habitService);
+        }
+
+        // Days 1 and 3-7 are done within the habit challenge's dates; days 3-7 are the longest run
+        assertEquals(6, service.getChallengeProgress(habits.id(), "alice").currentValue());
+        assertEquals(5, service.getChallengeProgress(streak.id(), "alice").currentValue());
+        assertEquals(stats.getTotalXp(), service.getChallengeProgress(xp.id(), "alice").currentValue());
+
+        // A service that has not seen the user, as after a restart, continues their run from history
+        ChallengeService restarted = new ChallengeService();
+        Challenge restartedStreak = restarted.createChallenge("Streak", "Keep a streak",
+            ChallengeType.STREAK_CHALLENGE, 10, START, START.plusDays(30), "Badge");
+        restarted.joinChallenge(restartedStreak.id(), "alice");
+        UserStats after = habitService.checkHabit(stats, exercise, START.plusDays(8), HabitCheckResult.DONE).userStats();
+        restarted.recordHabitCheck("alice", new HabitCheck(exercise, START.plusDays(8), HabitCheckResult.DONE), after,
+            habitService);
+        assertEquals(6, restarted.getChallengeProgress(restartedStreak.id(), "alice").currentValue());
+    }
+}
@@ -0,0 +1,145 @@
+package org.example;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CsvWriter and the streaming CSV export.
+ */
+class CsvWriterTest {
+    private static final LocalDate START = LocalDate.of(2000, 1, 1);
+
+    @Test
+    void testQuotesOnlyWhenNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out, 32);
+
+        csv.row("plain", "with, comma", "say \"hi\"", "multi\nline", null, "");
+        csv.field(-1234L).field(0L).field(LocalDate.of(2024, 2, 9)).endRow();
+        csv.flush();
+
+        assertEquals("plain,\"with, comma\",\"say \"\"hi\"\"\",\"multi\nline\",,\r\n"
+            + "-1234,0,2024-02-09\r\n", out.toString());
+    }
+
+    @Test
+    void testLongFieldSpansBufferFlushes() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out, 32);
+        String longText = "x".repeat(1000) + ",";
+
+        csv.row(longText, String.valueOf(Long.MIN_VALUE));
+        csv.flush();
+
+        assertEquals("\"" + longText + "\"," + Long.MIN_VALUE + "\r\n", out.toString());
+    }
+
+    @Test
+    void testExportEscapesUserText() throws IOException {
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        Habit habit = new Habit("Read, then write", Difficulty.TWO);
+        Goal goal = new Goal("Novel", "Write a \"novel\"", START, START.plusYears(1), 3, 100);
+        goalService.addGoal(goal);
+        UserStats stats = habitService.checkHabit(UserStats.createNew(), habit, START, HabitCheckResult.DONE)
+            .userStats();
+        goalService.addGoalNote(stats, goal, START, "Chapter 1, draft", 5, habitService);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExportService().writeCsv(out, stats, habitService.getCheckedHabits(), goalService.getAllGoals(),
+            habitService, goalService);
+        String csv = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(csv.startsWith("Type,Name,Date,Value,Description\r\n"));
+        assertTrue(csv.contains("HABIT_CHECK,\"Read, then write\",2000-01-01,DONE,Completed\r\n"));
+        assertTrue(csv.contains("GOAL,Novel,2000-01-01,100,\"Goal: Write a \"\"novel\"\"\"\r\n"));
+        assertTrue(csv.contains("GOAL_NOTE,Progress,2000-01-01,5,\"Chapter 1, draft\"\r\n"));
+    }
+
+    @Test
+    void testLargeExportWritesOneRowPerCheck() throws IOException {
+        HabitService habitService = new HabitService();
+        Habit[] habits = new Habit[10];
+        for (int i = 0; i < habits.length; i++) {
+            habits[i] = new Habit(i % 2 == 0 ? "Habit " + i : "Habit, " + i, Difficulty.ONE);
+        }
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 2_000; day++) {
+            for (Habit habit : habits) {
+                stats = habitService.checkHabit(stats, habit, START.plusDays(day), HabitCheckResult.DONE).userStats();
+            }
+        }
+        GoalService goalService = new GoalService();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExportService().writeCsv(out, stats, List.of(habits), goalService.getAllGoals(),
+            habitService, goalService);
+        String[] rows = out.toString(StandardCharsets.UTF_8).split("\r\n");
+
+        long checkRows = Arrays.stream(rows).filter(row -> row.startsWith("HABIT_CHECK,")).count();
+        assertEquals(20_000, checkRows);
+        assertTrue(Arrays.asList(rows).contains("HABIT_CHECK,\"Habit, 1\",2005-06-22,DONE,Completed"));
+        assertTrue(Arrays.asList(rows).contains("HABIT_CHECK,Habit 0,2005-06-22,DONE,Completed"));
+    }
+
+    /**
+     * Measures CSV export throughput over 100k habit checks. Run with {@code ./gradlew benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkExportRowsPerSecondFor100kChecks() throws IOException {
+        HabitService habitService = new HabitService();
+        Habit[] habits = new Habit[10];
+        for (int i = 0; i < habits.length; i++) {
+            habits[i] = new Habit("Habit " + i, Difficulty.ONE);
+        }
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 10_000; day++) {
+            for (Habit habit : habits) {
+                stats = habitService.checkHabit(stats, habit, START.plusDays(day), HabitCheckResult.DONE).userStats();
+            }
+        }
+        GoalService goalService = new GoalService();
+        ExportService exportService = new ExportService();
+
+        CountingOutputStream out = new CountingOutputStream();
+        long bestNanos = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            out.count = 0;
+            long start = System.nanoTime();
+            exportService.writeCsv(out, stats, List.of(habits), goalService.getAllGoals(),
+                habitService, goalService);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        long rows = 100_000;
+        System.out.printf("CSV export: %d habit checks, %d bytes, %.0f rows/sec%n",
+            rows, out.count, rows / (bestNanos / 1e9));
+        assertTrue(out.count > rows * 30, "Every check should produce a full row");
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
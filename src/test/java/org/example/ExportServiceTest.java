@@ -0,0 +1,91 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming JSON export.
+ */
+class ExportServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final LocalDate START = LocalDate.now().minusDays(20);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void testStreamedJsonMatchesExportData() throws IOException {
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        Habit read = new Habit("Read", Difficulty.TWO);
+        Habit run = new Habit("Run, then stretch", Difficulty.FOUR);
+        Goal goal = new Goal("Novel", "Write a \"novel\"", START, START.plusYears(1), 3, 100);
+        goalService.addGoal(goal);
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 15; day++) {
+            LocalDate date = START.plusDays(day);
+            stats = habitService.checkHabit(stats, read, date, HabitCheckResult.DONE).userStats();
+            HabitCheckResult runResult = day % 3 == 0 ? HabitCheckResult.MISSED : HabitCheckResult.DONE;
+            stats = habitService.checkHabit(stats, run, date, runResult).userStats();
+            if (day % 4 == 0) {
+                stats = goalService.addGoalNote(stats, goal, date, "Chapter " + day, 10, habitService).userStats();
+            }
+        }
+        List<Habit> habits = habitService.getCheckedHabits();
+        List<Goal> goals = goalService.getAllGoals();
+        List<Achievement> achievements = new AchievementService().getAchievements(
+            USER_ID, stats, habitService, goalService);
+        List<Milestone> milestones = new MilestoneService().getMilestones(
+            USER_ID, stats, habitService, goalService);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExportService().writeJson(out, stats, habits, goals, habitService, goalService,
+            achievements, milestones);
+        JsonNode streamed = objectMapper.readTree(out.toByteArray());
+        ExportData exportData = new ExportData(LocalDate.now(), stats, habits, goals,
+            habitService.getAllHabitChecks(), goalService.getAllGoalNotes(), achievements, milestones);
+        JsonNode expected = objectMapper.valueToTree(exportData);
+
+        assertEquals(expected.get("exportDate"), streamed.get("exportDate"));
+        assertEquals(expected.get("userStats"), streamed.get("userStats"));
+        assertEquals(expected.get("habits"), streamed.get("habits"));
+        assertEquals(expected.get("goals"), streamed.get("goals"));
+        assertEquals(expected.get("achievements"), streamed.get("achievements"));
+        assertEquals(expected.get("milestones"), streamed.get("milestones"));
+
+        // Checks and notes refer to their habit or goal by name instead of repeating it
+        JsonNode expectedChecks = expected.get("habitChecks");
+        JsonNode streamedChecks = streamed.get("habitChecks");
+        assertEquals(30, streamedChecks.size());
+        assertEquals(expectedChecks.size(), streamedChecks.size());
+        for (int i = 0; i < expectedChecks.size(); i++) {
+            JsonNode check = streamedChecks.get(i);
+            assertEquals(3, check.size());
+            assertEquals(expectedChecks.get(i).get("habit").get("name"), check.get("habit"));
+            assertEquals(expectedChecks.get(i).get("date"), check.get("date"));
+            assertEquals(expectedChecks.get(i).get("result"), check.get("result"));
+        }
+        JsonNode expectedNotes = expected.get("goalNotes");
+        JsonNode streamedNotes = streamed.get("goalNotes");
+        assertEquals(4, streamedNotes.size());
+        assertEquals(expectedNotes.size(), streamedNotes.size());
+        for (int i = 0; i < expectedNotes.size(); i++) {
+            JsonNode note = streamedNotes.get(i);
+            assertEquals(4, note.size());
+            assertEquals(expectedNotes.get(i).get("goal").get("title"), note.get("goal"));
+            assertEquals(expectedNotes.get(i).get("date"), note.get("date"));
+            assertEquals(expectedNotes.get(i).get("textNote"), note.get("textNote"));
+            assertEquals(expectedNotes.get(i).get("points"), note.get("points"));
+        }
+    }
+}
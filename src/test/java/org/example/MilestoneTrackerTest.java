@@ -0,0 +1,88 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MilestoneTracker and the counter-based MilestoneService.
+ */
+class MilestoneTrackerTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final Habit exercise = new Habit("Exercise", Difficulty.TWO);
+
+    @Test
+    void testThresholdsAreDatedWhenReached() {
+        MilestoneTracker tracker = new MilestoneTracker();
+        for (int day = 0; day < 30; day++) {
+            tracker.recordHabitCheck(new HabitCheck(exercise, START.plusDays(day), HabitCheckResult.DONE));
+        }
+
+        assertEquals(30, tracker.getValue(MilestoneType.STREAK));
+        assertEquals(30, tracker.getValue(MilestoneType.HABITS_COMPLETED));
+        assertEquals(30, tracker.getValue(MilestoneType.DAYS_ACTIVE));
+        Milestone weekWarrior = milestone(tracker.getMilestones(), MilestoneRule.WEEK_WARRIOR);
+        assertTrue(weekWarrior.achieved());
+        assertEquals(START.plusDays(6), weekWarrior.achievedDate());
+        assertEquals(START.plusDays(29), milestone(tracker.getMilestones(), MilestoneRule.MONTH_ACTIVE).achievedDate());
+        assertFalse(milestone(tracker.getMilestones(), MilestoneRule.CENTURY_CLUB).achieved());
+
+        // Several thresholds crossed by one change share its date
+        tracker.recordStats(START.plusDays(40), new UserStats(12000, 20));
+        List<Milestone> milestones = tracker.getMilestones();
+        assertEquals(START.plusDays(40), milestone(milestones, MilestoneRule.TEN_K_CHAMPION).achievedDate());
+        assertEquals(START.plusDays(40), milestone(milestones, MilestoneRule.VETERAN).achievedDate());
+        assertFalse(milestone(milestones, MilestoneRule.QUARTER_CENTURY).achieved());
+    }
+
+    @Test
+    void testActiveDaysMatchXpHistory() {
+        MilestoneTracker tracker = new MilestoneTracker();
+        Goal goal = new Goal("Read", "Read more", START, START.plusMonths(1), 3, 100);
+
+        tracker.recordGoalNote(new GoalNote(goal, START, "No XP", 0));
+        assertEquals(0, tracker.getValue(MilestoneType.DAYS_ACTIVE));
+        tracker.recordGoalNote(new GoalNote(goal, START, "Chapter one", 10));
+        tracker.recordHabitCheck(new HabitCheck(exercise, START, HabitCheckResult.DONE));
+        tracker.recordHabitCheck(new HabitCheck(exercise, START.plusDays(1), HabitCheckResult.MISSED));
+
+        assertEquals(2, tracker.getValue(MilestoneType.DAYS_ACTIVE));
+        assertEquals(1, tracker.getValue(MilestoneType.HABITS_COMPLETED));
+    }
+
+    @Test
+    void testServiceMatchesHistoryAndFollowsEvents() {
+        LocalDate today = START.plusDays(20);
+        MilestoneService service = new MilestoneService(
+            Clock.fixed(today.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 10; day++) {
+            stats = habitService.checkHabit(stats, exercise, START.plusDays(day), HabitCheckResult.DONE).userStats();
+        }
+        long historyDays = new AnalyticsService().buildXpHistory(habitService, goalService).stream()
+            .map(XpHistoryEntry::date).distinct().count();
+
+        List<Milestone> milestones = service.getMilestones(1L, stats, habitService, goalService);
+        assertEquals(historyDays, milestone(milestones, MilestoneRule.MONTH_ACTIVE).currentValue());
+        assertEquals(10, milestone(milestones, MilestoneRule.WEEK_WARRIOR).currentValue());
+        assertEquals(stats.getTotalXp(), milestone(milestones, MilestoneRule.FIRST_THOUSAND).currentValue());
+
+        HabitCheck check = new HabitCheck(exercise, START.plusDays(10), HabitCheckResult.DONE);
+        stats = habitService.checkHabit(stats, exercise, check.date(), check.result()).userStats();
+        service.recordHabitCheck(1L, check, stats);
+        milestones = service.getMilestones(1L, stats, habitService, goalService);
+        assertEquals(11, milestone(milestones, MilestoneRule.HABIT_STARTER).currentValue());
+    }
+
+    private static Milestone milestone(List<Milestone> milestones, MilestoneRule rule) {
+        return milestones.get(rule.ordinal());
+    }
+}
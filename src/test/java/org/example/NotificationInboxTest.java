@@ -0,0 +1,100 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NotificationInbox.
+ */
+class NotificationInboxTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private final AtomicLong ids = new AtomicLong(1);
+
+    @Test
+    void testDuplicateKeysAreNotDelivered() {
+        NotificationInbox inbox = new NotificationInbox(10);
+
+        Notification first = inbox.deliver("a", notification("First", 0), ids::getAndIncrement);
+        assertEquals(Long.valueOf(1), first.id());
+        assertNull(inbox.deliver("a", notification("First again", 0), ids::getAndIncrement));
+        assertEquals(Long.valueOf(2), inbox.deliver("b", notification("Second", 0), ids::getAndIncrement).id());
+
+        assertEquals(2, inbox.size());
+        assertEquals(2, inbox.getUnreadCount());
+    }
+
+    @Test
+    void testUnreadCountTracksReads() {
+        NotificationInbox inbox = new NotificationInbox(10);
+        Notification first = inbox.deliver("a", notification("First", 0), ids::getAndIncrement);
+        inbox.deliver("b", notification("Second", 0), ids::getAndIncrement);
+        inbox.deliver("c", notification("Third", 0), ids::getAndIncrement);
+
+        assertTrue(inbox.markAsRead(first.id()));
+        assertFalse(inbox.markAsRead(first.id()));
+        assertEquals(2, inbox.getUnreadCount());
+
+        assertEquals(2, inbox.markAllAsRead());
+        assertEquals(0, inbox.getUnreadCount());
+        assertTrue(inbox.getNotifications().stream().allMatch(Notification::read));
+        assertThrows(IllegalArgumentException.class, () -> inbox.markAsRead(99L));
+    }
+
+    @Test
+    void testEvictionKeepsCounterConsistent() {
+        NotificationInbox inbox = new NotificationInbox(2);
+        Notification first = inbox.deliver("a", notification("First", 2), ids::getAndIncrement);
+        inbox.markAsRead(first.id());
+        inbox.deliver("b", notification("Second", 1), ids::getAndIncrement);
+        inbox.deliver("c", notification("Third", 0), ids::getAndIncrement);
+        assertEquals(2, inbox.getUnreadCount());
+
+        inbox.deliver("d", notification("Fourth", 3), ids::getAndIncrement);
+        assertEquals(2, inbox.size());
+        assertEquals(2, inbox.getUnreadCount());
+
+        List<Notification> notifications = inbox.getNotifications();
+        assertEquals("Third", notifications.get(0).message());
+        assertEquals("Fourth", notifications.get(1).message());
+
+        // An evicted key can be delivered again
+        assertNotNull(inbox.deliver("b", notification("Second", 1), ids::getAndIncrement));
+    }
+
+    @Test
+    void testConcurrentDeliveryAndReads() throws InterruptedException {
+        NotificationInbox inbox = new NotificationInbox(10_000);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Notification stored = inbox.deliver(offset + ":" + i, notification("Message", 0),
+                        ids::getAndIncrement);
+                    if (i % 2 == 0) {
+                        inbox.markAsRead(stored.id());
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, inbox.size());
+        assertEquals(2000, inbox.getUnreadCount());
+        assertEquals(4000, inbox.getNotifications().stream().map(Notification::id).distinct().count());
+    }
+
+    private static Notification notification(String message, int minutesFromNow) {
+        return new Notification(null, NotificationType.MOTIVATIONAL, "Title", message, NOW,
+            NOW.plusMinutes(minutesFromNow), false, "/dashboard");
+    }
+}
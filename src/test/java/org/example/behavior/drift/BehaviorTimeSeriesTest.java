@@ -0,0 +1,119 @@
+package org.example.behavior.drift;
+
+import org.example.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for snapshot calculation, the snapshot time series and incremental drift detection.
+ */
+class BehaviorTimeSeriesTest {
+    // A Monday, so weeks line up with the start date
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private static BehaviorSnapshot snapshot(LocalDate date, double xp, double completionRate) {
+        return new BehaviorSnapshot(date, xp, completionRate, 50.0, 10.0, 2, 50.0);
+    }
+
+    @Test
+    void testAppendAndLookup() {
+        BehaviorTimeSeries series = new BehaviorTimeSeries(30, 365);
+        for (int day = 0; day < 10; day++) {
+            series.append(snapshot(START.plusDays(day * 2), day, 50.0));
+        }
+
+        assertEquals(10, series.size());
+        assertEquals(START.plusDays(18), series.latest().date());
+        assertEquals(START.plusDays(6), series.onOrBefore(START.plusDays(7)).date());
+        assertEquals(3.0, series.onOrBefore(START.plusDays(7)).averageDailyXp());
+        assertNull(series.onOrBefore(START.minusDays(1)));
+
+        // Same day replaces, older is rejected
+        series.append(snapshot(START.plusDays(18), 42.0, 60.0));
+        assertEquals(10, series.size());
+        assertEquals(42.0, series.latest().averageDailyXp());
+        assertThrows(IllegalArgumentException.class, () -> series.append(snapshot(START, 1.0, 50.0)));
+    }
+
+    @Test
+    void testCompactDownsamplesWholeWeeksAndDropsExpired() {
+        BehaviorTimeSeries series = new BehaviorTimeSeries(14, 60);
+        for (int day = 0; day < 70; day++) {
+            series.append(snapshot(START.plusDays(day), day, 50.0));
+        }
+        LocalDate today = START.plusDays(69);
+
+        int removed = series.compact(today);
+
+        List<BehaviorSnapshot> snapshots = series.toList();
+        assertEquals(70 - removed, snapshots.size());
+        // Raw days from the Monday on or before today - 14 stay at full resolution
+        LocalDate rawStart = START.plusDays(49);
+        assertEquals(rawStart, series.onOrBefore(rawStart).date());
+        assertEquals(49.0, series.onOrBefore(rawStart).averageDailyXp());
+        // Older days are weekly averages dated on the Monday, within the 60-day retention
+        BehaviorSnapshot week = series.onOrBefore(START.plusDays(44));
+        assertEquals(START.plusDays(42), week.date());
+        assertEquals(45.0, week.averageDailyXp(), 0.001);
+        assertEquals(2, week.activeGoalCount());
+        assertTrue(snapshots.get(0).date().isAfter(today.minusDays(61)));
+        for (int i = 1; i < snapshots.size(); i++) {
+            assertTrue(snapshots.get(i).date().isAfter(snapshots.get(i - 1).date()));
+        }
+    }
+
+    @Test
+    void testIncrementalDriftUsesBaselineAtDriftHorizon() {
+        BehaviorDriftDetector detector = new BehaviorDriftDetector();
+        BehaviorTimeSeries series = new BehaviorTimeSeries(90, 365);
+        for (int day = 0; day < 20; day++) {
+            BehaviorSnapshot next = snapshot(START.plusDays(day), 50.0, 60.0);
+            assertNull(detector.detectIncrementalDrift(series, next, next.date()));
+            series.append(next);
+        }
+
+        BehaviorSnapshot improved = snapshot(START.plusDays(20), 80.0, 80.0);
+        DriftEvent event = detector.detectIncrementalDrift(series, improved, improved.date());
+
+        assertNotNull(event);
+        assertEquals(DriftType.IMPROVEMENT, event.getDriftType());
+        assertEquals(START.plusDays(6), event.getEarlierSnapshot().date());
+        assertEquals(14, event.getDaysBetweenSnapshots());
+    }
+
+    @Test
+    void testCalculateSnapshotFromActivity() {
+        HabitService habitService = new HabitService();
+        GoalService goalService = new GoalService();
+        Habit exercise = new Habit("Exercise", Difficulty.TWO);
+        Goal active = new Goal("Marathon", "Run a marathon", START, START.plusMonths(6), 3, 500);
+        Goal idle = new Goal("Read", "Read books", START, START.plusMonths(6), 2, 100);
+        Goal finished = new Goal("Old", "Finished goal", START.minusMonths(3), START.minusDays(1), 1, 50);
+        goalService.addGoal(active);
+        goalService.addGoal(idle);
+        goalService.addGoal(finished);
+
+        UserStats stats = UserStats.createNew();
+        // Done every day except the 8th, missed on the 8th
+        for (int day = 0; day < 14; day++) {
+            HabitCheckResult result = day == 7 ? HabitCheckResult.MISSED : HabitCheckResult.DONE;
+            stats = habitService.checkHabit(stats, exercise, START.plusDays(day), result).userStats();
+        }
+        goalService.addGoalNote(stats, active, START.plusDays(10), "Long run", 5, habitService);
+
+        BehaviorSnapshot snapshot = new BehaviorSnapshotCalculator()
+            .calculate(habitService, goalService, START.plusDays(13));
+
+        assertEquals(START.plusDays(13), snapshot.date());
+        assertEquals(100.0 * 13 / 14, snapshot.habitCompletionRate(), 0.001);
+        // 13 active days; the first and the one after the gap start new runs
+        assertEquals(100.0 * 11 / 13, snapshot.streakStability(), 0.001);
+        assertEquals(2, snapshot.activeGoalCount());
+        assertEquals(50.0, snapshot.goalEngagementRate(), 0.001);
+        assertTrue(snapshot.averageDailyXp() > 0);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests that habit checks and goal notes recorded through the API are persisted, so a user
+ * whose services are dropped from memory, as after a restart, is reloaded with the same state
+ * and gets the same dashboard from the history tables.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+class UserHistoryApiTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void testRecordedHistoryIsReloadedAfterEviction() throws Exception {
+        long userId = createUser("reloaded");
+        long habitId = postJson("/api/users/" + userId + "/habits",
+            Map.of("name", "Exercise", "difficulty", 3), status().isCreated()).get("id").asLong();
+        long goalId = postJson("/api/users/" + userId + "/goals", Map.of(
+            "title", "Learn Spanish",
+            "startDate", TODAY.minusDays(30).toString(),
+            "targetDate", TODAY.plusMonths(6).toString(),
+            "importance", 3,
+            "totalProgressPoints", 100), status().isCreated()).get("id").asLong();
+        postJson("/api/users/" + userId + "/habits/" + habitId + "/complete?date=" + TODAY.minusDays(1), null,
+            status().isOk());
+        postJson("/api/users/" + userId + "/habits/" + habitId + "/complete", null, status().isOk());
+        postJson("/api/users/" + userId + "/goals/" + goalId + "/notes",
+            Map.of("textNote", "Practised", "requestedXp", 8), status().isOk());
+        JsonNode before = getJson("/api/users/" + userId + "/analytics/detailed");
+
+        userService.evictUser(userId);
+        assertFalse(userService.isUserLoaded(userId));
+        JsonNode after = getJson("/api/users/" + userId + "/analytics/detailed");
+
+        assertTrue(userService.isUserLoaded(userId));
+        assertEquals(2, after.get("habitStreaks").get(0).get("currentStreak").asInt());
+        assertEquals(before.get("habitStreaks"), after.get("habitStreaks"));
+        assertEquals(before.get("xpHistory"), after.get("xpHistory"));
+        assertEquals(before.get("consistencyScore"), after.get("consistencyScore"));
+        // The reloaded day still holds today's check, so it cannot be rewarded twice
+        postJson("/api/users/" + userId + "/habits/" + habitId + "/complete", null, status().isConflict());
+        postJson("/api/users/" + userId + "/goals/" + goalId + "/notes",
+            Map.of("textNote", "Again", "requestedXp", 8), status().isConflict());
+    }
+
+    @Test
+    void testDashboardOfUserNotInMemoryMatches() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            long userId = createUser("dashboard" + seed);
+            recordHistory(userId, new Random(seed));
+            JsonNode inMemory = getJson("/api/users/" + userId + "/analytics/dashboard");
+
+            userService.evictUser(userId);
+            JsonNode fromTables = getJson("/api/users/" + userId + "/analytics/dashboard");
+
+            assertFalse(userService.isUserLoaded(userId), "seed " + seed);
+            // Entries on the same day are listed in no particular order
+            assertEquals(sortedActivity(inMemory), sortedActivity(fromTables), "seed " + seed);
+            ((ObjectNode) inMemory).remove("recentActivity");
+            ((ObjectNode) fromTables).remove("recentActivity");
+            assertEquals(inMemory, fromTables, "seed " + seed);
+        }
+    }
+
+    /**
+     * Records three weeks of habit checks and goal notes through the API, with some days
+     * missed or left out.
+     */
+    private void recordHistory(long userId, Random random) throws Exception {
+        List<Long> habitIds = new ArrayList<>();
+        for (String name : List.of("Exercise", "Read", "Meditate")) {
+            JsonNode habit = postJson("/api/users/" + userId + "/habits",
+                Map.of("name", name, "difficulty", 1 + random.nextInt(5)), status().isCreated());
+            habitIds.add(habit.get("id").asLong());
+        }
+        long goalId = postJson("/api/users/" + userId + "/goals", Map.of(
+            "title", "Learn Spanish",
+            "startDate", TODAY.minusDays(40).toString(),
+            "targetDate", TODAY.plusMonths(6).toString(),
+            "importance", 1 + random.nextInt(5),
+            "totalProgressPoints", 100), status().isCreated()).get("id").asLong();
+        for (LocalDate day = TODAY.minusDays(20); !day.isAfter(TODAY); day = day.plusDays(1)) {
+            for (long habitId : habitIds) {
+                int roll = random.nextInt(10);
+                if (roll < 7) {
+                    String outcome = roll < 5 ? "complete" : "miss";
+                    postJson("/api/users/" + userId + "/habits/" + habitId + "/" + outcome + "?date=" + day, null,
+                        status().isOk());
+                }
+            }
+            if (random.nextInt(10) < 4) {
+                postJson("/api/users/" + userId + "/goals/" + goalId + "/notes?date=" + day,
+                    Map.of("textNote", "Practised", "requestedXp", random.nextInt(25)), status().isOk());
+            }
+        }
+    }
+
+    private static List<String> sortedActivity(JsonNode dashboard) {
+        List<String> activity = new ArrayList<>();
+        dashboard.get("recentActivity").forEach(entry -> activity.add(entry.toString()));
+        activity.sort(null);
+        return activity;
+    }
+
+    private long createUser(String username) throws Exception {
+        return postJson("/api/users", Map.of("username", username, "email", username + "@example.com"),
+            status().isCreated()).get("id").asLong();
+    }
+
+    private JsonNode postJson(String url, Map<String, Object> body, ResultMatcher expected) throws Exception {
+        String content = mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body != null ? objectMapper.writeValueAsString(body) : ""))
+            .andExpect(expected)
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(content);
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String content = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(content);
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.history;
+
+import org.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compact history encoding and cold storage.
+ */
+class HistoryCodecTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private HistoryCodec codec;
+    private Habit exercise;
+    private Habit reading;
+    private Goal marathon;
+
+    @BeforeEach
+    void setUp() {
+        codec = new HistoryCodec(new IdInterner<>(), new IdInterner<>());
+        exercise = new Habit("Exercise", Difficulty.THREE);
+        reading = new Habit("Reading", Difficulty.ONE);
+        marathon = new Goal("Marathon", "Run a marathon", START, START.plusMonths(6), 4, 500);
+    }
+
+    @Test
+    void testRecordsRoundTrip() {
+        HabitCheck check = new HabitCheck(exercise, START, HabitCheckResult.MISSED);
+        GoalNote note = new GoalNote(marathon, START.plusDays(3), "Long run, 18 km ✓", 10);
+        XpHistoryEntry decay = new XpHistoryEntry(START.minusYears(30), -25, XpSource.DECAY);
+
+        HistoryBuffer buffer = new HistoryBuffer();
+        codec.writeHabitCheck(check, buffer);
+        codec.writeGoalNote(note, buffer);
+        codec.writeXpHistoryEntry(decay, buffer);
+
+        HistoryBuffer.Reader reader = HistoryBuffer.reader(buffer.toByteArray());
+        assertEquals(check, codec.readHabitCheck(reader));
+        assertEquals(note, codec.readGoalNote(reader));
+        assertEquals(decay, codec.readXpHistoryEntry(reader));
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    void testHabitCheckEncodingIsCompact() {
+        HistoryBuffer buffer = new HistoryBuffer();
+        codec.writeHabitCheck(new HabitCheck(reading, START, HabitCheckResult.DONE), buffer);
+
+        // Zig-zag epoch day (3 bytes for current dates) plus one byte for habit id and result
+        assertTrue(buffer.size() <= 4, "Habit check should take at most 4 bytes, took " + buffer.size());
+    }
+
+    @Test
+    void testTruncatedDataFails() {
+        HistoryBuffer buffer = new HistoryBuffer();
+        codec.writeGoalNote(new GoalNote(marathon, START, "Tempo run", 5), buffer);
+        byte[] truncated = Arrays.copyOf(buffer.toByteArray(), buffer.size() - 2);
+
+        assertThrows(IllegalStateException.class, () -> codec.readGoalNote(HistoryBuffer.reader(truncated)));
+    }
+
+    @Test
+    void testArchiveLookupAcrossBlocks() {
+        DatedRecordArchive<GoalNote> archive = new DatedRecordArchive<>(codec.goalNoteCodec());
+        List<GoalNote> appended = new ArrayList<>();
+        for (int day = 0; day < 200; day += 2) {
+            LocalDate date = START.plusDays(day);
+            // Several records on the same date exercise lookups that straddle a block boundary
+            int notesOnDay = day % 10 == 0 ? 3 : 1;
+            for (int i = 0; i < notesOnDay; i++) {
+                GoalNote note = new GoalNote(marathon, date, "Note " + day + "-" + i, i);
+                archive.append(date, note);
+                appended.add(note);
+            }
+        }
+
+        assertEquals(appended.size(), archive.size());
+        assertEquals(START.plusDays(198), archive.lastDate());
+        assertEquals(3, archive.get(START.plusDays(60)).size());
+        assertEquals("Note 62-0", archive.get(START.plusDays(62)).get(0).textNote());
+        assertTrue(archive.get(START.plusDays(61)).isEmpty());
+        assertTrue(archive.get(START.minusDays(1)).isEmpty());
+        assertTrue(archive.get(START.plusDays(500)).isEmpty());
+
+        List<GoalNote> decoded = new ArrayList<>();
+        archive.forEach((date, note) -> decoded.add(note));
+        assertEquals(appended, decoded);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> archive.append(START, new GoalNote(marathon, START, "Late", 0)));
+    }
+
+    @Test
+    void testArchiveDescendingIteration() {
+        DatedRecordArchive<GoalNote> archive = new DatedRecordArchive<>(codec.goalNoteCodec());
+        List<GoalNote> appended = new ArrayList<>();
+        for (int day = 0; day < 200; day += 2) {
+            LocalDate date = START.plusDays(day);
+            int notesOnDay = day % 10 == 0 ? 3 : 1;
+            for (int i = 0; i < notesOnDay; i++) {
+                GoalNote note = new GoalNote(marathon, date, "Note " + day + "-" + i, i);
+                archive.append(date, note);
+                appended.add(note);
+            }
+        }
+
+        // Newest date first, records of a date in append order
+        List<GoalNote> expected = new ArrayList<>(appended);
+        expected.sort(Comparator.comparing(GoalNote::date).reversed());
+        List<GoalNote> decoded = new ArrayList<>();
+        archive.descendingIterator(START.plusDays(500)).forEachRemaining(entry -> decoded.add(entry.getValue()));
+        assertEquals(expected, decoded);
+
+        Iterator<Map.Entry<LocalDate, GoalNote>> fromMiddle = archive.descendingIterator(START.plusDays(61));
+        Map.Entry<LocalDate, GoalNote> first = fromMiddle.next();
+        assertEquals(START.plusDays(60), first.getKey());
+        assertEquals("Note 60-0", first.getValue().textNote());
+        assertFalse(archive.descendingIterator(START.minusDays(1)).hasNext());
+    }
+
+    @Test
+    void testArchivedActivityStaysReadable() {
+        HabitService habitService = new HabitService();
+        UserStats stats = UserStats.createNew();
+        int days = 365;
+        for (int day = 0; day < days; day++) {
+            LocalDate date = START.plusDays(day);
+            stats = habitService.checkHabit(stats, exercise, date, HabitCheckResult.DONE).userStats();
+            stats = habitService.checkHabit(stats, reading, date,
+                day % 3 == 0 ? HabitCheckResult.MISSED : HabitCheckResult.DONE).userStats();
+        }
+        Map<LocalDate, DailyActivityLog> before = habitService.getAllActivityLogs();
+        List<HabitCheck> checksBefore = habitService.getAllHabitChecks();
+
+        assertEquals(days - 30, habitService.archiveActivityBefore(START.plusDays(days - 30)));
+        assertEquals(days - 30, habitService.getArchivedDayCount());
+
+        assertEquals(before, habitService.getAllActivityLogs());
+        assertEquals(checksBefore.size(), habitService.getAllHabitChecks().size());
+        assertTrue(habitService.getAllHabitChecks().containsAll(checksBefore));
+        assertEquals(before.get(START.plusDays(100)), habitService.getActivityLog(START.plusDays(100)));
+
+        // Checking the same habit again on an archived day is still rejected
+        UserStats finalStats = stats;
+        assertThrows(IllegalStateException.class,
+            () -> habitService.checkHabit(finalStats, exercise, START.plusDays(10), HabitCheckResult.DONE));
+    }
+
+    @Test
+    void testArchivedGoalNotesStayReadable() {
+        GoalService goalService = new GoalService();
+        HabitService habitService = new HabitService();
+        goalService.addGoal(marathon);
+        UserStats stats = UserStats.createNew();
+        for (int day = 0; day < 40; day++) {
+            stats = goalService.addGoalNote(stats, marathon, START.plusDays(day), "Run " + day, 5, habitService)
+                .userStats();
+        }
+        int pointsBefore = goalService.getAccumulatedPoints(marathon);
+
+        assertEquals(30, goalService.archiveNotesBefore(START.plusDays(30)));
+
+        assertEquals(40, goalService.getGoalNotes(marathon).size());
+        assertEquals(pointsBefore, goalService.getAccumulatedPoints(marathon));
+        assertEquals("Run 12", goalService.getGoalNote(marathon, START.plusDays(12)).textNote());
+        UserStats finalStats = stats;
+        assertThrows(IllegalStateException.class,
+            () -> goalService.addGoalNote(finalStats, marathon, START.plusDays(12), "Again", 5, habitService));
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the allocation rate gauge.
+ */
+class AllocationRateMetricsTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testRateBetweenReads() {
+        AtomicLong bytes = new AtomicLong(1_000);
+        AtomicLong nanos = new AtomicLong(0);
+        AllocationRateMetrics metrics = new AllocationRateMetrics(registry -> bytes.get(), nanos::get);
+
+        assertEquals(0.0, metrics.sample(), "First read only sets the baseline");
+
+        bytes.set(5_001_000);
+        nanos.set(2 * SECOND);
+        assertEquals(2_500_000.0, metrics.sample(), 0.001);
+
+        // Reads closer together than a second keep the last rate
+        bytes.set(9_001_000);
+        nanos.set(2 * SECOND + SECOND / 10);
+        assertEquals(2_500_000.0, metrics.sample(), 0.001);
+
+        nanos.set(4 * SECOND);
+        assertEquals(2_000_000.0, metrics.sample(), 0.001);
+    }
+
+    @Test
+    void testCounterResetReportsZero() {
+        AtomicLong bytes = new AtomicLong(1_000_000);
+        AtomicLong nanos = new AtomicLong(0);
+        AllocationRateMetrics metrics = new AllocationRateMetrics(registry -> bytes.get(), nanos::get);
+        metrics.sample();
+
+        bytes.set(0);
+        nanos.set(SECOND);
+        assertEquals(0.0, metrics.sample());
+    }
+}
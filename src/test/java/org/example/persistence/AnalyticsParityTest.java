@@ -0,0 +1,179 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.example.AnalyticsService;
+import org.example.AnalyticsService.DashboardAnalytics;
+import org.example.XpHistoryEntry;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.DailyHistoryRollupRepository;
+import org.example.persistence.repository.GoalNoteRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.service.AnalyticsQueryService;
+import org.example.service.UserHistoryLoader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that dashboard analytics computed in SQL match those computed in memory from the
+ * rehydrated services, on generated histories.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AnalyticsParityTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int GENERATED_DAYS = 45;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private GoalRepository goalRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private HabitCheckRepository habitCheckRepository;
+    @Autowired
+    private GoalNoteRepository goalNoteRepository;
+    @Autowired
+    private DailyHistoryRollupRepository rollupRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+
+    private final AnalyticsService analyticsService = new AnalyticsService();
+
+    @Test
+    void testGeneratedHistoriesMatch() {
+        for (long seed = 1; seed <= 20; seed++) {
+            UserEntity user = generateHistory(seed);
+            assertParity(user.getId(), 365, "seed " + seed);
+        }
+    }
+
+    @Test
+    void testHistoryWindowShorterThanLookbackMatches() {
+        for (long seed = 21; seed <= 25; seed++) {
+            UserEntity user = generateHistory(seed);
+            assertParity(user.getId(), 10, "seed " + seed);
+            assertParity(user.getId(), 30, "seed " + seed);
+        }
+    }
+
+    @Test
+    void testUserWithoutHistoryMatches() {
+        UserEntity user = userRepository.save(new UserEntity("empty", "empty@example.com"));
+        entityManager.flush();
+
+        DashboardAnalytics analytics = assertParity(user.getId(), 365, "empty user");
+
+        assertTrue(analytics.habitStreaks().isEmpty());
+        assertTrue(analytics.goalConsistency().isEmpty());
+        assertTrue(analytics.recentXpHistory().isEmpty());
+    }
+
+    private DashboardAnalytics assertParity(Long userId, int historyDays, String history) {
+        UserHistoryLoader.UserHistory loaded = new UserHistoryLoader(dailyActivityLogRepository, habitCheckRepository,
+            goalRepository, goalNoteRepository, rollupRepository, historyDays).load(userId);
+        DashboardAnalytics expected = analyticsService.analyzeDashboard(loaded.habitService(),
+            loaded.goalService(), TODAY);
+        DashboardAnalytics actual = new AnalyticsQueryService(dataSource, historyDays).analyzeDashboard(userId, TODAY);
+
+        assertEquals(expected.habitStreaks(), actual.habitStreaks(), history);
+        assertEquals(expected.goalConsistency(), actual.goalConsistency(), history);
+        assertEquals(expected.xpTrend(), actual.xpTrend(), history);
+        assertEquals(expected.burnoutWarning(), actual.burnoutWarning(), history);
+        // Goal entries on the same day are in no particular order in memory
+        assertEquals(sorted(expected.recentXpHistory()), sorted(actual.recentXpHistory()), history);
+        assertEquals(expected.xpHistoryAfter(TODAY.minusDays(7)).size(),
+            actual.xpHistoryAfter(TODAY.minusDays(7)).size(), history);
+        return actual;
+    }
+
+    private static List<XpHistoryEntry> sorted(List<XpHistoryEntry> entries) {
+        List<XpHistoryEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(XpHistoryEntry::date)
+            .thenComparing(XpHistoryEntry::source)
+            .thenComparingInt(XpHistoryEntry::xpChange));
+        return sorted;
+    }
+
+    /**
+     * Generates a user with habits checked on most days, some of them recorded without an
+     * activity log, and goals with notes, including a goal shadowed by an earlier one with the
+     * same title.
+     */
+    private UserEntity generateHistory(long seed) {
+        Random random = new Random(seed);
+        UserEntity user = userRepository.save(new UserEntity("user" + seed, "user" + seed + "@example.com"));
+        HabitEntity.DifficultyEnum[] difficulties = HabitEntity.DifficultyEnum.values();
+        List<HabitEntity> habits = new ArrayList<>();
+        for (String name : List.of("Exercise", "Read", "Meditate")) {
+            habits.add(habitRepository.save(new HabitEntity(user, name,
+                difficulties[random.nextInt(difficulties.length)])));
+        }
+        // Same name with another difficulty is a different habit
+        HabitEntity.DifficultyEnum other = habits.get(0).getDifficulty() == HabitEntity.DifficultyEnum.ONE
+            ? HabitEntity.DifficultyEnum.FIVE : HabitEntity.DifficultyEnum.ONE;
+        habits.add(habitRepository.save(new HabitEntity(user, "Exercise", other)));
+
+        List<GoalEntity> goals = new ArrayList<>();
+        goals.add(goalRepository.save(new GoalEntity(user, "Run a marathon", "Spring race",
+            TODAY.minusDays(random.nextInt(90)), TODAY.plusMonths(6), 1 + random.nextInt(5), 100)));
+        goals.add(goalRepository.save(new GoalEntity(user, "Write a book", null,
+            TODAY.minusDays(random.nextInt(90)), TODAY.plusMonths(12), 1 + random.nextInt(5), 300)));
+        goals.add(goalRepository.save(new GoalEntity(user, "Run a marathon", "Autumn race",
+            TODAY.minusDays(10), TODAY.plusMonths(9), 3, 100)));
+
+        for (LocalDate day = TODAY.minusDays(GENERATED_DAYS); !day.isAfter(TODAY); day = day.plusDays(1)) {
+            DailyActivityLogEntity log = random.nextInt(10) < 6
+                ? new DailyActivityLogEntity(user, day, random.nextInt(140)) : null;
+            for (HabitEntity habit : habits) {
+                if (random.nextInt(10) < 7) {
+                    HabitCheckEntity check = new HabitCheckEntity(habit, day, random.nextInt(4) < 3
+                        ? HabitCheckEntity.HabitCheckResultEnum.DONE : HabitCheckEntity.HabitCheckResultEnum.MISSED);
+                    if (log != null) {
+                        check.setActivityLog(log);
+                        log.getHabitChecks().add(check);
+                    } else {
+                        habitCheckRepository.save(check);
+                    }
+                }
+            }
+            if (log != null) {
+                dailyActivityLogRepository.save(log);
+            }
+            for (GoalEntity goal : goals) {
+                if (random.nextInt(10) < 4) {
+                    goalNoteRepository.save(new GoalNoteEntity(goal, day, "Progress", random.nextInt(25)));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return user;
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.DailyActivityLog;
+import org.example.GoalNote;
+import org.example.HabitCheck;
+import org.example.HabitCheckResult;
+import org.example.UserStats;
+import org.example.XpTransaction;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.UserStatsEntity;
+import org.example.persistence.entity.XpHistoryEntryEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.GoalNoteRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.UserStatsRepository;
+import org.example.persistence.repository.XpHistoryEntryRepository;
+import org.example.service.HistoryBulkWriteService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the history write path: single checks and notes are stored with their day's
+ * activity log, and bulk rows are inserted in JDBC batches with pooled sequence ids, so the
+ * statement count is a small fraction of the row count.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class HistoryBulkWriteTest {
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private GoalRepository goalRepository;
+    @Autowired
+    private XpHistoryEntryRepository xpHistoryEntryRepository;
+    @Autowired
+    private HabitCheckRepository habitCheckRepository;
+    @Autowired
+    private GoalNoteRepository goalNoteRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private HistoryBulkWriteService bulkWriteService;
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        bulkWriteService = new HistoryBulkWriteService(entityManager, 50);
+        user = userRepository.save(new UserEntity("bulk", "bulk@example.com"));
+        entityManager.persist(new UserStatsEntity(user, 0, 1));
+        entityManager.flush();
+    }
+
+    @Test
+    void testXpHistoryIsWrittenInBatches() {
+        List<XpHistoryEntryEntity> entries = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            entries.add(new XpHistoryEntryEntity(user, START.plusDays(i / 4), 10,
+                XpHistoryEntryEntity.XpSourceEnum.HABIT));
+        }
+        statistics.clear();
+
+        assertEquals(10_000, bulkWriteService.writeXpHistory(entries));
+
+        assertEquals(10_000, statistics.getEntityInsertCount());
+        // One insert per batch of 50 plus one sequence call per 50 ids
+        assertTrue(statistics.getPrepareStatementCount() < 10_000 / 10,
+            "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(10_000, xpHistoryEntryRepository.count());
+        assertEquals(10_000, entries.stream().map(XpHistoryEntryEntity::getId).distinct().count());
+    }
+
+    @Test
+    void testHabitChecksAndGoalNotesAreWritten() {
+        HabitEntity habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.TWO));
+        GoalEntity goal = goalRepository.save(new GoalEntity(user, "Learn Spanish", null, START,
+            START.plusYears(2), 3, 500));
+        entityManager.flush();
+
+        List<HabitCheckEntity> checks = new ArrayList<>();
+        List<GoalNoteEntity> notes = new ArrayList<>();
+        for (int day = 0; day < 730; day++) {
+            checks.add(new HabitCheckEntity(habit, START.plusDays(day), HabitCheckEntity.HabitCheckResultEnum.DONE));
+            notes.add(new GoalNoteEntity(goal, START.plusDays(day), "Practised", 1));
+        }
+
+        assertEquals(730, bulkWriteService.writeHabitChecks(checks));
+        assertEquals(730, bulkWriteService.writeGoalNotes(notes));
+
+        assertEquals(730, habitCheckRepository.count());
+        assertEquals(730, goalNoteRepository.count());
+    }
+
+    @Test
+    void testHabitCheckIsRecordedWithItsDayLog() {
+        HabitEntity habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.TWO));
+        HabitCheck check = new HabitCheck(DomainEntityMapper.toHabit(habit), START, HabitCheckResult.DONE);
+
+        bulkWriteService.recordHabitCheck(habit, check, new DailyActivityLog(START, 20, List.of(check)),
+            new XpTransaction(20, "Completed habit"), new UserStats(20, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        DailyActivityLogEntity log = dailyActivityLogRepository.findByUserAndDate(user, START).orElseThrow();
+        assertEquals(20, log.getXpGained().intValue());
+        HabitCheckEntity stored = habitCheckRepository.findAll().get(0);
+        assertEquals(HabitCheckEntity.HabitCheckResultEnum.DONE, stored.getResult());
+        assertEquals(log.getId(), stored.getActivityLog().getId());
+        assertEquals(1, xpHistoryEntryRepository.count());
+        assertEquals(20, userStatsRepository.findByUserId(user.getId()).orElseThrow().getTotalXp().intValue());
+    }
+
+    @Test
+    void testEachCheckOfADayIsStored() {
+        HabitEntity habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.TWO));
+        HabitCheck missed = new HabitCheck(DomainEntityMapper.toHabit(habit), START, HabitCheckResult.MISSED);
+        HabitCheck done = new HabitCheck(DomainEntityMapper.toHabit(habit), START, HabitCheckResult.DONE);
+
+        bulkWriteService.recordHabitCheck(habit, missed, new DailyActivityLog(START, 0, List.of(missed)),
+            new XpTransaction(-30, "Missed habit"), new UserStats(0, 1));
+        bulkWriteService.recordHabitCheck(habit, done, new DailyActivityLog(START, 20, List.of(missed, done)),
+            new XpTransaction(20, "Completed habit"), new UserStats(20, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<HabitCheckEntity> stored = habitCheckRepository.findByHabitAndDate(habit, START);
+        assertEquals(2, stored.size());
+        assertEquals(List.of(HabitCheckEntity.HabitCheckResultEnum.MISSED, HabitCheckEntity.HabitCheckResultEnum.DONE),
+            stored.stream().sorted(java.util.Comparator.comparing(HabitCheckEntity::getId))
+                .map(HabitCheckEntity::getResult).toList());
+        assertEquals(1, dailyActivityLogRepository.count());
+        assertEquals(20, dailyActivityLogRepository.findByUserAndDate(user, START)
+            .orElseThrow().getXpGained().intValue());
+        assertEquals(2, xpHistoryEntryRepository.count());
+    }
+
+    @Test
+    void testGoalNoteWithoutXpLeavesDayUnlogged() {
+        GoalEntity goal = goalRepository.save(new GoalEntity(user, "Learn Spanish", null, START,
+            START.plusYears(2), 3, 500));
+        GoalNote capped = new GoalNote(DomainEntityMapper.toGoal(goal), START, "Practised", 0);
+        GoalNote awarded = new GoalNote(DomainEntityMapper.toGoal(goal), START.plusDays(1), "Practised", 8);
+
+        bulkWriteService.recordGoalNote(goal, capped, DailyActivityLog.empty(START),
+            new XpTransaction(0, "Capped"), new UserStats(0, 1));
+        bulkWriteService.recordGoalNote(goal, awarded, new DailyActivityLog(START.plusDays(1), 8, List.of()),
+            new XpTransaction(8, "Goal note"), new UserStats(8, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, goalNoteRepository.count());
+        assertTrue(dailyActivityLogRepository.findByUserAndDate(user, START).isEmpty());
+        assertEquals(8, dailyActivityLogRepository.findByUserAndDate(user, START.plusDays(1))
+            .orElseThrow().getXpGained().intValue());
+        assertEquals(1, xpHistoryEntryRepository.count());
+    }
+
+    @Test
+    void testRejectsNullRows() {
+        assertThrows(IllegalArgumentException.class, () -> bulkWriteService.writeXpHistory(null));
+        assertThrows(IllegalArgumentException.class, () -> new HistoryBulkWriteService(entityManager, 0));
+    }
+
+    /**
+     * Compares the batched write path with writing one row per statement, as identity ids
+     * required. Run with {@code ./gradlew benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkXpHistoryRowsPerSecond() {
+        int rows = 100_000;
+        List<XpHistoryEntryEntity> batched = xpEntries(rows, START);
+        long start = System.nanoTime();
+        bulkWriteService.writeXpHistory(batched);
+        long batchedNanos = System.nanoTime() - start;
+
+        int singleRows = 10_000;
+        List<XpHistoryEntryEntity> single = xpEntries(singleRows, START.plusYears(100));
+        start = System.nanoTime();
+        for (XpHistoryEntryEntity entry : single) {
+            entityManager.persist(entry);
+            entityManager.flush();
+        }
+        long singleNanos = System.nanoTime() - start;
+        entityManager.clear();
+
+        System.out.printf("XP history writes: batched %d rows, %.0f rows/sec; one statement per row %d rows, "
+                + "%.0f rows/sec%n",
+            rows, rows / (batchedNanos / 1e9), singleRows, singleRows / (singleNanos / 1e9));
+        assertEquals(rows + singleRows, xpHistoryEntryRepository.count());
+    }
+
+    private List<XpHistoryEntryEntity> xpEntries(int count, LocalDate from) {
+        List<XpHistoryEntryEntity> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new XpHistoryEntryEntity(user, from.plusDays(i / 4), 10,
+                XpHistoryEntryEntity.XpSourceEnum.HABIT));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.example.AnalyticsService;
+import org.example.AnalyticsService.DashboardAnalytics;
+import org.example.XpHistoryEntry;
+import org.example.persistence.entity.DailyHistoryRollupEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.XpHistoryEntryEntity;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.DailyHistoryRollupRepository;
+import org.example.persistence.repository.GoalNoteRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.XpHistoryEntryRepository;
+import org.example.service.AnalyticsQueryService;
+import org.example.service.HistoryRetentionService;
+import org.example.service.UserHistoryLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the history rollup against H2 in PostgreSQL mode. H2 has no table partitioning,
+ * so expired months are removed with range deletes; the rollup itself is the same SQL that
+ * runs on PostgreSQL.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class HistoryRetentionTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 7, 15);
+    private static final LocalDate OLD_DAY = LocalDate.of(2023, 1, 5);
+    private static final LocalDate RECENT_DAY = LocalDate.of(2024, 6, 10);
+    // Reads reach back past OLD_DAY from the real current date
+    private static final int HISTORY_DAYS = 20 * 365;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private GoalRepository goalRepository;
+    @Autowired
+    private XpHistoryEntryRepository xpHistoryEntryRepository;
+    @Autowired
+    private HabitCheckRepository habitCheckRepository;
+    @Autowired
+    private GoalNoteRepository goalNoteRepository;
+    @Autowired
+    private DailyHistoryRollupRepository rollupRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private HistoryRetentionService retentionService;
+    private UserEntity user;
+    private HabitEntity habit;
+    private GoalEntity goal;
+
+    @BeforeEach
+    void setUp() {
+        retentionService = new HistoryRetentionService(dataSource, transactionManager, 3, 2);
+        user = userRepository.save(new UserEntity("keeper", "keeper@example.com"));
+        habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.TWO));
+        goal = goalRepository.save(new GoalEntity(user, "Write a book", null, OLD_DAY, TODAY, 4, 200));
+
+        for (LocalDate day : List.of(OLD_DAY, OLD_DAY.plusMonths(2), RECENT_DAY)) {
+            xpHistoryEntryRepository.save(new XpHistoryEntryEntity(user, day, 10, XpHistoryEntryEntity.XpSourceEnum.HABIT));
+            xpHistoryEntryRepository.save(new XpHistoryEntryEntity(user, day, 5, XpHistoryEntryEntity.XpSourceEnum.GOAL));
+            habitCheckRepository.save(new HabitCheckEntity(habit, day, HabitCheckEntity.HabitCheckResultEnum.DONE));
+            goalNoteRepository.save(new GoalNoteEntity(goal, day, "Wrote a chapter", 3));
+        }
+        habitCheckRepository.save(new HabitCheckEntity(habit, OLD_DAY.plusDays(1),
+            HabitCheckEntity.HabitCheckResultEnum.MISSED));
+        entityManager.flush();
+    }
+
+    @Test
+    void testExpiredMonthsAreRolledUpAndRawRowsDropped() {
+        // Two old days with 4 rows each, plus the missed check
+        assertEquals(9, retentionService.rollUpExpiredHistory(TODAY));
+        entityManager.clear();
+
+        List<DailyHistoryRollupEntity> rollups = rollupRepository.findByUserIdAndDateBetweenOrderByDateAsc(
+            user.getId(), OLD_DAY.minusYears(1), TODAY);
+        assertEquals(3, rollups.size());
+        DailyHistoryRollupEntity first = rollups.get(0);
+        assertEquals(OLD_DAY, first.getDate());
+        assertEquals(15, first.getXpGained().intValue());
+        assertEquals(2, first.getXpEntries().intValue());
+        assertEquals(1, first.getHabitsDone().intValue());
+        assertEquals(0, first.getHabitsMissed().intValue());
+        assertEquals(1, first.getGoalNotes().intValue());
+        assertEquals(3, first.getGoalPoints().intValue());
+        assertEquals(20, first.getHabitXp().intValue());
+        assertEquals(1, rollups.get(1).getHabitsMissed().intValue());
+        assertEquals(OLD_DAY.plusMonths(2), rollups.get(2).getDate());
+
+        // Only the month inside the retention window keeps raw rows
+        assertEquals(2, xpHistoryEntryRepository.count());
+        assertEquals(1, habitCheckRepository.count());
+        assertEquals(1, goalNoteRepository.count());
+        assertEquals(RECENT_DAY, habitCheckRepository.findAll().get(0).getDate());
+    }
+
+    @Test
+    void testBackfilledHistoryIsMergedIntoExistingRollups() {
+        retentionService.rollUpExpiredHistory(TODAY);
+        xpHistoryEntryRepository.save(new XpHistoryEntryEntity(user, OLD_DAY, 7, XpHistoryEntryEntity.XpSourceEnum.HABIT));
+        entityManager.flush();
+
+        assertEquals(1, retentionService.rollUpExpiredHistory(TODAY));
+        entityManager.clear();
+
+        DailyHistoryRollupEntity merged = rollupRepository.findByUserIdAndDateBetweenOrderByDateAsc(
+            user.getId(), OLD_DAY, OLD_DAY).get(0);
+        assertEquals(22, merged.getXpGained().intValue());
+        assertEquals(3, merged.getXpEntries().intValue());
+        assertEquals(1, merged.getHabitsDone().intValue());
+    }
+
+    @Test
+    void testAnalyticsTotalsAreKeptAcrossRollup() {
+        Map<String, Integer> historyBefore = totals(xpHistory());
+        DashboardAnalytics dashboardBefore = dashboard();
+        assertTrue(historyBefore.containsKey(OLD_DAY + " HABIT"));
+
+        retentionService.rollUpExpiredHistory(TODAY);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(load().habitService().getRolledUpDays().isEmpty());
+        assertEquals(historyBefore, totals(xpHistory()));
+        DashboardAnalytics dashboardAfter = dashboard();
+        assertEquals(totals(dashboardBefore.recentXpHistory()), totals(dashboardAfter.recentXpHistory()));
+        assertEquals(dashboardBefore.xpTrend(), dashboardAfter.xpTrend());
+        assertEquals(dashboardBefore.burnoutWarning(), dashboardAfter.burnoutWarning());
+    }
+
+    @Test
+    void testNothingToRollUpInsideRetentionWindow() {
+        assertEquals(0, retentionService.rollUpExpiredHistory(OLD_DAY.plusMonths(1)));
+        assertEquals(6, xpHistoryEntryRepository.count());
+        assertEquals(0, rollupRepository.count());
+    }
+
+    @Test
+    void testPartitionsAreOnlyManagedOnPostgres() {
+        assertEquals(0, retentionService.ensurePartitions(TODAY));
+        assertThrows(IllegalArgumentException.class,
+            () -> new HistoryRetentionService(dataSource, transactionManager, 0, 2));
+    }
+
+    private UserHistoryLoader.UserHistory load() {
+        return new UserHistoryLoader(dailyActivityLogRepository, habitCheckRepository, goalRepository,
+            goalNoteRepository, rollupRepository, HISTORY_DAYS).load(user.getId());
+    }
+
+    private List<XpHistoryEntry> xpHistory() {
+        UserHistoryLoader.UserHistory loaded = load();
+        return new AnalyticsService().buildXpHistory(loaded.habitService(), loaded.goalService());
+    }
+
+    private DashboardAnalytics dashboard() {
+        return new AnalyticsQueryService(dataSource, HISTORY_DAYS).analyzeDashboard(user.getId(), OLD_DAY.plusDays(5));
+    }
+
+    /**
+     * Sums XP history per day and source, since a rolled-up day lists its goal points as one
+     * entry rather than one per note.
+     */
+    private static Map<String, Integer> totals(List<XpHistoryEntry> history) {
+        Map<String, Integer> totals = new TreeMap<>();
+        for (XpHistoryEntry entry : history) {
+            totals.merge(entry.date() + " " + entry.source(), entry.xpChange(), Integer::sum);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.DailyActivityLog;
+import org.example.LeaderboardEntry;
+import org.example.dto.mapper.DtoMapper;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.UserStatsEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.projection.GoalSummary;
+import org.example.persistence.projection.HabitSummary;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.UserStatsRepository;
+import org.example.service.GoalManagementService;
+import org.example.service.HabitManagementService;
+import org.example.service.LeaderboardService;
+import org.example.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the number of SQL statements behind each controller read path, counted with
+ * Hibernate statistics. The persistence context is cleared before every measured call so
+ * nothing is served from the first-level cache; a lazy association touched while mapping
+ * shows up as an extra statement.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryCountTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private GoalRepository goalRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserService userService;
+    private UserEntity user;
+    private HabitEntity habit;
+    private GoalEntity goal;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        userService = new UserService(userRepository, userStatsRepository);
+
+        for (int i = 0; i < 5; i++) {
+            UserEntity member = userRepository.save(new UserEntity("member" + i, "member" + i + "@example.com"));
+            userStatsRepository.save(new UserStatsEntity(member, 100 * i, i + 1));
+            if (i == 0) {
+                user = member;
+            }
+        }
+        habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.THREE));
+        HabitEntity reading = habitRepository.save(new HabitEntity(user, "Reading", HabitEntity.DifficultyEnum.ONE));
+        goal = goalRepository.save(new GoalEntity(user, "Run a marathon", "Train every week", START,
+            START.plusMonths(6), 5, 100));
+        for (int day = 0; day < 3; day++) {
+            DailyActivityLogEntity log = new DailyActivityLogEntity(user, START.plusDays(day), 20);
+            for (HabitEntity checked : List.of(habit, reading)) {
+                HabitCheckEntity check = new HabitCheckEntity(checked, log.getDate(),
+                    HabitCheckEntity.HabitCheckResultEnum.DONE);
+                check.setActivityLog(log);
+                log.getHabitChecks().add(check);
+            }
+            dailyActivityLogRepository.save(log);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void testGetUserIsOneQuery() {
+        UserEntity loaded = count(1, () -> userService.getUser(user.getId()));
+
+        assertEquals("member0", loaded.getUsername());
+    }
+
+    @Test
+    void testGetUserStatsIsOneQuery() {
+        assertEquals(1, count(1, () -> userService.getUserStats(user.getId())).getLevel());
+    }
+
+    @Test
+    void testLeaderboardIsOneQueryForAllUsers() {
+        LeaderboardService leaderboardService = new LeaderboardService(userRepository);
+
+        List<LeaderboardEntry> entries = count(1, () -> leaderboardService.getTopUsers(10));
+
+        assertEquals(5, entries.size());
+        assertEquals("member4", entries.get(0).username());
+    }
+
+    @Test
+    void testHabitReadsAreOneQueryEach() {
+        HabitManagementService habitService = new HabitManagementService(habitRepository);
+
+        HabitEntity loaded = count(1, () -> habitService.getHabit(habit.getId(), user.getId()));
+        assertEquals("Exercise", habitService.toDomainHabit(loaded).getName());
+
+        UserEntity owner = userService.getUser(user.getId());
+        List<HabitEntity> habits = count(1, () -> habitService.getUserHabits(owner).stream()
+            .peek(habitService::toDomainHabit)
+            .toList());
+        assertEquals(2, habits.size());
+    }
+
+    @Test
+    void testGoalReadsAreOneQueryEach() {
+        GoalManagementService goalService = new GoalManagementService(goalRepository);
+
+        GoalEntity loaded = count(1, () -> goalService.getGoal(goal.getId(), user.getId()));
+        assertEquals("Run a marathon", goalService.toDomainGoal(loaded).getTitle());
+
+        UserEntity owner = userService.getUser(user.getId());
+        assertEquals(1, count(1, () -> goalService.getUserGoals(owner)).size());
+    }
+
+    @Test
+    void testListProjectionsAreOneQueryWithoutManagedEntities() {
+        HabitManagementService habitService = new HabitManagementService(habitRepository);
+        GoalManagementService goalService = new GoalManagementService(goalRepository);
+
+        List<HabitSummary> habits = count(1, () -> habitService.getUserHabitSummaries(user.getId()));
+        assertEquals(List.of("Exercise", "Reading"), habits.stream().map(HabitSummary::name).toList());
+        assertEquals(Integer.valueOf(3), DtoMapper.toHabitDto(habits.get(0)).getDifficulty());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        List<GoalSummary> goals = count(1, () -> goalService.getUserGoalSummaries(user.getId()));
+        assertEquals(1, goals.size());
+        assertEquals("Run a marathon", goalService.toDomainGoal(goals.get(0)).getTitle());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testLeaderboardRanksUsersWithoutStatsLast() {
+        userRepository.save(new UserEntity("newcomer", "newcomer@example.com"));
+        LeaderboardService leaderboardService = new LeaderboardService(userRepository);
+
+        List<LeaderboardEntry> entries = count(1, () -> leaderboardService.getTopUsers(100));
+
+        assertEquals(6, entries.size());
+        LeaderboardEntry last = entries.get(5);
+        assertEquals("newcomer", last.username());
+        assertEquals(0, last.totalXp());
+        assertEquals(1, last.level());
+        assertEquals(6, last.rank());
+        assertEquals(2, leaderboardService.getTopUsers(2).size());
+    }
+
+    @Test
+    void testActivityLogsMapWithoutLoadingChecksPerLog() {
+        UserEntity owner = userService.getUser(user.getId());
+
+        List<DailyActivityLog> logs = count(1, () -> dailyActivityLogRepository
+            .findByUserAndDateBetween(owner, START, START.plusDays(2)).stream()
+            .map(DomainEntityMapper::toDailyActivityLog)
+            .toList());
+
+        assertEquals(3, logs.size());
+        for (DailyActivityLog log : logs) {
+            assertEquals(2, log.getHabitChecks().size());
+        }
+    }
+
+    private <T> T count(long expectedStatements, Supplier<T> read) {
+        entityManager.clear();
+        statistics.clear();
+        T result = read.get();
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount());
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.persistence;
+
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.XpHistoryEntryEntity;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.XpHistoryEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the date-bounded repository reads against H2 in PostgreSQL mode: the range reads
+ * are planned on the declared composite indexes, and keyset streams return the same rows as
+ * the plain range queries.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryIndexPlanTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private XpHistoryEntryRepository xpHistoryEntryRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private HabitCheckRepository habitCheckRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private UserEntity user;
+    private HabitEntity habit;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new UserEntity("planner", "planner@example.com"));
+        UserEntity other = userRepository.save(new UserEntity("other", "other@example.com"));
+        habit = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.THREE));
+        for (int day = 0; day < 30; day++) {
+            LocalDate date = START.plusDays(day);
+            xpHistoryEntryRepository.save(new XpHistoryEntryEntity(user, date, 10 + day,
+                XpHistoryEntryEntity.XpSourceEnum.HABIT));
+            if (day % 3 == 0) {
+                // Several entries on one date exercise the id tie-breaker
+                xpHistoryEntryRepository.save(new XpHistoryEntryEntity(user, date, 5,
+                    XpHistoryEntryEntity.XpSourceEnum.GOAL));
+            }
+            xpHistoryEntryRepository.save(new XpHistoryEntryEntity(other, date, 1,
+                XpHistoryEntryEntity.XpSourceEnum.HABIT));
+            dailyActivityLogRepository.save(new DailyActivityLogEntity(user, date, 10 + day));
+            habitCheckRepository.save(new HabitCheckEntity(habit, date, day % 4 == 0
+                ? HabitCheckEntity.HabitCheckResultEnum.MISSED
+                : HabitCheckEntity.HabitCheckResultEnum.DONE));
+        }
+        xpHistoryEntryRepository.flush();
+        dailyActivityLogRepository.flush();
+        habitCheckRepository.flush();
+    }
+
+    @Test
+    void testXpHistoryRangeReadUsesUserDateIndex() {
+        String plan = explain("SELECT date, xp_change, source FROM xp_history_entries WHERE user_id = " + user.getId()
+            + " AND date BETWEEN DATE '2024-01-05' AND DATE '2024-01-20' ORDER BY date, id");
+
+        assertTrue(plan.contains("idx_xp_history_user_date"), plan);
+        assertFalse(plan.contains("tablescan"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void testActivityLogRangeReadUsesUserDateIndex() {
+        String plan = explain("SELECT date, xp_gained FROM daily_activity_logs WHERE user_id = " + user.getId()
+            + " AND date BETWEEN DATE '2024-01-05' AND DATE '2024-01-20' ORDER BY date");
+
+        assertTrue(plan.contains("idx_activity_logs_user_date"), plan);
+        assertFalse(plan.contains("tablescan"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void testHabitCheckReadUsesHabitDateIndex() {
+        String plan = explain("SELECT date, result FROM habit_checks WHERE habit_id = " + habit.getId()
+            + " ORDER BY date");
+
+        assertTrue(plan.contains("idx_habit_checks_habit_date"), plan);
+        assertFalse(plan.contains("tablescan"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void testXpHistoryKeysetStreamMatchesRangeQuery() {
+        LocalDate from = START.plusDays(2);
+        LocalDate to = START.plusDays(25);
+        List<Long> expected = xpHistoryEntryRepository.findByUserAndDateBetween(user, from, to).stream()
+            .sorted(Comparator.comparing(XpHistoryEntryEntity::getDate).thenComparing(XpHistoryEntryEntity::getId))
+            .map(XpHistoryEntryEntity::getId)
+            .toList();
+
+        List<Long> streamed = xpHistoryEntryRepository.streamByUserAndDateBetween(user, from, to, 4)
+            .map(XpHistoryEntryEntity::getId)
+            .toList();
+
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void testActivityLogAndHabitCheckKeysetStreams() {
+        List<LocalDate> logDates = dailyActivityLogRepository.streamByUserAndDateBetween(user, START,
+                START.plusDays(9), 3)
+            .map(DailyActivityLogEntity::getDate)
+            .toList();
+        assertEquals(10, logDates.size());
+        assertEquals(START, logDates.get(0));
+        assertEquals(START.plusDays(9), logDates.get(9));
+
+        List<LocalDate> checkDates = habitCheckRepository.streamByHabit(habit, 7)
+            .map(HabitCheckEntity::getDate)
+            .toList();
+        assertEquals(30, checkDates.size());
+        for (int i = 1; i < checkDates.size(); i++) {
+            assertTrue(checkDates.get(i).isAfter(checkDates.get(i - 1)));
+        }
+    }
+
+    private String explain(String sql) {
+        return new JdbcTemplate(dataSource).queryForObject("EXPLAIN " + sql, String.class)
+            .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.example.DailyActivityLog;
+import org.example.Goal;
+import org.example.GoalService;
+import org.example.Habit;
+import org.example.HabitCheck;
+import org.example.HabitCheckResult;
+import org.example.HabitService;
+import org.example.UserStats;
+import org.example.behavior.drift.BehaviorDriftDetector;
+import org.example.behavior.drift.BehaviorSnapshot;
+import org.example.persistence.entity.DailyActivityLogEntity;
+import org.example.persistence.entity.DailyHistoryRollupEntity;
+import org.example.persistence.entity.GoalEntity;
+import org.example.persistence.entity.GoalNoteEntity;
+import org.example.persistence.entity.HabitCheckEntity;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.entity.UserEntity;
+import org.example.persistence.entity.UserStatsEntity;
+import org.example.persistence.mapper.DomainEntityMapper;
+import org.example.persistence.repository.DailyActivityLogRepository;
+import org.example.persistence.repository.DailyHistoryRollupRepository;
+import org.example.persistence.repository.GoalNoteRepository;
+import org.example.persistence.repository.GoalRepository;
+import org.example.persistence.repository.HabitCheckRepository;
+import org.example.persistence.repository.HabitRepository;
+import org.example.persistence.repository.UserRepository;
+import org.example.persistence.repository.UserStatsRepository;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.example.service.BehaviorSnapshotService;
+import org.example.service.HistoryBulkWriteService;
+import org.example.service.UserHistoryLoader;
+import org.example.service.UserService;
+import org.example.service.UserWarmupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rebuilding a user's habit and goal services from persisted history, as after a
+ * restart.
+ */
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRehydrationTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+    @Autowired
+    private HabitRepository habitRepository;
+    @Autowired
+    private GoalRepository goalRepository;
+    @Autowired
+    private DailyActivityLogRepository dailyActivityLogRepository;
+    @Autowired
+    private HabitCheckRepository habitCheckRepository;
+    @Autowired
+    private GoalNoteRepository goalNoteRepository;
+    @Autowired
+    private DailyHistoryRollupRepository rollupRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private UserHistoryLoader loader;
+    private UserEntity user;
+    private UserEntity idleUser;
+
+    @BeforeEach
+    void setUp() {
+        loader = new UserHistoryLoader(dailyActivityLogRepository, habitCheckRepository, goalRepository,
+            goalNoteRepository, rollupRepository, 365);
+        user = userRepository.save(new UserEntity("restored", "restored@example.com"));
+        idleUser = userRepository.save(new UserEntity("idle", "idle@example.com"));
+        HabitEntity exercise = habitRepository.save(new HabitEntity(user, "Exercise", HabitEntity.DifficultyEnum.TWO));
+        GoalEntity goal = goalRepository.save(new GoalEntity(user, "Run a marathon", null, TODAY.minusDays(30),
+            TODAY.plusMonths(6), 4, 100));
+
+        // Three logged days, one imported check outside any log, one goal note, and one old day
+        for (int daysAgo = 1; daysAgo <= 3; daysAgo++) {
+            DailyActivityLogEntity log = new DailyActivityLogEntity(user, TODAY.minusDays(daysAgo), 20);
+            HabitCheckEntity check = new HabitCheckEntity(exercise, log.getDate(),
+                HabitCheckEntity.HabitCheckResultEnum.DONE);
+            check.setActivityLog(log);
+            log.getHabitChecks().add(check);
+            dailyActivityLogRepository.save(log);
+        }
+        habitCheckRepository.save(new HabitCheckEntity(exercise, TODAY.minusDays(5),
+            HabitCheckEntity.HabitCheckResultEnum.MISSED));
+        goalNoteRepository.save(new GoalNoteEntity(goal, TODAY.minusDays(5), "Ran 10k", 8));
+        dailyActivityLogRepository.save(new DailyActivityLogEntity(user, TODAY.minusYears(2), 50));
+        dailyActivityLogRepository.save(new DailyActivityLogEntity(idleUser, TODAY.minusDays(60), 10));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testHistoryInsideWindowIsRestored() {
+        UserHistoryLoader.UserHistory history = loader.load(user.getId());
+
+        HabitService habitService = history.habitService();
+        assertEquals(TODAY.minusDays(1), habitService.getLastActivityDate());
+        assertEquals(4, habitService.getAllActivityLogs().size());
+        assertEquals(4, habitService.getAllHabitChecks().size());
+        assertEquals(20, habitService.getActivityLog(TODAY.minusDays(2)).getXpGained());
+
+        // The imported day gets its goal note's points as XP gained
+        DailyActivityLog importedDay = habitService.getActivityLog(TODAY.minusDays(5));
+        assertEquals(1, importedDay.getHabitChecks().size());
+        assertEquals(8, importedDay.getXpGained());
+
+        GoalService goalService = history.goalService();
+        Goal goal = goalService.getGoal("Run a marathon");
+        assertNotNull(goal);
+        assertEquals(8, goalService.getAccumulatedPoints(goal));
+    }
+
+    @Test
+    void testRollupsOlderThanWindowAreRestored() {
+        DailyHistoryRollupEntity rollup = new DailyHistoryRollupEntity();
+        rollup.setUserId(user.getId());
+        rollup.setDate(TODAY.minusYears(3));
+        rollup.setXpGained(30);
+        rollup.setXpEntries(2);
+        rollup.setHabitsDone(2);
+        rollup.setHabitsMissed(0);
+        rollup.setGoalNotes(0);
+        rollup.setGoalPoints(0);
+        rollup.setHabitXp(30);
+        rollupRepository.save(rollup);
+        entityManager.flush();
+        entityManager.clear();
+
+        HabitService habitService = loader.load(user.getId()).habitService();
+
+        assertEquals(1, habitService.getRolledUpDays().size());
+        assertEquals(TODAY.minusYears(3), habitService.getRolledUpDays().get(0).date());
+        assertEquals(30, habitService.getRolledUpDays().get(0).habitXp());
+    }
+
+    @Test
+    void testMissedThenDoneDayIsRestoredAsHeld() {
+        HabitEntity reading = habitRepository.save(new HabitEntity(user, "Read", HabitEntity.DifficultyEnum.ONE));
+        Habit habit = DomainEntityMapper.toHabit(reading);
+        entityManager.persist(new UserStatsEntity(user, 0, 1));
+        HistoryBulkWriteService writeService = new HistoryBulkWriteService(entityManager, 50);
+        HabitService live = new HabitService();
+        UserStats stats = UserStats.createNew();
+        for (HabitCheckResult result : List.of(HabitCheckResult.MISSED, HabitCheckResult.DONE)) {
+            HabitService.CheckResult checked = live.checkHabit(stats, habit, TODAY, result);
+            stats = checked.userStats();
+            writeService.recordHabitCheck(reading, new HabitCheck(habit, TODAY, result), checked.activityLog(),
+                checked.transaction(), stats);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        DailyActivityLog restored = loader.load(user.getId()).habitService().getActivityLog(TODAY);
+
+        assertEquals(live.getActivityLog(TODAY).getHabitChecks(), restored.getHabitChecks());
+        assertEquals(live.getActivityLog(TODAY).getXpGained(), restored.getXpGained());
+    }
+
+    @Test
+    void testUserServiceRehydratesOnFirstAccess() {
+        UserService userService = new UserService(userRepository, userStatsRepository, new ReplicaLagTracker(0),
+            loader);
+
+        assertEquals(TODAY.minusDays(1), userService.getHabitService(user.getId()).getLastActivityDate());
+        assertEquals(1, userService.getGoalService(user.getId()).getAllGoalNotes().size());
+        assertEquals(TODAY.minusDays(60), userService.getHabitService(idleUser.getId()).getLastActivityDate());
+    }
+
+    @Test
+    void testSnapshotsCoverUsersNotHeldInMemory() {
+        UserService userService = new UserService(userRepository, userStatsRepository, new ReplicaLagTracker(0),
+            loader);
+        BehaviorSnapshotService snapshotService = new BehaviorSnapshotService(userService,
+            new BehaviorDriftDetector(), 2, 1, 90, 365);
+
+        assertEquals(2, snapshotService.captureSnapshots(TODAY));
+
+        assertTrue(userService.getCachedUserIds().isEmpty());
+        BehaviorSnapshot snapshot = snapshotService.getSnapshots(user.getId()).get(0);
+        assertEquals(75.0, snapshot.habitCompletionRate(), 0.001);
+        assertEquals(1, snapshot.activeGoalCount());
+        assertEquals(1, snapshotService.getSnapshots(idleUser.getId()).size());
+    }
+
+    @Test
+    void testWarmUpCoversRecentlyActiveUsersOnly() {
+        UserService userService = new UserService(userRepository, userStatsRepository, new ReplicaLagTracker(0),
+            loader);
+        UserWarmupService warmupService = new UserWarmupService(userService, dailyActivityLogRepository, 7, 100);
+
+        assertEquals(1, warmupService.warmUpRecentUsers());
+        assertEquals(List.of(user.getId()), userService.getCachedUserIds());
+        assertEquals(0, warmupService.warmUpRecentUsers());
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.persistence.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MonthlyPartition.
+ */
+class MonthlyPartitionTest {
+
+    @Test
+    void testNameAndBoundsCoverOneMonth() {
+        MonthlyPartition partition = new MonthlyPartition("xp_history_entries", YearMonth.of(2024, 12));
+
+        assertEquals("xp_history_entries_2024_12", partition.name());
+        assertEquals(LocalDate.of(2024, 12, 1), partition.from());
+        assertEquals(LocalDate.of(2025, 1, 1), partition.to());
+    }
+
+    @Test
+    void testDdlStatements() {
+        MonthlyPartition partition = new MonthlyPartition("habit_checks", YearMonth.of(2024, 2));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS habit_checks_2024_02 PARTITION OF habit_checks "
+            + "FOR VALUES FROM ('2024-02-01') TO ('2024-03-01')", partition.createSql());
+        assertEquals("DROP TABLE IF EXISTS habit_checks_2024_02", partition.dropSql());
+    }
+
+    @Test
+    void testRejectsUnpartitionedTables() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new MonthlyPartition("users; DROP TABLE users", YearMonth.of(2024, 1)));
+        assertThrows(IllegalArgumentException.class, () -> new MonthlyPartition("goal_notes", null));
+    }
+}
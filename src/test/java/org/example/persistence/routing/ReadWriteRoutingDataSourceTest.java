@@ -0,0 +1,175 @@
+package org.example.persistence.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReadWriteRoutingDataSource, against two embedded H2 databases standing in
+ * for the primary and the replica. Each database names itself in a one-row table.
+ */
+class ReadWriteRoutingDataSourceTest {
+    private static final long USER_ID = 7L;
+
+    private MutableClock clock;
+    private ReplicaLagTracker lagTracker;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-03-01T10:00:00Z"));
+        lagTracker = new ReplicaLagTracker(2000, clock);
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+            database("primary"), database("replica"), lagTracker));
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lagTracker.clear();
+    }
+
+    @Test
+    void testReadWriteTransactionsUsePrimary() {
+        assertEquals("primary", readWrite.execute(status -> role()));
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnly.execute(status -> role()));
+        lagTracker.bindUser(USER_ID);
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testStatementsOutsideTransactionsUsePrimary() {
+        assertEquals("primary", role());
+    }
+
+    @Test
+    void testUserReadsOwnWritesFromPrimaryUntilLagPasses() {
+        lagTracker.recordWrite(USER_ID);
+        lagTracker.bindUser(USER_ID);
+        assertEquals("primary", readOnly.execute(status -> role()));
+
+        clock.advance(Duration.ofMillis(1999));
+        assertEquals("primary", readOnly.execute(status -> role()));
+
+        clock.advance(Duration.ofMillis(1));
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testWriteIsRecordedWhenTransactionCommits() {
+        lagTracker.bindUser(USER_ID);
+        readWrite.executeWithoutResult(status -> {
+            lagTracker.recordWriteOnCommit(USER_ID);
+            assertFalse(lagTracker.requiresPrimary());
+        });
+
+        assertEquals("primary", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testRolledBackWriteIsNotRecorded() {
+        lagTracker.bindUser(USER_ID);
+        readWrite.executeWithoutResult(status -> {
+            lagTracker.recordWriteOnCommit(USER_ID);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testWriteOutsideTransactionIsRecordedRightAway() {
+        lagTracker.recordWriteOnCommit(USER_ID);
+        lagTracker.bindUser(USER_ID);
+
+        assertEquals("primary", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testOtherUsersKeepReadingFromReplica() {
+        lagTracker.recordWrite(USER_ID);
+        lagTracker.bindUser(USER_ID + 1);
+
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testPrimaryBindingPinsReads() {
+        lagTracker.bindPrimary();
+        assertEquals("primary", readOnly.execute(status -> role()));
+
+        lagTracker.clear();
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    void testRejectsMissingTargets() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new ReadWriteRoutingDataSource(database("primary"), null, lagTracker));
+        assertThrows(IllegalArgumentException.class, () -> new ReplicaLagTracker(-1, clock));
+    }
+
+    private String role() {
+        return jdbcTemplate.queryForObject("SELECT name FROM db_role", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS db_role (name VARCHAR(20))");
+        setup.update("DELETE FROM db_role");
+        setup.update("INSERT INTO db_role (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.HabitCheckResult;
+import org.example.XpSource;
+import org.example.history.ColumnarHistoryFile;
+import org.example.history.DailyRollupRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the bulk export's parallel scan of the user id space in partitions.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+class BulkExportServiceTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int USERS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testEveryUserIsExportedOnceAcrossPartitions() throws Exception {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(createUserWithHistory("bulk" + i, i));
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO history_daily_rollups (xp_gained, xp_entries, habits_done, habits_missed, goal_notes, "
+            + "goal_points, habit_xp, user_id, date) VALUES (40, 2, 1, 1, 1, 10, 30, ?, ?)",
+            userIds.get(2), TODAY.minusYears(2));
+        // Small partitions so the users are spread over several parallel scans
+        BulkExportService service = new BulkExportService(dataSource, 3, 2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = service.writeColumnarExport(out);
+
+        Map<Long, Integer> checks = new HashMap<>();
+        Map<Long, Integer> notes = new HashMap<>();
+        Map<Long, Integer> xpEvents = new HashMap<>();
+        List<DailyRollupRow> rollups = new ArrayList<>();
+        AtomicInteger rowsRead = new AtomicInteger();
+        int rowGroups = ColumnarHistoryFile.read(new ByteArrayInputStream(out.toByteArray()),
+            new ColumnarHistoryFile.Visitor() {
+                @Override
+                public void onHabitCheck(long userId, LocalDate date, String habitName, HabitCheckResult result) {
+                    checks.merge(userId, 1, Integer::sum);
+                    rowsRead.incrementAndGet();
+                }
+
+                @Override
+                public void onGoalNote(long userId, LocalDate date, String goalTitle, int points, String textNote) {
+                    notes.merge(userId, 1, Integer::sum);
+                    rowsRead.incrementAndGet();
+                }
+
+                @Override
+                public void onXpEvent(long userId, LocalDate date, int xpChange, XpSource source) {
+                    xpEvents.merge(userId, 1, Integer::sum);
+                    rowsRead.incrementAndGet();
+                }
+
+                @Override
+                public void onDailyRollup(DailyRollupRow rollup) {
+                    if (userIds.contains(rollup.userId())) {
+                        rollups.add(rollup);
+                    }
+                    rowsRead.incrementAndGet();
+                }
+            });
+
+        assertEquals(rows, rowsRead.get());
+        assertTrue(rowGroups >= USERS / 2, "Expected several partitions, got " + rowGroups);
+        assertEquals(List.of(new DailyRollupRow(userIds.get(2), TODAY.minusYears(2), 40, 2, 1, 1, 1, 10, 30)),
+            rollups);
+        for (int i = 0; i < USERS; i++) {
+            Long userId = userIds.get(i);
+            assertEquals(i + 1, (int) checks.getOrDefault(userId, 0), "user " + userId);
+            assertEquals(1, (int) notes.getOrDefault(userId, 0), "user " + userId);
+            assertEquals(jdbc.queryForObject("SELECT COUNT(*) FROM xp_history_entries WHERE user_id = ?",
+                Integer.class, userId), xpEvents.get(userId), "user " + userId);
+        }
+    }
+
+    @Test
+    void testFailedPartitionFailsTheExport() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createUserWithHistory("bulkfail" + i, i);
+        }
+        // The user id range query and the first partition's transaction get a connection;
+        // the second partition's transaction does not
+        AtomicInteger connections = new AtomicInteger();
+        DataSource failing = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {DataSource.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection") && connections.incrementAndGet() == 3) {
+                    throw new SQLException("Connection refused");
+                }
+                try {
+                    return method.invoke(dataSource, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        BulkExportService service = new BulkExportService(failing, 1, 1);
+
+        IOException error = assertThrows(IOException.class,
+            () -> service.writeColumnarExport(new ByteArrayOutputStream()));
+        assertTrue(error.getMessage().startsWith("Bulk export partition failed"), error.getMessage());
+    }
+
+    /**
+     * Creates a user with one goal note and as many completed habit checks as {@code checks + 1}.
+     */
+    private long createUserWithHistory(String username, int checks) throws Exception {
+        long userId = postJson("/api/users", Map.of("username", username, "email", username + "@example.com"),
+            status().isCreated()).get("id").asLong();
+        long habitId = postJson("/api/users/" + userId + "/habits", Map.of("name", "Exercise", "difficulty", 2),
+            status().isCreated()).get("id").asLong();
+        long goalId = postJson("/api/users/" + userId + "/goals", Map.of(
+            "title", "Learn Spanish",
+            "startDate", TODAY.minusDays(30).toString(),
+            "targetDate", TODAY.plusMonths(6).toString(),
+            "importance", 3,
+            "totalProgressPoints", 100), status().isCreated()).get("id").asLong();
+        for (int day = checks; day >= 0; day--) {
+            postJson("/api/users/" + userId + "/habits/" + habitId + "/complete?date=" + TODAY.minusDays(day), null,
+                status().isOk());
+        }
+        postJson("/api/users/" + userId + "/goals/" + goalId + "/notes",
+            Map.of("textNote", "Practised", "requestedXp", 5), status().isOk());
+        return userId;
+    }
+
+    private JsonNode postJson(String url, Map<String, Object> body, ResultMatcher expected) throws Exception {
+        String content = mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body != null ? objectMapper.writeValueAsString(body) : ""))
+            .andExpect(expected)
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(content);
+    }
+}
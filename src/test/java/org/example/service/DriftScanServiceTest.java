@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.example.behavior.drift.BehaviorDriftDetector;
+import org.example.behavior.drift.BehaviorSnapshot;
+import org.example.behavior.drift.BehaviorSnapshotCalculator;
+import org.example.behavior.drift.DriftAlert;
+import org.example.behavior.drift.DriftScanCheckpoint;
+import org.example.behavior.drift.DriftScanReport;
+import org.example.behavior.drift.DriftSeverity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the cohort drift scan.
+ */
+class DriftScanServiceTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate SCAN_DATE = START.plusDays(20);
+
+    @TempDir
+    Path dir;
+
+    private BehaviorSnapshotService snapshotService;
+    private Path checkpoint;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(SCAN_DATE.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        snapshotService = new BehaviorSnapshotService(null, new BehaviorSnapshotCalculator(),
+            new BehaviorDriftDetector(), 2, 10, 90, 365, clock);
+        checkpoint = dir.resolve("drift.checkpoint");
+        // Even users collapse sharply before the scan date, odd users stay steady
+        for (long userId = 1; userId <= 10; userId++) {
+            for (int day = 0; day <= 20; day += 2) {
+                boolean collapsed = userId % 2 == 0 && day == 20;
+                snapshotService.recordSnapshot(userId, new BehaviorSnapshot(START.plusDays(day),
+                    collapsed ? 10.0 : 80.0, collapsed ? 20.0 : 80.0, 70.0, collapsed ? 80.0 : 10.0, 2, 70.0));
+            }
+        }
+    }
+
+    private DriftScanService scanService(int usersPerPartition) {
+        return new DriftScanService(snapshotService, checkpoint, 2, usersPerPartition, 100,
+            Clock.systemDefaultZone());
+    }
+
+    @Test
+    void testScanRaisesHighSeverityAlertsPerPartition() throws IOException {
+        DriftScanService scanService = scanService(3);
+
+        DriftScanReport report = scanService.scan(SCAN_DATE);
+
+        assertNull(report.resumedAfterUserId());
+        assertEquals(10, report.usersScanned());
+        assertEquals(5, report.alertsRaised());
+        assertEquals(4, report.partitions().size());
+        assertEquals(1, report.partitions().get(0).firstUserId());
+        assertEquals(10, report.partitions().get(3).lastUserId());
+        assertTrue(report.usersPerSecond() > 0);
+
+        List<DriftAlert> alerts = scanService.pollAlerts(100);
+        assertEquals(List.of(2L, 4L, 6L, 8L, 10L), alerts.stream().map(DriftAlert::userId).sorted().toList());
+        assertTrue(alerts.stream().allMatch(alert -> alert.event().getSeverity() == DriftSeverity.HIGH));
+        assertEquals(0, scanService.getPendingAlertCount());
+
+        DriftScanCheckpoint saved = DriftScanCheckpoint.load(checkpoint);
+        assertEquals(new DriftScanCheckpoint(SCAN_DATE, 10, true), saved);
+
+        // A completed date is not scanned again
+        assertEquals(0, scanService.scan(SCAN_DATE).usersScanned());
+        assertEquals(10, scanService.scan(SCAN_DATE.plusDays(1)).usersScanned());
+    }
+
+    @Test
+    void testScanResumesAfterCheckpoint() throws IOException {
+        new DriftScanCheckpoint(SCAN_DATE, 6, false).save(checkpoint);
+        DriftScanService scanService = scanService(3);
+
+        DriftScanReport report = scanService.scan(SCAN_DATE);
+
+        assertEquals(Long.valueOf(6), report.resumedAfterUserId());
+        assertEquals(4, report.usersScanned());
+        assertEquals(2, report.alertsRaised());
+        assertEquals(7, report.partitions().get(0).firstUserId());
+        assertSame(report, scanService.getLastReport());
+    }
+
+    @Test
+    void testCheckpointFromEarlierDateIsIgnored() throws IOException {
+        new DriftScanCheckpoint(SCAN_DATE.minusDays(1), 8, false).save(checkpoint);
+
+        DriftScanReport report = scanService(4).scan(SCAN_DATE);
+
+        assertNull(report.resumedAfterUserId());
+        assertEquals(10, report.usersScanned());
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.service;
+
+import org.example.*;
+import org.example.persistence.entity.UserEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExportJobService and HTTP byte range handling.
+ */
+class ExportJobServiceTest {
+    private static final Long USER_ID = 1L;
+
+    @TempDir
+    Path spoolDirectory;
+
+    private MutableClock clock;
+    private StubUserService userService;
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T10:00:00Z"));
+        userService = new StubUserService();
+        exportJobService = new ExportJobService(userService, new ExportService(), new AchievementService(),
+            new MilestoneService(), spoolDirectory, 1, 1, Duration.ofMinutes(30), clock);
+        exportJobService.initSpoolDirectory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+    }
+
+    @Test
+    void testCompletedJobWritesCompressedFile() throws Exception {
+        Habit habit = new Habit("Stretch, daily", Difficulty.ONE);
+        userService.getHabitService(USER_ID)
+            .checkHabit(UserStats.createNew(), habit, LocalDate.of(2024, 1, 1), HabitCheckResult.DONE);
+
+        ExportJob job = exportJobService.submit(USER_ID, ExportFormat.CSV);
+        awaitFinished(job);
+
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+        try (ExportJobService.Download download = exportJobService.openDownload(USER_ID, job.getId())) {
+            assertEquals(Files.size(download.getFile()), job.getSizeBytes());
+            assertTrue(readCsv(download).contains("HABIT_CHECK,\"Stretch, daily\",2024-01-01,DONE,Completed"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.getJob(2L, job.getId()));
+    }
+
+    @Test
+    void testExpiredJobFileIsDeleted() throws Exception {
+        ExportJob job = exportJobService.submit(USER_ID, ExportFormat.JSON);
+        awaitFinished(job);
+        Path file = job.getFile();
+
+        clock.advance(Duration.ofMinutes(29));
+        exportJobService.purgeExpiredJobs();
+        assertTrue(Files.exists(file));
+
+        clock.advance(Duration.ofMinutes(2));
+        exportJobService.purgeExpiredJobs();
+        assertFalse(Files.exists(file));
+        assertEquals(ExportJobStatus.EXPIRED, exportJobService.getJob(USER_ID, job.getId()).getStatus());
+        assertThrows(IllegalStateException.class, () -> exportJobService.openDownload(USER_ID, job.getId()));
+
+        clock.advance(Duration.ofMinutes(31));
+        exportJobService.purgeExpiredJobs();
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.getJob(USER_ID, job.getId()));
+    }
+
+    @Test
+    void testFileExpiringDuringDownloadIsDeletedWhenItEnds() throws Exception {
+        ExportJob job = exportJobService.submit(USER_ID, ExportFormat.JSON);
+        awaitFinished(job);
+
+        Path file;
+        try (ExportJobService.Download download = exportJobService.openDownload(USER_ID, job.getId())) {
+            file = download.getFile();
+            clock.advance(Duration.ofMinutes(31));
+            exportJobService.purgeExpiredJobs();
+
+            assertEquals(ExportJobStatus.EXPIRED, job.getStatus());
+            assertTrue(Files.exists(file));
+            assertThrows(IllegalStateException.class, () -> exportJobService.openDownload(USER_ID, job.getId()));
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testJobExportsHistoryAsSubmitted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AchievementService blockingAchievements = new AchievementService() {
+            @Override
+            public List<Achievement> getAchievements(Long userId, UserStats userStats, HabitService habitService,
+                                                     GoalService goalService) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        };
+        ExportJobService service = new ExportJobService(userService, new ExportService(), blockingAchievements,
+            new MilestoneService(), spoolDirectory, 1, 1, Duration.ofMinutes(30), clock);
+        try {
+            Habit habit = new Habit("Stretch", Difficulty.ONE);
+            HabitService habitService = userService.getHabitService(USER_ID);
+            habitService.checkHabit(UserStats.createNew(), habit, LocalDate.of(2024, 1, 1), HabitCheckResult.DONE);
+            // Occupies the only worker, so the CSV job waits in the queue
+            ExportJob blocker = service.submit(USER_ID, ExportFormat.JSON);
+            ExportJob job = service.submit(USER_ID, ExportFormat.CSV);
+            habitService.checkHabit(UserStats.createNew(), habit, LocalDate.of(2024, 1, 2), HabitCheckResult.DONE);
+            release.countDown();
+            awaitFinished(blocker);
+            awaitFinished(job);
+
+            try (ExportJobService.Download download = service.openDownload(USER_ID, job.getId())) {
+                String csv = readCsv(download);
+                assertTrue(csv.contains("2024-01-01"));
+                assertFalse(csv.contains("2024-01-02"));
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testByteRangeParsing() {
+        assertEquals(new ByteRange(0, 499, 1000), ByteRange.parse("bytes=0-499", 1000));
+        assertEquals(new ByteRange(500, 999, 1000), ByteRange.parse("bytes=500-", 1000));
+        assertEquals(new ByteRange(900, 999, 1000), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(new ByteRange(0, 999, 1000), ByteRange.parse("bytes=-5000", 1000));
+        assertEquals(new ByteRange(10, 999, 1000), ByteRange.parse("bytes=10-5000", 1000));
+        assertEquals("bytes 10-999/1000", ByteRange.parse("bytes=10-", 1000).toContentRange());
+
+        assertFalse(ByteRange.parse("bytes=1000-", 1000).isSatisfiable());
+        assertEquals("bytes */1000", ByteRange.parse("bytes=1000-", 1000).toContentRange());
+
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("bytes=9-3", 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+    }
+
+    private static String readCsv(ExportJobService.Download download) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(download.getFile()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void awaitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.getStatus() == ExportJobStatus.QUEUED || job.getStatus() == ExportJobStatus.RUNNING) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Export job did not finish in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static class StubUserService extends UserService {
+        StubUserService() {
+            super(null, null);
+        }
+
+        @Override
+        public UserEntity getUser(Long userId) {
+            return new UserEntity("user" + userId, "user" + userId + "@example.com");
+        }
+
+        @Override
+        public UserStats getUserStats(Long userId) {
+            return UserStats.createNew();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
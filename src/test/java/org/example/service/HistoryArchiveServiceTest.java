@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.example.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HistoryArchiveService.
+ */
+class HistoryArchiveServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void testArchivesDaysOlderThanConfiguredAge() {
+        UserService userService = new UserService(null, null);
+        HabitService habitService = userService.getHabitService(USER_ID);
+        Habit habit = new Habit("Read", Difficulty.TWO);
+        UserStats stats = UserStats.createNew();
+        for (LocalDate day = TODAY.minusDays(40); !day.isAfter(TODAY); day = day.plusDays(1)) {
+            stats = habitService.checkHabit(stats, habit, day, HabitCheckResult.DONE).userStats();
+        }
+        HistoryArchiveService archiveService = new HistoryArchiveService(userService, 30,
+            Clock.fixed(Instant.parse("2024-03-01T02:00:00Z"), ZoneOffset.UTC));
+
+        assertEquals(10, archiveService.archiveOldHistory());
+        assertEquals(0, archiveService.archiveOldHistory());
+        assertEquals(10, habitService.getArchivedDayCount());
+        assertEquals(41, habitService.getAllHabitChecks().size());
+    }
+
+    @Test
+    void testArchiveWaitsForUserLock() throws Exception {
+        UserService userService = new UserService(null, null);
+        HabitService habitService = userService.getHabitService(USER_ID);
+        Habit habit = new Habit("Read", Difficulty.TWO);
+        UserStats stats = UserStats.createNew();
+        for (LocalDate day = TODAY.minusDays(40); !day.isAfter(TODAY); day = day.plusDays(1)) {
+            stats = habitService.checkHabit(stats, habit, day, HabitCheckResult.DONE).userStats();
+        }
+        HistoryArchiveService archiveService = new HistoryArchiveService(userService, 30,
+            Clock.fixed(Instant.parse("2024-03-01T02:00:00Z"), ZoneOffset.UTC));
+
+        CompletableFuture<Integer> archived = userService.withUserLock(USER_ID, () -> {
+            // A request holding the lock mid-check keeps the archive from touching the user
+            CompletableFuture<Integer> run = CompletableFuture.supplyAsync(archiveService::archiveOldHistory);
+            assertThrows(TimeoutException.class, () -> run.get(200, TimeUnit.MILLISECONDS));
+            assertEquals(0, habitService.getArchivedDayCount());
+            return run;
+        });
+
+        assertEquals(10, (int) archived.get(5, TimeUnit.SECONDS));
+        assertEquals(10, habitService.getArchivedDayCount());
+    }
+
+    @Test
+    void testRejectsNonPositiveAge() {
+        assertThrows(IllegalArgumentException.class, () -> new HistoryArchiveService(new UserService(null, null), 0));
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.example.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NotificationDeliveryService.
+ */
+class NotificationDeliveryServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private UserService userService;
+    private NotificationService notificationService;
+    private NotificationDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(null, null);
+        notificationService = new NotificationService();
+        deliveryService = new NotificationDeliveryService(notificationService, new AnalyticsService(),
+            Clock.fixed(Instant.parse("2024-03-01T12:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testReadingEmptyInboxDoesNotCreateIt() {
+        assertTrue(notificationService.getNotifications(USER_ID).isEmpty());
+        assertEquals(0, notificationService.getUnreadCount(USER_ID));
+        assertFalse(notificationService.hasInbox(USER_ID));
+    }
+
+    @Test
+    void testHabitCheckDeliversLevelUpOnce() {
+        UserStats before = new UserStats(950, 4);
+        HabitService.CheckResult result = userService.getHabitService(USER_ID).checkHabit(before,
+            new Habit("Read", Difficulty.FIVE), TODAY, HabitCheckResult.DONE);
+        HabitCheck check = new HabitCheck(new Habit("Read", Difficulty.FIVE), TODAY, HabitCheckResult.DONE);
+        UserStats after = new UserStats(1000, 5);
+
+        deliveryService.onHabitChecked(new HabitChecked(USER_ID, "alice", check, result.transaction(), before, after,
+            userService.getHabitService(USER_ID)));
+
+        List<Notification> inbox = notificationService.getNotifications(USER_ID);
+        assertEquals(1, inbox.size());
+        assertEquals(NotificationType.LEVEL_UP, inbox.get(0).type());
+
+        // A later check on the same day does not deliver the same notification again
+        deliveryService.onHabitChecked(new HabitChecked(USER_ID, "alice", check, result.transaction(), after, after,
+            userService.getHabitService(USER_ID)));
+        assertEquals(1, notificationService.getUnreadCount(USER_ID));
+    }
+
+    @Test
+    void testHabitCheckWarnsAboutTheCheckedHabitsRun() {
+        HabitService habitService = userService.getHabitService(USER_ID);
+        Habit read = new Habit("Read", Difficulty.ONE);
+        Habit run = new Habit("Run", Difficulty.ONE);
+        UserStats stats = UserStats.createNew();
+        for (int day = 4; day >= 1; day--) {
+            stats = habitService.checkHabit(stats, run, TODAY.minusDays(day), HabitCheckResult.DONE).userStats();
+        }
+        stats = habitService.checkHabit(stats, read, TODAY.minusDays(2), HabitCheckResult.MISSED).userStats();
+        stats = habitService.checkHabit(stats, read, TODAY.minusDays(1), HabitCheckResult.DONE).userStats();
+        HabitService.CheckResult result = habitService.checkHabit(stats, read, TODAY, HabitCheckResult.DONE);
+
+        // Read's run started yesterday, after a miss, so only a check of Run warns
+        deliveryService.onHabitChecked(new HabitChecked(USER_ID, "alice",
+            new HabitCheck(read, TODAY, HabitCheckResult.DONE), result.transaction(), stats, stats, habitService));
+        assertTrue(notificationService.getNotifications(USER_ID).isEmpty());
+
+        HabitService.CheckResult missed = habitService.checkHabit(result.userStats(), run, TODAY.minusDays(5),
+            HabitCheckResult.MISSED);
+        deliveryService.onHabitChecked(new HabitChecked(USER_ID, "alice",
+            new HabitCheck(run, TODAY.minusDays(5), HabitCheckResult.MISSED), missed.transaction(),
+            result.userStats(), result.userStats(), habitService));
+        List<Notification> inbox = notificationService.getNotifications(USER_ID);
+        assertEquals(1, inbox.size());
+        assertEquals(NotificationType.STREAK_WARNING, inbox.get(0).type());
+        assertTrue(inbox.get(0).message().contains("'Run'"), inbox.get(0).message());
+        assertTrue(inbox.get(0).message().contains("4-day"), inbox.get(0).message());
+    }
+
+    @Test
+    void testGoalNoteDeliversIntoInbox() {
+        UserStats stats = new UserStats(998, 4);
+        GoalService goalService = userService.getGoalService(USER_ID);
+        Goal goal = new Goal("Run a 10k", null, TODAY.minusDays(10), TODAY.plusMonths(2), 3, 50);
+        goalService.addGoal(goal);
+        GoalService.NoteResult result = goalService.addGoalNote(stats, goal, TODAY, "Ran 5k", 5,
+            userService.getHabitService(USER_ID));
+
+        deliveryService.onGoalNoteAdded(new GoalNoteAdded(USER_ID, "alice", result.note(), result.transaction(),
+            stats, result.userStats(), goalService));
+
+        assertTrue(notificationService.getNotifications(USER_ID).stream()
+            .anyMatch(n -> n.type() == NotificationType.LEVEL_UP));
+    }
+}
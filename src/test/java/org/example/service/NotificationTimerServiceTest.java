@@ -0,0 +1,223 @@
+package org.example.service;
+
+import org.example.*;
+import org.example.persistence.entity.HabitEntity;
+import org.example.persistence.projection.GoalDeadline;
+import org.example.persistence.projection.HabitSummary;
+import org.example.persistence.repository.HabitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NotificationTimerService.
+ */
+class NotificationTimerServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final Long OTHER_USER_ID = 2L;
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private UserService userService;
+    private NotificationService notificationService;
+    private NotificationTimerService timerService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-03-01T08:00:00Z"));
+        userService = new UserService(null, null);
+        notificationService = new NotificationService();
+        timerService = newTimerService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timerService.close();
+    }
+
+    @Test
+    void testHabitReminderFiresDailyAtReminderTime() {
+        timerService.scheduleHabitReminders(USER_ID, reminderPreferences(LocalTime.of(9, 0)));
+        assertEquals(1, timerService.getPendingTimerCount());
+
+        clock.advance(Duration.ofMinutes(59));
+        assertEquals(0, timerService.fireDueTimers());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, timerService.fireDueTimers());
+        List<Notification> inbox = notificationService.getInbox(USER_ID).getNotifications();
+        assertEquals(NotificationType.HABIT_REMINDER, inbox.get(0).type());
+        assertEquals(1, timerService.getPendingTimerCount());
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(1, timerService.fireDueTimers());
+        assertEquals(2, notificationService.getUnreadCount(USER_ID));
+    }
+
+    @Test
+    void testCancelledReminderDoesNotFire() {
+        timerService.scheduleHabitReminders(USER_ID, reminderPreferences(LocalTime.of(9, 0)));
+        assertTrue(timerService.cancelHabitReminders(USER_ID));
+        assertFalse(timerService.cancelHabitReminders(USER_ID));
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(0, timerService.fireDueTimers());
+        assertEquals(0, timerService.getPendingTimerCount());
+    }
+
+    @Test
+    void testGoalDeadlineWarnsDuringLastWeek() {
+        Goal goal = new Goal("Run a 10k", null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 10), 3, 50);
+        timerService.scheduleGoalDeadline(USER_ID, goal);
+
+        int delivered = 0;
+        for (int hour = 0; hour < 12 * 24; hour++) {
+            clock.advance(Duration.ofHours(1));
+            delivered += timerService.fireDueTimers();
+        }
+
+        // 2024-03-03 through 2024-03-09
+        assertEquals(7, delivered);
+        assertEquals(0, timerService.getPendingTimerCount());
+        assertTrue(notificationService.getInbox(USER_ID).getNotifications().stream()
+            .anyMatch(n -> n.message().equals("'Run a 10k' deadline is in 1 day")));
+    }
+
+    @Test
+    void testTimersSurviveRestart() {
+        timerService.scheduleHabitReminders(USER_ID, reminderPreferences(LocalTime.of(20, 0)));
+        timerService.close();
+
+        timerService = newTimerService();
+        assertEquals(1, timerService.getPendingTimerCount());
+        clock.advance(Duration.ofHours(12));
+        assertEquals(1, timerService.fireDueTimers());
+    }
+
+    @Test
+    void testMissedOccurrenceFromEarlierDayIsSkipped() {
+        timerService.scheduleHabitReminders(USER_ID, reminderPreferences(LocalTime.of(9, 0)));
+        timerService.close();
+
+        clock.advance(Duration.ofDays(3));
+        timerService = newTimerService();
+        assertEquals(0, timerService.fireDueTimers());
+        assertEquals(1, timerService.getPendingTimerCount());
+    }
+
+    @Test
+    void testStoredGoalsWithoutTimerAreScheduled() {
+        timerService.scheduleGoalDeadline(USER_ID, new Goal("Run a 10k", null, LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 3, 10), 3, 50));
+
+        int scheduled = timerService.scheduleMissingGoalDeadlines(List.of(
+            new GoalDeadline(USER_ID, "Run a 10k", LocalDate.of(2024, 3, 10)),
+            new GoalDeadline(USER_ID, "Read 12 books", LocalDate.of(2024, 6, 1)),
+            new GoalDeadline(USER_ID, "Read 12 books", LocalDate.of(2024, 3, 5)),
+            new GoalDeadline(2L, "Learn Spanish", LocalDate.of(2024, 4, 1))));
+
+        assertEquals(2, scheduled);
+        assertEquals(3, timerService.getPendingTimerCount());
+        assertEquals(0, timerService.scheduleMissingGoalDeadlines(
+            List.of(new GoalDeadline(USER_ID, "Read 12 books", LocalDate.of(2024, 6, 1)))));
+    }
+
+    @Test
+    void testPreferenceChangeReschedulesDeadlineWarnings() {
+        timerService.scheduleGoalDeadline(USER_ID, new Goal("Run a 10k", null, LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 3, 5), 3, 50));
+        // Today's warning is due at the default reminder time, 09:00
+        assertEquals(0, timerService.fireDueTimers());
+
+        timerService.updatePreferences(USER_ID, reminderPreferences(LocalTime.of(7, 0)));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, timerService.fireDueTimers());
+        assertEquals(NotificationType.GOAL_DEADLINE,
+            notificationService.getInbox(USER_ID).getNotifications().get(0).type());
+        // Tomorrow's habit reminder and deadline warning
+        assertEquals(2, timerService.getPendingTimerCount());
+    }
+
+    @Test
+    void testReminderListsStoredHabitsWithoutLoadingHistory() {
+        timerService.scheduleHabitReminders(OTHER_USER_ID, reminderPreferences(LocalTime.of(9, 0)));
+
+        clock.advance(Duration.ofHours(1));
+        assertEquals(2, timerService.fireDueTimers());
+
+        // Neither habit was ever checked, and the user's history stays unloaded
+        List<Notification> inbox = notificationService.getInbox(OTHER_USER_ID).getNotifications();
+        assertEquals(2, inbox.size());
+        assertTrue(inbox.stream().allMatch(reminder -> reminder.type() == NotificationType.HABIT_REMINDER));
+        assertFalse(userService.isUserLoaded(OTHER_USER_ID));
+        assertEquals(1, timerService.getPendingTimerCount());
+    }
+
+    private NotificationTimerService newTimerService() {
+        NotificationTimerService service = new NotificationTimerService(userService, notificationService,
+            storedHabits(), directory.resolve("timers.journal"), 1000, clock);
+        service.loadTimers();
+        return service;
+    }
+
+    private static HabitRepository storedHabits() {
+        Map<Long, List<HabitSummary>> habits = Map.of(
+            USER_ID, List.of(new HabitSummary(1L, "Read", HabitEntity.DifficultyEnum.ONE)),
+            OTHER_USER_ID, List.of(new HabitSummary(2L, "Run", HabitEntity.DifficultyEnum.THREE),
+                new HabitSummary(3L, "Stretch", HabitEntity.DifficultyEnum.ONE)));
+        return (HabitRepository) Proxy.newProxyInstance(HabitRepository.class.getClassLoader(),
+            new Class<?>[] {HabitRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "findSummariesByUserId" -> habits.getOrDefault((Long) args[0], List.of());
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static UserPreferences reminderPreferences(LocalTime reminderTime) {
+        return new UserPreferences(true, false, reminderTime, "UTC", true, false, "light");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.service;
+
+import org.example.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserEventStreamService.
+ */
+class UserEventStreamServiceTest {
+    private static final Long USER_ID = 1L;
+
+    private final NotificationService notificationService = new NotificationService();
+    private final List<Runnable> pendingSends = new ArrayList<>();
+
+    @Test
+    void testDeliveredNotificationIsPushed() {
+        UserEventStreamService streams = new UserEventStreamService(notificationService, Runnable::run, 8, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.subscribe(USER_ID, emitter);
+        assertEquals(1, emitter.sent);
+
+        notificationService.deliver(USER_ID, "key", notification());
+        notificationService.deliver(2L, "key", notification());
+
+        // Notification plus the updated unread count; other users' notifications are not pushed
+        assertEquals(3, emitter.sent);
+    }
+
+    @Test
+    void testXpUpdateWithLevelUp() {
+        UserEventStreamService streams = new UserEventStreamService(notificationService, Runnable::run, 8, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.subscribe(USER_ID, emitter);
+
+        UserStats before = UserStats.createNew();
+        UserStats after = new UserStats(before.getTotalXp() + 1000, before.getLevel() + 1);
+        streams.publishXpUpdate(USER_ID, before, new XpTransaction(1000, "Big day"), after);
+
+        assertEquals(3, emitter.sent);
+    }
+
+    @Test
+    void testSlowConsumerIsDropped() {
+        UserEventStreamService streams = new UserEventStreamService(notificationService, pendingSends::add, 4, 0);
+        RecordingEmitter slow = new RecordingEmitter();
+        streams.subscribe(USER_ID, slow);
+
+        // The sender never runs, so the buffer fills up
+        for (int i = 0; i < 4; i++) {
+            streams.sendHeartbeats();
+        }
+
+        assertTrue(slow.completed);
+        assertEquals(0, streams.getSubscriberCount());
+        assertEquals(1, streams.getDroppedSubscriptionCount());
+        assertEquals(1, pendingSends.size());
+    }
+
+    @Test
+    void testFailedSendClosesStream() {
+        UserEventStreamService streams = new UserEventStreamService(notificationService, Runnable::run, 8, 0);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+        streams.subscribe(USER_ID, emitter);
+
+        assertTrue(emitter.completed);
+        assertEquals(0, streams.getSubscriberCount());
+    }
+
+    private static Notification notification() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 9, 0);
+        return new Notification(null, NotificationType.MOTIVATIONAL, "Great Job!", "Keep it up", now, now, false,
+            "/dashboard");
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private int sent;
+        private boolean failing;
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            sent++;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
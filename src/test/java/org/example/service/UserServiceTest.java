@@ -0,0 +1,144 @@
+package org.example.service;
+
+import org.example.*;
+import org.example.persistence.routing.ReplicaLagTracker;
+import org.example.service.UserHistoryLoader.UserHistory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserService's in-memory habit and goal services.
+ */
+class UserServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void testFirstAccessLoadsPersistedHistory() {
+        CountingLoader loader = new CountingLoader();
+        UserService userService = newUserService(loader);
+
+        HabitService habitService = userService.getHabitService(USER_ID);
+
+        assertEquals(DAY, habitService.getLastActivityDate());
+        assertSame(habitService, userService.getHabitService(USER_ID));
+        assertNotNull(userService.getGoalService(USER_ID).getGoal("Run a marathon"));
+        assertEquals(1, loader.loads.get());
+        assertEquals(1, userService.getCachedUserCount());
+    }
+
+    @Test
+    void testConcurrentFirstAccessesShareOneLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader() {
+            @Override
+            public UserHistory load(Long userId) {
+                loadStarted.countDown();
+                try {
+                    releaseLoad.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.load(userId);
+            }
+        };
+        UserService userService = newUserService(loader);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<HabitService>> results = new ArrayList<>();
+            results.add(executor.submit(() -> userService.getHabitService(USER_ID)));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> userService.getHabitService(USER_ID)));
+            }
+            releaseLoad.countDown();
+
+            HabitService first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<HabitService> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loader.loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedLoadIsRetriedOnNextAccess() {
+        CountingLoader loader = new CountingLoader() {
+            @Override
+            public UserHistory load(Long userId) {
+                if (loads.get() == 0) {
+                    loads.incrementAndGet();
+                    throw new IllegalStateException("Database unavailable");
+                }
+                return super.load(userId);
+            }
+        };
+        UserService userService = newUserService(loader);
+
+        assertThrows(IllegalStateException.class, () -> userService.getHabitService(USER_ID));
+        assertEquals(0, userService.getCachedUserCount());
+
+        assertEquals(DAY, userService.getHabitService(USER_ID).getLastActivityDate());
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    void testWarmUpLoadsOnlyUsersNotHeld() {
+        CountingLoader loader = new CountingLoader();
+        UserService userService = newUserService(loader);
+
+        assertTrue(userService.warmUp(USER_ID));
+        assertFalse(userService.warmUp(USER_ID));
+        userService.getGoalService(USER_ID);
+
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    void testWithoutLoaderUsersStartEmpty() {
+        UserService userService = new UserService(null, null);
+
+        assertNull(userService.getHabitService(USER_ID).getLastActivityDate());
+        assertTrue(userService.getGoalService(USER_ID).getAllGoals().isEmpty());
+    }
+
+    private static UserService newUserService(UserHistoryLoader loader) {
+        return new UserService(null, null, new ReplicaLagTracker(0), loader);
+    }
+
+    /**
+     * Loader that returns a fixed history and counts its loads.
+     */
+    private static class CountingLoader extends UserHistoryLoader {
+        final AtomicInteger loads = new AtomicInteger();
+
+        CountingLoader() {
+            super(null, null, null, null, null, 30);
+        }
+
+        @Override
+        public UserHistory load(Long userId) {
+            loads.incrementAndGet();
+            Goal goal = new Goal("Run a marathon", null, DAY, DAY.plusMonths(6), 5, 100);
+            HabitService habitService = new HabitService();
+            habitService.restoreActivityLog(DailyActivityLog.empty(DAY).addXp(10));
+            GoalService goalService = new GoalService();
+            goalService.restoreGoalNote(new GoalNote(goal, DAY, "Ran 5k", 10));
+            return new UserHistory(habitService, goalService);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel.
+ */
+class TimingWheelTest {
+    private static final long TICK = 1000;
+
+    @Test
+    void testTimersFireAtTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule(5_000, "five");
+        wheel.schedule(70_000, "seventy");
+        wheel.schedule(5_000_000, "far");
+
+        assertEquals(List.of(), wheel.advanceTo(4_999));
+        assertEquals(List.of("five"), wheel.advanceTo(5_000));
+        assertEquals(List.of(), wheel.advanceTo(69_999));
+        assertEquals(List.of("seventy"), wheel.advanceTo(70_500));
+        assertEquals(List.of("far"), wheel.advanceTo(5_000_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 100_000);
+        wheel.schedule(1_000, "late");
+        assertEquals(List.of("late"), wheel.advanceTo(100_000));
+    }
+
+    @Test
+    void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        TimingWheel.Timeout<String> kept = wheel.schedule(300_000, "kept");
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(300_000, "cancelled");
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(cancelled.isPending());
+        assertEquals(1, wheel.size());
+
+        assertEquals(List.of("kept"), wheel.advanceTo(300_000));
+        assertFalse(kept.isPending());
+        assertFalse(wheel.cancel(kept));
+    }
+
+    @Test
+    void testRandomTimersFireExactlyOnceAndNeverEarly() {
+        Random random = new Random(42);
+        long start = 1_700_000_123_456L;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, start);
+        Set<Long> cancelled = new HashSet<>();
+        List<TimingWheel.Timeout<Long>> timeouts = new ArrayList<>();
+        // Spread over every level and the overflow list (64^4 ticks is about 194 days)
+        for (int i = 0; i < 20_000; i++) {
+            long deadline = start + (long) (random.nextDouble() * random.nextDouble() * 400L * 24 * 3600 * 1000);
+            timeouts.add(wheel.schedule(deadline, deadline));
+        }
+        for (int i = 0; i < timeouts.size(); i += 7) {
+            wheel.cancel(timeouts.get(i));
+            cancelled.add(timeouts.get(i).getPayload());
+        }
+
+        int fired = 0;
+        long now = start;
+        long end = start + 401L * 24 * 3600 * 1000;
+        while (now < end) {
+            now += 1 + (long) random.nextInt(6 * 3600 * 1000);
+            for (long deadline : wheel.advanceTo(now)) {
+                assertTrue(deadline <= now, "Timer fired early");
+                assertTrue(deadline > now - 6L * 3600 * 1000 - TICK, "Timer fired late");
+                assertFalse(cancelled.contains(deadline), "Cancelled timer fired");
+                fired++;
+            }
+        }
+        assertEquals(timeouts.size() - (timeouts.size() + 6) / 7, fired);
+        assertEquals(0, wheel.size());
+    }
+}